@@ -0,0 +1,78 @@
+package net.jodah.lyra.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.config.AckCoalescingPolicy;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.util.Duration;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * Measures the throughput of in-order individual acks and the number of basicAck frames sent per
+ * ack, with and without an {@link AckCoalescingPolicy}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AckCoalescingBenchmark {
+  /** The max number of acks that are coalesced, or 0 if acks are not coalesced */
+  @Param({ "0", "10", "100" })
+  public int maxAcks;
+
+  private StubChannel channel;
+  private ChannelHandler channelHandler;
+  private long deliveryTag;
+
+  /** Reports the number of acks and of basicAck frames sent for them per iteration. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Frames {
+    public long acks;
+    public long ackFrames;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      acks = 0;
+      ackFrames = 0;
+    }
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    Config config = new Config();
+    if (maxAcks > 0)
+      config.withAckCoalescing(new AckCoalescingPolicy().withMaxAcks(maxAcks).withMaxDelay(
+          Duration.minutes(1)));
+    ConnectionHandler connectionHandler = new ConnectionHandler(new ConnectionOptions(), config,
+        Channel.class.getClassLoader());
+    channel = new StubChannel(1);
+    channelHandler = new ChannelHandler(connectionHandler, channel, new Config(config));
+  }
+
+  @Benchmark
+  public void basicAck(Frames frames) throws Exception {
+    long framesBefore = channel.ackFrames;
+    channelHandler.basicAck(++deliveryTag, false);
+    frames.acks++;
+    frames.ackFrames += channel.ackFrames - framesBefore;
+  }
+}
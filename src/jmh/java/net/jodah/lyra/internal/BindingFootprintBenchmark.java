@@ -0,0 +1,74 @@
+package net.jodah.lyra.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the heap retained per binding by a {@link BindingRegistry} holding 100k bindings whose
+ * names, routing keys and argument maps are created per bind, as when they are built by an
+ * application, rather than shared. Bindings are spread across 1000 queues and 100 exchanges with
+ * 1000 distinct routing keys. The footprint is reported by the {@code bytesPerBinding} counter of
+ * a single measurement iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g", "-XX:+UseG1GC" })
+public class BindingFootprintBenchmark {
+  @Param({ "100000" })
+  public int bindings;
+  /** Whether each binding has an argument map */
+  @Param({ "false", "true" })
+  public boolean arguments;
+
+  private static BindingRegistry registry;
+
+  /** Reports the heap retained per binding. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+    public long bytesPerBinding;
+  }
+
+  @Benchmark
+  public void registerBindings(Footprint footprint) {
+    // Releases the previous invocation's registry before measuring
+    BindingFootprintBenchmark.registry = null;
+    long before = usedHeap();
+    BindingRegistry registry = new BindingRegistry();
+    for (int i = 0; i < bindings; i++)
+      registry.add(new Binding("queue-" + (i % 1000), "exchange-" + (i % 100), "orders.key-"
+          + (i / 100 % 1000), arguments ? arguments() : null));
+    footprint.bytesPerBinding = (usedHeap() - before) / bindings;
+    BindingFootprintBenchmark.registry = registry;
+  }
+
+  private static Map<String, Object> arguments() {
+    Map<String, Object> arguments = new HashMap<String, Object>();
+    arguments.put("x-match", "all");
+    arguments.put("region", "emea");
+    return arguments;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++)
+      System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
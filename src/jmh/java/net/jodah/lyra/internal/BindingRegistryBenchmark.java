@@ -0,0 +1,96 @@
+package net.jodah.lyra.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jodah.lyra.internal.util.ArrayListMultiMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures binding churn and lookups of the bindings from an exchange against a
+ * {@link BindingRegistry} and, as a baseline, an {@link ArrayListMultiMap} keyed by destination,
+ * each holding 100k bindings spread across a number of destinations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class BindingRegistryBenchmark {
+  private static final int SOURCES = 100;
+
+  @Param({ "100000" })
+  public int bindings;
+  /** The number of destinations that bindings are spread across */
+  @Param({ "1", "1000" })
+  public int destinations;
+
+  private final BindingRegistry registry = new BindingRegistry();
+  private final ArrayListMultiMap<String, Binding> multiMap = new ArrayListMultiMap<String, Binding>();
+  private final AtomicInteger threadCounter = new AtomicInteger();
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    Binding binding;
+
+    @Setup
+    public void setup(BindingRegistryBenchmark benchmark) {
+      binding = new Binding("queue-0", "exchange-0", "thread-"
+          + benchmark.threadCounter.incrementAndGet(), null);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < bindings; i++) {
+      Binding binding = new Binding("queue-" + (i % destinations), "exchange-" + (i % SOURCES),
+          "key-" + i, null);
+      registry.add(binding);
+      multiMap.put(binding.destination, binding);
+    }
+  }
+
+  @Benchmark
+  public boolean registryBindUnbind(ThreadState state) {
+    registry.add(state.binding);
+    return registry.remove(state.binding);
+  }
+
+  @Benchmark
+  public boolean multiMapBindUnbind(ThreadState state) {
+    multiMap.put(state.binding.destination, state.binding);
+    return multiMap.remove(state.binding.destination, state.binding);
+  }
+
+  @Benchmark
+  public int registryBindingsFromExchange() {
+    int count = 0;
+    for (Binding binding : registry.getBySource("exchange-1"))
+      if (binding.routingKey != null)
+        count++;
+    return count;
+  }
+
+  @Benchmark
+  public int multiMapBindingsFromExchange() {
+    int count = 0;
+    for (Binding binding : multiMap.values())
+      if ("exchange-1".equals(binding.source))
+        count++;
+    return count;
+  }
+}
@@ -0,0 +1,99 @@
+package net.jodah.lyra.internal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.MessageProperties;
+
+/**
+ * Compares dispatching hot channel methods through the {@link ChannelMethod} table, either via a
+ * dynamic proxy or a {@link ChannelWrapper}, against performing them via a retrying, reflective
+ * {@code Invocation}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelDispatchBenchmark {
+  private static final byte[] BODY = new byte[64];
+  private static final BasicProperties PROPS = MessageProperties.BASIC;
+
+  private ChannelHandler channelHandler;
+  private Channel proxy;
+  private Channel wrapper;
+  private Method basicPublish;
+  private Method basicAck;
+  private Object[] publishArgs;
+  private Object[] ackArgs;
+
+  @Setup
+  public void setup() throws Exception {
+    Config config = new Config().withRetryPolicy(RetryPolicies.retryAlways()).withRecoveryPolicy(
+        RecoveryPolicies.recoverAlways());
+    ConnectionHandler connectionHandler = new ConnectionHandler(new ConnectionOptions(), config,
+        Channel.class.getClassLoader());
+    channelHandler = new ChannelHandler(connectionHandler, new StubChannel(1), new Config(config));
+    proxy = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(),
+        new Class<?>[] { ConfigurableChannel.class }, channelHandler);
+    channelHandler.proxy = proxy;
+    wrapper = new ChannelWrapper(channelHandler);
+
+    basicPublish = Channel.class.getMethod("basicPublish", String.class, String.class,
+        BasicProperties.class, byte[].class);
+    basicAck = Channel.class.getMethod("basicAck", long.class, boolean.class);
+    publishArgs = new Object[] { "exchange", "routing.key", PROPS, BODY };
+    ackArgs = new Object[] { 1L, false };
+  }
+
+  @Benchmark
+  public void basicPublishDispatched() throws Exception {
+    proxy.basicPublish("exchange", "routing.key", PROPS, BODY);
+  }
+
+  @Benchmark
+  public void basicPublishWrapped() throws Exception {
+    wrapper.basicPublish("exchange", "routing.key", PROPS, BODY);
+  }
+
+  @Benchmark
+  public Object basicPublishReflective() throws Exception {
+    return channelHandler.invokeWithRetries(ChannelMethod.BASIC_PUBLISH, basicPublish, publishArgs);
+  }
+
+  @Benchmark
+  public void basicAckDispatched() throws Exception {
+    proxy.basicAck(1L, false);
+  }
+
+  @Benchmark
+  public void basicAckWrapped() throws Exception {
+    wrapper.basicAck(1L, false);
+  }
+
+  @Benchmark
+  public Object basicAckReflective() throws Exception {
+    return channelHandler.invokeWithRetries(ChannelMethod.BASIC_ACK, basicAck, ackArgs);
+  }
+}
@@ -0,0 +1,156 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jodah.lyra.ConnectionGroup;
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.ConfigurableConnection;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.MessageProperties;
+
+/**
+ * Measures publish throughput from 8 threads, each with its own channel, as the number of
+ * connections in a {@link ConnectionGroup} grows. Connections are stand-ins for a local broker
+ * that serialize publishes per connection, as a connection's single socket and frame writer do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ConnectionGroupBenchmark {
+  private static final byte[] BODY = new byte[64];
+  private static final BasicProperties PROPS = MessageProperties.BASIC;
+  /** CPU work per frame write, performed while holding the connection's writer */
+  private static final long FRAME_WRITE_TOKENS = 100;
+
+  @Param({ "1", "2", "4", "8" })
+  public int shards;
+
+  private ConnectionGroup group;
+
+  /**
+   * A stub channel whose publishes are serialized through its connection's frame writer.
+   */
+  static class FramedStubChannel extends StubChannel {
+    private final Object writer;
+
+    FramedStubChannel(int channelNumber, Object writer) {
+      super(channelNumber);
+      this.writer = writer;
+    }
+
+    @Override
+    public void basicPublish(String exchange, String routingKey, BasicProperties props, byte[] body)
+        throws IOException {
+      synchronized (writer) {
+        Blackhole.consumeCPU(FRAME_WRITE_TOKENS);
+      }
+    }
+  }
+
+  /**
+   * A connection stand-in that creates channels sharing one frame writer.
+   */
+  static class StubConnection implements InvocationHandler {
+    private final Object writer = new Object();
+    private final AtomicInteger channelNumbers = new AtomicInteger();
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if ("createChannel".equals(name))
+        return new FramedStubChannel(channelNumbers.incrementAndGet(), writer);
+      if ("getAddress".equals(name))
+        return InetAddress.getByAddress(new byte[] { 127, 0, 0, 1 });
+      if ("getPort".equals(name))
+        return 5672;
+      if ("isOpen".equals(name))
+        return true;
+      if ("toString".equals(name))
+        return "stub-connection";
+      return null;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    Channel channel;
+
+    @Setup
+    public void setup(ConnectionGroupBenchmark benchmark) throws IOException {
+      channel = benchmark.group.createChannel();
+    }
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    ConnectionFactory connectionFactory = new ConnectionFactory() {
+      @Override
+      public Connection newConnection(ExecutorService executor, Address[] addrs,
+          String clientProvidedName) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class }, new StubConnection());
+      }
+    };
+    connectionFactory.setAutomaticRecoveryEnabled(false);
+    ConnectionOptions options = new ConnectionOptions(connectionFactory);
+    Config config = new Config().withRetryPolicy(RetryPolicies.retryAlways()).withRecoveryPolicy(
+        RecoveryPolicies.recoverAlways());
+
+    // Connections are created directly since Connections.createGroup copies the connection factory
+    List<ConfigurableConnection> connections = new ArrayList<ConfigurableConnection>();
+    for (int i = 0; i < shards; i++) {
+      ConnectionHandler handler = new ConnectionHandler(options, new Config(config),
+          Connection.class.getClassLoader());
+      ConfigurableConnection proxy = new ConnectionWrapper(handler);
+      handler.createConnection(proxy);
+      connections.add(proxy);
+    }
+    group = new ShardedConnectionGroup(connections, ConnectionGroup.Strategy.ROUND_ROBIN);
+  }
+
+  @TearDown
+  public void tearDown() {
+    group.close();
+  }
+
+  @Benchmark
+  public void publish(ThreadState state) throws IOException {
+    state.channel.basicPublish("exchange", "routing.key", PROPS, BODY);
+  }
+}
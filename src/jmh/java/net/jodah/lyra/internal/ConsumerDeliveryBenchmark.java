@@ -0,0 +1,98 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.DeliveryTagOffsetAwareConsumer;
+import net.jodah.lyra.config.Config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.MessageProperties;
+
+/**
+ * Measures {@link ConsumerDelegate#handleDelivery} throughput before and after a recovery, for
+ * plain consumers and for {@link DeliveryTagOffsetAwareConsumer}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsumerDeliveryBenchmark {
+  private static final byte[] BODY = new byte[64];
+  private static final BasicProperties PROPS = MessageProperties.BASIC;
+
+  /** The delivery tag offset of the channel. Non-zero once the channel has been recovered. */
+  @Param({ "0", "1000" })
+  public long deliveryTagOffset;
+
+  private ConsumerDelegate consumer;
+  private ConsumerDelegate offsetAwareConsumer;
+  private Envelope envelope;
+
+  @Setup
+  public void setup(final Blackhole blackhole) throws Exception {
+    Config config = new Config();
+    ConnectionHandler connectionHandler = new ConnectionHandler(new ConnectionOptions(), config,
+        Channel.class.getClassLoader());
+    StubChannel channel = new StubChannel(1);
+    ChannelHandler channelHandler = new ChannelHandler(connectionHandler, channel, new Config(
+        config));
+    channelHandler.epoch = new ChannelHandler.RecoveryEpoch(channel, deliveryTagOffset);
+
+    consumer = new ConsumerDelegate(channelHandler, new DefaultConsumer(channel) {
+      @Override
+      public void handleDelivery(String consumerTag, Envelope envelope,
+          BasicProperties properties, byte[] body) {
+        blackhole.consume(envelope.getDeliveryTag());
+      }
+    });
+    offsetAwareConsumer = new ConsumerDelegate(channelHandler, new OffsetAwareConsumer(channel,
+        blackhole));
+    envelope = new Envelope(42, false, "exchange", "routing.key");
+  }
+
+  static class OffsetAwareConsumer extends DefaultConsumer implements
+      DeliveryTagOffsetAwareConsumer {
+    private final Blackhole blackhole;
+
+    OffsetAwareConsumer(Channel channel, Blackhole blackhole) {
+      super(channel);
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void handleDelivery(String consumerTag, Envelope envelope, long deliveryTagOffset,
+        BasicProperties properties, byte[] body) {
+      blackhole.consume(envelope.getDeliveryTag() + deliveryTagOffset);
+    }
+  }
+
+  @Benchmark
+  public void handleDelivery() throws IOException {
+    consumer.handleDelivery("consumer-tag", envelope, PROPS, BODY);
+  }
+
+  @Benchmark
+  public void handleDeliveryOffsetAware() throws IOException {
+    offsetAwareConsumer.handleDelivery("consumer-tag", envelope, PROPS, BODY);
+  }
+}
@@ -0,0 +1,65 @@
+package net.jodah.lyra.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * Measures the overhead of {@link RetryableResource#callWithRetries} when the call succeeds,
+ * against calling the callable directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetryBenchmark {
+  private ChannelHandler channelHandler;
+  private Config config;
+  private Callable<Object> callable;
+
+  @Setup
+  public void setup() throws Exception {
+    config = new Config().withRetryPolicy(RetryPolicies.retryAlways()).withRecoveryPolicy(
+        RecoveryPolicies.recoverAlways());
+    ConnectionHandler connectionHandler = new ConnectionHandler(new ConnectionOptions(), config,
+        Channel.class.getClassLoader());
+    channelHandler = new ChannelHandler(connectionHandler, new StubChannel(1), new Config(config));
+    final Object result = new Object();
+    callable = new Callable<Object>() {
+      @Override
+      public Object call() {
+        return result;
+      }
+    };
+  }
+
+  @Benchmark
+  public Object call() throws Exception {
+    return callable.call();
+  }
+
+  @Benchmark
+  public Object callWithRetries() throws Exception {
+    return channelHandler.callWithRetries(callable, config.getChannelRetryPolicy(), null,
+        config.getRetryableExceptions(), true, true);
+  }
+}
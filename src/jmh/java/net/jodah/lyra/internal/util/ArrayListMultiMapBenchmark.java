@@ -0,0 +1,62 @@
+package net.jodah.lyra.internal.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ArrayListMultiMap} puts and removes from several threads, with all threads
+ * sharing a single key, as when many channels bind the same queue, or each using their own key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ArrayListMultiMapBenchmark {
+  private final ArrayListMultiMap<String, Object> map = new ArrayListMultiMap<String, Object>();
+  private final AtomicInteger threadCounter = new AtomicInteger();
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    String key;
+    Object value;
+
+    @Setup
+    public void setup(ArrayListMultiMapBenchmark benchmark) {
+      key = "key-" + benchmark.threadCounter.incrementAndGet();
+      value = new Object();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    // Keeps the shared key's list from being removed and re-created as threads remove their values
+    map.put("shared", new Object());
+  }
+
+  @Benchmark
+  public boolean putRemoveSharedKey(ThreadState state) {
+    map.put("shared", state.value);
+    return map.remove("shared", state.value);
+  }
+
+  @Benchmark
+  public boolean putRemoveOwnKey(ThreadState state) {
+    map.put(state.key, state.value);
+    return map.remove(state.key, state.value);
+  }
+}
@@ -0,0 +1,48 @@
+package net.jodah.lyra.internal.util.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.util.Duration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures waiting on a closed {@link ReentrantCircuit}, which every invocation performs before
+ * retrying, from several threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ReentrantCircuitBenchmark {
+  private static final Duration WAIT_DURATION = Duration.secs(1);
+
+  private final ReentrantCircuit circuit = new ReentrantCircuit();
+
+  @Benchmark
+  public boolean isClosed() {
+    return circuit.isClosed();
+  }
+
+  @Benchmark
+  public void await() throws InterruptedException {
+    circuit.await();
+  }
+
+  @Benchmark
+  public boolean awaitWithDuration() throws InterruptedException {
+    return circuit.await(WAIT_DURATION);
+  }
+}
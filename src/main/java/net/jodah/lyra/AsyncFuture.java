@@ -0,0 +1,24 @@
+package net.jodah.lyra;
+
+import java.util.concurrent.Future;
+
+import net.jodah.lyra.event.AsyncCallback;
+
+/**
+ * The result of an asynchronous channel invocation. Failed invocations are retried, and
+ * invocations that fail while their channel or connection is being recovered are resumed once
+ * recovery completes, without any thread waiting on them. Cancelling the future prevents any
+ * further retries.
+ *
+ * @param <T> result type
+ * @author Jonathan Halterman
+ */
+public interface AsyncFuture<T> extends Future<T> {
+  /**
+   * Calls the {@code callback} when the invocation is complete, or immediately if it is already
+   * complete.
+   *
+   * @throws NullPointerException if {@code callback} is null
+   */
+  AsyncFuture<T> whenComplete(AsyncCallback<? super T> callback);
+}
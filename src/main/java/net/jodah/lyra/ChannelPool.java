@@ -0,0 +1,84 @@
+package net.jodah.lyra;
+
+import java.util.concurrent.TimeoutException;
+
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.ConfigurableConnection;
+import net.jodah.lyra.util.Duration;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * A fixed size pool of Lyra managed channels, created via
+ * {@link ConfigurableConnection#channelPool(int)}. Channels are leased and released without
+ * locking, and leases that wait for a channel are woken when one is released, replaced or
+ * recovered. Pooled channels are recovered the same as any other Lyra managed channel, and channels
+ * that are being recovered are skipped when leasing. A pooled channel that is closed while leased
+ * is replaced with a new channel in the background the next time its slot is reached by a lease,
+ * and its slot is skipped until then. Closed channels are not replaced while the connection is
+ * closed or being recovered, and failed replacements are retried with a backoff.
+ *
+ * @author Jonathan Halterman
+ */
+public interface ChannelPool {
+  /**
+   * Leases a channel, returning null if no channel is currently available. Never blocks.
+   *
+   * @throws IllegalStateException if the pool is closed
+   */
+  ConfigurableChannel tryLease();
+
+  /**
+   * Leases a channel, waiting up to the {@code maxWaitTime} for one to become available.
+   *
+   * @throws NullPointerException if {@code maxWaitTime} is null
+   * @throws IllegalStateException if the pool is closed
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * @throws TimeoutException if no channel becomes available within the {@code maxWaitTime}
+   */
+  ConfigurableChannel lease(Duration maxWaitTime) throws InterruptedException, TimeoutException;
+
+  /**
+   * Releases a leased {@code channel} back to the pool.
+   *
+   * @throws IllegalArgumentException if the {@code channel} does not belong to the pool
+   * @throws IllegalStateException if the {@code channel} is not currently leased
+   */
+  void release(Channel channel);
+
+  /**
+   * Closes the pool and its channels.
+   */
+  void close();
+
+  /**
+   * Returns the number of channels in the pool.
+   */
+  int getSize();
+
+  /**
+   * Returns the number of channels that are currently leased.
+   */
+  int getLeasedCount();
+
+  /**
+   * Returns the fraction of the pool's channels that are currently leased, from 0 to 1.
+   */
+  double getUtilization();
+
+  /**
+   * Returns the total number of leases that have been made from the pool.
+   */
+  long getLeaseCount();
+
+  /**
+   * Returns the number of times an available channel was skipped while leasing because it was
+   * being recovered.
+   */
+  long getRecoverySkipCount();
+
+  /**
+   * Returns the number of {@link #lease(Duration) leases} that timed out.
+   */
+  long getLeaseTimeoutCount();
+}
@@ -0,0 +1,26 @@
+package net.jodah.lyra;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a publish is rejected because the broker has blocked the connection from publishing,
+ * as configured via a {@link net.jodah.lyra.config.BlockedPublishPolicy}.
+ *
+ * @author Jonathan Halterman
+ */
+public class ConnectionBlockedException extends IOException {
+  private static final long serialVersionUID = 1L;
+  private final String reason;
+
+  public ConnectionBlockedException(String reason) {
+    super("Connection was blocked by the broker: " + reason);
+    this.reason = reason;
+  }
+
+  /**
+   * Returns the reason the broker gave for blocking the connection.
+   */
+  public String getReason() {
+    return reason;
+  }
+}
@@ -0,0 +1,72 @@
+package net.jodah.lyra;
+
+import java.io.IOException;
+import java.util.List;
+
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.ConfigurableConnection;
+
+/**
+ * A group of Lyra managed connections that channels are spread across, created via
+ * {@link Connections#createGroup(ConnectionOptions, Config, int, Strategy)}. Each connection in the
+ * group has its own socket and is recovered on its own, so channels created by the group are not
+ * limited to the throughput of a single connection. Connections that are being recovered are
+ * skipped when a connection is selected for a new channel, unless every connection is being
+ * recovered.
+ *
+ * @author Jonathan Halterman
+ */
+public interface ConnectionGroup {
+  /**
+   * The strategy by which a connection is selected for a new channel.
+   */
+  enum Strategy {
+    /** Selects each connection in turn. */
+    ROUND_ROBIN,
+    /** Selects the connection with the fewest open channels. */
+    LEAST_LOADED
+  }
+
+  /**
+   * Closes the group's connections, aborting any connections that fail to close.
+   */
+  void close();
+
+  /**
+   * Creates a channel on the {@link #getConnection() selected connection}.
+   *
+   * @throws IllegalStateException if the group is closed
+   * @throws IOException if the channel could not be created
+   */
+  ConfigurableChannel createChannel() throws IOException;
+
+  /**
+   * Returns the connection that the next channel should be created on, selected via the group's
+   * {@link Strategy}.
+   *
+   * @throws IllegalStateException if the group is closed
+   */
+  ConfigurableConnection getConnection();
+
+  /**
+   * Returns the group's connections.
+   */
+  List<ConfigurableConnection> getConnections();
+
+  /**
+   * Returns the number of connections in the group.
+   */
+  int getSize();
+
+  /**
+   * Returns the strategy by which connections are selected for new channels.
+   */
+  Strategy getStrategy();
+
+  /**
+   * Returns whether all of the group's connections are open. Connections that are being recovered
+   * are not open.
+   */
+  boolean isOpen();
+}
@@ -31,6 +31,7 @@ public class ConnectionOptions {
   private ExecutorService executor;
   private NioParams nioParams;
   private Boolean useNio = false;
+  private boolean directDispatch;
 
   public ConnectionOptions() {
     factory = makeConnectionFactory();
@@ -77,6 +78,7 @@ public class ConnectionOptions {
     executor = options.executor;
     nioParams = options.nioParams;
     useNio = options.useNio;
+    directDispatch = options.directDispatch;
   }
 
   /**
@@ -152,6 +154,16 @@ public class ConnectionOptions {
     return nioParams;
   }
 
+  /**
+   * Returns whether connections and channels dispatch invocations directly rather than through a
+   * dynamic proxy.
+   * 
+   * @see #withDirectDispatch()
+   */
+  public boolean isUsingDirectDispatch() {
+    return directDispatch;
+  }
+
   /**
    * Sets the {@code addresses} to attempt connections to, in round-robin order.
    * 
@@ -214,6 +226,16 @@ public class ConnectionOptions {
     return this;
   }
 
+  /**
+   * Creates connections and channels that dispatch invocations directly to Lyra rather than through
+   * a reflective dynamic proxy. This avoids boxing and reflection for frequently called channel
+   * methods such as {@code basicPublish} and {@code basicAck}.
+   */
+  public ConnectionOptions withDirectDispatch() {
+    this.directDispatch = true;
+    return this;
+  }
+
   /**
    * Sets the {@code host}.
    * 
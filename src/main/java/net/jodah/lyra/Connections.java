@@ -2,11 +2,15 @@ package net.jodah.lyra;
 
 import java.io.IOException;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 import net.jodah.lyra.config.Config;
 import net.jodah.lyra.config.ConfigurableConnection;
 import net.jodah.lyra.internal.ConnectionHandler;
+import net.jodah.lyra.internal.ConnectionWrapper;
+import net.jodah.lyra.internal.ShardedConnectionGroup;
 import net.jodah.lyra.internal.util.Assert;
 
 import com.rabbitmq.client.Connection;
@@ -111,9 +115,47 @@ public final class Connections {
     Assert.notNull(config, "config");
     Assert.notNull(classLoader, CLASS_LOADER_PARAMETER_NAME);
     ConnectionHandler handler = new ConnectionHandler(options.copy(), new Config(config), classLoader);
-    ConfigurableConnection proxy = (ConfigurableConnection) Proxy.newProxyInstance(
-        classLoader, CONNECTION_TYPES, handler);
+    ConfigurableConnection proxy = options.isUsingDirectDispatch() ? new ConnectionWrapper(handler)
+        : (ConfigurableConnection) Proxy.newProxyInstance(classLoader, CONNECTION_TYPES, handler);
     handler.createConnection(proxy);
     return proxy;
   }
+
+  /**
+   * Creates and returns a new {@link ConnectionGroup} of {@code size} Lyra managed connections for
+   * the given {@code options} and {@code config}, which channels are spread across according to the
+   * {@code strategy}. If the {@code options} have a name, each connection is named with the name
+   * followed by its position in the group, starting at 1. If any connection attempt fails, retries
+   * will be performed according to the {@link Config#getConnectRetryPolicy() configured RetryPolicy}
+   * before aborting the connections that were created and throwing the failure.
+   *
+   * @throws NullPointerException if {@code options}, {@code config} or {@code strategy} are null
+   * @throws IllegalArgumentException if {@code size} is not greater than 0
+   * @throws IOException if a connection could not be created
+   */
+  public static ConnectionGroup createGroup(ConnectionOptions options, Config config, int size,
+      ConnectionGroup.Strategy strategy) throws IOException, TimeoutException {
+    Assert.notNull(options, "options");
+    Assert.notNull(config, "config");
+    Assert.notNull(strategy, "strategy");
+    Assert.isTrue(size > 0, "size must be greater than 0");
+    List<ConfigurableConnection> connections = new ArrayList<ConfigurableConnection>(size);
+    boolean created = false;
+
+    try {
+      for (int i = 1; i <= size; i++) {
+        ConnectionOptions shardOptions = options.copy();
+        if (options.getName() != null)
+          shardOptions.withName(String.format("%s-%s", options.getName(), i));
+        connections.add(create(shardOptions, config, DEFAULT_CLASS_LOADER));
+      }
+      created = true;
+    } finally {
+      if (!created)
+        for (ConfigurableConnection connection : connections)
+          connection.abort();
+    }
+
+    return new ShardedConnectionGroup(connections, strategy);
+  }
 }
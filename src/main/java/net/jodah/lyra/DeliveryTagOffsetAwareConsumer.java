@@ -0,0 +1,32 @@
+package net.jodah.lyra;
+
+import java.io.IOException;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * A {@link Consumer} that receives deliveries along with the offset of the delivery tag within the
+ * recovered channel, rather than a re-created {@link Envelope} containing the translated delivery
+ * tag. This avoids allocating an Envelope for each delivery once a channel has been recovered.
+ *
+ * <p>
+ * When a channel is recovered, delivery tags for the new channel restart at 1. Lyra translates
+ * these so that delivery tags keep increasing for the lifetime of a Lyra managed channel. Consumers
+ * that implement this interface are given the delivery's untranslated {@code envelope} along with
+ * the {@code deliveryTagOffset}, and should acknowledge deliveries using
+ * {@code envelope.getDeliveryTag() + deliveryTagOffset}.
+ *
+ * @author Jonathan Halterman
+ */
+public interface DeliveryTagOffsetAwareConsumer extends Consumer {
+  /**
+   * Called when a delivery is received for the consumer. The delivery tag to acknowledge the
+   * delivery with is {@code envelope.getDeliveryTag() + deliveryTagOffset}.
+   *
+   * @see Consumer#handleDelivery(String, Envelope, BasicProperties, byte[])
+   */
+  void handleDelivery(String consumerTag, Envelope envelope, long deliveryTagOffset,
+      BasicProperties properties, byte[] body) throws IOException;
+}
@@ -0,0 +1,297 @@
+package net.jodah.lyra;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.jodah.lyra.internal.util.Assert;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * A {@link Consumer} that handles deliveries in parallel on an {@link Executor} while preserving
+ * the order of deliveries that share a key, which is the delivery's routing key unless an ordering
+ * header is set. Deliveries are assigned to one of {@code concurrency} stripes by key, and each
+ * stripe handles its deliveries one at a time in the order they were received.
+ *
+ * <p>
+ * Deliveries must be consumed with manual acknowledgement, via a Lyra managed channel, so that
+ * the consumer is recovered along with the channel like any other consumer. Handled deliveries are
+ * acked by a completion tracker that only advances through deliveries that are contiguous in the
+ * order they were received, with a single multiple ack for each advance, so a delivery is never
+ * acked while an earlier delivery is still being handled. Since a multiple ack covers every
+ * outstanding delivery on a channel, the channel should be dedicated to the consumer. Deliveries
+ * whose handling fails are nacked individually. The number of deliveries that are held is bounded
+ * by the channel's prefetch.
+ *
+ * <p>
+ * When the channel is closed, deliveries that have not started being handled are discarded since
+ * the broker redelivers them once the channel is recovered. Deliveries that are being handled are
+ * allowed to finish, so a delivery may be handled more than once.
+ *
+ * @author Jonathan Halterman
+ */
+public class ParallelConsumer implements Consumer {
+  private static final Logger log = LoggerFactory.getLogger(ParallelConsumer.class);
+  /** Max number of deliveries a stripe handles before yielding its thread */
+  private static final int STRIPE_BATCH_SIZE = 64;
+
+  private final Channel channel;
+  private final Executor executor;
+  private final DeliveryHandler handler;
+  private final Stripe[] stripes;
+  private final CompletionTracker tracker = new CompletionTracker();
+  private volatile String orderingHeader;
+  private volatile boolean requeueOnFailure;
+  private volatile String consumerTag;
+  /** Incremented when the channel is closed, discarding deliveries that are not yet handled */
+  private volatile int generation;
+
+  /**
+   * Handles a delivery for a {@link ParallelConsumer}.
+   */
+  public interface DeliveryHandler {
+    /**
+     * Handles the delivery. The delivery is acked once it and every delivery received before it
+     * have been handled, or nacked if an exception is thrown.
+     */
+    void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties,
+        byte[] body) throws Exception;
+  }
+
+  /**
+   * Creates a consumer that handles deliveries on the {@code executor}, which should have at least
+   * {@code concurrency} threads available, and acks them via the {@code channel}.
+   *
+   * @throws NullPointerException if {@code channel}, {@code executor} or {@code handler} are null
+   * @throws IllegalArgumentException if {@code concurrency} is < 1
+   */
+  public ParallelConsumer(Channel channel, Executor executor, int concurrency,
+      DeliveryHandler handler) {
+    Assert.isTrue(concurrency > 0, "concurrency must be greater than 0");
+    this.channel = Assert.notNull(channel, "channel");
+    this.executor = Assert.notNull(executor, "executor");
+    this.handler = Assert.notNull(handler, "handler");
+    stripes = new Stripe[concurrency];
+    for (int i = 0; i < concurrency; i++)
+      stripes[i] = new Stripe();
+  }
+
+  /**
+   * Returns the header whose value deliveries are ordered by, else null if deliveries are ordered
+   * by routing key.
+   *
+   * @see #withOrderingHeader(String)
+   */
+  public String getOrderingHeader() {
+    return orderingHeader;
+  }
+
+  /**
+   * Returns the number of deliveries that have been received but not yet acked or nacked.
+   */
+  public int getPendingCount() {
+    return tracker.size();
+  }
+
+  /**
+   * Returns whether deliveries whose handling fails are requeued.
+   *
+   * @see #withRequeueOnFailure(boolean)
+   */
+  public boolean isRequeueOnFailure() {
+    return requeueOnFailure;
+  }
+
+  /**
+   * Sets the {@code header} whose value deliveries are ordered by, rather than their routing key.
+   * Deliveries without the header are not ordered relative to one another.
+   */
+  public ParallelConsumer withOrderingHeader(String header) {
+    this.orderingHeader = header;
+    return this;
+  }
+
+  /**
+   * Sets whether deliveries whose handling fails are requeued. Defaults to false.
+   */
+  public ParallelConsumer withRequeueOnFailure(boolean requeueOnFailure) {
+    this.requeueOnFailure = requeueOnFailure;
+    return this;
+  }
+
+  @Override
+  public void handleConsumeOk(String consumerTag) {
+    this.consumerTag = consumerTag;
+  }
+
+  @Override
+  public void handleCancelOk(String consumerTag) {
+  }
+
+  @Override
+  public void handleCancel(String consumerTag) throws IOException {
+  }
+
+  @Override
+  public void handleShutdownSignal(String consumerTag, ShutdownSignalException sig) {
+    generation++;
+    tracker.clear();
+  }
+
+  @Override
+  public void handleRecoverOk(String consumerTag) {
+  }
+
+  @Override
+  public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties,
+      byte[] body) throws IOException {
+    Delivery delivery = new Delivery(consumerTag, envelope, properties, body, generation);
+    tracker.add(delivery);
+    stripes[stripe(envelope, properties)].add(delivery);
+  }
+
+  @Override
+  public String toString() {
+    return consumerTag == null ? "parallel-consumer" : "parallel-consumer-" + consumerTag;
+  }
+
+  private int stripe(Envelope envelope, BasicProperties properties) {
+    Object key = envelope.getRoutingKey();
+    String header = orderingHeader;
+    if (header != null) {
+      Map<String, Object> headers = properties == null ? null : properties.getHeaders();
+      key = headers == null ? null : headers.get(header);
+      if (key == null)
+        return (int) (envelope.getDeliveryTag() % stripes.length);
+      // Header values are LongStrings which do not compare with equal Strings
+      key = key.toString();
+    }
+
+    return key == null ? 0 : (key.hashCode() & Integer.MAX_VALUE) % stripes.length;
+  }
+
+  private void handle(Delivery delivery) {
+    if (delivery.generation != generation)
+      return;
+
+    boolean succeeded = false;
+    try {
+      handler.handleDelivery(delivery.consumerTag, delivery.envelope, delivery.properties,
+          delivery.body);
+      succeeded = true;
+    } catch (Exception e) {
+      log.error("Failed to handle delivery {} for {}", delivery.envelope.getDeliveryTag(), this, e);
+      try {
+        channel.basicNack(delivery.envelope.getDeliveryTag(), false, requeueOnFailure);
+      } catch (Exception nackFailure) {
+        log.warn("Failed to nack delivery {} for {}", delivery.envelope.getDeliveryTag(), this,
+            nackFailure);
+      }
+    }
+
+    tracker.complete(delivery, succeeded);
+  }
+
+  private static final class Delivery {
+    final String consumerTag;
+    final Envelope envelope;
+    final BasicProperties properties;
+    final byte[] body;
+    final int generation;
+    /** Guarded by the CompletionTracker */
+    boolean completed;
+    /** Guarded by the CompletionTracker */
+    boolean succeeded;
+
+    Delivery(String consumerTag, Envelope envelope, BasicProperties properties, byte[] body,
+        int generation) {
+      this.consumerTag = consumerTag;
+      this.envelope = envelope;
+      this.properties = properties;
+      this.body = body;
+      this.generation = generation;
+    }
+  }
+
+  /**
+   * Handles deliveries one at a time, in the order they were added, on the executor.
+   */
+  private final class Stripe implements Runnable {
+    private final ConcurrentLinkedQueue<Delivery> deliveries = new ConcurrentLinkedQueue<Delivery>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    void add(Delivery delivery) {
+      deliveries.add(delivery);
+      if (scheduled.compareAndSet(false, true))
+        executor.execute(this);
+    }
+
+    @Override
+    public void run() {
+      for (int i = 0; i < STRIPE_BATCH_SIZE; i++) {
+        Delivery delivery = deliveries.poll();
+        if (delivery == null) {
+          scheduled.set(false);
+          // Reschedule if a delivery was added after polling but before being unscheduled
+          if (deliveries.isEmpty() || !scheduled.compareAndSet(false, true))
+            return;
+        } else
+          handle(delivery);
+      }
+
+      executor.execute(this);
+    }
+  }
+
+  /**
+   * Tracks deliveries in the order they were received, acking each contiguous run of completed
+   * deliveries at the head with a single multiple ack for the run's last successfully handled
+   * delivery. Acks are sent while holding the tracker's lock so that they are sent in increasing
+   * order.
+   */
+  private final class CompletionTracker {
+    private final ArrayDeque<Delivery> deliveries = new ArrayDeque<Delivery>();
+
+    synchronized void add(Delivery delivery) {
+      deliveries.add(delivery);
+    }
+
+    synchronized void clear() {
+      deliveries.clear();
+    }
+
+    synchronized int size() {
+      return deliveries.size();
+    }
+
+    synchronized void complete(Delivery delivery, boolean succeeded) {
+      delivery.completed = true;
+      delivery.succeeded = succeeded;
+
+      long ackTag = -1;
+      while (!deliveries.isEmpty() && deliveries.peek().completed) {
+        Delivery completed = deliveries.poll();
+        if (completed.succeeded)
+          ackTag = completed.envelope.getDeliveryTag();
+      }
+
+      if (ackTag != -1)
+        try {
+          channel.basicAck(ackTag, true);
+        } catch (Exception e) {
+          log.warn("Failed to ack deliveries through {} for {}", ackTag, ParallelConsumer.this, e);
+        }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package net.jodah.lyra;
+
+import java.io.IOException;
+
+import net.jodah.lyra.config.ConfigurableConnection;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+/**
+ * Publishes messages via a Lyra managed connection, spooling them to disk while the connection is
+ * being recovered or is blocked by the broker, created via
+ * {@link ConfigurableConnection#spoolingPublisher(java.io.File, int)}. Spooled messages are
+ * published in order once the connection is available again, with publisher confirms, and are
+ * removed from the spool once confirmed. Publishes made while spooled messages are pending are
+ * spooled too, so that publish order is preserved.
+ * <p>
+ * Spooled messages that were not confirmed when the publisher was closed, or when the process
+ * exited, are published by the next spooling publisher that is created for the same directory.
+ * Since a message may have been published but not confirmed, a spooled message may be published
+ * more than once. The spool is forced to disk when a segment fills up and when the publisher is
+ * closed, so spooled messages survive the process crashing or restarting, but messages spooled
+ * since the spool was last forced may be lost if the host crashes.
+ *
+ * @author Jonathan Halterman
+ */
+public interface SpoolingPublisher {
+  /**
+   * Publishes the message, or spools it if the connection is unavailable or spooled messages are
+   * pending.
+   *
+   * @throws IllegalStateException if the publisher is closed
+   * @throws IOException if the message could not be published or spooled
+   */
+  void publish(String exchange, String routingKey, BasicProperties props, byte[] body)
+      throws IOException;
+
+  /**
+   * Returns the number of spooled messages that have not been confirmed.
+   */
+  long getSpooledCount();
+
+  /**
+   * Returns whether messages are currently being spooled rather than published.
+   */
+  boolean isSpooling();
+
+  /**
+   * Closes the publisher and its channel, flushing the spool to disk. Spooled messages that are
+   * pending remain in the spool's directory.
+   */
+  void close();
+}
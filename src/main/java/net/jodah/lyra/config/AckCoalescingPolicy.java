@@ -0,0 +1,69 @@
+package net.jodah.lyra.config;
+
+import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.util.Duration;
+
+/**
+ * Policy that defines how a channel's individual acks are coalesced into fewer
+ * {@code basicAck(deliveryTag, multiple=true)} frames. Acks are held until {@code maxAcks} are
+ * pending or the oldest pending ack has waited for {@code maxDelay}, and are then sent as a single
+ * multiple ack for the contiguous range of acked deliveries, with any acks that follow a gap sent
+ * individually once {@code maxDelay} passes. Nacks and rejects are always sent as they are made.
+ *
+ * <p>
+ * Deliveries that are auto-acked, whether consumed or gotten via {@code basicGet}, are settled as
+ * they are made so that they do not leave gaps. Auto-acked consumer deliveries can only be tracked
+ * when consumer recovery is enabled though, so acks on a channel that has an auto-ack consumer and
+ * consumer recovery disabled may be held for {@code maxDelay} and then sent individually.
+ *
+ * @author Jonathan Halterman
+ */
+public class AckCoalescingPolicy {
+  private int maxAcks = 100;
+  private Duration maxDelay = Duration.millis(50);
+
+  /**
+   * Creates a policy that holds up to 100 acks for up to 50 milliseconds.
+   */
+  public AckCoalescingPolicy() {
+  }
+
+  /**
+   * Returns the max number of acks to hold before sending them.
+   *
+   * @see #withMaxAcks(int)
+   */
+  public int getMaxAcks() {
+    return maxAcks;
+  }
+
+  /**
+   * Returns the max time to hold an ack before sending it.
+   *
+   * @see #withMaxDelay(Duration)
+   */
+  public Duration getMaxDelay() {
+    return maxDelay;
+  }
+
+  /**
+   * Sets the max number of acks to hold before sending them.
+   *
+   * @throws IllegalArgumentException if {@code maxAcks} is < 1
+   */
+  public AckCoalescingPolicy withMaxAcks(int maxAcks) {
+    Assert.isTrue(maxAcks > 0, "maxAcks must be greater than 0");
+    this.maxAcks = maxAcks;
+    return this;
+  }
+
+  /**
+   * Sets the max time to hold an ack before sending it.
+   *
+   * @throws NullPointerException if {@code maxDelay} is null
+   */
+  public AckCoalescingPolicy withMaxDelay(Duration maxDelay) {
+    this.maxDelay = Assert.notNull(maxDelay, "maxDelay");
+    return this;
+  }
+}
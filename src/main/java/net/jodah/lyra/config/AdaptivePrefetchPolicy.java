@@ -0,0 +1,132 @@
+package net.jodah.lyra.config;
+
+import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.util.Duration;
+
+/**
+ * Policy that defines how a channel's prefetch is adapted to the latency of its consumers. Each
+ * {@code interval}, the channel's consumption rate and the lowest time taken to ack a delivery are
+ * measured, and by Little's law the prefetch that keeps consumers saturated is the consumption rate
+ * multiplied by that ack latency. The prefetch is set to cover an additional {@code bufferTime}
+ * worth of deliveries, to hide the round trip to the broker, and moves toward that target by at
+ * most doubling or halving each interval. Deliveries that are cheap to process are prefetched in
+ * large numbers while costly deliveries are not hoarded by a single consumer.
+ *
+ * @author Jonathan Halterman
+ */
+public class AdaptivePrefetchPolicy {
+  private int minPrefetch = 1;
+  private int maxPrefetch = 1000;
+  private int initialPrefetch = 10;
+  private Duration interval = Duration.seconds(1);
+  private Duration bufferTime = Duration.millis(100);
+
+  /**
+   * Creates a policy that adjusts the prefetch between 1 and 1000 every second, starting at 10, to
+   * buffer 100 milliseconds worth of deliveries.
+   */
+  public AdaptivePrefetchPolicy() {
+  }
+
+  /**
+   * Returns the time worth of deliveries to prefetch beyond what consumers are processing.
+   *
+   * @see #withBufferTime(Duration)
+   */
+  public Duration getBufferTime() {
+    return bufferTime;
+  }
+
+  /**
+   * Returns the prefetch to start with, bounded by the min and max prefetch.
+   *
+   * @see #withInitialPrefetch(int)
+   */
+  public int getInitialPrefetch() {
+    return Math.max(minPrefetch, Math.min(initialPrefetch, maxPrefetch));
+  }
+
+  /**
+   * Returns the interval at which the prefetch is adjusted.
+   *
+   * @see #withInterval(Duration)
+   */
+  public Duration getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns the max prefetch.
+   *
+   * @see #withMaxPrefetch(int)
+   */
+  public int getMaxPrefetch() {
+    return maxPrefetch;
+  }
+
+  /**
+   * Returns the min prefetch.
+   *
+   * @see #withMinPrefetch(int)
+   */
+  public int getMinPrefetch() {
+    return minPrefetch;
+  }
+
+  /**
+   * Sets the time worth of deliveries to prefetch beyond what consumers are processing.
+   *
+   * @throws NullPointerException if {@code bufferTime} is null
+   */
+  public AdaptivePrefetchPolicy withBufferTime(Duration bufferTime) {
+    this.bufferTime = Assert.notNull(bufferTime, "bufferTime");
+    return this;
+  }
+
+  /**
+   * Sets the prefetch to start with.
+   *
+   * @throws IllegalArgumentException if {@code initialPrefetch} is < 1
+   */
+  public AdaptivePrefetchPolicy withInitialPrefetch(int initialPrefetch) {
+    Assert.isTrue(initialPrefetch > 0, "initialPrefetch must be greater than 0");
+    this.initialPrefetch = initialPrefetch;
+    return this;
+  }
+
+  /**
+   * Sets the interval at which the prefetch is adjusted.
+   *
+   * @throws NullPointerException if {@code interval} is null
+   * @throws IllegalArgumentException if {@code interval} is not greater than 0
+   */
+  public AdaptivePrefetchPolicy withInterval(Duration interval) {
+    Assert.notNull(interval, "interval");
+    Assert.isTrue(interval.toNanos() > 0, "interval must be greater than 0");
+    this.interval = interval;
+    return this;
+  }
+
+  /**
+   * Sets the max prefetch.
+   *
+   * @throws IllegalArgumentException if {@code maxPrefetch} is < 1 or exceeds 65535
+   */
+  public AdaptivePrefetchPolicy withMaxPrefetch(int maxPrefetch) {
+    Assert.isTrue(maxPrefetch > 0 && maxPrefetch <= 65535,
+        "maxPrefetch must be greater than 0 and at most 65535");
+    this.maxPrefetch = maxPrefetch;
+    return this;
+  }
+
+  /**
+   * Sets the min prefetch.
+   *
+   * @throws IllegalArgumentException if {@code minPrefetch} is < 1
+   */
+  public AdaptivePrefetchPolicy withMinPrefetch(int minPrefetch) {
+    Assert.isTrue(minPrefetch > 0, "minPrefetch must be greater than 0");
+    this.minPrefetch = minPrefetch;
+    return this;
+  }
+}
@@ -0,0 +1,85 @@
+package net.jodah.lyra.config;
+
+import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.util.Duration;
+
+/**
+ * Policy that defines how publishes are handled while the broker has blocked a connection from
+ * publishing, such as when a memory or disk alarm is raised. Without a policy, publishes are sent
+ * to the broker and stall once TCP backpressure is applied.
+ * <p>
+ * Async publishes never block the publishing thread. Under the {@link Strategy#FAIL FAIL} strategy
+ * their future is failed, and under the other strategies they are deferred and sent in order once
+ * the connection is unblocked, with the {@link Strategy#WAIT WAIT} strategy failing their future if
+ * the max wait time is exceeded first.
+ *
+ * @author Jonathan Halterman
+ */
+public class BlockedPublishPolicy {
+  private Strategy strategy = Strategy.WAIT;
+  private Duration maxWaitTime;
+
+  /**
+   * How a publish is handled while a connection is blocked.
+   */
+  public enum Strategy {
+    /**
+     * Blocks the publishing thread until the connection is unblocked, failing the publish with a
+     * {@link net.jodah.lyra.ConnectionBlockedException} if the max wait time is exceeded.
+     */
+    WAIT,
+    /** Fails the publish with a {@link net.jodah.lyra.ConnectionBlockedException}. */
+    FAIL,
+    /**
+     * Buffers the publish, bounded by the channel's {@link PublishBufferPolicy} or by a default
+     * policy if none is configured, and sends buffered publishes in order once the connection is
+     * unblocked.
+     */
+    BUFFER
+  }
+
+  /**
+   * Creates a policy that waits indefinitely for a connection to be unblocked.
+   */
+  public BlockedPublishPolicy() {
+  }
+
+  /**
+   * Returns the max time to wait for a connection to be unblocked, else {@code null} if publishes
+   * wait indefinitely.
+   *
+   * @see #withMaxWaitTime(Duration)
+   */
+  public Duration getMaxWaitTime() {
+    return maxWaitTime;
+  }
+
+  /**
+   * Returns the strategy for handling publishes while a connection is blocked.
+   *
+   * @see #withStrategy(Strategy)
+   */
+  public Strategy getStrategy() {
+    return strategy;
+  }
+
+  /**
+   * Sets the max time to wait for a connection to be unblocked when using the
+   * {@link Strategy#WAIT WAIT} strategy.
+   *
+   * @throws NullPointerException if {@code maxWaitTime} is null
+   */
+  public BlockedPublishPolicy withMaxWaitTime(Duration maxWaitTime) {
+    this.maxWaitTime = Assert.notNull(maxWaitTime, "maxWaitTime");
+    return this;
+  }
+
+  /**
+   * Sets the strategy for handling publishes while a connection is blocked. Defaults to
+   * {@link Strategy#WAIT}.
+   */
+  public BlockedPublishPolicy withStrategy(Strategy strategy) {
+    this.strategy = Assert.notNull(strategy, "strategy");
+    return this;
+  }
+}
@@ -12,6 +12,29 @@ import com.rabbitmq.client.Channel;
  * @author Jonathan Halterman
  */
 public interface ChannelConfig extends ConsumerConfig {
+  /**
+   * Returns the policy for adapting the channel's prefetch, else null if the prefetch is not
+   * adapted.
+   * 
+   * @see #withAdaptivePrefetch(AdaptivePrefetchPolicy)
+   */
+  AdaptivePrefetchPolicy getAdaptivePrefetchPolicy();
+
+  /**
+   * Returns the policy for coalescing acks, else null if acks are sent as they are made.
+   * 
+   * @see #withAckCoalescing(AckCoalescingPolicy)
+   */
+  AckCoalescingPolicy getAckCoalescingPolicy();
+
+  /**
+   * Returns the policy for handling publishes while the broker has blocked the channel's
+   * connection, else null if publishes are sent regardless.
+   * 
+   * @see #withBlockedPublishPolicy(BlockedPublishPolicy)
+   */
+  BlockedPublishPolicy getBlockedPublishPolicy();
+
   /**
    * Returns the channel's listeners else empty list if none were configured.
    * 
@@ -33,6 +56,23 @@ public interface ChannelConfig extends ConsumerConfig {
    */
   RetryPolicy getChannelRetryPolicy();
 
+  /**
+   * Returns the policy for buffering publishes while the channel is being recovered, else null if
+   * publishes are not buffered.
+   * 
+   * @see #withPublishBuffer(PublishBufferPolicy)
+   */
+  PublishBufferPolicy getPublishBufferPolicy();
+
+  /**
+   * Returns whether declarations are cached.
+   * <p>
+   * Defaults to false.
+   * 
+   * @see #withDeclarationCaching(boolean)
+   */
+  boolean isDeclarationCachingEnabled();
+
   /**
    * Returns whether exchange and exchange binding recovery is enabled. Any non-durable or
    * auto-deleting exchanges will be recovered unless they are explicitly deleted via
@@ -55,6 +95,30 @@ public interface ChannelConfig extends ConsumerConfig {
    */
   boolean isQueueRecoveryEnabled();
 
+  /**
+   * Sets the {@code adaptivePrefetchPolicy} to use for adapting the channel's global prefetch to
+   * the latency of its consumers. Takes effect for channels that create a consumer after it is set,
+   * and the current prefetch is replayed when the channel is recovered. Consumer recovery must be
+   * enabled for deliveries to be measured. Must not be set for channels that have a
+   * {@link ConfigurableChannel#deliveryPublisher(String, int) delivery publisher}, which sets the
+   * prefetch itself.
+   */
+  ChannelConfig withAdaptivePrefetch(AdaptivePrefetchPolicy adaptivePrefetchPolicy);
+
+  /**
+   * Sets the {@code ackCoalescingPolicy} to use for coalescing individual acks into fewer multiple
+   * acks. Pending acks are discarded when the channel is recovered, since their deliveries are
+   * redelivered on the recovered channel.
+   */
+  ChannelConfig withAckCoalescing(AckCoalescingPolicy ackCoalescingPolicy);
+
+  /**
+   * Sets the {@code blockedPublishPolicy} to use for handling publishes while the broker has
+   * blocked the channel's connection from publishing, rather than letting publishes stall on TCP
+   * backpressure.
+   */
+  ChannelConfig withBlockedPublishPolicy(BlockedPublishPolicy blockedPublishPolicy);
+
   /**
    * Sets the {@code channelListeners} to call on channel related events.
    */
@@ -70,6 +134,19 @@ public interface ChannelConfig extends ConsumerConfig {
    */
   ChannelConfig withChannelRetryPolicy(RetryPolicy retryPolicy);
 
+  /**
+   * Sets whether exchange, queue and binding declarations are cached. When enabled, a declaration
+   * that is identical to one the broker has already confirmed on the channel's connection returns
+   * the earlier result without a round trip to the broker, including the message and consumer
+   * counts of a queue declaration. Cached declarations are invalidated by the deletes and unbinds
+   * that undo them, and are cleared when the connection is recovered. Declarations of server named
+   * queues are never cached, nor are declarations of auto-delete exchanges, auto-delete queues and
+   * queues with an {@code x-expires} argument, which the broker may delete on its own, along with
+   * bindings to or from them. Changes made to the broker's topology by other connections are not
+   * seen by the cache.
+   */
+  ChannelConfig withDeclarationCaching(boolean enabled);
+
   /**
    * Sets whether exchange and exchange binding recovery is enabled or not. Any non-durable or
    * auto-deleting exchanges will be recovered unless they are explicitly deleted via
@@ -77,6 +154,13 @@ public interface ChannelConfig extends ConsumerConfig {
    */
   ConsumerConfig withExchangeRecovery(boolean enabled);
 
+  /**
+   * Sets the {@code publishBufferPolicy} to use for buffering publishes while the channel is being
+   * recovered, rather than blocking the publishing thread until recovery completes. Buffered
+   * publishes are sent in order once the channel is recovered.
+   */
+  ChannelConfig withPublishBuffer(PublishBufferPolicy publishBufferPolicy);
+
   /**
    * Sets whether queue and queue binding recovery is enabled or not. Any non-durable or
    * auto-deleting queues will be recovered unless they are explicitly deleted via
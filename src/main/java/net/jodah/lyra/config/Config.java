@@ -16,6 +16,7 @@ import net.jodah.lyra.event.ChannelListener;
 import net.jodah.lyra.event.ConnectionListener;
 import net.jodah.lyra.event.ConsumerListener;
 import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.metrics.Metrics;
 
 import com.rabbitmq.client.AlreadyClosedException;
 import com.rabbitmq.client.Channel;
@@ -40,6 +41,7 @@ public class Config implements ConnectionConfig {
   private RecoveryPolicy channelRecoveryPolicy;
   private RetryPolicy channelRetryPolicy;
   private Boolean exchangeRecovery;
+  private Boolean declarationCaching;
   private Boolean queueRecovery;
   private Boolean consumerRecovery;
   private Collection<ConnectionListener> connectionListeners;
@@ -48,6 +50,15 @@ public class Config implements ConnectionConfig {
   private Set<Class<? extends Exception>> retryableExceptions;
   private Set<Class<? extends Exception>> recoverableExceptions;
   private Boolean useDaemonThreads;
+  private Integer recoveryParallelism;
+  private Boolean pipelinedRecovery;
+  private Boolean diffRecovery;
+  private Boolean lazyChannelRecovery;
+  private Metrics metrics;
+  private PublishBufferPolicy publishBufferPolicy;
+  private BlockedPublishPolicy blockedPublishPolicy;
+  private AckCoalescingPolicy ackCoalescingPolicy;
+  private AdaptivePrefetchPolicy adaptivePrefetchPolicy;
 
   public Config() {
     parent = null;
@@ -92,6 +103,22 @@ public class Config implements ConnectionConfig {
       : Collections.<ChannelListener>emptyList();
   }
 
+  @Override
+  public AdaptivePrefetchPolicy getAdaptivePrefetchPolicy() {
+    return adaptivePrefetchPolicy != null ? adaptivePrefetchPolicy
+        : parent != null ? parent.getAdaptivePrefetchPolicy() : null;
+  }
+
+  @Override
+  public AckCoalescingPolicy getAckCoalescingPolicy() {
+    return ackCoalescingPolicy != null ? ackCoalescingPolicy : parent != null ? parent.getAckCoalescingPolicy() : null;
+  }
+
+  @Override
+  public BlockedPublishPolicy getBlockedPublishPolicy() {
+    return blockedPublishPolicy != null ? blockedPublishPolicy : parent != null ? parent.getBlockedPublishPolicy() : null;
+  }
+
   @Override
   public RecoveryPolicy getChannelRecoveryPolicy() {
     RecoveryPolicy result = channelRecoveryPolicy == null ? recoveryPolicy : channelRecoveryPolicy;
@@ -141,6 +168,16 @@ public class Config implements ConnectionConfig {
       : Collections.<ConsumerListener>emptyList();
   }
 
+  @Override
+  public Metrics getMetrics() {
+    return metrics != null ? metrics : parent != null ? parent.getMetrics() : null;
+  }
+
+  @Override
+  public PublishBufferPolicy getPublishBufferPolicy() {
+    return publishBufferPolicy != null ? publishBufferPolicy : parent != null ? parent.getPublishBufferPolicy() : null;
+  }
+
   /**
    * Returns the exceptions which will be recovered from. By default these will include
    * {@code SocketTimeoutException}, {@code ConnectException}, {@code AlreadyClosedException}, and
@@ -163,6 +200,11 @@ public class Config implements ConnectionConfig {
       : Collections.<Class<? extends Exception>>emptySet();
   }
 
+  @Override
+  public int getRecoveryParallelism() {
+    return recoveryParallelism != null ? recoveryParallelism : parent != null ? parent.getRecoveryParallelism() : 1;
+  }
+
   @Override
   public boolean isConsumerRecoveryEnabled() {
     Boolean result = consumerRecovery != null ? consumerRecovery : parent != null ? parent.isConsumerRecoveryEnabled()
@@ -170,6 +212,17 @@ public class Config implements ConnectionConfig {
     return isRecoveryEnabled(result);
   }
 
+  @Override
+  public boolean isDeclarationCachingEnabled() {
+    Boolean result = declarationCaching != null ? declarationCaching : parent != null ? parent.isDeclarationCachingEnabled() : false;
+    return result;
+  }
+
+  @Override
+  public boolean isDiffRecoveryEnabled() {
+    return diffRecovery != null ? diffRecovery : parent != null ? parent.isDiffRecoveryEnabled() : false;
+  }
+
   @Override
   public boolean isExchangeRecoveryEnabled() {
     Boolean result = exchangeRecovery != null ? exchangeRecovery : parent != null ? parent.isExchangeRecoveryEnabled()
@@ -177,6 +230,18 @@ public class Config implements ConnectionConfig {
     return isRecoveryEnabled(result);
   }
 
+  @Override
+  public boolean isLazyChannelRecoveryEnabled() {
+    return lazyChannelRecovery != null ? lazyChannelRecovery
+        : parent != null ? parent.isLazyChannelRecoveryEnabled() : false;
+  }
+
+  @Override
+  public boolean isPipelinedRecoveryEnabled() {
+    Boolean result = pipelinedRecovery != null ? pipelinedRecovery : parent != null ? parent.isPipelinedRecoveryEnabled() : false;
+    return result;
+  }
+
   @Override
   public boolean isQueueRecoveryEnabled() {
     Boolean result = queueRecovery != null ? queueRecovery : parent != null ? parent.isQueueRecoveryEnabled() : null;
@@ -189,6 +254,24 @@ public class Config implements ConnectionConfig {
     return result;
   }
 
+  @Override
+  public Config withAdaptivePrefetch(AdaptivePrefetchPolicy adaptivePrefetchPolicy) {
+    this.adaptivePrefetchPolicy = adaptivePrefetchPolicy;
+    return this;
+  }
+
+  @Override
+  public Config withAckCoalescing(AckCoalescingPolicy ackCoalescingPolicy) {
+    this.ackCoalescingPolicy = ackCoalescingPolicy;
+    return this;
+  }
+
+  @Override
+  public Config withBlockedPublishPolicy(BlockedPublishPolicy blockedPublishPolicy) {
+    this.blockedPublishPolicy = blockedPublishPolicy;
+    return this;
+  }
+
   @Override
   public Config withChannelListeners(ChannelListener... channelListeners) {
     this.channelListeners = Arrays.asList(channelListeners);
@@ -247,12 +330,48 @@ public class Config implements ConnectionConfig {
     return this;
   }
 
+  @Override
+  public Config withDeclarationCaching(boolean enabled) {
+    declarationCaching = Boolean.valueOf(enabled);
+    return this;
+  }
+
+  @Override
+  public Config withDiffRecovery(boolean enabled) {
+    diffRecovery = Boolean.valueOf(enabled);
+    return this;
+  }
+
   @Override
   public Config withExchangeRecovery(boolean enabled) {
     exchangeRecovery = Boolean.valueOf(enabled);
     return this;
   }
 
+  @Override
+  public Config withLazyChannelRecovery(boolean enabled) {
+    lazyChannelRecovery = Boolean.valueOf(enabled);
+    return this;
+  }
+
+  @Override
+  public Config withMetrics(Metrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  @Override
+  public Config withPipelinedRecovery(boolean enabled) {
+    pipelinedRecovery = Boolean.valueOf(enabled);
+    return this;
+  }
+
+  @Override
+  public Config withPublishBuffer(PublishBufferPolicy publishBufferPolicy) {
+    this.publishBufferPolicy = publishBufferPolicy;
+    return this;
+  }
+
   @Override
   public Config withQueueRecovery(boolean enabled) {
     queueRecovery = Boolean.valueOf(enabled);
@@ -265,6 +384,13 @@ public class Config implements ConnectionConfig {
     return this;
   }
 
+  @Override
+  public Config withRecoveryParallelism(int parallelism) {
+    Assert.isTrue(parallelism > 0, "parallelism must be greater than 0");
+    recoveryParallelism = parallelism;
+    return this;
+  }
+
   /**
    * Sets the policy to use for the recovery of Connections/Channels/Consumers after an unexpected
    * Connection/Channel closure. Can be overridden with specific policies via
@@ -1,6 +1,17 @@
 package net.jodah.lyra.config;
 
+import java.io.IOException;
+
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.event.ConfirmCallback;
+import net.jodah.lyra.reactive.Delivery;
+import net.jodah.lyra.reactive.Publisher;
+import net.jodah.lyra.reactive.PublishingSubscriber;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.AlreadyClosedException;
 import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
 
 /**
  * Configurable Channel.
@@ -8,4 +19,117 @@ import com.rabbitmq.client.Channel;
  * @author Jonathan Halterman
  */
 public interface ConfigurableChannel extends ChannelConfig, Channel {
-}
\ No newline at end of file
+  /**
+   * Acks the {@code deliveryTag} asynchronously. Failed acks are retried according to the channel's
+   * retry policy without blocking the calling thread, and acks that fail while the channel is being
+   * recovered are resumed once recovery completes.
+   *
+   * @see Channel#basicAck(long, boolean)
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  AsyncFuture<Void> basicAckAsync(long deliveryTag, boolean multiple);
+
+  /**
+   * Gets a message asynchronously, retrying without blocking the calling thread.
+   *
+   * @see Channel#basicGet(String, boolean)
+   * @see #basicAckAsync(long, boolean)
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  AsyncFuture<GetResponse> basicGetAsync(String queue, boolean autoAck);
+
+  /**
+   * Nacks the {@code deliveryTag} asynchronously, retrying without blocking the calling thread.
+   *
+   * @see Channel#basicNack(long, boolean, boolean)
+   * @see #basicAckAsync(long, boolean)
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  AsyncFuture<Void> basicNackAsync(long deliveryTag, boolean multiple, boolean requeue);
+
+  /**
+   * Publishes a message asynchronously, retrying without blocking the calling thread.
+   *
+   * @see Channel#basicPublish(String, String, boolean, BasicProperties, byte[])
+   * @see #basicAckAsync(long, boolean)
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  AsyncFuture<Void> basicPublishAsync(String exchange, String routingKey, boolean mandatory,
+      BasicProperties props, byte[] body);
+
+  /**
+   * Publishes a message asynchronously, retrying without blocking the calling thread.
+   *
+   * @see Channel#basicPublish(String, String, BasicProperties, byte[])
+   * @see #basicAckAsync(long, boolean)
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  AsyncFuture<Void> basicPublishAsync(String exchange, String routingKey, BasicProperties props,
+      byte[] body);
+
+  /**
+   * Rejects the {@code deliveryTag} asynchronously, retrying without blocking the calling thread.
+   *
+   * @see Channel#basicReject(long, boolean)
+   * @see #basicAckAsync(long, boolean)
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  AsyncFuture<Void> basicRejectAsync(long deliveryTag, boolean requeue);
+
+  /**
+   * Publishes a message, calling the {@code callback} once the publish is confirmed by the broker.
+   * Publisher confirms are enabled on the channel if they are not already. Publishes that are still
+   * unconfirmed when the channel is recovered are republished on the recovered channel, so a
+   * message may be delivered more than once.
+   *
+   * @see Channel#basicPublish(String, String, boolean, BasicProperties, byte[])
+   * @throws NullPointerException if {@code callback} is null
+   */
+  void basicPublishConfirmed(String exchange, String routingKey, boolean mandatory,
+      BasicProperties props, byte[] body, ConfirmCallback callback) throws IOException;
+
+  /**
+   * Publishes a message, calling the {@code callback} once the publish is confirmed by the broker.
+   *
+   * @see #basicPublishConfirmed(String, String, boolean, BasicProperties, byte[], ConfirmCallback)
+   * @throws NullPointerException if {@code callback} is null
+   */
+  void basicPublishConfirmed(String exchange, String routingKey, BasicProperties props,
+      byte[] body, ConfirmCallback callback) throws IOException;
+
+  /**
+   * Returns a publisher of the deliveries for the {@code queue}, which are consumed with manual
+   * acknowledgement once subscribed to and should be acked via this channel using
+   * {@link Delivery#getDeliveryTag()}. The channel's global prefetch is set from the subscriber's
+   * outstanding demand, bounded by {@code maxPrefetch}, so the channel should be dedicated to the
+   * publisher, and adaptive prefetch must not be enabled for it since it would compete for the same
+   * prefetch. The consumer and prefetch are recovered along with the channel without signalling
+   * the subscriber, and deliveries that were not yet published when the channel closed are
+   * redelivered. The publisher supports a single subscriber.
+   *
+   * @throws NullPointerException if {@code queue} is null
+   * @throws IllegalArgumentException if {@code maxPrefetch} is < 1
+   * @throws IllegalStateException if an {@link AdaptivePrefetchPolicy} is configured for the channel
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  Publisher<Delivery> deliveryPublisher(String queue, int maxPrefetch);
+
+  /**
+   * Returns a subscriber that publishes the messages it receives via
+   * {@link #basicPublishConfirmed(String, String, boolean, BasicProperties, byte[], ConfirmCallback)
+   * basicPublishConfirmed}, keeping at most {@code window} messages unconfirmed. Messages are
+   * requested from upstream only as earlier publishes are confirmed. While the channel is being
+   * recovered, received messages are held rather than blocking the upstream publisher's thread, and
+   * unconfirmed publishes are republished once the channel is recovered.
+   *
+   * @throws IllegalArgumentException if {@code window} is < 1
+   * @throws AlreadyClosedException if the channel is closed
+   */
+  PublishingSubscriber publishingSubscriber(int window);
+
+  /**
+   * Returns the number of publishes made via {@code basicPublishConfirmed} that have not yet been
+   * confirmed.
+   */
+  int getUnconfirmedCount();
+}
@@ -1,5 +1,11 @@
 package net.jodah.lyra.config;
 
+import java.io.File;
+import java.io.IOException;
+
+import net.jodah.lyra.ChannelPool;
+import net.jodah.lyra.SpoolingPublisher;
+
 import com.rabbitmq.client.Connection;
 
 /**
@@ -8,4 +14,22 @@ import com.rabbitmq.client.Connection;
  * @author Jonathan Halterman
  */
 public interface ConfigurableConnection extends ConnectionConfig, Connection {
+  /**
+   * Creates a new pool of {@code size} recovering channels, retrying channel creation according to
+   * the connection's retry policy.
+   *
+   * @throws IllegalArgumentException if {@code size} is not greater than 0
+   * @throws IOException if the pool's channels could not be created
+   */
+  ChannelPool channelPool(int size) throws IOException;
+
+  /**
+   * Creates a new {@link SpoolingPublisher} that spools messages to memory-mapped segment files of
+   * {@code segmentSize} bytes in the {@code directory} while the connection is unavailable,
+   * publishing any messages that were left in the directory's spool by a previous publisher.
+   *
+   * @throws IllegalArgumentException if {@code segmentSize} is less than 1024
+   * @throws IOException if the spool cannot be opened or the publisher's channel cannot be created
+   */
+  SpoolingPublisher spoolingPublisher(File directory, int segmentSize) throws IOException;
 }
@@ -3,6 +3,7 @@ package net.jodah.lyra.config;
 import java.util.Collection;
 
 import net.jodah.lyra.event.ConnectionListener;
+import net.jodah.lyra.metrics.Metrics;
 
 import com.rabbitmq.client.Connection;
 
@@ -33,6 +34,46 @@ public interface ConnectionConfig extends ChannelConfig {
    */
   RetryPolicy getConnectionRetryPolicy();
 
+  /**
+   * Returns the metrics that the connection and its channels are recorded to, else null if none
+   * were configured.
+   * 
+   * @see #withMetrics(Metrics)
+   */
+  Metrics getMetrics();
+
+  /**
+   * Returns the number of workers that exchanges, queues, bindings and channels are recovered with
+   * when a connection is recovered. Defaults to 1.
+   * 
+   * @see #withRecoveryParallelism(int)
+   */
+  int getRecoveryParallelism();
+
+  /**
+   * Returns whether exchanges, named queues and bindings are recovered via pipelined nowait
+   * declarations and binds. Defaults to false.
+   * 
+   * @see #withPipelinedRecovery(boolean)
+   */
+  boolean isPipelinedRecoveryEnabled();
+
+  /**
+   * Returns whether connection recovery only redeclares and rebinds resources that no longer exist.
+   * Defaults to false.
+   * 
+   * @see #withDiffRecovery(boolean)
+   */
+  boolean isDiffRecoveryEnabled();
+
+  /**
+   * Returns whether the recovery of idle channels is deferred until they are next used when a
+   * connection is recovered. Defaults to false.
+   * 
+   * @see #withLazyChannelRecovery(boolean)
+   */
+  boolean isLazyChannelRecoveryEnabled();
+
   /**
    * Whether or not using daemon threads.
    */
@@ -53,6 +94,56 @@ public interface ConnectionConfig extends ChannelConfig {
    */
   ConnectionConfig withConnectionRetryPolicy(RetryPolicy retryPolicy);
 
+  /**
+   * Sets whether connection recovery should first check which of the recorded exchanges and named
+   * queues still exist, via passive declarations, and only redeclare those that are missing. Only
+   * bindings to or from a redeclared resource are recovered, since a binding lasts as long as its
+   * exchange and queue. Queues that are exclusive or have server generated names never outlive a
+   * connection and are always redeclared. Once most of a batch of checked resources turn out to be
+   * missing, the rest of the batch is assumed missing rather than checked. Default is false.
+   */
+  ConnectionConfig withDiffRecovery(boolean enabled);
+
+  /**
+   * Sets whether the recovery of idle channels should be deferred until they are next used when a
+   * connection is recovered, spreading the load of recreating channels over time. A channel is idle
+   * when it has no consumers, unconfirmed or buffered publishes, or invocations waiting for it to
+   * recover. Other channels are recovered along with the connection. A deferred channel is
+   * recovered by the first invocation of a channel method other than {@code close}, {@code abort}
+   * and shutdown listener registration, and a deferred channel that is closed is never recovered.
+   * Deferred channels in a channel pool remain leasable and are recovered when first used. Default
+   * is false.
+   */
+  ConnectionConfig withLazyChannelRecovery(boolean enabled);
+
+  /**
+   * Sets the {@code metrics} to record the connection's and its channels' publishes,
+   * acknowledgements, deliveries, retries, circuit state and recovery durations to. Channels record
+   * to the metrics that were configured when they were created.
+   * 
+   * @see net.jodah.lyra.metrics.DefaultMetrics
+   */
+  ConnectionConfig withMetrics(Metrics metrics);
+
+  /**
+   * Sets whether exchanges, named queues and bindings should be recovered via nowait declarations
+   * and binds, pipelined in one batch per {@link #withRecoveryParallelism(int) recovery worker}
+   * and followed by a single synchronous call to detect failures. If a batch fails, its resources
+   * are recovered again one at a time. Queues with server generated names are always recovered one
+   * at a time. Default is false.
+   */
+  ConnectionConfig withPipelinedRecovery(boolean enabled);
+
+  /**
+   * Sets the number of workers that a connection's exchanges, queues, bindings and channels are
+   * recovered with. When greater than 1, exchanges and queues, then bindings, then channels along
+   * with their consumers are each recovered in parallel, with topology recovered via a separate
+   * recovery channel per worker. Default is 1.
+   * 
+   * @throws IllegalArgumentException if {@code parallelism} is not greater than 0
+   */
+  ConnectionConfig withRecoveryParallelism(int parallelism);
+
   /**
    * Whether or not using daemon threads. Default is false.
    */
@@ -0,0 +1,94 @@
+package net.jodah.lyra.config;
+
+import net.jodah.lyra.internal.util.Assert;
+
+/**
+ * Policy that defines how publishes are buffered while a channel is being recovered. Buffered
+ * publishes are sent in order once the channel is recovered, and are discarded if the channel is
+ * closed or cannot be recovered.
+ *
+ * @author Jonathan Halterman
+ */
+public class PublishBufferPolicy {
+  private int maxMessages = 1000;
+  private long maxBytes = -1;
+  private OverflowStrategy overflowStrategy = OverflowStrategy.BLOCK;
+
+  /**
+   * How a publish is handled when the buffer is full.
+   */
+  public enum OverflowStrategy {
+    /** Blocks the publishing thread until the buffer has room or the channel is recovered. */
+    BLOCK,
+    /** Discards the oldest buffered publish to make room. */
+    DROP_OLDEST,
+    /** Fails the publish with an {@link com.rabbitmq.client.AlreadyClosedException}. */
+    FAIL
+  }
+
+  /**
+   * Creates a policy that buffers up to 1000 publishes of any size, blocking when the buffer is
+   * full.
+   */
+  public PublishBufferPolicy() {
+  }
+
+  /**
+   * Returns the max number of body bytes to buffer, else -1 if unbounded.
+   *
+   * @see #withMaxBytes(long)
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the max number of publishes to buffer.
+   *
+   * @see #withMaxMessages(int)
+   */
+  public int getMaxMessages() {
+    return maxMessages;
+  }
+
+  /**
+   * Returns the strategy for handling publishes when the buffer is full.
+   *
+   * @see #withOverflowStrategy(OverflowStrategy)
+   */
+  public OverflowStrategy getOverflowStrategy() {
+    return overflowStrategy;
+  }
+
+  /**
+   * Sets the max number of message body bytes to buffer. A single publish that exceeds
+   * {@code maxBytes} is still buffered when the buffer is empty.
+   *
+   * @throws IllegalArgumentException if {@code maxBytes} is < 1
+   */
+  public PublishBufferPolicy withMaxBytes(long maxBytes) {
+    Assert.isTrue(maxBytes > 0, "maxBytes must be greater than 0");
+    this.maxBytes = maxBytes;
+    return this;
+  }
+
+  /**
+   * Sets the max number of publishes to buffer.
+   *
+   * @throws IllegalArgumentException if {@code maxMessages} is < 1
+   */
+  public PublishBufferPolicy withMaxMessages(int maxMessages) {
+    Assert.isTrue(maxMessages > 0, "maxMessages must be greater than 0");
+    this.maxMessages = maxMessages;
+    return this;
+  }
+
+  /**
+   * Sets the strategy for handling publishes when the buffer is full. Defaults to
+   * {@link OverflowStrategy#BLOCK}.
+   */
+  public PublishBufferPolicy withOverflowStrategy(OverflowStrategy overflowStrategy) {
+    this.overflowStrategy = Assert.notNull(overflowStrategy, "overflowStrategy");
+    return this;
+  }
+}
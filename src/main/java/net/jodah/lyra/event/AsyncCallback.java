@@ -0,0 +1,24 @@
+package net.jodah.lyra.event;
+
+import net.jodah.lyra.AsyncFuture;
+
+/**
+ * Called with the outcome of an asynchronous invocation via
+ * {@link AsyncFuture#whenComplete(AsyncCallback)}. Callbacks are performed on the thread that
+ * completes the invocation, or on the registering thread if the invocation is already complete, and
+ * should not block.
+ *
+ * @param <T> result type
+ * @author Jonathan Halterman
+ */
+public interface AsyncCallback<T> {
+  /**
+   * Called when the invocation succeeds with the {@code result}.
+   */
+  void onSuccess(T result);
+
+  /**
+   * Called when the invocation fails, after any retries, or is cancelled.
+   */
+  void onFailure(Throwable failure);
+}
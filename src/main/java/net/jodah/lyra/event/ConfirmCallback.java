@@ -0,0 +1,28 @@
+package net.jodah.lyra.event;
+
+import net.jodah.lyra.config.ConfigurableChannel;
+
+/**
+ * Called with the outcome of a publish that was made via
+ * {@link ConfigurableChannel#basicPublishConfirmed(String, String, boolean, com.rabbitmq.client.AMQP.BasicProperties, byte[], ConfirmCallback)
+ * basicPublishConfirmed}. Callbacks are performed on the connection's thread and should not block.
+ *
+ * @author Jonathan Halterman
+ */
+public interface ConfirmCallback {
+  /**
+   * Called when the publish is acked by the broker.
+   */
+  void onAck();
+
+  /**
+   * Called when the publish is nacked by the broker.
+   */
+  void onNack();
+
+  /**
+   * Called when the publish can no longer be confirmed, such as when the channel it was made on is
+   * closed or fails to recover.
+   */
+  void onFailure(Throwable failure);
+}
@@ -0,0 +1,269 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.config.AckCoalescingPolicy;
+import net.jodah.lyra.internal.ChannelHandler.RecoveryEpoch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces a channel's individual acks into multiple acks according to the channel's
+ * {@link AckCoalescingPolicy}. Starting at the lowest unresolved delivery tag, tracks which tags
+ * have been acked by the application but not yet sent (pending) and which have already been
+ * settled (resolved). A single multiple ack for the last pending tag in the contiguous run of
+ * pending and resolved tags acks every pending tag in the run, since resolved tags are no longer
+ * outstanding on the broker. Pending acks that follow a gap, such as a delivery that is still being
+ * processed, are sent individually once the policy's max delay passes so that they are never held
+ * indefinitely. Nacks, rejects and multiple acks are sent as they are made.
+ *
+ * <p>
+ * Tags are the application's translated delivery tags. Auto-acked deliveries must be settled as
+ * they are made, else they leave gaps that are never filled. Pending acks are discarded when the
+ * channel is recovered since their deliveries are redelivered on the recovered channel.
+ *
+ * @author Jonathan Halterman
+ */
+final class AckCoalescer {
+  private static final Logger log = LoggerFactory.getLogger(AckCoalescer.class);
+  /** Max number of tags past the lowest unresolved tag that acks are held for */
+  static final int MAX_WINDOW = 1 << 16;
+  /** Number of settled tags after which the bit sets are shifted */
+  private static final int COMPACT_THRESHOLD = 1 << 12;
+
+  private final ChannelHandler channelHandler;
+  private final Runnable timedFlush = new Runnable() {
+    @Override
+    public void run() {
+      synchronized (AckCoalescer.this) {
+        flushFuture = null;
+        checkEpoch();
+        flush(true);
+      }
+    }
+  };
+  private RecoveryEpoch epoch;
+  /** The delivery tag at index 0 of the bit sets */
+  private long origin;
+  /** The lowest unresolved delivery tag */
+  private long base;
+  private BitSet pending = new BitSet();
+  private BitSet resolved = new BitSet();
+  private int pendingCount;
+  private ScheduledFuture<?> flushFuture;
+
+  AckCoalescer(ChannelHandler channelHandler) {
+    this.channelHandler = channelHandler;
+    checkEpoch();
+  }
+
+  /**
+   * Holds single acks, else sends the acknowledgement and settles its delivery tags.
+   *
+   * @throws IOException if the acknowledgement could not be sent
+   */
+  synchronized void acknowledge(ChannelMethod ackMethod, long deliveryTag, boolean multiple,
+    boolean requeue) throws IOException {
+    checkEpoch();
+    AckCoalescingPolicy policy = channelHandler.config.getAckCoalescingPolicy();
+    if (policy == null)
+      flush(true);
+    else if (ackMethod == ChannelMethod.BASIC_ACK && !multiple && deliveryTag >= base
+      && deliveryTag - base < MAX_WINDOW) {
+      hold(deliveryTag, policy);
+      return;
+    } else if (multiple && ackMethod == ChannelMethod.BASIC_NACK) {
+      // Pending acks would otherwise be nacked along with the deliveries that precede them
+      flush(true);
+    }
+
+    channelHandler.sendAcknowledgement(ackMethod, deliveryTag, multiple, requeue);
+    if (multiple)
+      resolveThrough(deliveryTag);
+    else
+      resolve(deliveryTag);
+  }
+
+  /**
+   * Settles a delivery that the broker considers acked as soon as it is delivered, such as an
+   * auto-acked delivery, so that it does not leave a gap that holds back later acks.
+   */
+  synchronized void settle(long deliveryTag) {
+    checkEpoch();
+    resolve(deliveryTag);
+  }
+
+  /**
+   * Sends any pending acks.
+   */
+  synchronized void flush() {
+    checkEpoch();
+    flush(true);
+  }
+
+  synchronized int getPendingCount() {
+    return pendingCount;
+  }
+
+  private void hold(long deliveryTag, AckCoalescingPolicy policy) {
+    int index = index(deliveryTag);
+    if (!pending.get(index)) {
+      pending.set(index);
+      pendingCount++;
+    }
+
+    if (pendingCount >= policy.getMaxAcks()) {
+      flush(false);
+      if (pendingCount >= policy.getMaxAcks())
+        flush(true);
+    } else if (flushFuture == null)
+      flushFuture = SharedExecutors.SCHEDULER.schedule(timedFlush,
+        policy.getMaxDelay().toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Sends a multiple ack for the contiguous run of pending and resolved tags starting at the base,
+   * and if {@code force} is true, individually sends any pending acks that follow the run.
+   */
+  private void flush(boolean force) {
+    if (pendingCount > 0) {
+      int start = index(base);
+      int end = start;
+      int lastPending = -1;
+      while (true) {
+        int pendingEnd = pending.nextClearBit(end);
+        if (pendingEnd > end) {
+          lastPending = pendingEnd - 1;
+          end = pendingEnd;
+          continue;
+        }
+        int resolvedEnd = resolved.nextClearBit(end);
+        if (resolvedEnd == end)
+          break;
+        end = resolvedEnd;
+      }
+
+      if (lastPending >= 0) {
+        pendingCount -= pending.get(start, end).cardinality();
+        send(origin + lastPending, true);
+      }
+      pending.clear(start, end);
+      resolved.clear(start, end);
+      base = origin + end;
+
+      if (force)
+        for (int i = pending.nextSetBit(end); i >= 0; i = pending.nextSetBit(i + 1)) {
+          pending.clear(i);
+          resolved.set(i);
+          pendingCount--;
+          send(origin + i, false);
+        }
+
+      compact();
+    }
+
+    if (pendingCount == 0 && flushFuture != null) {
+      flushFuture.cancel(false);
+      flushFuture = null;
+    }
+  }
+
+  private void send(long deliveryTag, boolean multiple) {
+    try {
+      channelHandler.sendAcknowledgement(ChannelMethod.BASIC_ACK, deliveryTag, multiple, false);
+    } catch (Exception e) {
+      // The delivery will be redelivered if the channel is recovered
+      log.warn("Failed to send coalesced ack for delivery {} via {}", deliveryTag, channelHandler, e);
+    }
+  }
+
+  private void resolve(long deliveryTag) {
+    if (deliveryTag < base || deliveryTag - base >= MAX_WINDOW)
+      return;
+    int index = index(deliveryTag);
+    if (pending.get(index)) {
+      pending.clear(index);
+      pendingCount--;
+    }
+    resolved.set(index);
+    advance();
+  }
+
+  /**
+   * Settles every tag through the {@code deliveryTag}, which a multiple acknowledgement covers.
+   */
+  private void resolveThrough(long deliveryTag) {
+    if (deliveryTag < base)
+      return;
+    if (deliveryTag - base >= MAX_WINDOW) {
+      // Every pending tag is within the window and so is covered
+      reset(deliveryTag + 1);
+      return;
+    }
+
+    int end = index(deliveryTag + 1);
+    pendingCount -= pending.get(0, end).cardinality();
+    pending.clear(0, end);
+    resolved.clear(0, end);
+    base = origin + end;
+    advance();
+  }
+
+  /**
+   * Moves the base past any resolved tags.
+   */
+  private void advance() {
+    int start = index(base);
+    int end = resolved.nextClearBit(start);
+    if (end > start) {
+      resolved.clear(start, end);
+      base = origin + end;
+      compact();
+    }
+  }
+
+  /**
+   * Discards pending acks if the channel has been recovered since they were made.
+   */
+  private void checkEpoch() {
+    RecoveryEpoch current = channelHandler.epoch;
+    if (current == epoch)
+      return;
+
+    if (pendingCount > 0)
+      log.debug("Discarding {} pending acks for recovered {}", pendingCount, channelHandler);
+    epoch = current;
+    reset(current.deliveryTagOffset + 1);
+  }
+
+  private void reset(long base) {
+    origin = this.base = base;
+    pending = new BitSet();
+    resolved = new BitSet();
+    pendingCount = 0;
+    if (flushFuture != null) {
+      flushFuture.cancel(false);
+      flushFuture = null;
+    }
+  }
+
+  /**
+   * Shifts the bit sets so that the base is at index 0 once enough tags have been settled.
+   */
+  private void compact() {
+    int shift = index(base);
+    if (shift < COMPACT_THRESHOLD)
+      return;
+    pending = pending.get(shift, Math.max(shift, pending.length()));
+    resolved = resolved.get(shift, Math.max(shift, resolved.length()));
+    origin = base;
+  }
+
+  private int index(long deliveryTag) {
+    return (int) (deliveryTag - origin);
+  }
+}
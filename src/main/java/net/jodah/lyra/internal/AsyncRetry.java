@@ -0,0 +1,188 @@
+package net.jodah.lyra.internal;
+
+import static net.jodah.lyra.internal.util.Exceptions.extractCause;
+import static net.jodah.lyra.internal.util.Exceptions.isRetryable;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.jodah.lyra.internal.util.concurrent.DefaultAsyncFuture;
+
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Performs a call with retries, without blocking. Retries are scheduled on a shared scheduler, and
+ * calls that fail due to a resource closure are parked as a continuation on the resource's circuit
+ * until the resource is recovered. Mirrors {@link RetryableResource#retryFailedCall}.
+ *
+ * @param <T> result type
+ * @author Jonathan Halterman
+ */
+class AsyncRetry<T> implements Runnable {
+  final DefaultAsyncFuture<T> future = new DefaultAsyncFuture<T>();
+  private final RetryableResource resource;
+  private final Callable<T> callable;
+  private final RecurringPolicy<?> recurringPolicy;
+  private final Set<Class<? extends Exception>> retryableExceptions;
+  private final boolean recoverable;
+
+  // State that is handed off between threads via the scheduler or the circuit
+  private RecurringStats retryStats;
+  private Exception failure;
+  private long failureTime;
+
+  AsyncRetry(RetryableResource resource, Callable<T> callable, RecurringPolicy<?> recurringPolicy,
+      Set<Class<? extends Exception>> retryableExceptions, boolean recoverable) {
+    this.resource = resource;
+    this.callable = callable;
+    this.recurringPolicy = recurringPolicy;
+    this.retryableExceptions = retryableExceptions;
+    this.recoverable = recoverable;
+  }
+
+  /**
+   * Waits for the resource's circuit to close, resuming the retry once it does or failing it if
+   * the wait is interrupted or times out. Runs once.
+   */
+  private class CircuitWait implements Runnable {
+    private final AtomicBoolean pending = new AtomicBoolean(true);
+    /** Fails the wait once the max wait time is exceeded, if any */
+    private volatile WaitTimeout timeout;
+
+    @Override
+    public void run() {
+      if (pending.compareAndSet(true, false)) {
+        cancelTimeout();
+        recordWait();
+        if (resource.closed || !resource.circuit.isClosed())
+          future.fail(failure);
+        else
+          scheduleRetry();
+      }
+    }
+
+    void timeout() {
+      if (pending.compareAndSet(true, false)) {
+        recordWait();
+        resource.log.debug("Exceeded max wait time while waiting for {} to recover", resource);
+        future.fail(failure);
+      }
+    }
+
+    /**
+     * Schedules the wait to time out after the {@code maxWaitNanos}.
+     */
+    void scheduleTimeout(long maxWaitNanos) {
+      WaitTimeout timeout = new WaitTimeout(this);
+      this.timeout = timeout;
+      timeout.future = SharedExecutors.SCHEDULER.schedule(timeout, maxWaitNanos,
+          TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cancels the timeout, releasing the wait so that the cancelled task does not keep the retry
+     * reachable while it remains in the scheduler's queue.
+     */
+    private void cancelTimeout() {
+      WaitTimeout timeout = this.timeout;
+      if (timeout != null) {
+        this.timeout = null;
+        timeout.cancel();
+      }
+    }
+
+    private void recordWait() {
+      resource.metrics().onCircuitWait(resource.toString(), System.nanoTime() - failureTime);
+    }
+  }
+
+  /**
+   * Times out a {@link CircuitWait}, referring to the wait only until cancelled.
+   */
+  private static final class WaitTimeout implements Runnable {
+    private volatile AsyncRetry<?>.CircuitWait wait;
+    volatile ScheduledFuture<?> future;
+
+    WaitTimeout(AsyncRetry<?>.CircuitWait wait) {
+      this.wait = wait;
+    }
+
+    @Override
+    public void run() {
+      AsyncRetry<?>.CircuitWait wait = this.wait;
+      if (wait != null)
+        wait.timeout();
+    }
+
+    void cancel() {
+      wait = null;
+      ScheduledFuture<?> future = this.future;
+      if (future != null)
+        future.cancel(false);
+    }
+  }
+
+  /**
+   * Performs an attempt, handling any failure.
+   */
+  @Override
+  public void run() {
+    if (future.isDone())
+      return;
+
+    try {
+      future.complete(callable.call());
+    } catch (Exception e) {
+      handleFailure(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return callable.toString();
+  }
+
+  private void handleFailure(Exception e) {
+    ShutdownSignalException sse = extractCause(e, ShutdownSignalException.class);
+    boolean retryable = recurringPolicy != null && recurringPolicy.allowsAttempts();
+    if (sse == null && retryable)
+      resource.log.error("Invocation of {} failed.", callable, e);
+
+    if ((sse != null && !recoverable) || resource.closed || !retryable
+        || !isRetryable(retryableExceptions, e, sse)) {
+      future.fail(e);
+      return;
+    }
+
+    if (retryStats == null)
+      retryStats = new RecurringStats(recurringPolicy);
+    failure = e;
+    failureTime = System.nanoTime();
+
+    // Wait for pending recovery
+    if (sse != null && !resource.circuit.isClosed()) {
+      final CircuitWait wait = new CircuitWait();
+      if (recurringPolicy.getMaxDuration() != null)
+        wait.scheduleTimeout(retryStats.getMaxWaitTime().toNanos());
+      resource.whenRecovered(wait);
+    } else
+      scheduleRetry();
+  }
+
+  private void scheduleRetry() {
+    retryStats.incrementAttempts();
+    if (retryStats.isPolicyExceeded()) {
+      future.fail(failure);
+      return;
+    }
+
+    resource.metrics().onRetry(resource.toString(), retryStats.getAttemptCount());
+    long remainingWaitTime =
+        retryStats.getWaitTime().toNanos() - (System.nanoTime() - failureTime);
+    SharedExecutors.SCHEDULER.schedule(this, Math.max(remainingWaitTime, 0),
+        TimeUnit.NANOSECONDS);
+  }
+}
@@ -2,34 +2,53 @@ package net.jodah.lyra.internal;
 
 import java.util.Map;
 
+import net.jodah.lyra.internal.util.Interner;
+
 /**
- * Encapsulates a binding from a resource name to a destination resource declaration.
+ * Encapsulates a binding from a resource name to a destination resource declaration. Bindings are
+ * immutable so that they can be indexed by hash.
  * 
  * @author Jonathan Halterman
  */
 class Binding {
-  String destination;
+  final String destination;
   final String source;
   final String routingKey;
   final Map<String, Object> arguments;
+  private final int hashCode;
 
   @SuppressWarnings("unchecked")
   Binding(Object[] args) {
-    destination = (String) args[0];
-    source = (String) args[1];
-    routingKey = (String) args[2];
-    arguments = args.length > 3 ? (Map<String, Object>) args[3] : null;
+    this((String) args[0], (String) args[1], (String) args[2],
+        args.length > 3 ? (Map<String, Object>) args[3] : null);
+  }
+
+  Binding(String destination, String source, String routingKey, Map<String, Object> arguments) {
+    this.destination = destination;
+    this.source = source;
+    this.routingKey = routingKey;
+    this.arguments = arguments;
+    hashCode = computeHashCode();
+  }
+
+  /**
+   * Returns an equal binding whose names and arguments are shared with other bindings.
+   */
+  Binding compact() {
+    return new Binding(Interner.name(destination), Interner.name(source),
+        Interner.name(routingKey), Interner.arguments(arguments));
+  }
+
+  /**
+   * Returns a copy of the binding with the {@code destination}.
+   */
+  Binding withDestination(String destination) {
+    return new Binding(destination, source, routingKey, arguments);
   }
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = 1;
-    result = prime * result + ((arguments == null) ? 0 : arguments.hashCode());
-    result = prime * result + ((destination == null) ? 0 : destination.hashCode());
-    result = prime * result + ((routingKey == null) ? 0 : routingKey.hashCode());
-    result = prime * result + ((source == null) ? 0 : source.hashCode());
-    return result;
+    return hashCode;
   }
 
   @Override
@@ -41,6 +60,8 @@ class Binding {
     if (getClass() != obj.getClass())
       return false;
     Binding other = (Binding) obj;
+    if (hashCode != other.hashCode)
+      return false;
     if (arguments == null) {
       if (other.arguments != null)
         return false;
@@ -63,4 +84,14 @@ class Binding {
       return false;
     return true;
   }
+
+  private int computeHashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + ((arguments == null) ? 0 : arguments.hashCode());
+    result = prime * result + ((destination == null) ? 0 : destination.hashCode());
+    result = prime * result + ((routingKey == null) ? 0 : routingKey.hashCode());
+    result = prime * result + ((source == null) ? 0 : source.hashCode());
+    return result;
+  }
 }
@@ -0,0 +1,298 @@
+package net.jodah.lyra.internal;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers bindings in the order they were made, indexed by destination and by source so that the
+ * bindings of a resource can be found, and a binding added or removed, in constant time. Writes are
+ * serialized by the registry's monitor while reads are lock-free, with collections that are
+ * returned being weakly consistent views.
+ *
+ * <p>
+ * Each binding is held by a single entry that is linked into the registry's list of all bindings
+ * and into the lists of its destination and source, so the registry holds one map node and one
+ * entry per binding. Registered bindings are compacted so that their names and argument maps are
+ * shared with other bindings.
+ *
+ * @author Jonathan Halterman
+ */
+final class BindingRegistry {
+  private static final int ALL = 0;
+  private static final int BY_DESTINATION = 1;
+  private static final int BY_SOURCE = 2;
+
+  private final ConcurrentHashMap<Binding, Entry> entries = new ConcurrentHashMap<Binding, Entry>();
+  private final Chain all = new Chain(ALL);
+  private final ConcurrentHashMap<String, Chain> byDestination = new ConcurrentHashMap<String, Chain>();
+  private final ConcurrentHashMap<String, Chain> bySource = new ConcurrentHashMap<String, Chain>();
+
+  /**
+   * A registered binding along with its links. Unlinked entries retain their next links so that
+   * iterators positioned at them can continue.
+   */
+  static final class Entry {
+    final Binding binding;
+    volatile Entry next;
+    volatile Entry nextToDestination;
+    volatile Entry nextFromSource;
+    /** Guarded by the registry */
+    Entry prev;
+    /** Guarded by the registry */
+    Entry prevToDestination;
+    /** Guarded by the registry */
+    Entry prevFromSource;
+    volatile boolean removed;
+
+    Entry(Binding binding) {
+      this.binding = binding;
+    }
+
+    Entry next(int links) {
+      return links == ALL ? next : links == BY_DESTINATION ? nextToDestination : nextFromSource;
+    }
+
+    Entry prev(int links) {
+      return links == ALL ? prev : links == BY_DESTINATION ? prevToDestination : prevFromSource;
+    }
+
+    void setNext(int links, Entry entry) {
+      if (links == ALL)
+        next = entry;
+      else if (links == BY_DESTINATION)
+        nextToDestination = entry;
+      else
+        nextFromSource = entry;
+    }
+
+    void setPrev(int links, Entry entry) {
+      if (links == ALL)
+        prev = entry;
+      else if (links == BY_DESTINATION)
+        prevToDestination = entry;
+      else
+        prevFromSource = entry;
+    }
+  }
+
+  /**
+   * A list of entries that are linked via one of their links, viewed as a collection of bindings.
+   * Writes are guarded by the registry.
+   */
+  static final class Chain extends AbstractCollection<Binding> {
+    private final int links;
+    private volatile Entry first;
+    private Entry last;
+    private volatile int size;
+
+    Chain(int links) {
+      this.links = links;
+    }
+
+    @Override
+    public Iterator<Binding> iterator() {
+      return new Iterator<Binding>() {
+        private Entry next = skipRemoved(first);
+
+        @Override
+        public boolean hasNext() {
+          // Skips the next entry if it was removed after being reached
+          next = skipRemoved(next);
+          return next != null;
+        }
+
+        @Override
+        public Binding next() {
+          if (!hasNext())
+            throw new NoSuchElementException();
+          Entry entry = next;
+          next = skipRemoved(entry.next(links));
+          return entry.binding;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    void reset() {
+      first = null;
+      last = null;
+      size = 0;
+    }
+
+    void link(Entry entry) {
+      entry.setPrev(links, last);
+      if (last == null)
+        first = entry;
+      else
+        last.setNext(links, entry);
+      last = entry;
+      size++;
+    }
+
+    void unlink(Entry entry) {
+      Entry prev = entry.prev(links);
+      Entry next = entry.next(links);
+      if (prev == null)
+        first = next;
+      else
+        prev.setNext(links, next);
+      if (next == null)
+        last = prev;
+      else
+        next.setPrev(links, prev);
+      size--;
+    }
+
+    private Entry skipRemoved(Entry entry) {
+      while (entry != null && entry.removed)
+        entry = entry.next(links);
+      return entry;
+    }
+  }
+
+  /**
+   * Adds the {@code binding}, returning whether it was not already registered.
+   */
+  synchronized boolean add(Binding binding) {
+    if (entries.containsKey(binding))
+      return false;
+
+    Entry entry = new Entry(binding.compact());
+    entries.put(entry.binding, entry);
+    all.link(entry);
+    link(byDestination, entry.binding.destination, BY_DESTINATION, entry);
+    link(bySource, entry.binding.source, BY_SOURCE, entry);
+    return true;
+  }
+
+  synchronized void clear() {
+    for (Entry entry = all.first; entry != null; entry = entry.next)
+      entry.removed = true;
+    entries.clear();
+    all.reset();
+    byDestination.clear();
+    bySource.clear();
+  }
+
+  /**
+   * Returns the bindings to the {@code destination}.
+   */
+  Collection<Binding> getByDestination(String destination) {
+    return chainOf(byDestination, destination);
+  }
+
+  /**
+   * Returns the bindings from the {@code source}.
+   */
+  Collection<Binding> getBySource(String source) {
+    return chainOf(bySource, source);
+  }
+
+  boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /**
+   * Removes the {@code binding}, returning whether it was registered.
+   */
+  synchronized boolean remove(Binding binding) {
+    Entry entry = entries.remove(binding);
+    if (entry == null)
+      return false;
+
+    entry.removed = true;
+    all.unlink(entry);
+    unlink(byDestination, entry.binding.destination, BY_DESTINATION, entry);
+    unlink(bySource, entry.binding.source, BY_SOURCE, entry);
+    return true;
+  }
+
+  /**
+   * Removes the bindings to the {@code destination}.
+   */
+  synchronized void removeByDestination(String destination) {
+    for (Binding binding : snapshot(getByDestination(destination)))
+      remove(binding);
+  }
+
+  /**
+   * Removes the bindings from the {@code source}.
+   */
+  synchronized void removeBySource(String source) {
+    for (Binding binding : snapshot(getBySource(source)))
+      remove(binding);
+  }
+
+  /**
+   * Replaces the bindings to the {@code oldDestination} with bindings to the
+   * {@code newDestination}.
+   */
+  synchronized void renameDestination(String oldDestination, String newDestination) {
+    for (Binding binding : snapshot(getByDestination(oldDestination))) {
+      remove(binding);
+      add(binding.withDestination(newDestination));
+    }
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns a snapshot of the registered bindings in the order they were made.
+   */
+  List<Binding> snapshot() {
+    return snapshot(all);
+  }
+
+  private static List<Binding> snapshot(Collection<Binding> bindings) {
+    List<Binding> snapshot = new ArrayList<Binding>(bindings.size());
+    for (Binding binding : bindings)
+      snapshot.add(binding);
+    return snapshot;
+  }
+
+  /** Links the {@code entry} into the chain for the {@code key}. Guarded by this. */
+  private static void link(ConcurrentHashMap<String, Chain> index, String key, int links,
+      Entry entry) {
+    if (key == null)
+      return;
+    Chain chain = index.get(key);
+    if (chain == null) {
+      chain = new Chain(links);
+      index.put(key, chain);
+    }
+    chain.link(entry);
+  }
+
+  private static Collection<Binding> chainOf(ConcurrentHashMap<String, Chain> index, String key) {
+    Chain chain = key == null ? null : index.get(key);
+    return chain == null ? Collections.<Binding>emptyList() : chain;
+  }
+
+  /** Unlinks the {@code entry} from the chain for the {@code key}. Guarded by this. */
+  private static void unlink(ConcurrentHashMap<String, Chain> index, String key, int links,
+      Entry entry) {
+    if (key == null)
+      return;
+    Chain chain = index.get(key);
+    chain.unlink(entry);
+    if (chain.size == 0)
+      index.remove(key);
+  }
+}
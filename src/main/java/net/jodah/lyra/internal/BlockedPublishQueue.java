@@ -0,0 +1,146 @@
+package net.jodah.lyra.internal;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.ConnectionBlockedException;
+import net.jodah.lyra.event.AsyncCallback;
+import net.jodah.lyra.internal.util.concurrent.DefaultAsyncFuture;
+import net.jodah.lyra.util.Duration;
+
+import com.rabbitmq.client.AlreadyClosedException;
+
+/**
+ * Defers a channel's async publishes while its connection is blocked by the broker, so that they
+ * are not written to a connection that the broker has stopped reading from. Deferred publishes are
+ * sent in order on the recovery executors once the connection is unblocked, and publishes that are
+ * made while deferred publishes are pending are deferred too, so that publish order is preserved.
+ *
+ * @author Jonathan Halterman
+ */
+final class BlockedPublishQueue {
+  private final ChannelHandler channelHandler;
+  private final ConnectionHandler connectionHandler;
+  private final Queue<DeferredPublish> publishes = new ConcurrentLinkedQueue<DeferredPublish>();
+  /** Whether a send is scheduled or running */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final Runnable send = new Runnable() {
+    @Override
+    public void run() {
+      send();
+    }
+  };
+  /** Sends off of the thread that unblocks the connection, which may be the connection's thread */
+  private final Runnable scheduleSend = new Runnable() {
+    @Override
+    public void run() {
+      ConnectionHandler.RECOVERY_EXECUTORS.execute(send);
+    }
+  };
+
+  private final class DeferredPublish {
+    final DefaultAsyncFuture<Void> future = new DefaultAsyncFuture<Void>();
+    final Callable<Void> publish;
+    final AtomicBoolean pending = new AtomicBoolean(true);
+    volatile ScheduledFuture<?> timeout;
+
+    DeferredPublish(Callable<Void> publish) {
+      this.publish = publish;
+    }
+
+    /** Claims the publish, returning false if it was cancelled, timed out or already sent. */
+    boolean claim() {
+      return !future.isDone() && pending.compareAndSet(true, false);
+    }
+
+    void send() {
+      if (!claim())
+        return;
+      ScheduledFuture<?> timeout = this.timeout;
+      if (timeout != null)
+        timeout.cancel(false);
+
+      channelHandler.publishAsync(publish).whenComplete(new AsyncCallback<Void>() {
+        @Override
+        public void onSuccess(Void result) {
+          future.complete(result);
+        }
+
+        @Override
+        public void onFailure(Throwable failure) {
+          future.fail(failure);
+        }
+      });
+    }
+
+    void fail(Exception failure) {
+      if (claim())
+        future.fail(failure);
+    }
+  }
+
+  BlockedPublishQueue(ChannelHandler channelHandler, ConnectionHandler connectionHandler) {
+    this.channelHandler = channelHandler;
+    this.connectionHandler = connectionHandler;
+  }
+
+  /**
+   * Defers the {@code publish} until the connection is unblocked and earlier deferred publishes are
+   * sent, failing it with a {@link ConnectionBlockedException} if the {@code maxWaitTime} is
+   * exceeded first, if any.
+   */
+  AsyncFuture<Void> defer(Callable<Void> publish, Duration maxWaitTime) {
+    final DeferredPublish deferred = new DeferredPublish(publish);
+    if (maxWaitTime != null)
+      deferred.timeout = SharedExecutors.SCHEDULER.schedule(new Runnable() {
+        @Override
+        public void run() {
+          deferred.fail(new ConnectionBlockedException(connectionHandler.getBlockedReason()));
+        }
+      }, maxWaitTime.toNanos(), TimeUnit.NANOSECONDS);
+
+    publishes.add(deferred);
+    schedule();
+    return deferred.future;
+  }
+
+  /**
+   * Returns whether no deferred publishes are pending.
+   */
+  boolean isEmpty() {
+    return publishes.isEmpty();
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true))
+      connectionHandler.blockedCircuit.whenClosed(scheduleSend);
+  }
+
+  /**
+   * Sends deferred publishes in order until none remain or the connection is blocked again. Fails
+   * deferred publishes if the channel or connection was closed.
+   */
+  private void send() {
+    try {
+      for (DeferredPublish deferred; (deferred = publishes.peek()) != null;) {
+        if (channelHandler.closed || connectionHandler.closed) {
+          publishes.poll();
+          deferred.fail(new AlreadyClosedException(channelHandler.delegate.getCloseReason()));
+        } else if (connectionHandler.blockedCircuit.isClosed()) {
+          publishes.poll();
+          deferred.send();
+        } else
+          break;
+      }
+    } finally {
+      scheduled.set(false);
+      if (!publishes.isEmpty())
+        schedule();
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package net.jodah.lyra.internal;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -11,21 +13,39 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
-import net.jodah.lyra.config.ChannelConfig;
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.ConnectionBlockedException;
+import net.jodah.lyra.config.AdaptivePrefetchPolicy;
+import net.jodah.lyra.config.BlockedPublishPolicy;
 import net.jodah.lyra.config.Config;
 import net.jodah.lyra.event.ChannelListener;
+import net.jodah.lyra.event.ConfirmCallback;
 import net.jodah.lyra.event.ConsumerListener;
+import net.jodah.lyra.internal.util.Assert;
 import net.jodah.lyra.internal.util.Collections;
 import net.jodah.lyra.internal.util.Exceptions;
 import net.jodah.lyra.internal.util.Reflection;
+import net.jodah.lyra.internal.util.concurrent.DefaultAsyncFuture;
+import net.jodah.lyra.internal.util.concurrent.ReentrantCircuit;
+import net.jodah.lyra.metrics.ChannelMetrics;
+import net.jodah.lyra.metrics.Metrics;
+import net.jodah.lyra.metrics.RecoveryPhase;
+import net.jodah.lyra.reactive.Delivery;
+import net.jodah.lyra.reactive.Publisher;
+import net.jodah.lyra.reactive.PublishingSubscriber;
+import net.jodah.lyra.util.Duration;
 
+import com.rabbitmq.client.AMQP.BasicProperties;
 import com.rabbitmq.client.AMQP.Queue;
 import com.rabbitmq.client.AlreadyClosedException;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.ConfirmListener;
 import com.rabbitmq.client.Consumer;
 import com.rabbitmq.client.FlowListener;
+import com.rabbitmq.client.GetResponse;
 import com.rabbitmq.client.ReturnListener;
 import com.rabbitmq.client.ShutdownListener;
 import com.rabbitmq.client.ShutdownSignalException;
@@ -36,16 +56,22 @@ import com.rabbitmq.client.ShutdownSignalException;
  * @author Jonathan Halterman
  */
 public class ChannelHandler extends RetryableResource implements InvocationHandler {
+  private static final Method GLOBAL_BASIC_QOS;
+
   private final ConnectionHandler connectionHandler;
-  private final Config config;
-  volatile long previousMaxDeliveryTag;
-  volatile long maxDeliveryTag;
+  final Config config;
+  final ChannelMetrics channelMetrics;
+  volatile RecoveryEpoch epoch;
+  final AtomicLong maxDeliveryTag = new AtomicLong();
   volatile String lastGeneratedQueueName;
+  volatile PrefetchController prefetchController;
   Channel proxy;
   Channel delegate;
 
   // Recovery state
   private AtomicBoolean recoveryPending = new AtomicBoolean();
+  /** Whether recovery was deferred until the channel is next used */
+  private final AtomicBoolean recoveryDeferred = new AtomicBoolean();
   private RecurringStats recoveryStats;
   private Map<String, ConsumerDeclaration> recoveryConsumers;
   private ShutdownSignalException lastShutdownSignal;
@@ -55,21 +81,62 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
   private final List<ConfirmListener> confirmListeners = new CopyOnWriteArrayList<ConfirmListener>();
   private final List<FlowListener> flowListeners = new CopyOnWriteArrayList<FlowListener>();
   private final List<ReturnListener> returnListeners = new CopyOnWriteArrayList<ReturnListener>();
+  private final ConfirmTracker confirmTracker = new ConfirmTracker();
+  private final PublishBuffer publishBuffer = new PublishBuffer(this);
+  private final BlockedPublishQueue blockedPublishes;
+  /** Created once acks are first coalesced */
+  private final AtomicReference<AckCoalescer> ackCoalescer = new AtomicReference<AckCoalescer>();
+  /** Whether a PrefetchController has been started */
+  private final AtomicBoolean prefetchAdapted = new AtomicBoolean();
+  /** Supplies the delegate as the channel that consumer references are recovered with */
+  private final ChannelSupplier delegateSupplier = new ChannelSupplier() {
+    @Override
+    public Channel get() {
+      return delegate;
+    }
+  };
   private boolean flowBlocked;
   private ResourceDeclaration basicQos;
+  private volatile ResourceDeclaration globalBasicQos;
   private boolean confirmSelect;
   private boolean txSelect;
 
+  static {
+    try {
+      GLOBAL_BASIC_QOS = Channel.class.getMethod("basicQos", int.class, boolean.class);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   public ChannelHandler(ConnectionHandler connectionHandler, Channel delegate, Config config) {
     this.connectionHandler = connectionHandler;
+    blockedPublishes = new BlockedPublishQueue(this, connectionHandler);
     this.delegate = delegate;
     this.config = config;
+    epoch = new RecoveryEpoch(delegate, 0);
+    channelMetrics = metrics().onChannelCreate(toString());
 
     ShutdownListener listener = new ChannelShutdownListener();
     shutdownListeners.add(listener);
     delegate.addShutdownListener(listener);
   }
 
+  /**
+   * A delegate channel along with the offset that delivery tags are translated by for that channel.
+   * Replaced as a whole on recovery so that an acknowledgement is never translated against one
+   * channel's offset and then sent to another channel.
+   */
+  static final class RecoveryEpoch {
+    final Channel channel;
+    final long deliveryTagOffset;
+
+    RecoveryEpoch(Channel channel, long deliveryTagOffset) {
+      this.channel = channel;
+      this.deliveryTagOffset = deliveryTagOffset;
+    }
+  }
+
   /**
    * Handles channel shutdowns.
    */
@@ -77,6 +144,8 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
     @Override
     public void shutdownCompleted(ShutdownSignalException e) {
       channelShutdown();
+      if (e.isInitiatedByApplication() || !canRecover())
+        confirmTracker.fail(e);
       if (!e.isInitiatedByApplication()) {
         log.error("Channel {} was closed unexpectedly", ChannelHandler.this);
         lastShutdownSignal = e;
@@ -95,77 +164,716 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
     }
   }
 
-  @Override
-  public Object invoke(Object ignored, final Method method, final Object[] args) throws Throwable {
-    if (closed && method.getDeclaringClass().isAssignableFrom(Channel.class))
-      throw new AlreadyClosedException(delegate.getCloseReason());
-
-    Callable<Object> callable = new Callable<Object>() {
-      @Override
-      public Object call() throws Exception {
-        if (method.getDeclaringClass().isAssignableFrom(ChannelConfig.class))
-          return Reflection.invoke(config, method, args);
+  /**
+   * Performs a channel invocation with retries, with bookkeeping based on the {@code channelMethod}.
+   */
+  private class Invocation implements Callable<Object> {
+    private final ChannelMethod channelMethod;
+    private final Method method;
+    private final Object[] args;
 
-        String methodName = method.getName();
+    Invocation(ChannelMethod channelMethod, Method method, Object[] args) {
+      this.channelMethod = channelMethod;
+      this.method = method;
+      this.args = args;
+    }
 
-        if ("basicAck".equals(methodName) || "basicNack".equals(methodName)
-          || "basicReject".equals(methodName)) {
-          long deliveryTag = (Long) args[0] - previousMaxDeliveryTag;
-          if (deliveryTag > 0)
-            args[0] = deliveryTag;
-          else
-            return null;
-        } else if ("basicConsume".equals(methodName))
+    @Override
+    public Object call() throws Exception {
+      switch (channelMethod) {
+        case BASIC_ACK:
+          sendAcknowledgement(channelMethod, (Long) args[0], (Boolean) args[1], false);
+          return null;
+        case BASIC_NACK:
+          sendAcknowledgement(channelMethod, (Long) args[0], (Boolean) args[1], (Boolean) args[2]);
+          return null;
+        case BASIC_REJECT:
+          sendAcknowledgement(channelMethod, (Long) args[0], false, (Boolean) args[1]);
+          return null;
+        case BASIC_CONSUME:
           return handleConsumerDeclare(method, args);
-        else if ("basicCancel".equals(methodName) && args[0] != null)
-          consumerDeclarations.remove((String) args[0]);
-        else if ("exchangeDelete".equals(methodName) && args[0] != null)
-          connectionHandler.exchangeDeclarations.remove((String) args[0]);
-        else if ("exchangeUnbind".equals(methodName) && args[0] != null)
-          connectionHandler.exchangeBindings.remove((String) args[0], new Binding(args));
-        else if ("queueDelete".equals(methodName) && args[0] != null)
-          connectionHandler.queueDeclarations.remove((String) args[0]);
-        else if ("queueUnbind".equals(methodName) && args[0] != null)
-          connectionHandler.queueBindings.remove((String) args[0], new Binding(args));
-
-        Object result = Reflection.invoke(delegate, method, args);
-
-        if ("exchangeDeclare".equals(methodName))
-          handleExchangeDeclare(method, args);
-        else if ("exchangeBind".equals(methodName))
+        case BASIC_CANCEL:
+          if (args[0] != null)
+            consumerDeclarations.remove((String) args[0]);
+          break;
+        case EXCHANGE_DELETE:
+          connectionHandler.declarationCache.invalidate(channelMethod, args);
+          if (args[0] != null) {
+            // Bindings to and from a deleted exchange are deleted with it
+            String exchangeName = (String) args[0];
+            connectionHandler.exchangeDeclarations.remove(exchangeName);
+            connectionHandler.exchangeBindings.removeByDestination(exchangeName);
+            connectionHandler.exchangeBindings.removeBySource(exchangeName);
+            connectionHandler.queueBindings.removeBySource(exchangeName);
+          }
+          break;
+        case EXCHANGE_UNBIND:
+          connectionHandler.declarationCache.invalidate(channelMethod, args);
+          if (args[0] != null)
+            connectionHandler.exchangeBindings.remove(new Binding(args));
+          break;
+        case QUEUE_DELETE:
+          connectionHandler.declarationCache.invalidate(channelMethod, args);
+          if (args[0] != null) {
+            connectionHandler.queueDeclarations.remove((String) args[0]);
+            connectionHandler.queueBindings.removeByDestination((String) args[0]);
+          }
+          break;
+        case QUEUE_UNBIND:
+          connectionHandler.declarationCache.invalidate(channelMethod, args);
+          if (args[0] != null)
+            connectionHandler.queueBindings.remove(queueBinding(args));
+          break;
+        default:
+          break;
+      }
+
+      Object result = Reflection.invoke(delegate, method, args);
+
+      switch (channelMethod) {
+        case EXCHANGE_DECLARE:
+          handleExchangeDeclare(args);
+          break;
+        case EXCHANGE_BIND:
           handleExchangeBind(args);
-        else if ("queueDeclare".equals(methodName))
-          handleQueueDeclare(((Queue.DeclareOk) result).getQueue(), method, args);
-        else if ("queueBind".equals(methodName))
+          break;
+        case QUEUE_DECLARE:
+          handleQueueDeclare(((Queue.DeclareOk) result).getQueue(), args);
+          break;
+        case QUEUE_BIND:
           handleQueueBind(method, args);
-        else if ("flowBlocked".equals(methodName))
+          break;
+        case FLOW_BLOCKED:
           flowBlocked = true;
-        else if ("basicQos".equals(methodName)) {
-          // Store non-global Qos
-          if (args.length < 3 || !(Boolean) args[2])
+          break;
+        case BASIC_QOS:
+          // Store global and non-global Qos separately since each applies independently
+          boolean global = args.length > 1 && (Boolean) args[args.length - 1];
+          if (global)
+            globalBasicQos = new ResourceDeclaration(method, args);
+          else
             basicQos = new ResourceDeclaration(method, args);
-        } else if ("confirmSelect".equals(methodName))
+          break;
+        case CONFIRM_SELECT:
           confirmSelect = true;
-        else if ("txSelect".equals(methodName))
+          break;
+        case TX_SELECT:
           txSelect = true;
-        else if (methodName.startsWith("add"))
-          handleAdd(methodName, args[0]);
-        else if (methodName.startsWith("remove"))
-          handleRemove(methodName, args[0]);
-        else if (methodName.startsWith("clear"))
-          handleClear(methodName);
-
-        return result;
+          break;
+        case ADD_CONFIRM_LISTENER:
+          confirmListeners.add((ConfirmListener) args[0]);
+          break;
+        case ADD_FLOW_LISTENER:
+          flowListeners.add((FlowListener) args[0]);
+          break;
+        case ADD_RETURN_LISTENER:
+          returnListeners.add((ReturnListener) args[0]);
+          break;
+        case REMOVE_CONFIRM_LISTENER:
+          confirmListeners.remove((ConfirmListener) args[0]);
+          break;
+        case REMOVE_FLOW_LISTENER:
+          flowListeners.remove((FlowListener) args[0]);
+          break;
+        case REMOVE_RETURN_LISTENER:
+          returnListeners.remove((ReturnListener) args[0]);
+          break;
+        case CLEAR_CONFIRM_LISTENERS:
+          confirmListeners.clear();
+          confirmTracker.listenersCleared(delegate);
+          break;
+        case CLEAR_FLOW_LISTENERS:
+          flowListeners.clear();
+          break;
+        case CLEAR_RETURN_LISTENERS:
+          returnListeners.clear();
+          break;
+        default:
+          break;
+      }
+
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return Reflection.toString(method);
+    }
+  }
+
+  @Override
+  public Object invoke(Object ignored, Method method, Object[] args) throws Throwable {
+    ChannelMethod channelMethod = ChannelMethod.of(method);
+    if (closed && channelMethod != ChannelMethod.CONFIG)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+
+    if (recoveryDeferred.get())
+      switch (channelMethod) {
+        case CONFIG:
+        case OBJECT:
+        case ADD_SHUTDOWN_LISTENER:
+        case REMOVE_SHUTDOWN_LISTENER:
+          break;
+        case ABORT:
+        case CLOSE:
+          // Closes the channel without recovering it
+          if (recoveryDeferred.compareAndSet(true, false)) {
+            log.info("Closing {} without recovering it", this);
+            closed = true;
+            afterClosure();
+            interruptWaiters();
+            return null;
+          }
+          break;
+        default:
+          recoverIfDeferred(false);
+          break;
+      }
+
+    switch (channelMethod) {
+      case CONFIG:
+      case OBJECT:
+        return Reflection.invoke(config, method, args);
+      case CLOSE:
+        flushAcks();
+        if (handleCommonMethods(delegate, method, args))
+          return null;
+        break;
+      case ABORT:
+      case ADD_SHUTDOWN_LISTENER:
+      case REMOVE_SHUTDOWN_LISTENER:
+        if (handleCommonMethods(delegate, method, args))
+          return null;
+        break;
+      case BASIC_PUBLISH:
+        basicPublish(method, args);
+        return null;
+      case BASIC_GET:
+        return basicGet((String) args[0], (Boolean) args[1]);
+      case BASIC_ACK:
+        basicAck((Long) args[0], (Boolean) args[1]);
+        return null;
+      case BASIC_NACK:
+        basicNack((Long) args[0], (Boolean) args[1], (Boolean) args[2]);
+        return null;
+      case BASIC_REJECT:
+        basicReject((Long) args[0], (Boolean) args[1]);
+        return null;
+      case BASIC_PUBLISH_CONFIRMED:
+        if (args.length == 5)
+          basicPublishConfirmed((String) args[0], (String) args[1], false,
+            (BasicProperties) args[2], (byte[]) args[3], (ConfirmCallback) args[4]);
+        else
+          basicPublishConfirmed((String) args[0], (String) args[1], (Boolean) args[2],
+            (BasicProperties) args[3], (byte[]) args[4], (ConfirmCallback) args[5]);
+        return null;
+      case GET_UNCONFIRMED_COUNT:
+        return getUnconfirmedCount();
+      case BASIC_PUBLISH_ASYNC:
+        if (args.length == 4)
+          return basicPublishAsync((String) args[0], (String) args[1], false,
+            (BasicProperties) args[2], (byte[]) args[3]);
+        return basicPublishAsync((String) args[0], (String) args[1], (Boolean) args[2],
+          (BasicProperties) args[3], (byte[]) args[4]);
+      case BASIC_GET_ASYNC:
+        return basicGetAsync((String) args[0], (Boolean) args[1]);
+      case BASIC_ACK_ASYNC:
+        return basicAckAsync((Long) args[0], (Boolean) args[1]);
+      case BASIC_NACK_ASYNC:
+        return basicNackAsync((Long) args[0], (Boolean) args[1], (Boolean) args[2]);
+      case BASIC_REJECT_ASYNC:
+        return basicRejectAsync((Long) args[0], (Boolean) args[1]);
+      case DELIVERY_PUBLISHER:
+        return deliveryPublisher((String) args[0], (Integer) args[1]);
+      case PUBLISHING_SUBSCRIBER:
+        return publishingSubscriber((Integer) args[0]);
+      case EXCHANGE_DECLARE:
+      case EXCHANGE_BIND:
+      case QUEUE_DECLARE:
+      case QUEUE_BIND:
+        if (config.isDeclarationCachingEnabled())
+          return declareCached(channelMethod, method, args);
+        break;
+      default:
+        break;
+    }
+
+    return invokeWithRetries(channelMethod, method, args);
+  }
+
+  /**
+   * Returns the result of an identical declaration that was already confirmed on the connection,
+   * else performs the declaration via an {@link Invocation} and caches its result.
+   */
+  private Object declareCached(ChannelMethod channelMethod, Method method, Object[] args)
+    throws Exception {
+    DeclarationCache cache = connectionHandler.declarationCache;
+    DeclarationCache.Key key = cache.keyFor(channelMethod, method, args);
+    if (key == null)
+      return invokeWithRetries(channelMethod, method, args);
+
+    Object result = cache.get(key);
+    if (result == null) {
+      long epoch = cache.epoch();
+      result = invokeWithRetries(channelMethod, method, args);
+      cache.put(key, result, epoch);
+    }
+    return result;
+  }
+
+  /**
+   * Invokes the {@code method} via an {@link Invocation}, with retries.
+   */
+  Object invokeWithRetries(ChannelMethod channelMethod, Method method, Object[] args)
+    throws Exception {
+    return callWithRetries(new Invocation(channelMethod, method, args),
+      config.getChannelRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+  }
+
+  /**
+   * Publishes directly against the delegate, retrying on failure.
+   */
+  void basicPublish(final String exchange, final String routingKey, final boolean mandatory,
+    final boolean immediate, final BasicProperties props, final byte[] body) throws Exception {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    recoverIfDeferred(false);
+    awaitUnblocked(true);
+    if (publishBuffer.offer(exchange, routingKey, mandatory, immediate, props, body))
+      return;
+
+    try {
+      delegate.basicPublish(exchange, routingKey, mandatory, immediate, props, body);
+      channelMetrics.onPublish();
+    } catch (Exception e) {
+      if (publishBuffer.offer(exchange, routingKey, mandatory, immediate, props, body))
+        return;
+      retryFailedCall(e, new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          delegate.basicPublish(exchange, routingKey, mandatory, immediate, props, body);
+          channelMetrics.onPublish();
+          return null;
+        }
+
+        @Override
+        public String toString() {
+          return "Channel.basicPublish()";
+        }
+      }, config.getChannelRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+    }
+  }
+
+  /**
+   * Gets a message directly from the delegate, retrying on failure.
+   */
+  GetResponse basicGet(final String queue, final boolean autoAck) throws Exception {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    recoverIfDeferred(false);
+
+    try {
+      return settleIfAutoAcked(delegate.basicGet(queue, autoAck), autoAck);
+    } catch (Exception e) {
+      return retryFailedCall(e, new Callable<GetResponse>() {
+        @Override
+        public GetResponse call() throws Exception {
+          return settleIfAutoAcked(delegate.basicGet(queue, autoAck), autoAck);
+        }
+
+        @Override
+        public String toString() {
+          return "Channel.basicGet()";
+        }
+      }, config.getChannelRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+    }
+  }
+
+  /**
+   * Publishes via the {@link ConfirmTracker}, enabling publisher confirms if needed and retrying on
+   * failure.
+   */
+  void basicPublishConfirmed(final String exchange, final String routingKey,
+    final boolean mandatory, final BasicProperties props, final byte[] body,
+    final ConfirmCallback callback) throws Exception {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    Assert.notNull(callback, "callback");
+    recoverIfDeferred(false);
+    awaitUnblocked(false);
+
+    try {
+      publishConfirmed(exchange, routingKey, mandatory, props, body, callback);
+    } catch (Exception e) {
+      retryFailedCall(e, new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          publishConfirmed(exchange, routingKey, mandatory, props, body, callback);
+          return null;
+        }
+
+        @Override
+        public String toString() {
+          return "Channel.basicPublishConfirmed()";
+        }
+      }, config.getChannelRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+    }
+  }
+
+  int getUnconfirmedCount() {
+    return confirmTracker.getUnconfirmedCount();
+  }
+
+  void basicAck(long deliveryTag, boolean multiple) throws Exception {
+    acknowledge(ChannelMethod.BASIC_ACK, deliveryTag, multiple, false);
+  }
+
+  void basicNack(long deliveryTag, boolean multiple, boolean requeue) throws Exception {
+    acknowledge(ChannelMethod.BASIC_NACK, deliveryTag, multiple, requeue);
+  }
+
+  void basicReject(long deliveryTag, boolean requeue) throws Exception {
+    acknowledge(ChannelMethod.BASIC_REJECT, deliveryTag, false, requeue);
+  }
+
+  /**
+   * Publishes directly against the delegate, retrying asynchronously on failure. While the
+   * connection is blocked, the channel's {@link BlockedPublishPolicy} either fails the publish or
+   * defers it until the connection is unblocked, without blocking the caller.
+   */
+  AsyncFuture<Void> basicPublishAsync(final String exchange, final String routingKey,
+    final boolean mandatory, final BasicProperties props, final byte[] body) {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    recoverIfDeferred(true);
+
+    Callable<Void> publish = new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        delegate.basicPublish(exchange, routingKey, mandatory, props, body);
+        channelMetrics.onPublish();
+        return null;
       }
 
       @Override
       public String toString() {
-        return Reflection.toString(method);
+        return "Channel.basicPublishAsync()";
       }
     };
 
-    return handleCommonMethods(delegate, method, args) ? null : callWithRetries(callable,
-      config.getChannelRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+    BlockedPublishPolicy policy = config.getBlockedPublishPolicy();
+    boolean blocked = !connectionHandler.blockedCircuit.isClosed();
+    if (policy == null || (!blocked && blockedPublishes.isEmpty()))
+      return publishAsync(publish);
+    if (blocked && policy.getStrategy() == BlockedPublishPolicy.Strategy.FAIL) {
+      DefaultAsyncFuture<Void> future = new DefaultAsyncFuture<Void>();
+      future.fail(new ConnectionBlockedException(connectionHandler.getBlockedReason()));
+      return future;
+    }
+    return blockedPublishes.defer(publish,
+        policy.getStrategy() == BlockedPublishPolicy.Strategy.WAIT ? policy.getMaxWaitTime() : null);
+  }
+
+  /**
+   * Performs the {@code publish}, retrying asynchronously on failure.
+   */
+  AsyncFuture<Void> publishAsync(Callable<Void> publish) {
+    return callAsyncWithRetries(publish, config.getChannelRetryPolicy(),
+        config.getRetryableExceptions(), canRecover());
+  }
+
+  /**
+   * Gets a message directly from the delegate, retrying asynchronously on failure.
+   */
+  AsyncFuture<GetResponse> basicGetAsync(final String queue, final boolean autoAck) {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    recoverIfDeferred(true);
+
+    return callAsyncWithRetries(new Callable<GetResponse>() {
+      @Override
+      public GetResponse call() throws Exception {
+        return settleIfAutoAcked(delegate.basicGet(queue, autoAck), autoAck);
+      }
+
+      @Override
+      public String toString() {
+        return "Channel.basicGetAsync()";
+      }
+    }, config.getChannelRetryPolicy(), config.getRetryableExceptions(), canRecover());
+  }
+
+  AsyncFuture<Void> basicAckAsync(long deliveryTag, boolean multiple) {
+    return acknowledgeAsync(ChannelMethod.BASIC_ACK, deliveryTag, multiple, false);
+  }
+
+  AsyncFuture<Void> basicNackAsync(long deliveryTag, boolean multiple, boolean requeue) {
+    return acknowledgeAsync(ChannelMethod.BASIC_NACK, deliveryTag, multiple, requeue);
+  }
+
+  AsyncFuture<Void> basicRejectAsync(long deliveryTag, boolean requeue) {
+    return acknowledgeAsync(ChannelMethod.BASIC_REJECT, deliveryTag, false, requeue);
+  }
+
+  Publisher<Delivery> deliveryPublisher(String queue, int maxPrefetch) {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    Assert.state(config.getAdaptivePrefetchPolicy() == null,
+      "Delivery publishers cannot be combined with adaptive prefetch on %s", this);
+    return new DeliveryPublisher(this, queue, maxPrefetch);
+  }
+
+  PublishingSubscriber publishingSubscriber(int window) {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    return new ConfirmWindowSubscriber(this, window);
+  }
+
+  /**
+   * Performs a proxied publish directly against the delegate using the same overload that was
+   * invoked, retrying via an {@link Invocation} on failure.
+   */
+  private void basicPublish(Method method, Object[] args) throws Exception {
+    awaitUnblocked(true);
+    if (bufferPublish(args))
+      return;
+
+    try {
+      if (args.length == 4)
+        delegate.basicPublish((String) args[0], (String) args[1], (BasicProperties) args[2],
+          (byte[]) args[3]);
+      else if (args.length == 5)
+        delegate.basicPublish((String) args[0], (String) args[1], (Boolean) args[2],
+          (BasicProperties) args[3], (byte[]) args[4]);
+      else
+        delegate.basicPublish((String) args[0], (String) args[1], (Boolean) args[2],
+          (Boolean) args[3], (BasicProperties) args[4], (byte[]) args[5]);
+      channelMetrics.onPublish();
+    } catch (Exception e) {
+      if (bufferPublish(args))
+        return;
+      retryFailedCall(e, new Invocation(ChannelMethod.BASIC_PUBLISH, method, args),
+        config.getChannelRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+      channelMetrics.onPublish();
+    }
+  }
+
+  /**
+   * Applies the channel's {@link BlockedPublishPolicy} while the broker has blocked the connection,
+   * returning once a publish may be sent or, if {@code bufferable}, buffered. Publishes that cannot
+   * be buffered wait for the connection to be unblocked instead.
+   * 
+   * @throws ConnectionBlockedException if the policy fails blocked publishes or the max wait time
+   *           is exceeded
+   */
+  private void awaitUnblocked(boolean bufferable) throws Exception {
+    ReentrantCircuit blockedCircuit = connectionHandler.blockedCircuit;
+    BlockedPublishPolicy policy = config.getBlockedPublishPolicy();
+    if (policy == null || blockedCircuit.isClosed())
+      return;
+
+    switch (policy.getStrategy()) {
+      case FAIL:
+        throw new ConnectionBlockedException(connectionHandler.getBlockedReason());
+      case BUFFER:
+        if (!bufferable)
+          awaitUnblocked(blockedCircuit, policy);
+        break;
+      default:
+        awaitUnblocked(blockedCircuit, policy);
+        break;
+    }
+  }
+
+  /**
+   * Waits up to the {@code policy}'s max wait time for the {@code blockedCircuit} to close.
+   * 
+   * @throws ConnectionBlockedException if the max wait time is exceeded
+   */
+  private void awaitUnblocked(ReentrantCircuit blockedCircuit, BlockedPublishPolicy policy)
+    throws Exception {
+    Duration maxWaitTime = policy.getMaxWaitTime();
+    if (maxWaitTime == null)
+      blockedCircuit.await();
+    else if (!blockedCircuit.await(maxWaitTime))
+      throw new ConnectionBlockedException(connectionHandler.getBlockedReason());
+  }
+
+  /**
+   * Offers the proxied publish with the {@code args} to the {@link PublishBuffer}.
+   */
+  private boolean bufferPublish(Object[] args) throws InterruptedException {
+    if (args.length == 4)
+      return publishBuffer.offer((String) args[0], (String) args[1], false, false,
+        (BasicProperties) args[2], (byte[]) args[3]);
+    else if (args.length == 5)
+      return publishBuffer.offer((String) args[0], (String) args[1], (Boolean) args[2], false,
+        (BasicProperties) args[3], (byte[]) args[4]);
+    return publishBuffer.offer((String) args[0], (String) args[1], (Boolean) args[2],
+      (Boolean) args[3], (BasicProperties) args[4], (byte[]) args[5]);
+  }
+
+  /**
+   * Acks, nacks or rejects the {@code deliveryTag} directly against the delegate, retrying on
+   * failure.
+   */
+  private void acknowledge(final ChannelMethod ackMethod, final long deliveryTag,
+    final boolean multiple, final boolean requeue) throws Exception {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    recoverIfDeferred(false);
+    PrefetchController controller = prefetchController;
+    if (controller != null)
+      controller.onAck(deliveryTag);
+
+    try {
+      coalesceAcknowledgement(ackMethod, deliveryTag, multiple, requeue);
+    } catch (Exception e) {
+      retryFailedCall(e, new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          coalesceAcknowledgement(ackMethod, deliveryTag, multiple, requeue);
+          return null;
+        }
+
+        @Override
+        public String toString() {
+          return ackMethod == ChannelMethod.BASIC_ACK ? "Channel.basicAck()"
+            : ackMethod == ChannelMethod.BASIC_NACK ? "Channel.basicNack()"
+              : "Channel.basicReject()";
+        }
+      }, config.getChannelRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+    }
+  }
+
+  /**
+   * Acks, nacks or rejects the {@code deliveryTag} directly against the delegate, retrying
+   * asynchronously on failure.
+   */
+  private AsyncFuture<Void> acknowledgeAsync(final ChannelMethod ackMethod,
+    final long deliveryTag, final boolean multiple, final boolean requeue) {
+    if (closed)
+      throw new AlreadyClosedException(delegate.getCloseReason());
+    recoverIfDeferred(true);
+    PrefetchController controller = prefetchController;
+    if (controller != null)
+      controller.onAck(deliveryTag);
+
+    return callAsyncWithRetries(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        coalesceAcknowledgement(ackMethod, deliveryTag, multiple, requeue);
+        return null;
+      }
+
+      @Override
+      public String toString() {
+        return ackMethod == ChannelMethod.BASIC_ACK ? "Channel.basicAckAsync()"
+          : ackMethod == ChannelMethod.BASIC_NACK ? "Channel.basicNackAsync()"
+            : "Channel.basicRejectAsync()";
+      }
+    }, config.getChannelRetryPolicy(), config.getRetryableExceptions(), canRecover());
+  }
+
+  private void publishConfirmed(String exchange, String routingKey, boolean mandatory,
+    BasicProperties props, byte[] body, ConfirmCallback callback) throws IOException {
+    if (!confirmSelect) {
+      delegate.confirmSelect();
+      confirmSelect = true;
+    }
+    confirmTracker.publish(epoch, exchange, routingKey, mandatory, props, body, callback);
+    channelMetrics.onPublish();
+  }
+
+  /**
+   * Sends the acknowledgement via the channel's {@link AckCoalescer} if acks are, or have been,
+   * coalesced, else sends it directly.
+   */
+  private void coalesceAcknowledgement(ChannelMethod ackMethod, long deliveryTag,
+    boolean multiple, boolean requeue) throws IOException {
+    AckCoalescer coalescer = getAckCoalescer();
+    if (coalescer == null)
+      sendAcknowledgement(ackMethod, deliveryTag, multiple, requeue);
+    else
+      coalescer.acknowledge(ackMethod, deliveryTag, multiple, requeue);
+  }
+
+  /**
+   * Settles an auto-acked delivery with the channel's {@link AckCoalescer} if acks are, or have
+   * been, coalesced.
+   */
+  void settleAutoAck(long deliveryTag) {
+    AckCoalescer coalescer = getAckCoalescer();
+    if (coalescer != null)
+      coalescer.settle(deliveryTag);
+  }
+
+  /**
+   * Returns the channel's {@link AckCoalescer}, creating it if acks are coalesced, else null.
+   */
+  private AckCoalescer getAckCoalescer() {
+    AckCoalescer coalescer = ackCoalescer.get();
+    if (coalescer == null && config.getAckCoalescingPolicy() != null) {
+      ackCoalescer.compareAndSet(null, new AckCoalescer(this));
+      coalescer = ackCoalescer.get();
+    }
+    return coalescer;
+  }
+
+  /**
+   * Settles the {@code response}'s delivery with the channel's {@link AckCoalescer} if it was
+   * auto-acked.
+   */
+  private GetResponse settleIfAutoAcked(GetResponse response, boolean autoAck) {
+    AckCoalescer coalescer;
+    if (autoAck && response != null && (coalescer = getAckCoalescer()) != null)
+      coalescer.settle(response.getEnvelope().getDeliveryTag() + epoch.deliveryTagOffset);
+    return response;
+  }
+
+  /**
+   * Sets the channel's global prefetch, recording it to be replayed when the channel is recovered.
+   */
+  void setGlobalPrefetch(int prefetch) throws IOException {
+    globalBasicQos = new ResourceDeclaration(GLOBAL_BASIC_QOS, new Object[] { prefetch, true });
+    delegate.basicQos(prefetch, true);
+  }
+
+  /**
+   * Sends any acks that are being held for coalescing.
+   */
+  void flushAcks() {
+    AckCoalescer coalescer = ackCoalescer.get();
+    if (coalescer != null)
+      coalescer.flush();
+  }
+
+  int getPendingAckCount() {
+    AckCoalescer coalescer = ackCoalescer.get();
+    return coalescer == null ? 0 : coalescer.getPendingCount();
+  }
+
+  /**
+   * Translates the {@code deliveryTag} against the current recovery epoch and sends the
+   * acknowledgement to the epoch's channel, dropping acknowledgements for deliveries that were made
+   * before the channel was recovered.
+   */
+  void sendAcknowledgement(ChannelMethod ackMethod, long deliveryTag, boolean multiple,
+    boolean requeue) throws IOException {
+    RecoveryEpoch epoch = this.epoch;
+    long tag = deliveryTag - epoch.deliveryTagOffset;
+    if (tag <= 0)
+      return;
+    if (ackMethod == ChannelMethod.BASIC_ACK) {
+      epoch.channel.basicAck(tag, multiple);
+      channelMetrics.onAck();
+    } else if (ackMethod == ChannelMethod.BASIC_NACK) {
+      epoch.channel.basicNack(tag, multiple, requeue);
+      channelMetrics.onNack();
+    } else {
+      epoch.channel.basicReject(tag, requeue);
+      channelMetrics.onReject();
+    }
   }
 
   @Override
@@ -175,7 +883,35 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
 
   @Override
   void afterClosure() {
+    publishBuffer.discard();
     connectionHandler.removeChannel(delegate.getChannelNumber());
+    metrics().onClose(toString());
+  }
+
+  /**
+   * Returns whether publishes can be sent, which is when the channel is not being recovered and its
+   * connection is not blocked by the broker.
+   */
+  boolean canPublish() {
+    return circuit.isClosed() && connectionHandler.blockedCircuit.isClosed();
+  }
+
+  /**
+   * Returns whether publishes should be buffered because the broker has blocked the connection and
+   * the channel's {@link BlockedPublishPolicy} buffers blocked publishes.
+   */
+  boolean isBufferingBlockedPublishes() {
+    BlockedPublishPolicy policy = config.getBlockedPublishPolicy();
+    return policy != null && policy.getStrategy() == BlockedPublishPolicy.Strategy.BUFFER
+      && !connectionHandler.blockedCircuit.isClosed();
+  }
+
+  /**
+   * Sends any buffered publishes if publishes can currently be sent.
+   */
+  void drainPublishBuffer() {
+    if (canPublish())
+      publishBuffer.drain();
   }
 
   boolean canRecover() {
@@ -183,8 +919,77 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
       && config.getChannelRecoveryPolicy().allowsAttempts();
   }
 
+  /**
+   * Defers recovery of the channel until it is next used, returning false if the channel is not
+   * idle and should be recovered now. A channel is idle when it has no consumers, unconfirmed or
+   * buffered publishes, or invocations waiting for it to recover.
+   */
+  boolean deferRecovery() {
+    if (!isIdle())
+      return false;
+    recoveryDeferred.set(true);
+
+    // Recover now if an invocation started waiting for recovery before it was deferred
+    if (!isIdle() && recoveryDeferred.compareAndSet(true, false))
+      return false;
+    log.info("Deferred recovery of {} until it is next used", this);
+    return true;
+  }
+
+  private boolean isIdle() {
+    return consumerDeclarations.isEmpty() && confirmTracker.getUnconfirmedCount() == 0
+      && publishBuffer.size() == 0 && recoveryWaiters.get() == 0 && !circuit.hasWaiters();
+  }
+
+  /**
+   * Recovers the channel if its recovery was deferred, since an invocation is about to wait for it.
+   */
+  @Override
+  void awaitingRecovery() {
+    recoverIfDeferred(true);
+  }
+
+  /**
+   * Returns whether recovery of the channel is deferred until it is next used.
+   */
+  boolean isRecoveryDeferred() {
+    return recoveryDeferred.get();
+  }
+
+  /**
+   * Claims and performs the channel's deferred recovery, if any, before the channel is used. If
+   * {@code async} the recovery is performed on a recovery thread, and the caller is expected to
+   * wait for it via the channel's circuit. The channel's exchanges, queues and bindings were
+   * already recovered along with its connection. A failure is left for the invocation that follows
+   * to handle via the usual retries.
+   */
+  void recoverIfDeferred(boolean async) {
+    if (!recoveryDeferred.compareAndSet(true, false))
+      return;
+    if (!async)
+      recoverDeferred();
+    else
+      ConnectionHandler.RECOVERY_EXECUTORS.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            recoverDeferred();
+          } catch (Throwable ignore) {
+          }
+        }
+      });
+  }
+
+  private void recoverDeferred() {
+    try {
+      recoverChannel(true);
+    } catch (Exception e) {
+      log.error("Failed to recover {}", this, e);
+    }
+  }
+
   void channelShutdown() {
-    circuit.open();
+    openCircuit();
     synchronized (consumerDeclarations) {
       for (ResourceDeclaration invocation : consumerDeclarations.values())
         ((ConsumerDelegate) invocation.args[invocation.args.length - 1]).close();
@@ -213,22 +1018,29 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
     }
 
     try {
+      long startTime = System.nanoTime();
       notifyRecoveryStarted();
       delegate = callWithRetries(new Callable<Channel>() {
         @Override
         public Channel call() throws Exception {
           log.info("Recovering {}", ChannelHandler.this);
-          previousMaxDeliveryTag = maxDeliveryTag;
+          long deliveryTagOffset = maxDeliveryTag.get();
           Channel channel = connectionHandler.createChannel(delegate.getChannelNumber());
           migrateConfiguration(channel);
+          epoch = new RecoveryEpoch(channel, deliveryTagOffset);
           log.info("Recovered {}", ChannelHandler.this);
           return channel;
         }
       }, config.getChannelRecoveryPolicy(), recoveryStats, config.getRecoverableExceptions(), true,
         false);
+      confirmTracker.recover(epoch);
+      long channelTime = System.nanoTime();
+      metrics().onRecovery(toString(), RecoveryPhase.CHANNEL, channelTime - startTime);
       notifyRecovery();
-      recoverConsumers(!viaConnectionRecovery);
+      if (recoverConsumers(!viaConnectionRecovery))
+        metrics().onRecovery(toString(), RecoveryPhase.CONSUMER, System.nanoTime() - channelTime);
       recoverySucceeded();
+      drainPublishBuffer();
     } catch (Exception e) {
       ShutdownSignalException sse = Exceptions.extractCause(e, ShutdownSignalException.class);
       if (sse != null) {
@@ -239,28 +1051,12 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
     }
   }
 
-  private void handleAdd(String methodName, Object arg) {
-    if ("addConfirmListener".equals(methodName))
-      confirmListeners.add((ConfirmListener) arg);
-    else if ("addFlowListener".equals(methodName))
-      flowListeners.add((FlowListener) arg);
-    else if ("addReturnListener".equals(methodName))
-      returnListeners.add((ReturnListener) arg);
-  }
-
-  private void handleClear(String methodName) {
-    if ("clearConfirmListeners".equals(methodName))
-      confirmListeners.clear();
-    else if ("clearFlowListeners".equals(methodName))
-      flowListeners.clear();
-    else if ("clearReturnListeners".equals(methodName))
-      returnListeners.clear();
-  }
-
   private String handleConsumerDeclare(Method method, Object[] args) throws Exception {
     if (config.isConsumerRecoveryEnabled()) {
       Consumer consumer = (Consumer) args[args.length - 1];
-      args[args.length - 1] = new ConsumerDelegate(this, consumer);
+      startPrefetchController();
+      boolean autoAck = args.length > 2 && Boolean.TRUE.equals(args[1]);
+      args[args.length - 1] = new ConsumerDelegate(this, consumer, autoAck);
       String consumerTag = (String) Reflection.invoke(delegate, method, args);
       String queueName = "".equals(args[0]) ? lastGeneratedQueueName : (String) args[0];
       QueueDeclaration queueDeclaration = connectionHandler.queueDeclarations.get(queueName);
@@ -274,49 +1070,70 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
       return (String) Reflection.invoke(delegate, method, args);
   }
 
+  /**
+   * Starts adapting the channel's prefetch if an {@link AdaptivePrefetchPolicy} is configured and
+   * the prefetch is not already being adapted.
+   */
+  private void startPrefetchController() throws Exception {
+    AdaptivePrefetchPolicy policy = config.getAdaptivePrefetchPolicy();
+    if (policy == null || !prefetchAdapted.compareAndSet(false, true))
+      return;
+
+    try {
+      PrefetchController controller = new PrefetchController(this, policy);
+      controller.start(policy);
+      prefetchController = controller;
+    } catch (Exception e) {
+      prefetchAdapted.set(false);
+      throw e;
+    }
+  }
+
   private void handleExchangeBind(Object[] args) {
     if (config.isExchangeRecoveryEnabled())
-      connectionHandler.exchangeBindings.put((String) args[0], new Binding(args));
+      connectionHandler.exchangeBindings.add(new Binding(args));
   }
 
-  private void handleExchangeDeclare(Method method, Object[] args) {
+  private void handleExchangeDeclare(Object[] args) {
     if (config.isExchangeRecoveryEnabled()) {
       boolean autoDelete = args.length > 3 && (Boolean) args[3];
       boolean durable = args.length > 2 && (Boolean) args[2];
-      if (autoDelete || !durable)
-        connectionHandler.exchangeDeclarations.put((String) args[0], new ResourceDeclaration(
-          method, args));
+      if (autoDelete || !durable) {
+        ExchangeDeclaration exchangeDeclaration = new ExchangeDeclaration(args);
+        connectionHandler.exchangeDeclarations.put(exchangeDeclaration.name, exchangeDeclaration);
+      }
     }
   }
 
   private void handleQueueBind(Method method, Object[] args) {
     if (config.isQueueRecoveryEnabled())
-      connectionHandler.queueBindings.put("".equals(args[0]) ? lastGeneratedQueueName
-        : (String) args[0], new Binding(args));
+      connectionHandler.queueBindings.add(queueBinding(args));
+  }
+
+  /**
+   * Returns a binding for the {@code args}, with the last generated queue name as the destination
+   * when the destination is the empty string.
+   */
+  private Binding queueBinding(Object[] args) {
+    Binding binding = new Binding(args);
+    return "".equals(binding.destination) && lastGeneratedQueueName != null ? binding
+      .withDestination(lastGeneratedQueueName) : binding;
   }
 
-  private void handleQueueDeclare(String queueName, Method method, Object[] args) {
+  private void handleQueueDeclare(String queueName, Object[] args) {
     if (args == null)
       lastGeneratedQueueName = queueName;
 
     if (config.isQueueRecoveryEnabled()) {
       boolean autoDelete = args == null || (Boolean) args[3];
       boolean durable = args != null && (Boolean) args[1];
-      if (autoDelete || !durable)
-        connectionHandler.queueDeclarations.put(queueName, new QueueDeclaration(queueName, method,
-          args));
+      if (autoDelete || !durable) {
+        QueueDeclaration queueDeclaration = new QueueDeclaration(queueName, args);
+        connectionHandler.queueDeclarations.put(queueDeclaration.name, queueDeclaration);
+      }
     }
   }
 
-  private void handleRemove(String methodName, Object arg) {
-    if ("removeConfirmListener".equals(methodName))
-      confirmListeners.remove((ConfirmListener) arg);
-    else if ("removeFlowListener".equals(methodName))
-      flowListeners.remove((FlowListener) arg);
-    else if ("removeReturnListener".equals(methodName))
-      returnListeners.remove((ReturnListener) arg);
-  }
-
   /**
    * Migrates the channel's configuration to the given {@code channel}.
    */
@@ -324,6 +1141,8 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
     channel.setDefaultConsumer(delegate.getDefaultConsumer());
     if (flowBlocked)
       channel.flowBlocked();
+    if (globalBasicQos != null)
+      globalBasicQos.invoke(channel);
     if (basicQos != null)
       basicQos.invoke(channel);
     if (confirmSelect)
@@ -397,9 +1216,10 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
    * closure, then we will not attempt to recover that consumer or its references again.
    * 
    * @param recoverReferences whether consumer references should be recovered
+   * @return whether consumer recovery was performed
    * @throws Exception when recovery fails due to a resource closure
    */
-  private void recoverConsumers(boolean recoverReferences) throws Exception {
+  private boolean recoverConsumers(boolean recoverReferences) throws Exception {
     if (config.isConsumerRecoveryEnabled() && !recoveryPending.get() && recoveryConsumers != null) {
       Set<QueueDeclaration> recoveredQueues = new HashSet<QueueDeclaration>();
       Set<String> recoveredExchanges = new HashSet<String>();
@@ -416,12 +1236,11 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
         try {
           // Recover referenced exchanges, queues and bindings
           if (recoverReferences) {
-            List<Binding> queueBindings = connectionHandler.queueBindings.get(queueName);
-            recoverRelatedExchanges(recoveredExchanges, queueBindings);
+            recoverRelatedExchanges(recoveredExchanges,
+              connectionHandler.queueBindings.getByDestination(queueName));
             if (consumerDeclaration.queueDeclaration != null
               && recoveredQueues.add(consumerDeclaration.queueDeclaration))
-              queueName = recoverQueue(queueName, consumerDeclaration.queueDeclaration,
-                queueBindings);
+              queueName = recoverQueue(queueName, consumerDeclaration.queueDeclaration);
           }
 
           // Recover consumer
@@ -444,37 +1263,39 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
           }
         }
       }
+      return true;
     }
+
+    return false;
   }
 
   /**
    * Recovers exchanges and bindings related to the {@code queueBindings} that are not present in
    * {@code recoveredExchanges}, adding recovered exchanges to the {@code recoveredExchanges}.
    */
-  private void recoverRelatedExchanges(Set<String> recoveredExchanges, List<Binding> queueBindings)
-    throws Exception {
-    if (config.isExchangeRecoveryEnabled() && queueBindings != null)
-      synchronized (queueBindings) {
-        for (Binding queueBinding : queueBindings) {
-          String exchangeName = queueBinding.source;
-          if (recoveredExchanges.add(exchangeName)) {
-            ResourceDeclaration exchangeDeclaration = connectionHandler.exchangeDeclarations.get(exchangeName);
-            if (exchangeDeclaration != null)
-              recoverExchange(exchangeName, exchangeDeclaration);
-            recoverExchangeBindings(connectionHandler.exchangeBindings.get(exchangeName));
-          }
+  private void recoverRelatedExchanges(Set<String> recoveredExchanges,
+    Collection<Binding> queueBindings) throws Exception {
+    if (config.isExchangeRecoveryEnabled())
+      for (Binding queueBinding : queueBindings) {
+        String exchangeName = queueBinding.source;
+        if (recoveredExchanges.add(exchangeName)) {
+          ExchangeDeclaration exchangeDeclaration = connectionHandler.exchangeDeclarations.get(exchangeName);
+          if (exchangeDeclaration != null)
+            recoverExchange(delegateSupplier, exchangeName, exchangeDeclaration);
+          recoverExchangeBindings(delegateSupplier,
+            connectionHandler.exchangeBindings.getByDestination(exchangeName));
         }
       }
   }
 
-  /** Recovers the {@code queueName} along with its {@code queueBindings}. */
-  private String recoverQueue(String queueName, QueueDeclaration queueDeclaration,
-    List<Binding> queueBindings) throws Exception {
+  /** Recovers the {@code queueName} along with its bindings. */
+  private String recoverQueue(String queueName, QueueDeclaration queueDeclaration)
+    throws Exception {
     String newQueueName = queueName;
 
     if (config.isQueueRecoveryEnabled()) {
       if (queueDeclaration != null) {
-        newQueueName = recoverQueue(queueName, queueDeclaration);
+        newQueueName = recoverQueue(delegateSupplier, queueName, queueDeclaration);
 
         // Update dependencies for new queue names
         if (!queueName.equals(newQueueName)) {
@@ -484,7 +1305,8 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
         }
       }
 
-      recoverQueueBindings(queueBindings);
+      recoverQueueBindings(delegateSupplier,
+        connectionHandler.queueBindings.getByDestination(newQueueName));
     }
 
     return newQueueName;
@@ -500,12 +1322,14 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
     if (!recoveryPending.get()) {
       notifyRecoveryCompleted();
       recoveryComplete();
-      circuit.close();
+      closeCircuit();
     }
   }
 
   private void recoveryFailed(Exception e) {
     log.error("Failed to recover {}", this, e);
+    confirmTracker.fail(e);
+    publishBuffer.discard();
     recoveryComplete();
     interruptWaiters();
     for (ChannelListener listener : config.getChannelListeners())
@@ -516,12 +1340,12 @@ public class ChannelHandler extends RetryableResource implements InvocationHandl
   }
 
   @Override
-  Channel getRecoveryChannel() {
-    return delegate;
+  boolean throwOnRecoveryFailure() {
+    return true;
   }
 
   @Override
-  boolean throwOnRecoveryFailure() {
-    return true;
+  Metrics metrics() {
+    return NoopMetrics.of(config);
   }
 }
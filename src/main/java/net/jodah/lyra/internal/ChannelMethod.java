@@ -0,0 +1,107 @@
+package net.jodah.lyra.internal;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import net.jodah.lyra.config.ChannelConfig;
+
+/**
+ * Channel methods that are handled specially by the {@link ChannelHandler}. Methods are resolved
+ * to a ChannelMethod once and cached by identity so that dispatching an invocation does not require
+ * any String comparisons.
+ *
+ * @author Jonathan Halterman
+ */
+enum ChannelMethod {
+  CONFIG(null),
+  OBJECT(null),
+  OTHER(null),
+  ABORT("abort"),
+  CLOSE("close"),
+  ADD_SHUTDOWN_LISTENER("addShutdownListener"),
+  REMOVE_SHUTDOWN_LISTENER("removeShutdownListener"),
+  BASIC_PUBLISH("basicPublish"),
+  BASIC_PUBLISH_CONFIRMED("basicPublishConfirmed"),
+  GET_UNCONFIRMED_COUNT("getUnconfirmedCount"),
+  BASIC_GET("basicGet"),
+  BASIC_ACK("basicAck"),
+  BASIC_NACK("basicNack"),
+  BASIC_REJECT("basicReject"),
+  BASIC_PUBLISH_ASYNC("basicPublishAsync"),
+  BASIC_GET_ASYNC("basicGetAsync"),
+  BASIC_ACK_ASYNC("basicAckAsync"),
+  BASIC_NACK_ASYNC("basicNackAsync"),
+  BASIC_REJECT_ASYNC("basicRejectAsync"),
+  DELIVERY_PUBLISHER("deliveryPublisher"),
+  PUBLISHING_SUBSCRIBER("publishingSubscriber"),
+  BASIC_CONSUME("basicConsume"),
+  BASIC_CANCEL("basicCancel"),
+  BASIC_QOS("basicQos"),
+  EXCHANGE_DECLARE("exchangeDeclare"),
+  EXCHANGE_DELETE("exchangeDelete"),
+  EXCHANGE_BIND("exchangeBind"),
+  EXCHANGE_UNBIND("exchangeUnbind"),
+  QUEUE_DECLARE("queueDeclare"),
+  QUEUE_DELETE("queueDelete"),
+  QUEUE_BIND("queueBind"),
+  QUEUE_UNBIND("queueUnbind"),
+  FLOW_BLOCKED("flowBlocked"),
+  CONFIRM_SELECT("confirmSelect"),
+  TX_SELECT("txSelect"),
+  ADD_CONFIRM_LISTENER("addConfirmListener"),
+  ADD_FLOW_LISTENER("addFlowListener"),
+  ADD_RETURN_LISTENER("addReturnListener"),
+  REMOVE_CONFIRM_LISTENER("removeConfirmListener"),
+  REMOVE_FLOW_LISTENER("removeFlowListener"),
+  REMOVE_RETURN_LISTENER("removeReturnListener"),
+  CLEAR_CONFIRM_LISTENERS("clearConfirmListeners"),
+  CLEAR_FLOW_LISTENERS("clearFlowListeners"),
+  CLEAR_RETURN_LISTENERS("clearReturnListeners");
+
+  /** Bounds the cache in case methods are resolved from something other than a proxy class. */
+  private static final int MAX_CACHED_METHODS = 512;
+  private static final Map<String, ChannelMethod> BY_NAME = new HashMap<String, ChannelMethod>();
+  private static volatile Map<Method, ChannelMethod> cache = new IdentityHashMap<Method, ChannelMethod>();
+
+  static {
+    for (ChannelMethod channelMethod : values())
+      if (channelMethod.methodName != null)
+        BY_NAME.put(channelMethod.methodName, channelMethod);
+  }
+
+  private final String methodName;
+
+  private ChannelMethod(String methodName) {
+    this.methodName = methodName;
+  }
+
+  /**
+   * Returns the ChannelMethod for the {@code method}, resolving and caching it if necessary.
+   */
+  static ChannelMethod of(Method method) {
+    ChannelMethod result = cache.get(method);
+    if (result == null) {
+      result = resolve(method);
+      synchronized (ChannelMethod.class) {
+        if (cache.size() < MAX_CACHED_METHODS) {
+          Map<Method, ChannelMethod> newCache = new IdentityHashMap<Method, ChannelMethod>(cache);
+          newCache.put(method, result);
+          cache = newCache;
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private static ChannelMethod resolve(Method method) {
+    if (Object.class.equals(method.getDeclaringClass()))
+      return OBJECT;
+    if (method.getDeclaringClass().isAssignableFrom(ChannelConfig.class))
+      return CONFIG;
+    ChannelMethod result = BY_NAME.get(method.getName());
+    return result == null ? OTHER : result;
+  }
+}
@@ -0,0 +1,914 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.config.AckCoalescingPolicy;
+import net.jodah.lyra.config.AdaptivePrefetchPolicy;
+import net.jodah.lyra.config.BlockedPublishPolicy;
+import net.jodah.lyra.config.ChannelConfig;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.ConsumerConfig;
+import net.jodah.lyra.config.PublishBufferPolicy;
+import net.jodah.lyra.config.RecoveryPolicy;
+import net.jodah.lyra.config.RetryPolicy;
+import net.jodah.lyra.event.ChannelListener;
+import net.jodah.lyra.event.ConfirmCallback;
+import net.jodah.lyra.event.ConsumerListener;
+import net.jodah.lyra.internal.util.Reflection;
+import net.jodah.lyra.reactive.Delivery;
+import net.jodah.lyra.reactive.Publisher;
+import net.jodah.lyra.reactive.PublishingSubscriber;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Command;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.FlowListener;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * A {@link ConfigurableChannel} that dispatches invocations to a {@link ChannelHandler} without
+ * using {@link java.lang.reflect.Proxy}. Frequently called methods such as {@code basicPublish},
+ * {@code basicGet}, {@code basicAck}, {@code basicNack} and {@code basicReject} are passed to the
+ * handler as-is, without boxing their arguments. Other methods are handled the same way a proxied
+ * invocation would be.
+ * 
+ * @author Jonathan Halterman
+ */
+public class ChannelWrapper implements ConfigurableChannel {
+  private static final Method GET_CHANNEL_NUMBER = method("getChannelNumber");
+  private static final Method GET_CONNECTION = method("getConnection");
+  private static final Method CLOSE_0 = method("close");
+  private static final Method CLOSE_2 = method("close", int.class, String.class);
+  private static final Method FLOW_BLOCKED = method("flowBlocked");
+  private static final Method ABORT_0 = method("abort");
+  private static final Method ABORT_2 = method("abort", int.class, String.class);
+  private static final Method ADD_RETURN_LISTENER =
+      method("addReturnListener", ReturnListener.class);
+  private static final Method REMOVE_RETURN_LISTENER =
+      method("removeReturnListener", ReturnListener.class);
+  private static final Method CLEAR_RETURN_LISTENERS = method("clearReturnListeners");
+  private static final Method ADD_FLOW_LISTENER = method("addFlowListener", FlowListener.class);
+  private static final Method REMOVE_FLOW_LISTENER =
+      method("removeFlowListener", FlowListener.class);
+  private static final Method CLEAR_FLOW_LISTENERS = method("clearFlowListeners");
+  private static final Method ADD_CONFIRM_LISTENER =
+      method("addConfirmListener", ConfirmListener.class);
+  private static final Method REMOVE_CONFIRM_LISTENER =
+      method("removeConfirmListener", ConfirmListener.class);
+  private static final Method CLEAR_CONFIRM_LISTENERS = method("clearConfirmListeners");
+  private static final Method GET_DEFAULT_CONSUMER = method("getDefaultConsumer");
+  private static final Method SET_DEFAULT_CONSUMER = method("setDefaultConsumer", Consumer.class);
+  private static final Method BASIC_QOS_3 = method("basicQos", int.class, int.class, boolean.class);
+  private static final Method BASIC_QOS_2 = method("basicQos", int.class, boolean.class);
+  private static final Method BASIC_QOS_1 = method("basicQos", int.class);
+  private static final Method BASIC_PUBLISH_4 =
+      method("basicPublish", String.class, String.class, AMQP.BasicProperties.class, byte[].class);
+  private static final Method BASIC_PUBLISH_5 =
+      method("basicPublish", String.class, String.class, boolean.class, AMQP.BasicProperties.class,
+          byte[].class);
+  private static final Method BASIC_PUBLISH_6 =
+      method("basicPublish", String.class, String.class, boolean.class, boolean.class,
+          AMQP.BasicProperties.class, byte[].class);
+  private static final Method EXCHANGE_DECLARE_2 =
+      method("exchangeDeclare", String.class, String.class);
+  private static final Method EXCHANGE_DECLARE_2_BUILTIN =
+      method("exchangeDeclare", String.class, BuiltinExchangeType.class);
+  private static final Method EXCHANGE_DECLARE_3 =
+      method("exchangeDeclare", String.class, String.class, boolean.class);
+  private static final Method EXCHANGE_DECLARE_3_BUILTIN =
+      method("exchangeDeclare", String.class, BuiltinExchangeType.class, boolean.class);
+  private static final Method EXCHANGE_DECLARE_5 =
+      method("exchangeDeclare", String.class, String.class, boolean.class, boolean.class,
+          Map.class);
+  private static final Method EXCHANGE_DECLARE_5_BUILTIN =
+      method("exchangeDeclare", String.class, BuiltinExchangeType.class, boolean.class,
+          boolean.class, Map.class);
+  private static final Method EXCHANGE_DECLARE_6 =
+      method("exchangeDeclare", String.class, String.class, boolean.class, boolean.class,
+          boolean.class, Map.class);
+  private static final Method EXCHANGE_DECLARE_6_BUILTIN =
+      method("exchangeDeclare", String.class, BuiltinExchangeType.class, boolean.class,
+          boolean.class, boolean.class, Map.class);
+  private static final Method EXCHANGE_DECLARE_NO_WAIT_6 =
+      method("exchangeDeclareNoWait", String.class, String.class, boolean.class, boolean.class,
+          boolean.class, Map.class);
+  private static final Method EXCHANGE_DECLARE_NO_WAIT_6_BUILTIN =
+      method("exchangeDeclareNoWait", String.class, BuiltinExchangeType.class, boolean.class,
+          boolean.class, boolean.class, Map.class);
+  private static final Method EXCHANGE_DECLARE_PASSIVE =
+      method("exchangeDeclarePassive", String.class);
+  private static final Method EXCHANGE_DELETE_2 =
+      method("exchangeDelete", String.class, boolean.class);
+  private static final Method EXCHANGE_DELETE_NO_WAIT =
+      method("exchangeDeleteNoWait", String.class, boolean.class);
+  private static final Method EXCHANGE_DELETE_1 = method("exchangeDelete", String.class);
+  private static final Method EXCHANGE_BIND_3 =
+      method("exchangeBind", String.class, String.class, String.class);
+  private static final Method EXCHANGE_BIND_4 =
+      method("exchangeBind", String.class, String.class, String.class, Map.class);
+  private static final Method EXCHANGE_BIND_NO_WAIT =
+      method("exchangeBindNoWait", String.class, String.class, String.class, Map.class);
+  private static final Method EXCHANGE_UNBIND_3 =
+      method("exchangeUnbind", String.class, String.class, String.class);
+  private static final Method EXCHANGE_UNBIND_4 =
+      method("exchangeUnbind", String.class, String.class, String.class, Map.class);
+  private static final Method EXCHANGE_UNBIND_NO_WAIT =
+      method("exchangeUnbindNoWait", String.class, String.class, String.class, Map.class);
+  private static final Method QUEUE_DECLARE_0 = method("queueDeclare");
+  private static final Method QUEUE_DECLARE_5 =
+      method("queueDeclare", String.class, boolean.class, boolean.class, boolean.class, Map.class);
+  private static final Method QUEUE_DECLARE_NO_WAIT =
+      method("queueDeclareNoWait", String.class, boolean.class, boolean.class, boolean.class,
+          Map.class);
+  private static final Method QUEUE_DECLARE_PASSIVE = method("queueDeclarePassive", String.class);
+  private static final Method QUEUE_DELETE_1 = method("queueDelete", String.class);
+  private static final Method QUEUE_DELETE_3 =
+      method("queueDelete", String.class, boolean.class, boolean.class);
+  private static final Method QUEUE_DELETE_NO_WAIT =
+      method("queueDeleteNoWait", String.class, boolean.class, boolean.class);
+  private static final Method QUEUE_BIND_3 =
+      method("queueBind", String.class, String.class, String.class);
+  private static final Method QUEUE_BIND_4 =
+      method("queueBind", String.class, String.class, String.class, Map.class);
+  private static final Method QUEUE_BIND_NO_WAIT =
+      method("queueBindNoWait", String.class, String.class, String.class, Map.class);
+  private static final Method QUEUE_UNBIND_3 =
+      method("queueUnbind", String.class, String.class, String.class);
+  private static final Method QUEUE_UNBIND_4 =
+      method("queueUnbind", String.class, String.class, String.class, Map.class);
+  private static final Method QUEUE_PURGE = method("queuePurge", String.class);
+  private static final Method BASIC_GET = method("basicGet", String.class, boolean.class);
+  private static final Method BASIC_ACK = method("basicAck", long.class, boolean.class);
+  private static final Method BASIC_NACK =
+      method("basicNack", long.class, boolean.class, boolean.class);
+  private static final Method BASIC_REJECT = method("basicReject", long.class, boolean.class);
+  private static final Method BASIC_CONSUME_2 =
+      method("basicConsume", String.class, Consumer.class);
+  private static final Method BASIC_CONSUME_3 =
+      method("basicConsume", String.class, boolean.class, Consumer.class);
+  private static final Method BASIC_CONSUME_4_ARGUMENTS =
+      method("basicConsume", String.class, boolean.class, Map.class, Consumer.class);
+  private static final Method BASIC_CONSUME_4_TAG =
+      method("basicConsume", String.class, boolean.class, String.class, Consumer.class);
+  private static final Method BASIC_CONSUME_7 =
+      method("basicConsume", String.class, boolean.class, String.class, boolean.class,
+          boolean.class, Map.class, Consumer.class);
+  private static final Method BASIC_CANCEL = method("basicCancel", String.class);
+  private static final Method BASIC_RECOVER_0 = method("basicRecover");
+  private static final Method BASIC_RECOVER_1 = method("basicRecover", boolean.class);
+  private static final Method TX_SELECT = method("txSelect");
+  private static final Method TX_COMMIT = method("txCommit");
+  private static final Method TX_ROLLBACK = method("txRollback");
+  private static final Method CONFIRM_SELECT = method("confirmSelect");
+  private static final Method GET_NEXT_PUBLISH_SEQ_NO = method("getNextPublishSeqNo");
+  private static final Method WAIT_FOR_CONFIRMS_0 = method("waitForConfirms");
+  private static final Method WAIT_FOR_CONFIRMS_1 = method("waitForConfirms", long.class);
+  private static final Method WAIT_FOR_CONFIRMS_OR_DIE_0 = method("waitForConfirmsOrDie");
+  private static final Method WAIT_FOR_CONFIRMS_OR_DIE_1 =
+      method("waitForConfirmsOrDie", long.class);
+  private static final Method ASYNC_RPC = method("asyncRpc", com.rabbitmq.client.Method.class);
+  private static final Method RPC = method("rpc", com.rabbitmq.client.Method.class);
+  static final Method MESSAGE_COUNT = method("messageCount", String.class);
+  private static final Method CONSUMER_COUNT = method("consumerCount", String.class);
+  private static final Method ADD_SHUTDOWN_LISTENER =
+      method("addShutdownListener", ShutdownListener.class);
+  private static final Method REMOVE_SHUTDOWN_LISTENER =
+      method("removeShutdownListener", ShutdownListener.class);
+  private static final Method GET_CLOSE_REASON = method("getCloseReason");
+  private static final Method NOTIFY_LISTENERS = method("notifyListeners");
+  private static final Method IS_OPEN = method("isOpen");
+  private static final Method BASIC_PUBLISH_CONFIRMED_6 =
+      method("basicPublishConfirmed", String.class, String.class, boolean.class,
+          AMQP.BasicProperties.class, byte[].class, ConfirmCallback.class);
+  private static final Method GET_UNCONFIRMED_COUNT = method("getUnconfirmedCount");
+
+  final ChannelHandler handler;
+
+  ChannelWrapper(ChannelHandler handler) {
+    this.handler = handler;
+  }
+
+  @Override
+  public int getChannelNumber() {
+    return (Integer) invoke(GET_CHANNEL_NUMBER, null);
+  }
+
+  @Override
+  public Connection getConnection() {
+    return (Connection) invoke(GET_CONNECTION, null);
+  }
+
+  @Override
+  public void close() throws IOException, TimeoutException {
+    invoke(CLOSE_0, null);
+  }
+
+  @Override
+  public void close(int closeCode, String closeMessage) throws IOException, TimeoutException {
+    invoke(CLOSE_2, new Object[] { closeCode, closeMessage });
+  }
+
+  @Override
+  public boolean flowBlocked() {
+    return (Boolean) invoke(FLOW_BLOCKED, null);
+  }
+
+  @Override
+  public void abort() throws IOException {
+    invoke(ABORT_0, null);
+  }
+
+  @Override
+  public void abort(int closeCode, String closeMessage) throws IOException {
+    invoke(ABORT_2, new Object[] { closeCode, closeMessage });
+  }
+
+  @Override
+  public void addReturnListener(ReturnListener listener) {
+    invoke(ADD_RETURN_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public boolean removeReturnListener(ReturnListener listener) {
+    return (Boolean) invoke(REMOVE_RETURN_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public void clearReturnListeners() {
+    invoke(CLEAR_RETURN_LISTENERS, null);
+  }
+
+  @Override
+  public void addFlowListener(FlowListener listener) {
+    invoke(ADD_FLOW_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public boolean removeFlowListener(FlowListener listener) {
+    return (Boolean) invoke(REMOVE_FLOW_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public void clearFlowListeners() {
+    invoke(CLEAR_FLOW_LISTENERS, null);
+  }
+
+  @Override
+  public void addConfirmListener(ConfirmListener listener) {
+    invoke(ADD_CONFIRM_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public boolean removeConfirmListener(ConfirmListener listener) {
+    return (Boolean) invoke(REMOVE_CONFIRM_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public void clearConfirmListeners() {
+    invoke(CLEAR_CONFIRM_LISTENERS, null);
+  }
+
+  @Override
+  public Consumer getDefaultConsumer() {
+    return (Consumer) invoke(GET_DEFAULT_CONSUMER, null);
+  }
+
+  @Override
+  public void setDefaultConsumer(Consumer consumer) {
+    invoke(SET_DEFAULT_CONSUMER, new Object[] { consumer });
+  }
+
+  @Override
+  public void basicQos(int prefetchSize, int prefetchCount, boolean global) throws IOException {
+    invoke(BASIC_QOS_3, new Object[] { prefetchSize, prefetchCount, global });
+  }
+
+  @Override
+  public void basicQos(int prefetchCount, boolean global) throws IOException {
+    invoke(BASIC_QOS_2, new Object[] { prefetchCount, global });
+  }
+
+  @Override
+  public void basicQos(int prefetchCount) throws IOException {
+    invoke(BASIC_QOS_1, new Object[] { prefetchCount });
+  }
+
+  @Override
+  public void basicPublish(String exchange, String routingKey, AMQP.BasicProperties props,
+      byte[] body) throws IOException {
+    basicPublish(exchange, routingKey, false, false, props, body);
+  }
+
+  @Override
+  public void basicPublish(String exchange, String routingKey, boolean mandatory,
+      AMQP.BasicProperties props, byte[] body) throws IOException {
+    basicPublish(exchange, routingKey, mandatory, false, props, body);
+  }
+
+  @Override
+  public void basicPublish(String exchange, String routingKey, boolean mandatory,
+      boolean immediate, AMQP.BasicProperties props, byte[] body) throws IOException {
+    try {
+      handler.basicPublish(exchange, routingKey, mandatory, immediate, props, body);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, BASIC_PUBLISH_6);
+    }
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange, String type) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_2, new Object[] { exchange, type });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange,
+      BuiltinExchangeType type) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_2_BUILTIN, new Object[] { exchange,
+        type });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange, String type,
+      boolean durable) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_3, new Object[] { exchange, type,
+        durable });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange, BuiltinExchangeType type,
+      boolean durable) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_3_BUILTIN, new Object[] { exchange,
+        type, durable });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange, String type, boolean durable,
+      boolean autoDelete, Map<String, Object> arguments) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_5, new Object[] { exchange, type,
+        durable, autoDelete, arguments });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange, BuiltinExchangeType type,
+      boolean durable, boolean autoDelete, Map<String, Object> arguments) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_5_BUILTIN, new Object[] { exchange,
+        type, durable, autoDelete, arguments });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange, String type, boolean durable,
+      boolean autoDelete, boolean internal, Map<String, Object> arguments) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_6, new Object[] { exchange, type,
+        durable, autoDelete, internal, arguments });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclare(String exchange, BuiltinExchangeType type,
+      boolean durable, boolean autoDelete, boolean internal, Map<String, Object> arguments)
+      throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_6_BUILTIN, new Object[] { exchange,
+        type, durable, autoDelete, internal, arguments });
+  }
+
+  @Override
+  public void exchangeDeclareNoWait(String exchange, String type, boolean durable,
+      boolean autoDelete, boolean internal, Map<String, Object> arguments) throws IOException {
+    invoke(EXCHANGE_DECLARE_NO_WAIT_6, new Object[] { exchange, type, durable, autoDelete,
+        internal, arguments });
+  }
+
+  @Override
+  public void exchangeDeclareNoWait(String exchange, BuiltinExchangeType type, boolean durable,
+      boolean autoDelete, boolean internal, Map<String, Object> arguments) throws IOException {
+    invoke(EXCHANGE_DECLARE_NO_WAIT_6_BUILTIN, new Object[] { exchange, type, durable, autoDelete,
+        internal, arguments });
+  }
+
+  @Override
+  public AMQP.Exchange.DeclareOk exchangeDeclarePassive(String name) throws IOException {
+    return (AMQP.Exchange.DeclareOk) invoke(EXCHANGE_DECLARE_PASSIVE, new Object[] { name });
+  }
+
+  @Override
+  public AMQP.Exchange.DeleteOk exchangeDelete(String exchange,
+      boolean ifUnused) throws IOException {
+    return (AMQP.Exchange.DeleteOk) invoke(EXCHANGE_DELETE_2, new Object[] { exchange, ifUnused });
+  }
+
+  @Override
+  public void exchangeDeleteNoWait(String exchange, boolean ifUnused) throws IOException {
+    invoke(EXCHANGE_DELETE_NO_WAIT, new Object[] { exchange, ifUnused });
+  }
+
+  @Override
+  public AMQP.Exchange.DeleteOk exchangeDelete(String exchange) throws IOException {
+    return (AMQP.Exchange.DeleteOk) invoke(EXCHANGE_DELETE_1, new Object[] { exchange });
+  }
+
+  @Override
+  public AMQP.Exchange.BindOk exchangeBind(String destination, String source,
+      String routingKey) throws IOException {
+    return (AMQP.Exchange.BindOk) invoke(EXCHANGE_BIND_3, new Object[] { destination, source,
+        routingKey });
+  }
+
+  @Override
+  public AMQP.Exchange.BindOk exchangeBind(String destination, String source, String routingKey,
+      Map<String, Object> arguments) throws IOException {
+    return (AMQP.Exchange.BindOk) invoke(EXCHANGE_BIND_4, new Object[] { destination, source,
+        routingKey, arguments });
+  }
+
+  @Override
+  public void exchangeBindNoWait(String destination, String source, String routingKey,
+      Map<String, Object> arguments) throws IOException {
+    invoke(EXCHANGE_BIND_NO_WAIT, new Object[] { destination, source, routingKey, arguments });
+  }
+
+  @Override
+  public AMQP.Exchange.UnbindOk exchangeUnbind(String destination, String source,
+      String routingKey) throws IOException {
+    return (AMQP.Exchange.UnbindOk) invoke(EXCHANGE_UNBIND_3, new Object[] { destination, source,
+        routingKey });
+  }
+
+  @Override
+  public AMQP.Exchange.UnbindOk exchangeUnbind(String destination, String source,
+      String routingKey, Map<String, Object> arguments) throws IOException {
+    return (AMQP.Exchange.UnbindOk) invoke(EXCHANGE_UNBIND_4, new Object[] { destination, source,
+        routingKey, arguments });
+  }
+
+  @Override
+  public void exchangeUnbindNoWait(String destination, String source, String routingKey,
+      Map<String, Object> arguments) throws IOException {
+    invoke(EXCHANGE_UNBIND_NO_WAIT, new Object[] { destination, source, routingKey, arguments });
+  }
+
+  @Override
+  public AMQP.Queue.DeclareOk queueDeclare() throws IOException {
+    return (AMQP.Queue.DeclareOk) invoke(QUEUE_DECLARE_0, null);
+  }
+
+  @Override
+  public AMQP.Queue.DeclareOk queueDeclare(String queue, boolean durable, boolean exclusive,
+      boolean autoDelete, Map<String, Object> arguments) throws IOException {
+    return (AMQP.Queue.DeclareOk) invoke(QUEUE_DECLARE_5, new Object[] { queue, durable, exclusive,
+        autoDelete, arguments });
+  }
+
+  @Override
+  public void queueDeclareNoWait(String queue, boolean durable, boolean exclusive,
+      boolean autoDelete, Map<String, Object> arguments) throws IOException {
+    invoke(QUEUE_DECLARE_NO_WAIT, new Object[] { queue, durable, exclusive, autoDelete,
+        arguments });
+  }
+
+  @Override
+  public AMQP.Queue.DeclareOk queueDeclarePassive(String queue) throws IOException {
+    return (AMQP.Queue.DeclareOk) invoke(QUEUE_DECLARE_PASSIVE, new Object[] { queue });
+  }
+
+  @Override
+  public AMQP.Queue.DeleteOk queueDelete(String queue) throws IOException {
+    return (AMQP.Queue.DeleteOk) invoke(QUEUE_DELETE_1, new Object[] { queue });
+  }
+
+  @Override
+  public AMQP.Queue.DeleteOk queueDelete(String queue, boolean ifUnused,
+      boolean ifEmpty) throws IOException {
+    return (AMQP.Queue.DeleteOk) invoke(QUEUE_DELETE_3, new Object[] { queue, ifUnused, ifEmpty });
+  }
+
+  @Override
+  public void queueDeleteNoWait(String queue, boolean ifUnused,
+      boolean ifEmpty) throws IOException {
+    invoke(QUEUE_DELETE_NO_WAIT, new Object[] { queue, ifUnused, ifEmpty });
+  }
+
+  @Override
+  public AMQP.Queue.BindOk queueBind(String queue, String exchange,
+      String routingKey) throws IOException {
+    return (AMQP.Queue.BindOk) invoke(QUEUE_BIND_3, new Object[] { queue, exchange, routingKey });
+  }
+
+  @Override
+  public AMQP.Queue.BindOk queueBind(String queue, String exchange, String routingKey,
+      Map<String, Object> arguments) throws IOException {
+    return (AMQP.Queue.BindOk) invoke(QUEUE_BIND_4, new Object[] { queue, exchange, routingKey,
+        arguments });
+  }
+
+  @Override
+  public void queueBindNoWait(String queue, String exchange, String routingKey,
+      Map<String, Object> arguments) throws IOException {
+    invoke(QUEUE_BIND_NO_WAIT, new Object[] { queue, exchange, routingKey, arguments });
+  }
+
+  @Override
+  public AMQP.Queue.UnbindOk queueUnbind(String queue, String exchange,
+      String routingKey) throws IOException {
+    return (AMQP.Queue.UnbindOk) invoke(QUEUE_UNBIND_3, new Object[] { queue, exchange,
+        routingKey });
+  }
+
+  @Override
+  public AMQP.Queue.UnbindOk queueUnbind(String queue, String exchange, String routingKey,
+      Map<String, Object> arguments) throws IOException {
+    return (AMQP.Queue.UnbindOk) invoke(QUEUE_UNBIND_4, new Object[] { queue, exchange, routingKey,
+        arguments });
+  }
+
+  @Override
+  public AMQP.Queue.PurgeOk queuePurge(String queue) throws IOException {
+    return (AMQP.Queue.PurgeOk) invoke(QUEUE_PURGE, new Object[] { queue });
+  }
+
+  @Override
+  public GetResponse basicGet(String queue, boolean autoAck) throws IOException {
+    try {
+      return handler.basicGet(queue, autoAck);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, BASIC_GET);
+    }
+  }
+
+  @Override
+  public void basicAck(long deliveryTag, boolean multiple) throws IOException {
+    try {
+      handler.basicAck(deliveryTag, multiple);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, BASIC_ACK);
+    }
+  }
+
+  @Override
+  public void basicNack(long deliveryTag, boolean multiple, boolean requeue) throws IOException {
+    try {
+      handler.basicNack(deliveryTag, multiple, requeue);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, BASIC_NACK);
+    }
+  }
+
+  @Override
+  public void basicReject(long deliveryTag, boolean requeue) throws IOException {
+    try {
+      handler.basicReject(deliveryTag, requeue);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, BASIC_REJECT);
+    }
+  }
+
+  @Override
+  public String basicConsume(String queue, Consumer callback) throws IOException {
+    return (String) invoke(BASIC_CONSUME_2, new Object[] { queue, callback });
+  }
+
+  @Override
+  public String basicConsume(String queue, boolean autoAck, Consumer callback) throws IOException {
+    return (String) invoke(BASIC_CONSUME_3, new Object[] { queue, autoAck, callback });
+  }
+
+  @Override
+  public String basicConsume(String queue, boolean autoAck, Map<String, Object> arguments,
+      Consumer callback) throws IOException {
+    return (String) invoke(BASIC_CONSUME_4_ARGUMENTS, new Object[] { queue, autoAck, arguments,
+        callback });
+  }
+
+  @Override
+  public String basicConsume(String queue, boolean autoAck, String consumerTag,
+      Consumer callback) throws IOException {
+    return (String) invoke(BASIC_CONSUME_4_TAG, new Object[] { queue, autoAck, consumerTag,
+        callback });
+  }
+
+  @Override
+  public String basicConsume(String queue, boolean autoAck, String consumerTag, boolean noLocal,
+      boolean exclusive, Map<String, Object> arguments, Consumer callback) throws IOException {
+    return (String) invoke(BASIC_CONSUME_7, new Object[] { queue, autoAck, consumerTag, noLocal,
+        exclusive, arguments, callback });
+  }
+
+  @Override
+  public void basicCancel(String consumerTag) throws IOException {
+    invoke(BASIC_CANCEL, new Object[] { consumerTag });
+  }
+
+  @Override
+  public AMQP.Basic.RecoverOk basicRecover() throws IOException {
+    return (AMQP.Basic.RecoverOk) invoke(BASIC_RECOVER_0, null);
+  }
+
+  @Override
+  public AMQP.Basic.RecoverOk basicRecover(boolean requeue) throws IOException {
+    return (AMQP.Basic.RecoverOk) invoke(BASIC_RECOVER_1, new Object[] { requeue });
+  }
+
+  @Override
+  public AMQP.Tx.SelectOk txSelect() throws IOException {
+    return (AMQP.Tx.SelectOk) invoke(TX_SELECT, null);
+  }
+
+  @Override
+  public AMQP.Tx.CommitOk txCommit() throws IOException {
+    return (AMQP.Tx.CommitOk) invoke(TX_COMMIT, null);
+  }
+
+  @Override
+  public AMQP.Tx.RollbackOk txRollback() throws IOException {
+    return (AMQP.Tx.RollbackOk) invoke(TX_ROLLBACK, null);
+  }
+
+  @Override
+  public AMQP.Confirm.SelectOk confirmSelect() throws IOException {
+    return (AMQP.Confirm.SelectOk) invoke(CONFIRM_SELECT, null);
+  }
+
+  @Override
+  public long getNextPublishSeqNo() {
+    return (Long) invoke(GET_NEXT_PUBLISH_SEQ_NO, null);
+  }
+
+  @Override
+  public boolean waitForConfirms() throws InterruptedException {
+    return (Boolean) invoke(WAIT_FOR_CONFIRMS_0, null);
+  }
+
+  @Override
+  public boolean waitForConfirms(long timeout) throws InterruptedException, TimeoutException {
+    return (Boolean) invoke(WAIT_FOR_CONFIRMS_1, new Object[] { timeout });
+  }
+
+  @Override
+  public void waitForConfirmsOrDie() throws IOException, InterruptedException {
+    invoke(WAIT_FOR_CONFIRMS_OR_DIE_0, null);
+  }
+
+  @Override
+  public void waitForConfirmsOrDie(long timeout) throws IOException, InterruptedException,
+      TimeoutException {
+    invoke(WAIT_FOR_CONFIRMS_OR_DIE_1, new Object[] { timeout });
+  }
+
+  @Override
+  public void asyncRpc(com.rabbitmq.client.Method method) throws IOException {
+    invoke(ASYNC_RPC, new Object[] { method });
+  }
+
+  @Override
+  public Command rpc(com.rabbitmq.client.Method method) throws IOException {
+    return (Command) invoke(RPC, new Object[] { method });
+  }
+
+  @Override
+  public long messageCount(String queue) throws IOException {
+    return (Long) invoke(MESSAGE_COUNT, new Object[] { queue });
+  }
+
+  @Override
+  public long consumerCount(String queue) throws IOException {
+    return (Long) invoke(CONSUMER_COUNT, new Object[] { queue });
+  }
+
+  @Override
+  public void addShutdownListener(ShutdownListener listener) {
+    invoke(ADD_SHUTDOWN_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public void removeShutdownListener(ShutdownListener listener) {
+    invoke(REMOVE_SHUTDOWN_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public ShutdownSignalException getCloseReason() {
+    return (ShutdownSignalException) invoke(GET_CLOSE_REASON, null);
+  }
+
+  @Override
+  public void notifyListeners() {
+    invoke(NOTIFY_LISTENERS, null);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return (Boolean) invoke(IS_OPEN, null);
+  }
+
+  @Override
+  public void basicPublishConfirmed(String exchange, String routingKey, boolean mandatory,
+      AMQP.BasicProperties props, byte[] body, ConfirmCallback callback) throws IOException {
+    try {
+      handler.basicPublishConfirmed(exchange, routingKey, mandatory, props, body, callback);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, BASIC_PUBLISH_CONFIRMED_6);
+    }
+  }
+
+  @Override
+  public void basicPublishConfirmed(String exchange, String routingKey,
+      AMQP.BasicProperties props, byte[] body, ConfirmCallback callback) throws IOException {
+    basicPublishConfirmed(exchange, routingKey, false, props, body, callback);
+  }
+
+  @Override
+  public AsyncFuture<Void> basicAckAsync(long deliveryTag, boolean multiple) {
+    return handler.basicAckAsync(deliveryTag, multiple);
+  }
+
+  @Override
+  public Publisher<Delivery> deliveryPublisher(String queue, int maxPrefetch) {
+    return handler.deliveryPublisher(queue, maxPrefetch);
+  }
+
+  @Override
+  public PublishingSubscriber publishingSubscriber(int window) {
+    return handler.publishingSubscriber(window);
+  }
+
+  @Override
+  public AsyncFuture<GetResponse> basicGetAsync(String queue, boolean autoAck) {
+    return handler.basicGetAsync(queue, autoAck);
+  }
+
+  @Override
+  public AsyncFuture<Void> basicNackAsync(long deliveryTag, boolean multiple, boolean requeue) {
+    return handler.basicNackAsync(deliveryTag, multiple, requeue);
+  }
+
+  @Override
+  public AsyncFuture<Void> basicPublishAsync(String exchange, String routingKey,
+      boolean mandatory, AMQP.BasicProperties props, byte[] body) {
+    return handler.basicPublishAsync(exchange, routingKey, mandatory, props, body);
+  }
+
+  @Override
+  public AsyncFuture<Void> basicPublishAsync(String exchange, String routingKey,
+      AMQP.BasicProperties props, byte[] body) {
+    return handler.basicPublishAsync(exchange, routingKey, false, props, body);
+  }
+
+  @Override
+  public AsyncFuture<Void> basicRejectAsync(long deliveryTag, boolean requeue) {
+    return handler.basicRejectAsync(deliveryTag, requeue);
+  }
+
+  @Override
+  public int getUnconfirmedCount() {
+    return (Integer) invoke(GET_UNCONFIRMED_COUNT, null);
+  }
+
+  @Override
+  public Collection<ChannelListener> getChannelListeners() {
+    return handler.config.getChannelListeners();
+  }
+
+  @Override
+  public AdaptivePrefetchPolicy getAdaptivePrefetchPolicy() {
+    return handler.config.getAdaptivePrefetchPolicy();
+  }
+
+  @Override
+  public AckCoalescingPolicy getAckCoalescingPolicy() {
+    return handler.config.getAckCoalescingPolicy();
+  }
+
+  @Override
+  public BlockedPublishPolicy getBlockedPublishPolicy() {
+    return handler.config.getBlockedPublishPolicy();
+  }
+
+  @Override
+  public RecoveryPolicy getChannelRecoveryPolicy() {
+    return handler.config.getChannelRecoveryPolicy();
+  }
+
+  @Override
+  public RetryPolicy getChannelRetryPolicy() {
+    return handler.config.getChannelRetryPolicy();
+  }
+
+  @Override
+  public PublishBufferPolicy getPublishBufferPolicy() {
+    return handler.config.getPublishBufferPolicy();
+  }
+
+  @Override
+  public Collection<ConsumerListener> getConsumerListeners() {
+    return handler.config.getConsumerListeners();
+  }
+
+  @Override
+  public boolean isConsumerRecoveryEnabled() {
+    return handler.config.isConsumerRecoveryEnabled();
+  }
+
+  @Override
+  public boolean isDeclarationCachingEnabled() {
+    return handler.config.isDeclarationCachingEnabled();
+  }
+
+  @Override
+  public boolean isExchangeRecoveryEnabled() {
+    return handler.config.isExchangeRecoveryEnabled();
+  }
+
+  @Override
+  public boolean isQueueRecoveryEnabled() {
+    return handler.config.isQueueRecoveryEnabled();
+  }
+
+  @Override
+  public ChannelConfig withAdaptivePrefetch(AdaptivePrefetchPolicy adaptivePrefetchPolicy) {
+    return handler.config.withAdaptivePrefetch(adaptivePrefetchPolicy);
+  }
+
+  @Override
+  public ChannelConfig withAckCoalescing(AckCoalescingPolicy ackCoalescingPolicy) {
+    return handler.config.withAckCoalescing(ackCoalescingPolicy);
+  }
+
+  @Override
+  public ChannelConfig withBlockedPublishPolicy(BlockedPublishPolicy blockedPublishPolicy) {
+    return handler.config.withBlockedPublishPolicy(blockedPublishPolicy);
+  }
+
+  @Override
+  public ChannelConfig withChannelListeners(ChannelListener... channelListeners) {
+    return handler.config.withChannelListeners(channelListeners);
+  }
+
+  @Override
+  public ChannelConfig withChannelRecoveryPolicy(RecoveryPolicy recoveryPolicy) {
+    return handler.config.withChannelRecoveryPolicy(recoveryPolicy);
+  }
+
+  @Override
+  public ChannelConfig withChannelRetryPolicy(RetryPolicy retryPolicy) {
+    return handler.config.withChannelRetryPolicy(retryPolicy);
+  }
+
+  @Override
+  public ChannelConfig withPublishBuffer(PublishBufferPolicy publishBufferPolicy) {
+    return handler.config.withPublishBuffer(publishBufferPolicy);
+  }
+
+  @Override
+  public ConsumerConfig withConsumerListeners(ConsumerListener... consumerListeners) {
+    return handler.config.withConsumerListeners(consumerListeners);
+  }
+
+  @Override
+  public ConsumerConfig withConsumerRecovery(boolean enabled) {
+    return handler.config.withConsumerRecovery(enabled);
+  }
+
+  @Override
+  public ChannelConfig withDeclarationCaching(boolean enabled) {
+    return handler.config.withDeclarationCaching(enabled);
+  }
+
+  @Override
+  public ConsumerConfig withExchangeRecovery(boolean enabled) {
+    return handler.config.withExchangeRecovery(enabled);
+  }
+
+  @Override
+  public ConsumerConfig withQueueRecovery(boolean enabled) {
+    return handler.config.withQueueRecovery(enabled);
+  }
+
+  @Override
+  public String toString() {
+    return handler.toString();
+  }
+
+  private Object invoke(Method method, Object[] args) {
+    try {
+      return handler.invoke(this, method, args);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, method);
+    }
+  }
+
+  private static Method method(String name, Class<?>... parameterTypes) {
+    try {
+      return ConfigurableChannel.class.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
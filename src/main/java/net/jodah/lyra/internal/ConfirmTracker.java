@@ -0,0 +1,205 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.jodah.lyra.event.ConfirmCallback;
+import net.jodah.lyra.internal.ChannelHandler.RecoveryEpoch;
+import net.jodah.lyra.internal.util.AscendingLongMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+
+/**
+ * Tracks publishes that are awaiting confirmation by the broker, keyed by publish sequence number.
+ * Sequence numbers are specific to a channel, so pending publishes are recorded against the
+ * {@link RecoveryEpoch} they were made in. When a publish is made in, or the tracker is recovered
+ * to, a new epoch, publishes that were pending in the previous epoch are republished on the new
+ * epoch's channel.
+ *
+ * @author Jonathan Halterman
+ */
+class ConfirmTracker {
+  private static final Logger log = LoggerFactory.getLogger(ConfirmTracker.class);
+
+  private final AscendingLongMap<PendingPublish> pending = new AscendingLongMap<PendingPublish>();
+  /** Publishes that could not be republished in the current epoch */
+  private final List<PendingPublish> unpublished = new ArrayList<PendingPublish>();
+  private RecoveryEpoch epoch;
+  private EpochConfirmListener listener;
+
+  static final class PendingPublish {
+    final String exchange;
+    final String routingKey;
+    final boolean mandatory;
+    final BasicProperties props;
+    final byte[] body;
+    final ConfirmCallback callback;
+
+    PendingPublish(String exchange, String routingKey, boolean mandatory, BasicProperties props,
+        byte[] body, ConfirmCallback callback) {
+      this.exchange = exchange;
+      this.routingKey = routingKey;
+      this.mandatory = mandatory;
+      this.props = props;
+      this.body = body;
+      this.callback = callback;
+    }
+
+    void publish(Channel channel) throws IOException {
+      channel.basicPublish(exchange, routingKey, mandatory, props, body);
+    }
+  }
+
+  /**
+   * Resolves confirms for a particular epoch, ignoring any that arrive after the tracker has moved
+   * on to a new epoch.
+   */
+  private class EpochConfirmListener implements ConfirmListener {
+    private final RecoveryEpoch listenerEpoch;
+
+    EpochConfirmListener(RecoveryEpoch listenerEpoch) {
+      this.listenerEpoch = listenerEpoch;
+    }
+
+    @Override
+    public void handleAck(long deliveryTag, boolean multiple) {
+      confirm(listenerEpoch, deliveryTag, multiple, true);
+    }
+
+    @Override
+    public void handleNack(long deliveryTag, boolean multiple) {
+      confirm(listenerEpoch, deliveryTag, multiple, false);
+    }
+  }
+
+  /**
+   * Publishes a message on the {@code epoch}'s channel and tracks it until it is confirmed.
+   * Publishing and recording the sequence number happen atomically with respect to other tracked
+   * publishes.
+   *
+   * @throws IOException if the publish, or the republishing of publishes from a prior epoch, fails
+   */
+  synchronized void publish(RecoveryEpoch epoch, String exchange, String routingKey,
+      boolean mandatory, BasicProperties props, byte[] body, ConfirmCallback callback)
+      throws IOException {
+    if (this.epoch != epoch)
+      migrate(epoch);
+    PendingPublish publish = new PendingPublish(exchange, routingKey, mandatory, props, body,
+        callback);
+    long seqNo = epoch.channel.getNextPublishSeqNo();
+    publish.publish(epoch.channel);
+    pending.put(seqNo, publish);
+  }
+
+  /**
+   * Republishes any pending publishes on the {@code epoch}'s channel, if it is not already the
+   * current epoch. Failures are logged, and republishing is tried again on the next publish.
+   */
+  synchronized void recover(RecoveryEpoch epoch) {
+    if (this.epoch != epoch && (this.epoch != null || !unpublished.isEmpty()))
+      try {
+        migrate(epoch);
+      } catch (IOException e) {
+        log.error("Failed to republish unconfirmed messages via {}", epoch.channel, e);
+      }
+  }
+
+  /**
+   * Re-registers the confirm listener for the current epoch after the listeners on the
+   * {@code channel} have been cleared.
+   */
+  synchronized void listenersCleared(Channel channel) {
+    if (epoch != null && epoch.channel == channel)
+      channel.addConfirmListener(listener);
+  }
+
+  /**
+   * Fails all pending publishes with the {@code failure}.
+   */
+  void fail(Throwable failure) {
+    List<PendingPublish> failed = new ArrayList<PendingPublish>();
+    synchronized (this) {
+      pending.removeAll(failed);
+      failed.addAll(unpublished);
+      unpublished.clear();
+    }
+
+    for (PendingPublish publish : failed)
+      try {
+        publish.callback.onFailure(failure);
+      } catch (Exception e) {
+        log.error("Confirm callback for {} failed", publish.exchange, e);
+      }
+  }
+
+  synchronized int getUnconfirmedCount() {
+    return pending.size() + unpublished.size();
+  }
+
+  /**
+   * Moves the tracker to the {@code newEpoch}, republishing publishes that were pending in the
+   * prior epoch in their original order.
+   */
+  private void migrate(RecoveryEpoch newEpoch) throws IOException {
+    List<PendingPublish> republish = new ArrayList<PendingPublish>();
+    pending.removeAll(republish);
+    republish.addAll(unpublished);
+    unpublished.clear();
+
+    epoch = newEpoch;
+    listener = new EpochConfirmListener(newEpoch);
+    newEpoch.channel.addConfirmListener(listener);
+
+    if (!republish.isEmpty())
+      log.info("Republishing {} unconfirmed messages via {}", republish.size(), newEpoch.channel);
+    for (int i = 0; i < republish.size(); i++) {
+      PendingPublish publish = republish.get(i);
+      try {
+        long seqNo = newEpoch.channel.getNextPublishSeqNo();
+        publish.publish(newEpoch.channel);
+        pending.put(seqNo, publish);
+      } catch (IOException e) {
+        unpublished.addAll(republish.subList(i, republish.size()));
+        epoch = null;
+        throw e;
+      }
+    }
+  }
+
+  private void confirm(RecoveryEpoch confirmEpoch, long deliveryTag, boolean multiple,
+      boolean ack) {
+    PendingPublish single = null;
+    List<PendingPublish> confirmed = null;
+    synchronized (this) {
+      if (confirmEpoch != epoch)
+        return;
+      if (multiple)
+        pending.removeUpTo(deliveryTag, confirmed = new ArrayList<PendingPublish>());
+      else
+        single = pending.remove(deliveryTag);
+    }
+
+    if (single != null)
+      callback(single, ack);
+    else if (confirmed != null)
+      for (PendingPublish publish : confirmed)
+        callback(publish, ack);
+  }
+
+  private void callback(PendingPublish publish, boolean ack) {
+    try {
+      if (ack)
+        publish.callback.onAck();
+      else
+        publish.callback.onNack();
+    } catch (Exception e) {
+      log.error("Confirm callback for {} failed", publish.exchange, e);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.event.ConfirmCallback;
+import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.internal.util.concurrent.DefaultAsyncFuture;
+import net.jodah.lyra.reactive.OutboundMessage;
+import net.jodah.lyra.reactive.PublishingSubscriber;
+import net.jodah.lyra.reactive.Subscription;
+
+import com.rabbitmq.client.AlreadyClosedException;
+
+/**
+ * Publishes received messages via {@link ChannelHandler#basicPublishConfirmed}, keeping at most
+ * {@code window} messages unconfirmed by requesting one message from upstream per confirm. Requests
+ * are made off of the connection's thread so that publishes never block it. Messages
+ * received while the channel is being recovered are held and published once it is recovered rather
+ * than blocking the upstream publisher's thread. Since no confirms arrive during recovery, demand
+ * pauses until the channel is recovered and its unconfirmed publishes are republished.
+ *
+ * @author Jonathan Halterman
+ */
+class ConfirmWindowSubscriber implements PublishingSubscriber {
+  private final ChannelHandler channelHandler;
+  private final int window;
+  private final DefaultAsyncFuture<Void> completion = new DefaultAsyncFuture<Void>();
+  private final ConcurrentLinkedQueue<OutboundMessage> pending =
+      new ConcurrentLinkedQueue<OutboundMessage>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicBoolean resumePending = new AtomicBoolean();
+  private final AtomicLong unrequested = new AtomicLong();
+  private final ConfirmCallback confirmCallback = new ConfirmCallback() {
+    @Override
+    public void onAck() {
+      inFlight.decrementAndGet();
+      if (unrequested.getAndIncrement() == 0 && !upstreamDone)
+        SharedExecutors.SCHEDULER.execute(requestMore);
+      checkComplete();
+    }
+
+    @Override
+    public void onNack() {
+      fail(new IOException("Publish was nacked by the broker"));
+    }
+
+    @Override
+    public void onFailure(Throwable failure) {
+      fail(failure);
+    }
+  };
+  /** Requests messages for confirmed publishes off of the connection's thread */
+  private final Runnable requestMore = new Runnable() {
+    @Override
+    public void run() {
+      long n = unrequested.getAndSet(0);
+      if (n > 0 && !upstreamDone && !completion.isDone())
+        subscription.request(n);
+    }
+  };
+  private final Runnable resume = new Runnable() {
+    @Override
+    public void run() {
+      SharedExecutors.SCHEDULER.execute(new Runnable() {
+        @Override
+        public void run() {
+          resumePending.set(false);
+          publishPending();
+        }
+      });
+    }
+  };
+  private volatile Subscription subscription;
+  private volatile boolean upstreamDone;
+
+  ConfirmWindowSubscriber(ChannelHandler channelHandler, int window) {
+    Assert.isTrue(window > 0, "window must be greater than 0");
+    this.channelHandler = channelHandler;
+    this.window = window;
+  }
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    Assert.notNull(subscription, "subscription");
+    if (this.subscription != null) {
+      subscription.cancel();
+      return;
+    }
+
+    this.subscription = subscription;
+    subscription.request(window);
+  }
+
+  @Override
+  public void onNext(OutboundMessage message) {
+    Assert.notNull(message, "message");
+    if (completion.isDone())
+      return;
+    inFlight.incrementAndGet();
+    pending.add(message);
+    publishPending();
+  }
+
+  @Override
+  public void onError(Throwable failure) {
+    upstreamDone = true;
+    completion.fail(Assert.notNull(failure, "failure"));
+  }
+
+  @Override
+  public void onComplete() {
+    upstreamDone = true;
+    checkComplete();
+  }
+
+  @Override
+  public AsyncFuture<Void> getCompletion() {
+    return completion;
+  }
+
+  @Override
+  public int getInFlightCount() {
+    return inFlight.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("publishing-subscriber via %s", channelHandler);
+  }
+
+  /**
+   * Publishes pending messages in order while the channel is available, else resumes once the
+   * channel is recovered.
+   */
+  private synchronized void publishPending() {
+    while (!pending.isEmpty() && !completion.isDone()) {
+      if (channelHandler.closed) {
+        fail(new AlreadyClosedException(channelHandler.delegate.getCloseReason()));
+        return;
+      }
+      if (!channelHandler.circuit.isClosed()) {
+        if (resumePending.compareAndSet(false, true))
+          channelHandler.whenRecovered(resume);
+        return;
+      }
+
+      OutboundMessage message = pending.poll();
+      try {
+        channelHandler.basicPublishConfirmed(message.getExchange(), message.getRoutingKey(),
+            message.isMandatory(), message.getProperties(), message.getBody(), confirmCallback);
+      } catch (Exception e) {
+        fail(e);
+      }
+    }
+  }
+
+  private void checkComplete() {
+    if (upstreamDone && inFlight.get() == 0 && pending.isEmpty())
+      completion.complete(null);
+  }
+
+  private void fail(Throwable failure) {
+    if (completion.fail(failure)) {
+      pending.clear();
+      if (!upstreamDone)
+        subscription.cancel();
+    }
+  }
+}
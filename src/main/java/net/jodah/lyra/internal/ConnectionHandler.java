@@ -1,11 +1,12 @@
 package net.jodah.lyra.internal;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -13,10 +14,15 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import net.jodah.lyra.ChannelPool;
 import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.SpoolingPublisher;
 import net.jodah.lyra.config.Config;
 import net.jodah.lyra.config.ConfigurableChannel;
 import net.jodah.lyra.config.ConnectionConfig;
@@ -24,7 +30,11 @@ import net.jodah.lyra.event.ChannelListener;
 import net.jodah.lyra.event.ConnectionListener;
 import net.jodah.lyra.internal.util.*;
 import net.jodah.lyra.internal.util.concurrent.NamedThreadFactory;
+import net.jodah.lyra.internal.util.concurrent.ReentrantCircuit;
+import net.jodah.lyra.metrics.Metrics;
+import net.jodah.lyra.metrics.RecoveryPhase;
 
+import com.rabbitmq.client.BlockedListener;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
@@ -42,21 +52,41 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
   static final ExecutorService RECOVERY_EXECUTORS =
       Executors.newCachedThreadPool(new NamedThreadFactory("lyra-recovery-%s", true));
   static final int RECOVERY_CHANNEL_NUM = 100;
-
-  final Map<String, ResourceDeclaration> exchangeDeclarations = Collections.synchronizedLinkedMap();
-  final ArrayListMultiMap<String, Binding> exchangeBindings = Collections.arrayListMultiMap();
-  final Map<String, QueueDeclaration> queueDeclarations = Collections.synchronizedLinkedMap();
-  final ArrayListMultiMap<String, Binding> queueBindings = Collections.arrayListMultiMap();
+  /** Number of recent checks that a diff recovery batch bases assuming resources are missing on */
+  private static final int MIN_EXISTENCE_CHECKS = 8;
+
+  final ConcurrentLinkedMap<String, ExchangeDeclaration> exchangeDeclarations = Collections.concurrentLinkedMap();
+  final BindingRegistry exchangeBindings = new BindingRegistry();
+  final ConcurrentLinkedMap<String, QueueDeclaration> queueDeclarations = Collections.concurrentLinkedMap();
+  final BindingRegistry queueBindings = new BindingRegistry();
+  final DeclarationCache declarationCache = new DeclarationCache();
   private final ConnectionOptions options;
-  private final Config config;
+  final Config config;
   private final String connectionName;
   private final ExecutorService consumerThreadPool;
   private final ClassLoader classLoader;
-  private final Map<String, ChannelHandler> channels =
-      new ConcurrentHashMap<String, ChannelHandler>();
+  private final Map<Integer, ChannelHandler> channels =
+      new ConcurrentHashMap<Integer, ChannelHandler>();
   private Connection proxy;
   private Connection delegate;
-  private Channel recoveryChannel;
+  /** Open while the broker has blocked the connection from publishing */
+  final ReentrantCircuit blockedCircuit = new ReentrantCircuit();
+  private volatile String blockedReason;
+  private final BlockedListener blockedListener = new BlockedListener() {
+    @Override
+    public void handleBlocked(String reason) {
+      log.warn("Connection {} was blocked by the broker: {}", ConnectionHandler.this, reason);
+      blockedReason = reason;
+      blockedCircuit.open();
+    }
+
+    @Override
+    public void handleUnblocked() {
+      log.info("Connection {} was unblocked by the broker", ConnectionHandler.this);
+      blockedCircuit.close();
+      drainPublishBuffers();
+    }
+  };
 
   static {
     Runtime.getRuntime().addShutdownHook(new Thread() {
@@ -113,6 +143,47 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
     }
   }
 
+  /**
+   * A channel that exchanges, queues and bindings are recovered via, created on demand and
+   * re-created if closed by a failed recovery.
+   */
+  private class RecoveryChannel implements ChannelSupplier {
+    private final int channelNumber;
+    private Channel channel;
+
+    RecoveryChannel(int channelNumber) {
+      this.channelNumber = channelNumber;
+    }
+
+    @Override
+    public Channel get() throws IOException {
+      if (channel == null || !channel.isOpen()) {
+        // Falls back to any free channel number when the preferred number is in use
+        channel = delegate.createChannel(channelNumber);
+        if (channel == null)
+          channel = delegate.createChannel();
+        if (channel == null)
+          throw new IOException("No channel numbers are available to recover " + connectionName);
+      }
+      return channel;
+    }
+
+    void close() {
+      try {
+        if (channel != null && channel.isOpen())
+          channel.close();
+      } catch (Exception ignore) {
+      }
+    }
+  }
+
+  /**
+   * A unit of connection recovery that is performed by a recovery worker.
+   */
+  private interface RecoveryTask {
+    void recover(RecoveryChannel recoveryChannel) throws Exception;
+  }
+
   public void createConnection(Connection proxy) throws IOException, TimeoutException {
     try {
       this.proxy = proxy;
@@ -139,58 +210,103 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
 
   @Override
   public Object invoke(Object ignored, final Method method, final Object[] args) throws Throwable {
+    if ("close".equals(method.getName()))
+      for (ChannelHandler channelHandler : channels.values())
+        channelHandler.flushAcks();
     if (handleCommonMethods(delegate, method, args))
       return null;
+    if ("createChannel".equals(method.getName()))
+      return createChannel(method, args).proxy;
+    if ("channelPool".equals(method.getName()))
+      return channelPool((Integer) args[0]);
+    if ("spoolingPublisher".equals(method.getName()))
+      return spoolingPublisher((File) args[0], (Integer) args[1]);
+
+    return callWithRetries(new Callable<Object>() {
+      @Override
+      public Object call() throws Exception {
+        return Reflection.invoke(
+            method.getDeclaringClass().isAssignableFrom(ConnectionConfig.class) ? config : delegate,
+            method, args);
+      }
 
-    try {
-      return callWithRetries(
-          new Callable<Object>() {
-            @Override
-            public Object call() throws Exception {
-              if ("createChannel".equals(method.getName())) {
-                Channel channel = (Channel) Reflection.invoke(delegate, method, args);
-                ChannelHandler channelHandler =
-                    new ChannelHandler(ConnectionHandler.this, channel, new Config(config));
-                Channel channelProxy =
-                    (Channel) Proxy.newProxyInstance(classLoader,
-                        CHANNEL_TYPES, channelHandler);
-                channelHandler.proxy = channelProxy;
-                channels.put(Integer.valueOf(channel.getChannelNumber()).toString(), channelHandler);
-                log.info("Created {}", channelHandler);
-                for (ChannelListener listener : config.getChannelListeners())
-                  try {
-                    listener.onCreate(channelProxy);
-                  } catch (Exception ignore) {
-                  }
-                return channelProxy;
-              }
+      @Override
+      public String toString() {
+        return Reflection.toString(method);
+      }
+    }, config.getConnectionRetryPolicy(), null, config.getRetryableExceptions(), canRecover(), true);
+  }
 
-              return Reflection.invoke(
-                  method.getDeclaringClass().isAssignableFrom(ConnectionConfig.class) ? config
-                      : delegate, method, args);
-            }
+  /**
+   * Creates a channel via the createChannel {@code method} with retries, returning its handler.
+   */
+  ChannelHandler createChannel(Method method, Object[] args) throws Throwable {
+    return createChannel(method, args, new Config(config));
+  }
 
-            @Override
-            public String toString() {
-              return Reflection.toString(method);
+  /**
+   * Creates a channel with the {@code channelConfig}, which should inherit from the connection's
+   * config.
+   */
+  ChannelHandler createChannel(final Method method, final Object[] args,
+      final Config channelConfig) throws Throwable {
+    try {
+      return callWithRetries(new Callable<ChannelHandler>() {
+        @Override
+        public ChannelHandler call() throws Exception {
+          Channel channel = (Channel) Reflection.invoke(delegate, method, args);
+          ChannelHandler channelHandler =
+              new ChannelHandler(ConnectionHandler.this, channel, channelConfig);
+          Channel channelProxy = options.isUsingDirectDispatch() ? new ChannelWrapper(
+              channelHandler) : (Channel) Proxy.newProxyInstance(classLoader, CHANNEL_TYPES,
+              channelHandler);
+          channelHandler.proxy = channelProxy;
+          channels.put(channel.getChannelNumber(), channelHandler);
+          log.info("Created {}", channelHandler);
+          for (ChannelListener listener : config.getChannelListeners())
+            try {
+              listener.onCreate(channelProxy);
+            } catch (Exception ignore) {
             }
-          }, config.getConnectionRetryPolicy(), null, config.getRetryableExceptions(),
-          canRecover(),
+          return channelHandler;
+        }
+
+        @Override
+        public String toString() {
+          return Reflection.toString(method);
+        }
+      }, config.getConnectionRetryPolicy(), null, config.getRetryableExceptions(), canRecover(),
           true);
     } catch (Throwable t) {
-      if ("createChannel".equals(method.getName())) {
-        log.error("Failed to create channel on {}", connectionName, t);
-        for (ChannelListener listener : config.getChannelListeners())
-          try {
-            listener.onCreateFailure(t);
-          } catch (Exception ignore) {
-          }
-      }
-
+      log.error("Failed to create channel on {}", connectionName, t);
+      for (ChannelListener listener : config.getChannelListeners())
+        try {
+          listener.onCreateFailure(t);
+        } catch (Exception ignore) {
+        }
       throw t;
     }
   }
 
+  /**
+   * Creates a pool of {@code size} channels.
+   *
+   * @throws IOException if the pool's channels could not be created
+   */
+  ChannelPool channelPool(int size) throws IOException {
+    Assert.isTrue(size > 0, "size must be greater than 0");
+    return new RecoveringChannelPool(this, size);
+  }
+
+  /**
+   * Creates a publisher that spools to the {@code directory} while the connection is unavailable.
+   *
+   * @throws IOException if the spool cannot be opened or the publisher's channel cannot be created
+   */
+  SpoolingPublisher spoolingPublisher(File directory, int segmentSize) throws IOException {
+    return new DiskSpoolingPublisher(this, directory, segmentSize);
+  }
+
   @Override
   public String toString() {
     return connectionName;
@@ -205,8 +321,26 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
     return delegate.createChannel(channelNumber);
   }
 
+  int getChannelCount() {
+    return channels.size();
+  }
+
   void removeChannel(int channelNumber) {
-    channels.remove(Integer.valueOf(channelNumber).toString());
+    channels.remove(channelNumber);
+  }
+
+  /**
+   * Sends the publishes that channels buffered while the connection was blocked. Performed off of
+   * the connection's thread so that sending does not delay the connection's other notifications.
+   */
+  private void drainPublishBuffers() {
+    RECOVERY_EXECUTORS.execute(new Runnable() {
+      @Override
+      public void run() {
+        for (ChannelHandler channelHandler : channels.values())
+          channelHandler.drainPublishBuffer();
+      }
+    });
   }
 
   private void connectionClosed() {
@@ -215,7 +349,7 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
   }
 
   private void connectionShutdown() {
-    circuit.open();
+    openCircuit();
     for (ChannelHandler channelHandler : channels.values())
       channelHandler.channelShutdown();
   }
@@ -250,6 +384,7 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
           return connection;
         }
       }, recurringPolicy, recurringStats, recurringExceptions, true, false);
+      delegate.addBlockedListener(blockedListener);
     } catch (Throwable t) {
       if (t instanceof IOException)
         throw (IOException) t;
@@ -264,13 +399,17 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
    * @throws Exception when recovery fails or connection is closed
    */
   private void recoverConnection() throws Exception {
+    long startTime = System.nanoTime();
     for (ConnectionListener listener : config.getConnectionListeners())
       try {
         listener.onRecoveryStarted(proxy);
       } catch (Exception ignore) {
       }
-    
+
+    // Declarations made on the previous connection may no longer exist
+    declarationCache.clear();
     createConnection(config.getConnectionRecoveryPolicy(), config.getRecoverableExceptions(), true);
+    blockedCircuit.close();
 
     // Migrate connection state
     synchronized (shutdownListeners) {
@@ -284,12 +423,31 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
       } catch (Exception ignore) {
       }
 
-    recoverExchangesAndQueues();
+    RecoveryChannel[] recoveryChannels = new RecoveryChannel[config.getRecoveryParallelism()];
+    for (int i = 0; i < recoveryChannels.length; i++)
+      recoveryChannels[i] = new RecoveryChannel(RECOVERY_CHANNEL_NUM + i);
 
-    // Recover channels
-    for (ChannelHandler channelHandler : channels.values())
-      if (channelHandler.canRecover())
-        channelHandler.recoverChannel(true);
+    MissingTopology missing = config.isDiffRecoveryEnabled() ? new MissingTopology() : null;
+    long connectionTime = System.nanoTime();
+    long declarationTime;
+    try {
+      recoverExchangesAndQueues(recoveryChannels, missing);
+      declarationTime = System.nanoTime();
+      recoverBindings(recoveryChannels, missing);
+    } finally {
+      for (RecoveryChannel recoveryChannel : recoveryChannels)
+        recoveryChannel.close();
+    }
+
+    long bindingTime = System.nanoTime();
+    recoverChannels(recoveryChannels);
+    long channelTime = System.nanoTime();
+    log.info("Recovered connection {} in {} ms: connection {} ms, exchanges and queues {} ms, "
+        + "bindings {} ms, channels {} ms", connectionName, millis(channelTime - startTime),
+        millis(connectionTime - startTime), millis(declarationTime - connectionTime),
+        millis(bindingTime - declarationTime), millis(channelTime - bindingTime));
+    metrics().onRecovery(connectionName, RecoveryPhase.CONNECTION, connectionTime - startTime);
+    metrics().onRecovery(connectionName, RecoveryPhase.TOPOLOGY, bindingTime - connectionTime);
 
     for (ConnectionListener listener : config.getConnectionListeners())
       try {
@@ -297,97 +455,483 @@ public class ConnectionHandler extends RetryableResource implements InvocationHa
       } catch (Exception ignore) {
       }
 
-    circuit.close();
+    closeCircuit();
   }
 
   /**
-   * Recover exchanges, queues and bindings via a one-off channel.
+   * The exchanges and queues that a diff recovery found to be missing, and so redeclared.
+   */
+  private static class MissingTopology {
+    final Set<String> exchanges = Collections.concurrentSet();
+    final Set<String> queues = Collections.concurrentSet();
+
+    /**
+     * Returns the {@code bindings} that were lost along with their source exchange or their
+     * destination, which is looked up in the {@code destinations}.
+     */
+    List<Binding> lostBindings(List<Binding> bindings, Set<String> destinations) {
+      List<Binding> lost = new ArrayList<Binding>();
+      for (Binding binding : bindings)
+        if (destinations.contains(binding.destination) || exchanges.contains(binding.source))
+          lost.add(binding);
+      return lost;
+    }
+  }
+
+  /**
+   * Recovers exchanges and queues, updating the declarations and bindings of queues whose names
+   * changed. When pipelined recovery is enabled, exchanges and named queues are declared in one
+   * pipelined batch per worker. When {@code missing} is not null, only exchanges and queues that
+   * are found to be missing are declared, and recorded in {@code missing}.
    * 
    * @throws Exception when recovery fails due to a connection closure
    */
-  private void recoverExchangesAndQueues() throws Exception {
-    boolean canRecoverExchanges =
-        config.isExchangeRecoveryEnabled()
-            && (!exchangeDeclarations.isEmpty() || !exchangeBindings.isEmpty());
-    boolean canRecoverQueues =
-        config.isQueueRecoveryEnabled()
-            && (!queueDeclarations.isEmpty() || !queueBindings.isEmpty());
-
-    if (canRecoverExchanges || canRecoverQueues) {
-      try {
-        if (canRecoverExchanges)
-          recoverExchanges();
-        if (canRecoverQueues)
-          recoverQueues();
-      } finally {
-        try {
-          if (recoveryChannel != null && recoveryChannel.isOpen())
-            recoveryChannel.close();
-        } catch (IOException ignore) {
-        }
+  private void recoverExchangesAndQueues(RecoveryChannel[] recoveryChannels,
+      final MissingTopology missing) throws Exception {
+    List<RecoveryTask> tasks = new ArrayList<RecoveryTask>();
+    List<Map.Entry<String, ExchangeDeclaration>> exchanges =
+        config.isExchangeRecoveryEnabled() ? snapshot(exchangeDeclarations)
+            : new ArrayList<Map.Entry<String, ExchangeDeclaration>>();
+    List<Map.Entry<String, QueueDeclaration>> queues =
+        config.isQueueRecoveryEnabled() ? snapshot(queueDeclarations)
+            : new ArrayList<Map.Entry<String, QueueDeclaration>>();
+    final Map<String, QueueDeclaration> renamedQueues =
+        new ConcurrentHashMap<String, QueueDeclaration>();
+
+    if (missing != null) {
+      findMissing(recoveryChannels, exchanges, queues, missing);
+      exchanges = retain(exchanges, missing.exchanges);
+      queues = retain(queues, missing.queues);
+    }
+
+    if (config.isPipelinedRecoveryEnabled()) {
+      List<Map.Entry<String, QueueDeclaration>> namedQueues =
+          new ArrayList<Map.Entry<String, QueueDeclaration>>();
+      for (Map.Entry<String, QueueDeclaration> entry : queues)
+        if (canPipeline(entry.getValue()))
+          namedQueues.add(entry);
+        else
+          tasks.add(queueRecovery(entry, renamedQueues));
+      for (int i = 0; i < recoveryChannels.length; i++)
+        addPipelinedRecovery(tasks, new PipelinedRecovery(
+            part(exchanges, i, recoveryChannels.length), part(namedQueues, i,
+                recoveryChannels.length), null, null));
+    } else {
+      for (final Map.Entry<String, ExchangeDeclaration> entry : exchanges)
+        tasks.add(new RecoveryTask() {
+          @Override
+          public void recover(RecoveryChannel recoveryChannel) throws Exception {
+            recoverExchange(recoveryChannel, entry.getKey(), entry.getValue());
+          }
+        });
+      for (Map.Entry<String, QueueDeclaration> entry : queues)
+        tasks.add(queueRecovery(entry, renamedQueues));
+    }
+
+    try {
+      recoverInParallel(tasks, recoveryChannels);
+    } finally {
+      // Update dependencies for new queue names
+      for (Map.Entry<String, QueueDeclaration> entry : renamedQueues.entrySet()) {
+        QueueDeclaration queueDeclaration = entry.getValue();
+        queueDeclarations.remove(entry.getKey());
+        queueDeclarations.put(queueDeclaration.name, queueDeclaration);
+        updateQueueBindingReferences(entry.getKey(), queueDeclaration.name);
+        if (missing != null)
+          missing.queues.add(queueDeclaration.name);
       }
     }
   }
 
   /**
+   * Finds which of the {@code exchanges} and {@code queues} are missing via passive declarations,
+   * split into batches that are spread across the recovery channels, and records them in
+   * {@code missing}. Exclusive and server named queues are recorded as missing without being
+   * checked since they never outlive a connection.
+   * 
    * @throws Exception when recovery fails due to a connection closure
    */
-  private void recoverExchanges() throws Exception {
-    for (Map.Entry<String, ResourceDeclaration> entry : exchangeDeclarations.entrySet())
-      recoverExchange(entry.getKey(), entry.getValue());
-    recoverExchangeBindings(exchangeBindings.values());
+  private void findMissing(RecoveryChannel[] recoveryChannels,
+      List<Map.Entry<String, ExchangeDeclaration>> exchanges,
+      List<Map.Entry<String, QueueDeclaration>> queues, final MissingTopology missing)
+      throws Exception {
+    List<RecoveryTask> tasks = new ArrayList<RecoveryTask>();
+    List<String> exchangeNames = new ArrayList<String>(exchanges.size());
+    for (Map.Entry<String, ExchangeDeclaration> entry : exchanges)
+      exchangeNames.add(entry.getKey());
+    List<String> queueNames = new ArrayList<String>(queues.size());
+    for (Map.Entry<String, QueueDeclaration> entry : queues)
+      if (entry.getValue().isServerNamed() || entry.getValue().exclusive)
+        missing.queues.add(entry.getKey());
+      else
+        queueNames.add(entry.getKey());
+
+    for (final List<String> batch : batch(exchangeNames, recoveryChannels.length))
+      tasks.add(new RecoveryTask() {
+        @Override
+        public void recover(RecoveryChannel recoveryChannel) throws Exception {
+          findMissing(recoveryChannel, batch, true, missing.exchanges);
+        }
+      });
+    for (final List<String> batch : batch(queueNames, recoveryChannels.length))
+      tasks.add(new RecoveryTask() {
+        @Override
+        public void recover(RecoveryChannel recoveryChannel) throws Exception {
+          findMissing(recoveryChannel, batch, false, missing.queues);
+        }
+      });
+
+    recoverInParallel(tasks, recoveryChannels);
+    log.info("Found {} of {} exchanges and {} of {} queues missing for {}",
+        missing.exchanges.size(), exchanges.size(), missing.queues.size(), queues.size(),
+        connectionName);
+  }
+
+  /**
+   * Passively declares the exchanges or queues for the {@code names}, adding those that fail to the
+   * {@code missing}. A failed passive declaration closes the recovery channel, which is reopened for
+   * the next check. Once most of the last {@link #MIN_EXISTENCE_CHECKS} checks found resources
+   * missing, the following resources are assumed missing without being checked, except that every
+   * {@link #MIN_EXISTENCE_CHECKS}th one is still checked as a sample. If a sampled resource exists,
+   * each resource is checked again until a fresh window of checks finds most of them missing.
+   * 
+   * @throws Exception when a check fails due to a connection closure
+   */
+  private void findMissing(RecoveryChannel recoveryChannel, List<String> names, boolean exchanges,
+      Set<String> missing) throws Exception {
+    // Whether each of the most recent checks found its resource missing
+    boolean[] window = new boolean[MIN_EXISTENCE_CHECKS];
+    int checked = 0;
+    int missed = 0;
+    int skipped = 0;
+    for (String name : names) {
+      boolean assumeMissing = checked >= MIN_EXISTENCE_CHECKS && missed * 2 > MIN_EXISTENCE_CHECKS;
+      if (assumeMissing && ++skipped % MIN_EXISTENCE_CHECKS != 0) {
+        missing.add(name);
+        continue;
+      }
+
+      boolean exists = true;
+      try {
+        if (exchanges)
+          recoveryChannel.get().exchangeDeclarePassive(name);
+        else
+          recoveryChannel.get().queueDeclarePassive(name);
+      } catch (Exception e) {
+        if (Exceptions.isCausedByConnectionClosure(e))
+          throw e;
+        log.debug("Found {} {} missing via {}", exchanges ? "exchange" : "queue", name, this);
+        missing.add(name);
+        exists = false;
+      }
+
+      if (assumeMissing && exists) {
+        Arrays.fill(window, false);
+        checked = missed = skipped = 0;
+      } else {
+        int slot = checked++ % MIN_EXISTENCE_CHECKS;
+        if (window[slot])
+          missed--;
+        window[slot] = !exists;
+        if (!exists)
+          missed++;
+      }
+    }
+  }
+
+  /**
+   * Returns the {@code entries} whose keys are in the {@code names}.
+   */
+  private static <V> List<Map.Entry<String, V>> retain(List<Map.Entry<String, V>> entries,
+      Set<String> names) {
+    List<Map.Entry<String, V>> retained = new ArrayList<Map.Entry<String, V>>();
+    for (Map.Entry<String, V> entry : entries)
+      if (names.contains(entry.getKey()))
+        retained.add(entry);
+    return retained;
   }
 
   /**
+   * Returns a task that recovers the queue for the {@code entry}, recording it in the
+   * {@code renamedQueues} if its name changes.
+   */
+  private RecoveryTask queueRecovery(final Map.Entry<String, QueueDeclaration> entry,
+      final Map<String, QueueDeclaration> renamedQueues) {
+    return new RecoveryTask() {
+      @Override
+      public void recover(RecoveryChannel recoveryChannel) throws Exception {
+        String queueName = entry.getKey();
+        if (!queueName.equals(recoverQueue(recoveryChannel, queueName, entry.getValue())))
+          renamedQueues.put(queueName, entry.getValue());
+      }
+    };
+  }
+
+  /**
+   * Recovers exchange and queue bindings, split into batches that are spread across the recovery
+   * channels. When pipelined recovery is enabled, bindings are recovered in one pipelined batch per
+   * worker. When {@code missing} is not null, only bindings to or from a missing resource are
+   * recovered.
+   * 
    * @throws Exception when recovery fails due to a connection closure
    */
-  private void recoverQueues() throws Exception {
-    Map<String, QueueDeclaration> newDeclarations = new HashMap<String, QueueDeclaration>();
-    for (Iterator<Map.Entry<String, QueueDeclaration>> it = queueDeclarations.entrySet().iterator(); it.hasNext();) {
-      Map.Entry<String, QueueDeclaration> entry = it.next();
-      String queueName = entry.getKey();
-      QueueDeclaration queueDeclaration = entry.getValue();
-      String newQueueName = recoverQueue(queueName, queueDeclaration);
+  private void recoverBindings(RecoveryChannel[] recoveryChannels, MissingTopology missing)
+      throws Exception {
+    List<RecoveryTask> tasks = new ArrayList<RecoveryTask>();
+    List<Binding> exchangeBindings = config.isExchangeRecoveryEnabled()
+        ? this.exchangeBindings.snapshot() : new ArrayList<Binding>();
+    List<Binding> queueBindings = config.isQueueRecoveryEnabled() ? this.queueBindings.snapshot()
+        : new ArrayList<Binding>();
+    if (missing != null) {
+      exchangeBindings = missing.lostBindings(exchangeBindings, missing.exchanges);
+      queueBindings = missing.lostBindings(queueBindings, missing.queues);
+    }
 
-      // Update dependencies for new queue names
-      if (!entry.getKey().equals(newQueueName)) {
-        it.remove();
-        newDeclarations.put(newQueueName, queueDeclaration);
-        updateQueueBindingReferences(queueName, newQueueName);
+    if (config.isPipelinedRecoveryEnabled()) {
+      for (int i = 0; i < recoveryChannels.length; i++)
+        addPipelinedRecovery(tasks, new PipelinedRecovery(null, null, part(exchangeBindings, i,
+            recoveryChannels.length), part(queueBindings, i, recoveryChannels.length)));
+    } else {
+      for (final List<Binding> batch : batch(exchangeBindings, recoveryChannels.length))
+        tasks.add(new RecoveryTask() {
+          @Override
+          public void recover(RecoveryChannel recoveryChannel) throws Exception {
+            recoverExchangeBindings(recoveryChannel, batch);
+          }
+        });
+      for (final List<Binding> batch : batch(queueBindings, recoveryChannels.length))
+        tasks.add(new RecoveryTask() {
+          @Override
+          public void recover(RecoveryChannel recoveryChannel) throws Exception {
+            recoverQueueBindings(recoveryChannel, batch);
+          }
+        });
+    }
+
+    recoverInParallel(tasks, recoveryChannels);
+  }
+
+  /**
+   * Returns whether the queue for the {@code queueDeclaration} has a name that will not change on
+   * recovery, allowing it to be declared via a pipeline.
+   */
+  private static boolean canPipeline(QueueDeclaration queueDeclaration) {
+    return !queueDeclaration.isServerNamed();
+  }
+
+  private static void addPipelinedRecovery(List<RecoveryTask> tasks,
+      PipelinedRecovery pipelinedRecovery) {
+    if (!pipelinedRecovery.isEmpty())
+      tasks.add(pipelinedRecovery);
+  }
+
+  /**
+   * Recovers a batch of exchanges, named queues and bindings by pipelining nowait declarations and
+   * binds, followed by a synchronous barrier. A failed declaration or bind closes the recovery
+   * channel, which causes the barrier to fail. The batch is then recovered again one resource at a
+   * time so that the failing resource can be found and logged.
+   */
+  private class PipelinedRecovery implements RecoveryTask {
+    private final List<Map.Entry<String, ExchangeDeclaration>> exchanges;
+    private final List<Map.Entry<String, QueueDeclaration>> queues;
+    private final List<Binding> exchangeBindings;
+    private final List<Binding> queueBindings;
+
+    PipelinedRecovery(List<Map.Entry<String, ExchangeDeclaration>> exchanges,
+        List<Map.Entry<String, QueueDeclaration>> queues, List<Binding> exchangeBindings,
+        List<Binding> queueBindings) {
+      this.exchanges = nullToEmpty(exchanges);
+      this.queues = nullToEmpty(queues);
+      this.exchangeBindings = nullToEmpty(exchangeBindings);
+      this.queueBindings = nullToEmpty(queueBindings);
+    }
+
+    boolean isEmpty() {
+      return exchanges.isEmpty() && queues.isEmpty() && exchangeBindings.isEmpty()
+          && queueBindings.isEmpty();
+    }
+
+    @Override
+    public void recover(RecoveryChannel recoveryChannel) throws Exception {
+      try {
+        log.info("Recovering {} via {}", this, ConnectionHandler.this);
+        Channel channel = recoveryChannel.get();
+        for (Map.Entry<String, ExchangeDeclaration> entry : exchanges)
+          entry.getValue().invokeNoWait(channel);
+        for (Map.Entry<String, QueueDeclaration> entry : queues)
+          entry.getValue().invokeNoWait(channel);
+        for (Binding binding : exchangeBindings)
+          channel.exchangeBindNoWait(binding.destination, binding.source, binding.routingKey,
+              binding.arguments);
+        for (Binding binding : queueBindings)
+          channel.queueBindNoWait(binding.destination, binding.source, binding.routingKey,
+              binding.arguments);
+
+        // Barrier
+        channel.basicQos(0);
+      } catch (Exception e) {
+        if (Exceptions.isCausedByConnectionClosure(e))
+          throw e;
+        log.warn("Failed to recover {} via {}. Recovering individually.", this,
+            ConnectionHandler.this, e);
+        for (Map.Entry<String, ExchangeDeclaration> entry : exchanges)
+          recoverExchange(recoveryChannel, entry.getKey(), entry.getValue());
+        for (Map.Entry<String, QueueDeclaration> entry : queues)
+          recoverQueue(recoveryChannel, entry.getKey(), entry.getValue());
+        recoverExchangeBindings(recoveryChannel, exchangeBindings);
+        recoverQueueBindings(recoveryChannel, queueBindings);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s exchanges, %s queues, %s exchange bindings and %s queue bindings",
+          exchanges.size(), queues.size(), exchangeBindings.size(), queueBindings.size());
+    }
+  }
+
+  /**
+   * Recovers channels along with their consumers. When lazy channel recovery is enabled, the
+   * recovery of idle channels is deferred until they are next used.
+   * 
+   * @throws Exception when recovery fails due to a connection closure
+   */
+  private void recoverChannels(RecoveryChannel[] recoveryChannels) throws Exception {
+    List<RecoveryTask> tasks = new ArrayList<RecoveryTask>();
+    int deferred = 0;
+    for (final ChannelHandler channelHandler : channels.values())
+      if (channelHandler.canRecover()) {
+        if (config.isLazyChannelRecoveryEnabled() && channelHandler.deferRecovery())
+          deferred++;
+        else
+          tasks.add(new RecoveryTask() {
+            @Override
+            public void recover(RecoveryChannel ignored) throws Exception {
+              channelHandler.recoverChannel(true);
+            }
+          });
       }
+
+    if (deferred > 0)
+      log.info("Deferred recovery of {} idle channels of {} until they are next used", deferred,
+          connectionName);
+    recoverInParallel(tasks, recoveryChannels);
+  }
+
+  /**
+   * Performs the {@code tasks} via one worker per recovery channel, up to the number of tasks. The
+   * calling thread acts as the first worker, with the rest performed via the recovery executors.
+   * After a task fails no further tasks are started, and the failure is thrown once the workers
+   * are done.
+   * 
+   * @throws Exception when a task fails
+   */
+  private void recoverInParallel(final List<RecoveryTask> tasks,
+      RecoveryChannel[] recoveryChannels) throws Exception {
+    int workers = Math.min(recoveryChannels.length, tasks.size());
+    if (workers <= 1) {
+      for (RecoveryTask task : tasks)
+        task.recover(recoveryChannels[0]);
+      return;
     }
 
-    queueDeclarations.putAll(newDeclarations);
-    recoverQueueBindings(queueBindings.values());
+    final AtomicInteger nextTask = new AtomicInteger();
+    final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    List<Future<?>> futures = new ArrayList<Future<?>>(workers - 1);
+    for (int i = 1; i < workers; i++) {
+      final RecoveryChannel recoveryChannel = recoveryChannels[i];
+      futures.add(RECOVERY_EXECUTORS.submit(new Runnable() {
+        @Override
+        public void run() {
+          performTasks(tasks, nextTask, failure, recoveryChannel);
+        }
+      }));
+    }
+
+    performTasks(tasks, nextTask, failure, recoveryChannels[0]);
+    for (Future<?> future : futures)
+      future.get();
+    if (failure.get() != null)
+      throw failure.get();
+  }
+
+  private static void performTasks(List<RecoveryTask> tasks, AtomicInteger nextTask,
+      AtomicReference<Exception> failure, RecoveryChannel recoveryChannel) {
+    for (int i = nextTask.getAndIncrement(); i < tasks.size() && failure.get() == null; i =
+        nextTask.getAndIncrement())
+      try {
+        tasks.get(i).recover(recoveryChannel);
+      } catch (Exception e) {
+        failure.compareAndSet(null, e);
+      }
   }
-  
+
+  /**
+   * Returns a snapshot of the {@code declarations}.
+   */
+  private static <V> List<Map.Entry<String, V>> snapshot(
+      ConcurrentLinkedMap<String, V> declarations) {
+    return new ArrayList<Map.Entry<String, V>>(declarations.entrySet());
+  }
+
+  /**
+   * Splits the {@code items} into about 4 batches per worker.
+   */
+  private static <T> List<List<T>> batch(List<T> items, int workers) {
+    List<List<T>> batches = new ArrayList<List<T>>();
+    int batchSize = workers == 1 ? items.size() : items.size() / (workers * 4) + 1;
+    for (int i = 0; i < items.size(); i += batchSize)
+      batches.add(items.subList(i, Math.min(i + batchSize, items.size())));
+    return batches;
+  }
+
+  /**
+   * Returns the {@code index}th of {@code parts} evenly sized parts of the {@code items}.
+   */
+  private static <T> List<T> part(List<T> items, int index, int parts) {
+    return items.subList(items.size() * index / parts, items.size() * (index + 1) / parts);
+  }
+
+  private static <T> List<T> nullToEmpty(List<T> list) {
+    return list == null ? new ArrayList<T>(0) : list;
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  /**
+   * Returns the reason the broker last gave for blocking the connection.
+   */
+  String getBlockedReason() {
+    return blockedReason;
+  }
+
   @Override
   void interruptWaiters() {
     super.interruptWaiters();
+    blockedCircuit.interruptWaiters();
     for (ChannelHandler channel : channels.values())
       channel.interruptWaiters();
   }
 
   /** Updates the queue name referenced by queue bindings. */
   void updateQueueBindingReferences(String oldQueueName, String newQueueName) {
-    List<Binding> bindings = queueBindings.remove(oldQueueName);
-    if (bindings != null) {
-      for (Binding binding : bindings)
-        binding.destination = newQueueName;
-      queueBindings.putAll(newQueueName, bindings);
-    }
+    queueBindings.renameDestination(oldQueueName, newQueueName);
+  }
+
+  @Override
+  boolean throwOnRecoveryFailure() {
+    return false;
   }
 
-  /** Gets a recovery channel, creating one if necessary. */
   @Override
-  Channel getRecoveryChannel() throws IOException {
-    if (recoveryChannel == null || !recoveryChannel.isOpen())
-      recoveryChannel = delegate.createChannel(RECOVERY_CHANNEL_NUM);
-    return recoveryChannel;
+  Metrics metrics() {
+    return NoopMetrics.of(config);
   }
 
   @Override
-  boolean throwOnRecoveryFailure() {
-    return false;
+  void afterClosure() {
+    metrics().onClose(connectionName);
   }
 }
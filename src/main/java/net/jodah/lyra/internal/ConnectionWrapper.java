@@ -0,0 +1,470 @@
+package net.jodah.lyra.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.util.Collection;
+import java.util.Map;
+
+import net.jodah.lyra.ChannelPool;
+import net.jodah.lyra.SpoolingPublisher;
+import net.jodah.lyra.config.AckCoalescingPolicy;
+import net.jodah.lyra.config.AdaptivePrefetchPolicy;
+import net.jodah.lyra.config.BlockedPublishPolicy;
+import net.jodah.lyra.config.ChannelConfig;
+import net.jodah.lyra.config.ConfigurableConnection;
+import net.jodah.lyra.config.ConnectionConfig;
+import net.jodah.lyra.config.ConsumerConfig;
+import net.jodah.lyra.config.PublishBufferPolicy;
+import net.jodah.lyra.config.RecoveryPolicy;
+import net.jodah.lyra.config.RetryPolicy;
+import net.jodah.lyra.event.ChannelListener;
+import net.jodah.lyra.event.ConnectionListener;
+import net.jodah.lyra.event.ConsumerListener;
+import net.jodah.lyra.internal.util.Reflection;
+import net.jodah.lyra.metrics.Metrics;
+
+import com.rabbitmq.client.BlockedListener;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ExceptionHandler;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * A {@link ConfigurableConnection} that dispatches invocations to a {@link ConnectionHandler}
+ * without using {@link java.lang.reflect.Proxy}. Configuration methods are called directly against
+ * the connection's config. Channels created through the wrapper are {@link ChannelWrapper}s.
+ * 
+ * @author Jonathan Halterman
+ */
+public class ConnectionWrapper implements ConfigurableConnection {
+  private static final Method GET_ADDRESS = method("getAddress");
+  private static final Method GET_PORT = method("getPort");
+  private static final Method GET_CHANNEL_MAX = method("getChannelMax");
+  private static final Method GET_FRAME_MAX = method("getFrameMax");
+  private static final Method GET_HEARTBEAT = method("getHeartbeat");
+  private static final Method GET_CLIENT_PROPERTIES = method("getClientProperties");
+  private static final Method GET_CLIENT_PROVIDED_NAME = method("getClientProvidedName");
+  private static final Method GET_SERVER_PROPERTIES = method("getServerProperties");
+  private static final Method CREATE_CHANNEL_0 = method("createChannel");
+  private static final Method CREATE_CHANNEL_1 = method("createChannel", int.class);
+  private static final Method CLOSE_0 = method("close");
+  private static final Method CLOSE_2 = method("close", int.class, String.class);
+  private static final Method CLOSE_1 = method("close", int.class);
+  private static final Method CLOSE_3 = method("close", int.class, String.class, int.class);
+  private static final Method ABORT_0 = method("abort");
+  private static final Method ABORT_2 = method("abort", int.class, String.class);
+  private static final Method ABORT_1 = method("abort", int.class);
+  private static final Method ABORT_3 = method("abort", int.class, String.class, int.class);
+  private static final Method ADD_BLOCKED_LISTENER =
+      method("addBlockedListener", BlockedListener.class);
+  private static final Method REMOVE_BLOCKED_LISTENER =
+      method("removeBlockedListener", BlockedListener.class);
+  private static final Method CLEAR_BLOCKED_LISTENERS = method("clearBlockedListeners");
+  private static final Method GET_EXCEPTION_HANDLER = method("getExceptionHandler");
+  private static final Method GET_ID = method("getId");
+  private static final Method SET_ID = method("setId", String.class);
+  private static final Method ADD_SHUTDOWN_LISTENER =
+      method("addShutdownListener", ShutdownListener.class);
+  private static final Method REMOVE_SHUTDOWN_LISTENER =
+      method("removeShutdownListener", ShutdownListener.class);
+  private static final Method GET_CLOSE_REASON = method("getCloseReason");
+  private static final Method NOTIFY_LISTENERS = method("notifyListeners");
+  private static final Method IS_OPEN = method("isOpen");
+
+  final ConnectionHandler handler;
+
+  public ConnectionWrapper(ConnectionHandler handler) {
+    this.handler = handler;
+  }
+
+  @Override
+  public InetAddress getAddress() {
+    return (InetAddress) invoke(GET_ADDRESS, null);
+  }
+
+  @Override
+  public int getPort() {
+    return (Integer) invoke(GET_PORT, null);
+  }
+
+  @Override
+  public int getChannelMax() {
+    return (Integer) invoke(GET_CHANNEL_MAX, null);
+  }
+
+  @Override
+  public int getFrameMax() {
+    return (Integer) invoke(GET_FRAME_MAX, null);
+  }
+
+  @Override
+  public int getHeartbeat() {
+    return (Integer) invoke(GET_HEARTBEAT, null);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> getClientProperties() {
+    return (Map<String, Object>) invoke(GET_CLIENT_PROPERTIES, null);
+  }
+
+  @Override
+  public String getClientProvidedName() {
+    return (String) invoke(GET_CLIENT_PROVIDED_NAME, null);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> getServerProperties() {
+    return (Map<String, Object>) invoke(GET_SERVER_PROPERTIES, null);
+  }
+
+  @Override
+  public Channel createChannel() throws IOException {
+    return (Channel) invoke(CREATE_CHANNEL_0, null);
+  }
+
+  @Override
+  public Channel createChannel(int channelNumber) throws IOException {
+    return (Channel) invoke(CREATE_CHANNEL_1, new Object[] { channelNumber });
+  }
+
+  @Override
+  public ChannelPool channelPool(int size) throws IOException {
+    return handler.channelPool(size);
+  }
+
+  @Override
+  public SpoolingPublisher spoolingPublisher(File directory, int segmentSize) throws IOException {
+    return handler.spoolingPublisher(directory, segmentSize);
+  }
+
+  @Override
+  public void close() throws IOException {
+    invoke(CLOSE_0, null);
+  }
+
+  @Override
+  public void close(int closeCode, String closeMessage) throws IOException {
+    invoke(CLOSE_2, new Object[] { closeCode, closeMessage });
+  }
+
+  @Override
+  public void close(int timeout) throws IOException {
+    invoke(CLOSE_1, new Object[] { timeout });
+  }
+
+  @Override
+  public void close(int closeCode, String closeMessage, int timeout) throws IOException {
+    invoke(CLOSE_3, new Object[] { closeCode, closeMessage, timeout });
+  }
+
+  @Override
+  public void abort() {
+    invoke(ABORT_0, null);
+  }
+
+  @Override
+  public void abort(int closeCode, String closeMessage) {
+    invoke(ABORT_2, new Object[] { closeCode, closeMessage });
+  }
+
+  @Override
+  public void abort(int timeout) {
+    invoke(ABORT_1, new Object[] { timeout });
+  }
+
+  @Override
+  public void abort(int closeCode, String closeMessage, int timeout) {
+    invoke(ABORT_3, new Object[] { closeCode, closeMessage, timeout });
+  }
+
+  @Override
+  public void addBlockedListener(BlockedListener listener) {
+    invoke(ADD_BLOCKED_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public boolean removeBlockedListener(BlockedListener listener) {
+    return (Boolean) invoke(REMOVE_BLOCKED_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public void clearBlockedListeners() {
+    invoke(CLEAR_BLOCKED_LISTENERS, null);
+  }
+
+  @Override
+  public ExceptionHandler getExceptionHandler() {
+    return (ExceptionHandler) invoke(GET_EXCEPTION_HANDLER, null);
+  }
+
+  @Override
+  public String getId() {
+    return (String) invoke(GET_ID, null);
+  }
+
+  @Override
+  public void setId(String id) {
+    invoke(SET_ID, new Object[] { id });
+  }
+
+  @Override
+  public void addShutdownListener(ShutdownListener listener) {
+    invoke(ADD_SHUTDOWN_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public void removeShutdownListener(ShutdownListener listener) {
+    invoke(REMOVE_SHUTDOWN_LISTENER, new Object[] { listener });
+  }
+
+  @Override
+  public ShutdownSignalException getCloseReason() {
+    return (ShutdownSignalException) invoke(GET_CLOSE_REASON, null);
+  }
+
+  @Override
+  public void notifyListeners() {
+    invoke(NOTIFY_LISTENERS, null);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return (Boolean) invoke(IS_OPEN, null);
+  }
+
+  @Override
+  public Collection<ChannelListener> getChannelListeners() {
+    return handler.config.getChannelListeners();
+  }
+
+  @Override
+  public AdaptivePrefetchPolicy getAdaptivePrefetchPolicy() {
+    return handler.config.getAdaptivePrefetchPolicy();
+  }
+
+  @Override
+  public AckCoalescingPolicy getAckCoalescingPolicy() {
+    return handler.config.getAckCoalescingPolicy();
+  }
+
+  @Override
+  public BlockedPublishPolicy getBlockedPublishPolicy() {
+    return handler.config.getBlockedPublishPolicy();
+  }
+
+  @Override
+  public RecoveryPolicy getChannelRecoveryPolicy() {
+    return handler.config.getChannelRecoveryPolicy();
+  }
+
+  @Override
+  public RetryPolicy getChannelRetryPolicy() {
+    return handler.config.getChannelRetryPolicy();
+  }
+
+  @Override
+  public PublishBufferPolicy getPublishBufferPolicy() {
+    return handler.config.getPublishBufferPolicy();
+  }
+
+  @Override
+  public Collection<ConsumerListener> getConsumerListeners() {
+    return handler.config.getConsumerListeners();
+  }
+
+  @Override
+  public boolean isConsumerRecoveryEnabled() {
+    return handler.config.isConsumerRecoveryEnabled();
+  }
+
+  @Override
+  public boolean isDeclarationCachingEnabled() {
+    return handler.config.isDeclarationCachingEnabled();
+  }
+
+  @Override
+  public boolean isExchangeRecoveryEnabled() {
+    return handler.config.isExchangeRecoveryEnabled();
+  }
+
+  @Override
+  public boolean isQueueRecoveryEnabled() {
+    return handler.config.isQueueRecoveryEnabled();
+  }
+
+  @Override
+  public Collection<ConnectionListener> getConnectionListeners() {
+    return handler.config.getConnectionListeners();
+  }
+
+  @Override
+  public RecoveryPolicy getConnectionRecoveryPolicy() {
+    return handler.config.getConnectionRecoveryPolicy();
+  }
+
+  @Override
+  public RetryPolicy getConnectionRetryPolicy() {
+    return handler.config.getConnectionRetryPolicy();
+  }
+
+  @Override
+  public Metrics getMetrics() {
+    return handler.config.getMetrics();
+  }
+
+  @Override
+  public boolean isDiffRecoveryEnabled() {
+    return handler.config.isDiffRecoveryEnabled();
+  }
+
+  @Override
+  public boolean isLazyChannelRecoveryEnabled() {
+    return handler.config.isLazyChannelRecoveryEnabled();
+  }
+
+  @Override
+  public boolean isPipelinedRecoveryEnabled() {
+    return handler.config.isPipelinedRecoveryEnabled();
+  }
+
+  @Override
+  public int getRecoveryParallelism() {
+    return handler.config.getRecoveryParallelism();
+  }
+
+  @Override
+  public boolean isUsingDaemonThreads() {
+    return handler.config.isUsingDaemonThreads();
+  }
+
+  @Override
+  public ChannelConfig withAdaptivePrefetch(AdaptivePrefetchPolicy adaptivePrefetchPolicy) {
+    return handler.config.withAdaptivePrefetch(adaptivePrefetchPolicy);
+  }
+
+  @Override
+  public ChannelConfig withAckCoalescing(AckCoalescingPolicy ackCoalescingPolicy) {
+    return handler.config.withAckCoalescing(ackCoalescingPolicy);
+  }
+
+  @Override
+  public ChannelConfig withBlockedPublishPolicy(BlockedPublishPolicy blockedPublishPolicy) {
+    return handler.config.withBlockedPublishPolicy(blockedPublishPolicy);
+  }
+
+  @Override
+  public ChannelConfig withChannelListeners(ChannelListener... channelListeners) {
+    return handler.config.withChannelListeners(channelListeners);
+  }
+
+  @Override
+  public ChannelConfig withChannelRecoveryPolicy(RecoveryPolicy recoveryPolicy) {
+    return handler.config.withChannelRecoveryPolicy(recoveryPolicy);
+  }
+
+  @Override
+  public ChannelConfig withChannelRetryPolicy(RetryPolicy retryPolicy) {
+    return handler.config.withChannelRetryPolicy(retryPolicy);
+  }
+
+  @Override
+  public ChannelConfig withPublishBuffer(PublishBufferPolicy publishBufferPolicy) {
+    return handler.config.withPublishBuffer(publishBufferPolicy);
+  }
+
+  @Override
+  public ConsumerConfig withConsumerListeners(ConsumerListener... consumerListeners) {
+    return handler.config.withConsumerListeners(consumerListeners);
+  }
+
+  @Override
+  public ConsumerConfig withConsumerRecovery(boolean enabled) {
+    return handler.config.withConsumerRecovery(enabled);
+  }
+
+  @Override
+  public ChannelConfig withDeclarationCaching(boolean enabled) {
+    return handler.config.withDeclarationCaching(enabled);
+  }
+
+  @Override
+  public ConsumerConfig withExchangeRecovery(boolean enabled) {
+    return handler.config.withExchangeRecovery(enabled);
+  }
+
+  @Override
+  public ConsumerConfig withQueueRecovery(boolean enabled) {
+    return handler.config.withQueueRecovery(enabled);
+  }
+
+  @Override
+  public ConnectionConfig withConnectionListeners(ConnectionListener... connectionListeners) {
+    return handler.config.withConnectionListeners(connectionListeners);
+  }
+
+  @Override
+  public ConnectionConfig withConnectionRecoveryPolicy(RecoveryPolicy recoveryPolicy) {
+    return handler.config.withConnectionRecoveryPolicy(recoveryPolicy);
+  }
+
+  @Override
+  public ConnectionConfig withConnectionRetryPolicy(RetryPolicy retryPolicy) {
+    return handler.config.withConnectionRetryPolicy(retryPolicy);
+  }
+
+  @Override
+  public ConnectionConfig withDiffRecovery(boolean enabled) {
+    return handler.config.withDiffRecovery(enabled);
+  }
+
+  @Override
+  public ConnectionConfig withLazyChannelRecovery(boolean enabled) {
+    return handler.config.withLazyChannelRecovery(enabled);
+  }
+
+  @Override
+  public ConnectionConfig withMetrics(Metrics metrics) {
+    return handler.config.withMetrics(metrics);
+  }
+
+  @Override
+  public ConnectionConfig withPipelinedRecovery(boolean enabled) {
+    return handler.config.withPipelinedRecovery(enabled);
+  }
+
+  @Override
+  public ConnectionConfig withRecoveryParallelism(int parallelism) {
+    return handler.config.withRecoveryParallelism(parallelism);
+  }
+
+  @Override
+  public ConnectionConfig withUseDaemonThreads(boolean useDaemonThreads) {
+    return handler.config.withUseDaemonThreads(useDaemonThreads);
+  }
+
+  @Override
+  public String toString() {
+    return handler.toString();
+  }
+
+  private Object invoke(Method method, Object[] args) {
+    try {
+      return handler.invoke(this, method, args);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, method);
+    }
+  }
+
+  private static Method method(String name, Class<?>... parameterTypes) {
+    try {
+      return Connection.class.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
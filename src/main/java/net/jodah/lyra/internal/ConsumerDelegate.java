@@ -2,6 +2,8 @@ package net.jodah.lyra.internal;
 
 import java.io.IOException;
 
+import net.jodah.lyra.DeliveryTagOffsetAwareConsumer;
+
 import com.rabbitmq.client.AMQP.BasicProperties;
 import com.rabbitmq.client.Consumer;
 import com.rabbitmq.client.Envelope;
@@ -15,11 +17,20 @@ import com.rabbitmq.client.ShutdownSignalException;
 public class ConsumerDelegate implements Consumer {
   private final ChannelHandler channelHandler;
   final Consumer delegate;
+  private final DeliveryTagOffsetAwareConsumer offsetAwareDelegate;
+  private final boolean autoAck;
   private volatile boolean closed;
 
   ConsumerDelegate(ChannelHandler channelHandler, Consumer delegate) {
+    this(channelHandler, delegate, false);
+  }
+
+  ConsumerDelegate(ChannelHandler channelHandler, Consumer delegate, boolean autoAck) {
     this.channelHandler = channelHandler;
     this.delegate = delegate;
+    this.autoAck = autoAck;
+    offsetAwareDelegate = delegate instanceof DeliveryTagOffsetAwareConsumer
+        ? (DeliveryTagOffsetAwareConsumer) delegate : null;
   }
 
   @Override
@@ -47,13 +58,37 @@ public class ConsumerDelegate implements Consumer {
       byte[] body) throws IOException {
     if (closed)
       return;
-    long deliveryTag = envelope.getDeliveryTag();
-    channelHandler.maxDeliveryTag = deliveryTag = deliveryTag
-        + channelHandler.previousMaxDeliveryTag;
-    delegate.handleDelivery(
-        consumerTag,
-        new Envelope(deliveryTag, envelope.isRedeliver(), envelope.getExchange(),
-            envelope.getRoutingKey()), properties, body);
+    long deliveryTagOffset = channelHandler.epoch.deliveryTagOffset;
+    long deliveryTag = envelope.getDeliveryTag() + deliveryTagOffset;
+
+    // Deliveries for a channel are serial, so the max tag only needs to be visible by recovery time
+    channelHandler.maxDeliveryTag.lazySet(deliveryTag);
+    channelHandler.channelMetrics.onDelivery();
+    if (autoAck)
+      channelHandler.settleAutoAck(deliveryTag);
+
+    PrefetchController prefetchController = channelHandler.prefetchController;
+    if (prefetchController == null)
+      dispatch(consumerTag, envelope, deliveryTag, deliveryTagOffset, properties, body);
+    else {
+      long startTime = prefetchController.onDelivery(deliveryTag);
+      try {
+        dispatch(consumerTag, envelope, deliveryTag, deliveryTagOffset, properties, body);
+      } finally {
+        prefetchController.onHandled(startTime);
+      }
+    }
+  }
+
+  private void dispatch(String consumerTag, Envelope envelope, long deliveryTag,
+      long deliveryTagOffset, BasicProperties properties, byte[] body) throws IOException {
+    if (offsetAwareDelegate != null)
+      offsetAwareDelegate.handleDelivery(consumerTag, envelope, deliveryTagOffset, properties, body);
+    else if (deliveryTagOffset == 0)
+      delegate.handleDelivery(consumerTag, envelope, properties, body);
+    else
+      delegate.handleDelivery(consumerTag, new Envelope(deliveryTag, envelope.isRedeliver(),
+          envelope.getExchange(), envelope.getRoutingKey()), properties, body);
   }
 
   @Override
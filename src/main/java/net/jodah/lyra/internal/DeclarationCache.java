@@ -0,0 +1,227 @@
+package net.jodah.lyra.internal;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the results of a connection's exchange, queue and binding declarations so that a
+ * declaration identical to one that the broker has already confirmed on the connection can be
+ * answered without a round trip. Entries are keyed by the declaring method and its arguments, are
+ * invalidated by the deletes and unbinds that undo them, and are cleared when the connection is
+ * recovered. Declarations of server named queues are never cached, nor are declarations of queues
+ * and exchanges that the broker may delete without a call from the client, which are those that
+ * auto-delete or expire, along with bindings to or from them.
+ *
+ * @author Jonathan Halterman
+ */
+final class DeclarationCache {
+  /** Guarded by this */
+  private final Map<Key, Object> results = new HashMap<Key, Object>();
+  /** Guarded by this. Incremented when the cache is cleared or invalidated. */
+  private long epoch;
+  /** Guarded by this. Names of queues that the broker may delete on its own. */
+  private final Set<String> transientQueues = new HashSet<String>();
+  /** Guarded by this. Names of exchanges that the broker may delete on its own. */
+  private final Set<String> transientExchanges = new HashSet<String>();
+
+  /**
+   * A declaring method and its arguments.
+   */
+  static final class Key {
+    final ChannelMethod channelMethod;
+    final Method method;
+    final Object[] args;
+    private final int hashCode;
+
+    Key(ChannelMethod channelMethod, Method method, Object[] args) {
+      this.channelMethod = channelMethod;
+      this.method = method;
+      this.args = args.clone();
+      hashCode = 31 * method.hashCode() + Arrays.deepHashCode(this.args);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key))
+        return false;
+      Key other = (Key) obj;
+      return method.equals(other.method) && Arrays.deepEquals(args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    /**
+     * Returns whether the declaration refers to the {@code name} as a queue.
+     */
+    boolean refersToQueue(String name) {
+      return (channelMethod == ChannelMethod.QUEUE_DECLARE || channelMethod == ChannelMethod.QUEUE_BIND)
+        && name.equals(args[0]);
+    }
+
+    /**
+     * Returns whether the declaration refers to the {@code name} as an exchange.
+     */
+    boolean refersToExchange(String name) {
+      switch (channelMethod) {
+        case EXCHANGE_DECLARE:
+          return name.equals(args[0]);
+        case EXCHANGE_BIND:
+          return name.equals(args[0]) || name.equals(args[1]);
+        case QUEUE_BIND:
+          return name.equals(args[1]);
+        default:
+          return false;
+      }
+    }
+
+    /**
+     * Returns whether the declaration is a binding of the {@code channelMethod}'s kind between the
+     * {@code destination} and {@code source} with the {@code routingKey}.
+     */
+    boolean isBinding(ChannelMethod channelMethod, Object destination, Object source,
+      Object routingKey) {
+      return this.channelMethod == channelMethod && args[0].equals(destination)
+        && args[1].equals(source) && args[2].equals(routingKey);
+    }
+  }
+
+  /**
+   * Returns a key for the declaration, else null if the declaration cannot be cached. Declaring a
+   * queue or exchange that the broker may delete on its own marks it as transient, invalidating any
+   * cached bindings to or from it.
+   */
+  synchronized Key keyFor(ChannelMethod channelMethod, Method method, Object[] args) {
+    if (args == null || args.length == 0 || !(args[0] instanceof String)
+      || "".equals(args[0]))
+      return null;
+    if ((channelMethod == ChannelMethod.QUEUE_BIND || channelMethod == ChannelMethod.EXCHANGE_BIND)
+      && (args.length < 3 || args[1] == null || args[2] == null))
+      return null;
+
+    String name = (String) args[0];
+    switch (channelMethod) {
+      case EXCHANGE_DECLARE:
+        if (args.length > 3 && Boolean.TRUE.equals(args[3])) {
+          if (transientExchanges.add(name))
+            removeReferencesTo(name, false);
+          return null;
+        }
+        break;
+      case QUEUE_DECLARE:
+        if (args.length > 4 && (Boolean.TRUE.equals(args[3]) || expires(args[4]))) {
+          if (transientQueues.add(name))
+            removeReferencesTo(name, true);
+          return null;
+        }
+        break;
+      case QUEUE_BIND:
+        if (transientQueues.contains(name) || transientExchanges.contains(args[1]))
+          return null;
+        break;
+      case EXCHANGE_BIND:
+        if (transientExchanges.contains(name) || transientExchanges.contains(args[1]))
+          return null;
+        break;
+      default:
+        break;
+    }
+
+    return new Key(channelMethod, method, args);
+  }
+
+  synchronized long epoch() {
+    return epoch;
+  }
+
+  synchronized Object get(Key key) {
+    return results.get(key);
+  }
+
+  /**
+   * Caches the {@code result} for the {@code key} if the cache has not been cleared since the
+   * {@code epoch} in which the declaration was made.
+   */
+  synchronized void put(Key key, Object result, long epoch) {
+    if (this.epoch == epoch)
+      results.put(key, result);
+  }
+
+  synchronized void clear() {
+    epoch++;
+    results.clear();
+    transientQueues.clear();
+    transientExchanges.clear();
+  }
+
+  synchronized int size() {
+    return results.size();
+  }
+
+  /**
+   * Invalidates the cached declarations that the {@code channelMethod}, invoked with the
+   * {@code args}, undoes.
+   */
+  synchronized void invalidate(ChannelMethod channelMethod, Object[] args) {
+    // Bumping the epoch ensures that declarations in flight are not cached after being undone
+    epoch++;
+    if (results.isEmpty() || args == null || args.length == 0 || args[0] == null)
+      return;
+
+    String name = (String) args[0];
+    if (channelMethod == ChannelMethod.QUEUE_DELETE)
+      transientQueues.remove(name);
+    else if (channelMethod == ChannelMethod.EXCHANGE_DELETE)
+      transientExchanges.remove(name);
+
+    for (Iterator<Key> it = results.keySet().iterator(); it.hasNext();) {
+      Key key = it.next();
+      boolean undone;
+      switch (channelMethod) {
+        case EXCHANGE_DELETE:
+          undone = key.refersToExchange(name);
+          break;
+        case QUEUE_DELETE:
+          undone = key.refersToQueue(name);
+          break;
+        case EXCHANGE_UNBIND:
+          undone = args.length > 2 && key.isBinding(ChannelMethod.EXCHANGE_BIND, name, args[1], args[2]);
+          break;
+        case QUEUE_UNBIND:
+          undone = args.length > 2 && key.isBinding(ChannelMethod.QUEUE_BIND, name, args[1], args[2]);
+          break;
+        default:
+          undone = false;
+      }
+
+      if (undone)
+        it.remove();
+    }
+  }
+
+  /**
+   * Removes the cached declarations that refer to the queue or exchange with the {@code name}.
+   * Guarded by this.
+   */
+  private void removeReferencesTo(String name, boolean queue) {
+    for (Iterator<Key> it = results.keySet().iterator(); it.hasNext();) {
+      Key key = it.next();
+      if (queue ? key.refersToQueue(name) : key.refersToExchange(name))
+        it.remove();
+    }
+  }
+
+  /**
+   * Returns whether the queue {@code arguments} give the queue an expiry.
+   */
+  private static boolean expires(Object arguments) {
+    return arguments instanceof Map && ((Map<?, ?>) arguments).containsKey("x-expires");
+  }
+}
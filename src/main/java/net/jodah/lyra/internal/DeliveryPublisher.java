@@ -0,0 +1,298 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jodah.lyra.DeliveryTagOffsetAwareConsumer;
+import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.reactive.Delivery;
+import net.jodah.lyra.reactive.Publisher;
+import net.jodah.lyra.reactive.Subscriber;
+import net.jodah.lyra.reactive.Subscription;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Publishes the deliveries for a queue to a single {@link Subscriber}. Deliveries are consumed via
+ * the Lyra managed channel so that the consumer and the channel's prefetch are recovered along with
+ * the channel, and the channel's prefetch is set from the subscriber's outstanding demand, bounded
+ * by {@code maxPrefetch}. Since the broker stops delivering once the prefetch is reached, at most
+ * {@code maxPrefetch} deliveries are ever held while waiting for demand. The prefetch is set on the
+ * recovery executors rather than on the thread that requests deliveries, which may be the
+ * channel's consumer thread that a blocking {@code basicQos} call would stall.
+ *
+ * @author Jonathan Halterman
+ */
+class DeliveryPublisher implements Publisher<Delivery> {
+  private static final Subscription EMPTY_SUBSCRIPTION = new Subscription() {
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+  };
+
+  private final ChannelHandler channelHandler;
+  private final String queue;
+  private final int maxPrefetch;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  DeliveryPublisher(ChannelHandler channelHandler, String queue, int maxPrefetch) {
+    Assert.notNull(queue, "queue");
+    Assert.isTrue(maxPrefetch > 0, "maxPrefetch must be greater than 0");
+    this.channelHandler = channelHandler;
+    this.queue = queue;
+    this.maxPrefetch = maxPrefetch;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Delivery> subscriber) {
+    Assert.notNull(subscriber, "subscriber");
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(EMPTY_SUBSCRIPTION);
+      subscriber.onError(new IllegalStateException("Deliveries for " + queue
+          + " are already subscribed to"));
+      return;
+    }
+
+    subscriber.onSubscribe(new DeliverySubscription(subscriber));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("delivery-publisher of %s via %s", queue, channelHandler);
+  }
+
+  /**
+   * A subscription that consumes deliveries, buffering them until there is demand. Signals to the
+   * subscriber are serialized via a work-in-progress counter so that deliveries and requests can
+   * each emit from their own threads.
+   */
+  private class DeliverySubscription implements Subscription, DeliveryTagOffsetAwareConsumer {
+    private final Subscriber<? super Delivery> subscriber;
+    private final ConcurrentLinkedQueue<Delivery> deliveries = new ConcurrentLinkedQueue<Delivery>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    /** Number of prefetch updates requested since the update task last checked */
+    private final AtomicInteger updates = new AtomicInteger();
+    private final Runnable update = new Runnable() {
+      @Override
+      public void run() {
+        update();
+      }
+    };
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable failure;
+    /** Guarded by this */
+    private String consumerTag;
+    /** Guarded by this */
+    private boolean consuming;
+    /** Only accessed by the update task */
+    private int prefetch;
+
+    DeliverySubscription(Subscriber<? super Delivery> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n < 1) {
+        terminate(new IllegalArgumentException("Requested elements must be greater than 0"));
+        return;
+      }
+
+      while (true) {
+        long current = requested.get();
+        long next = current + n;
+        if (next < 0)
+          next = Long.MAX_VALUE;
+        if (requested.compareAndSet(current, next))
+          break;
+      }
+
+      updatePrefetch();
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled)
+        return;
+      cancelled = true;
+      release();
+    }
+
+    /**
+     * Cancels the consumer and requeues any deliveries that were never published to the subscriber.
+     */
+    private void release() {
+      String tag;
+      synchronized (this) {
+        tag = consumerTag;
+        consuming = true;
+      }
+
+      try {
+        if (tag != null)
+          channelHandler.proxy.basicCancel(tag);
+      } catch (Exception ignore) {
+      }
+
+      for (Delivery delivery; (delivery = deliveries.poll()) != null;)
+        try {
+          channelHandler.proxy.basicNack(delivery.getDeliveryTag(), false, true);
+        } catch (Exception ignore) {
+        }
+    }
+
+    @Override
+    public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties,
+        byte[] body) throws IOException {
+      handleDelivery(consumerTag, envelope, 0, properties, body);
+    }
+
+    @Override
+    public void handleDelivery(String consumerTag, Envelope envelope, long deliveryTagOffset,
+        BasicProperties properties, byte[] body) throws IOException {
+      if (cancelled)
+        return;
+      deliveries.offer(new Delivery(consumerTag, envelope,
+          envelope.getDeliveryTag() + deliveryTagOffset, properties, body));
+      drain();
+    }
+
+    @Override
+    public void handleConsumeOk(String consumerTag) {
+    }
+
+    @Override
+    public void handleCancelOk(String consumerTag) {
+    }
+
+    @Override
+    public void handleCancel(String consumerTag) throws IOException {
+      complete();
+    }
+
+    @Override
+    public void handleShutdownSignal(String consumerTag, ShutdownSignalException sig) {
+      if (sig.isInitiatedByApplication())
+        complete();
+      else if (channelHandler.canRecover()) {
+        // Unpublished deliveries can no longer be acked and are redelivered after recovery
+        deliveries.clear();
+      } else
+        terminate(sig);
+    }
+
+    @Override
+    public void handleRecoverOk(String consumerTag) {
+    }
+
+    @Override
+    public String toString() {
+      return DeliveryPublisher.this.toString();
+    }
+
+    /**
+     * Schedules an update of the channel's prefetch unless one is already pending.
+     */
+    private void updatePrefetch() {
+      if (updates.getAndIncrement() == 0)
+        ConnectionHandler.RECOVERY_EXECUTORS.execute(update);
+    }
+
+    /**
+     * Sets the channel's prefetch to the outstanding demand, bounded by 1 and maxPrefetch, and
+     * starts consuming if not already, repeating while further updates were requested. Updates are
+     * serialized via the updates counter.
+     */
+    private void update() {
+      int missed = 1;
+      do {
+        if (cancelled || done)
+          return;
+
+        int target = (int) Math.max(1, Math.min(requested.get(), maxPrefetch));
+        try {
+          if (target != prefetch) {
+            channelHandler.proxy.basicQos(target, true);
+            prefetch = target;
+          }
+
+          // Consumes under the lock so that a concurrent cancel sees the consumer tag
+          synchronized (this) {
+            if (!consuming) {
+              consuming = true;
+              consumerTag = channelHandler.proxy.basicConsume(queue, false, this);
+            }
+          }
+        } catch (Exception e) {
+          terminate(e);
+          return;
+        }
+
+        missed = updates.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void complete() {
+      done = true;
+      drain();
+    }
+
+    private void terminate(Throwable failure) {
+      this.failure = failure;
+      done = true;
+      drain();
+    }
+
+    /**
+     * Publishes buffered deliveries while there is demand, signalling completion or failure once
+     * done.
+     */
+    private void drain() {
+      if (wip.getAndIncrement() != 0)
+        return;
+
+      int missed = 1;
+      do {
+        long demand = requested.get();
+        long emitted = 0;
+        while (emitted != demand && !cancelled) {
+          Delivery delivery = deliveries.poll();
+          if (delivery == null)
+            break;
+          subscriber.onNext(delivery);
+          emitted++;
+        }
+
+        if (emitted != 0 && demand != Long.MAX_VALUE)
+          requested.addAndGet(-emitted);
+        if (cancelled)
+          return;
+        if (done && (failure != null || deliveries.isEmpty())) {
+          cancelled = true;
+          if (failure == null)
+            subscriber.onComplete();
+          else {
+            if (!(failure instanceof ShutdownSignalException))
+              release();
+            subscriber.onError(failure);
+          }
+          return;
+        }
+
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+  }
+}
@@ -0,0 +1,539 @@
+package net.jodah.lyra.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import net.jodah.lyra.internal.util.Assert;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.impl.ValueReader;
+import com.rabbitmq.client.impl.ValueWriter;
+
+/**
+ * An append-only log of publishes, stored in a directory as a sequence of fixed size memory-mapped
+ * segment files. Not threadsafe.
+ * <p>
+ * Each segment starts with a header holding a magic number and the offset up to which its records
+ * have been confirmed. Each record holds the length and CRC32 of its payload, followed by the
+ * payload: the exchange, routing key, properties and body of a publish, encoded as they would be in
+ * AMQP frames. A record's length is written last, and records whose length or CRC do not check out
+ * mark the end of a segment, so that a publish which was partially written when the process
+ * crashed is ignored when the spool is reopened. Segments are deleted once all of their records are
+ * confirmed.
+ * <p>
+ * Segments are only forced to disk when they roll over and when the spool is closed. Records that
+ * are written to a mapped segment survive the process crashing, since the OS writes the segment's
+ * pages back regardless, but records appended since the segment was last forced may be lost if the
+ * host crashes.
+ *
+ * @author Jonathan Halterman
+ */
+final class DiskSpool {
+  private static final Logger log = LoggerFactory.getLogger(DiskSpool.class);
+  private static final int MAGIC = 0x4c595253;
+  /** Magic number and confirmed offset */
+  static final int SEGMENT_HEADER_SIZE = 8;
+  /** Payload length and CRC */
+  static final int RECORD_HEADER_SIZE = 8;
+  private static final String SEGMENT_PREFIX = "spool-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  /** Presence flags for each basic property, in AMQP order */
+  private static final int CONTENT_TYPE = 1 << 15;
+  private static final int CONTENT_ENCODING = 1 << 14;
+  private static final int HEADERS = 1 << 13;
+  private static final int DELIVERY_MODE = 1 << 12;
+  private static final int PRIORITY = 1 << 11;
+  private static final int CORRELATION_ID = 1 << 10;
+  private static final int REPLY_TO = 1 << 9;
+  private static final int EXPIRATION = 1 << 8;
+  private static final int MESSAGE_ID = 1 << 7;
+  private static final int TIMESTAMP = 1 << 6;
+  private static final int TYPE = 1 << 5;
+  private static final int USER_ID = 1 << 4;
+  private static final int APP_ID = 1 << 3;
+  private static final int CLUSTER_ID = 1 << 2;
+
+  private final File directory;
+  private final int segmentSize;
+  private final List<Segment> segments = new ArrayList<Segment>();
+  private final CRC32 crc = new CRC32();
+  private long nextSegmentId;
+  private long pendingCount;
+  /** Index of the segment that the next record is read from */
+  private int readSegment;
+  /** Offset in the read segment that the next record is read from */
+  private int readOffset;
+
+  /**
+   * A spooled publish along with its position in the spool.
+   */
+  static final class Record {
+    final String exchange;
+    final String routingKey;
+    final BasicProperties props;
+    final byte[] body;
+    final Segment segment;
+    final int endOffset;
+
+    Record(String exchange, String routingKey, BasicProperties props, byte[] body,
+      Segment segment, int endOffset) {
+      this.exchange = exchange;
+      this.routingKey = routingKey;
+      this.props = props;
+      this.body = body;
+      this.segment = segment;
+      this.endOffset = endOffset;
+    }
+  }
+
+  static final class Segment {
+    final long id;
+    final File file;
+    final MappedByteBuffer buffer;
+    int writeOffset;
+
+    Segment(long id, File file, MappedByteBuffer buffer) {
+      this.id = id;
+      this.file = file;
+      this.buffer = buffer;
+    }
+
+    int getConfirmedOffset() {
+      return buffer.getInt(4);
+    }
+
+    void setConfirmedOffset(int offset) {
+      buffer.putInt(4, offset);
+    }
+
+    boolean isConfirmed() {
+      return getConfirmedOffset() >= writeOffset;
+    }
+  }
+
+  /**
+   * Opens the spool in the {@code directory}, recovering any publishes that were spooled but not
+   * confirmed before the spool was last closed.
+   *
+   * @throws IOException if the directory cannot be created or its segments cannot be read
+   */
+  DiskSpool(File directory, int segmentSize) throws IOException {
+    Assert.isTrue(segmentSize >= 1024, "segmentSize must be at least 1024");
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    if (!directory.isDirectory() && !directory.mkdirs())
+      throw new IOException("Failed to create spool directory " + directory);
+    open();
+  }
+
+  /**
+   * Appends a publish to the spool.
+   *
+   * @throws IOException if a segment cannot be created
+   */
+  void append(String exchange, String routingKey, BasicProperties props, byte[] body)
+    throws IOException {
+    byte[] payload = encode(exchange, routingKey, props, body);
+    int recordSize = RECORD_HEADER_SIZE + payload.length;
+    Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    if (segment == null || segment.writeOffset + recordSize > segment.buffer.capacity()) {
+      if (segment != null)
+        segment.buffer.force();
+      segment = createSegment(Math.max(segmentSize, SEGMENT_HEADER_SIZE + recordSize));
+    }
+
+    int offset = segment.writeOffset;
+    crc.reset();
+    crc.update(payload);
+    ByteBuffer buffer = segment.buffer.duplicate();
+    buffer.position(offset + RECORD_HEADER_SIZE);
+    buffer.put(payload);
+    segment.buffer.putInt(offset + 4, (int) crc.getValue());
+    segment.buffer.putInt(offset, payload.length);
+    segment.writeOffset = offset + recordSize;
+    pendingCount++;
+  }
+
+  /**
+   * Returns up to {@code max} records that follow the last record that was read, in the order they
+   * were appended.
+   */
+  List<Record> read(int max) throws IOException {
+    List<Record> records = new ArrayList<Record>();
+    while (records.size() < max && readSegment < segments.size()) {
+      Segment segment = segments.get(readSegment);
+      if (readOffset < segment.writeOffset) {
+        Record record = decode(segment, readOffset);
+        readOffset = record.endOffset;
+        records.add(record);
+      } else if (readSegment < segments.size() - 1) {
+        readSegment++;
+        readOffset = segments.get(readSegment).getConfirmedOffset();
+      } else
+        break;
+    }
+
+    return records;
+  }
+
+  /**
+   * Marks the {@code records}, which must be the oldest unconfirmed records, as confirmed, deleting
+   * segments whose records are all confirmed.
+   */
+  void confirm(List<Record> records) {
+    if (records.isEmpty())
+      return;
+    Record last = records.get(records.size() - 1);
+    last.segment.setConfirmedOffset(last.endOffset);
+    pendingCount -= records.size();
+
+    int removed = 0;
+    while (!segments.isEmpty()) {
+      Segment segment = segments.get(0);
+      if (segment != last.segment && segment.id > last.segment.id)
+        break;
+      if (segment == last.segment && !segment.isConfirmed())
+        break;
+      segments.remove(0);
+      delete(segment);
+      removed++;
+    }
+
+    if (readSegment >= removed)
+      readSegment -= removed;
+    else
+      rewind();
+  }
+
+  /**
+   * Rewinds reads to the oldest unconfirmed record, so that records that were read but not
+   * confirmed are read again.
+   */
+  void rewind() {
+    readSegment = 0;
+    readOffset = segments.isEmpty() ? 0 : segments.get(0).getConfirmedOffset();
+  }
+
+  /**
+   * Flushes the spool's segments to disk. The spool's files are retained so that unconfirmed
+   * publishes can be recovered by reopening the spool.
+   */
+  void close() {
+    for (Segment segment : segments)
+      segment.buffer.force();
+  }
+
+  boolean isEmpty() {
+    return pendingCount == 0;
+  }
+
+  /**
+   * Returns the number of records that have not been confirmed.
+   */
+  long size() {
+    return pendingCount;
+  }
+
+  int getSegmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public String toString() {
+    return "spool " + directory;
+  }
+
+  private void open() throws IOException {
+    File[] files = directory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return segmentId(name) >= 0;
+      }
+    });
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        long idA = segmentId(a.getName());
+        long idB = segmentId(b.getName());
+        return idA < idB ? -1 : idA == idB ? 0 : 1;
+      }
+    });
+
+    for (File file : files) {
+      long id = segmentId(file.getName());
+      nextSegmentId = Math.max(nextSegmentId, id + 1);
+      Segment segment = file.length() >= SEGMENT_HEADER_SIZE ? new Segment(id, file, map(file,
+        (int) file.length())) : null;
+      if (segment == null || segment.buffer.getInt(0) != MAGIC) {
+        log.warn("Discarding incomplete spool segment {}", file);
+        delete(segment == null ? new Segment(id, file, null) : segment);
+        continue;
+      }
+
+      int capacity = segment.buffer.capacity();
+      int confirmedOffset = segment.getConfirmedOffset();
+      if (confirmedOffset < SEGMENT_HEADER_SIZE || confirmedOffset > capacity)
+        confirmedOffset = SEGMENT_HEADER_SIZE;
+      int offset = SEGMENT_HEADER_SIZE;
+      int records = 0;
+      while (offset + RECORD_HEADER_SIZE <= capacity) {
+        int length = segment.buffer.getInt(offset);
+        if (length <= 0 || offset + RECORD_HEADER_SIZE + length > capacity
+          || segment.buffer.getInt(offset + 4) != checksum(segment, offset, length))
+          break;
+        offset += RECORD_HEADER_SIZE + length;
+        if (offset > confirmedOffset)
+          records++;
+      }
+
+      // Clear any partially written record so that it is not mistaken for an appended record
+      if (offset + 4 <= capacity)
+        segment.buffer.putInt(offset, 0);
+      segment.writeOffset = offset;
+      segment.setConfirmedOffset(Math.min(confirmedOffset, offset));
+      if (segment.isConfirmed())
+        delete(segment);
+      else {
+        segments.add(segment);
+        pendingCount += records;
+      }
+    }
+
+    rewind();
+    if (pendingCount > 0)
+      log.info("Recovered {} unconfirmed publishes from {}", pendingCount, this);
+  }
+
+  private Segment createSegment(int size) throws IOException {
+    long id = nextSegmentId++;
+    File file = new File(directory, String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    Segment segment = new Segment(id, file, map(file, size));
+    segment.buffer.putInt(0, MAGIC);
+    segment.setConfirmedOffset(SEGMENT_HEADER_SIZE);
+    segment.writeOffset = SEGMENT_HEADER_SIZE;
+    if (segments.isEmpty()) {
+      readSegment = 0;
+      readOffset = SEGMENT_HEADER_SIZE;
+    }
+    segments.add(segment);
+    return segment;
+  }
+
+  /**
+   * Unmaps and deletes the {@code segment}, which must not be accessed afterwards. Mapped files
+   * cannot be deleted on some platforms, such as Windows.
+   */
+  private void delete(Segment segment) {
+    if (segment.buffer != null)
+      unmap(segment.buffer);
+    if (!segment.file.delete())
+      log.warn("Failed to delete spool segment {}", segment.file);
+  }
+
+  private int checksum(Segment segment, int offset, int length) {
+    byte[] payload = new byte[length];
+    ByteBuffer buffer = segment.buffer.duplicate();
+    buffer.position(offset + RECORD_HEADER_SIZE);
+    buffer.get(payload);
+    crc.reset();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  private static MappedByteBuffer map(File file, int size) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      FileChannel channel = raf.getChannel();
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Releases the {@code buffer}'s mapping rather than waiting for the buffer to be garbage
+   * collected. The JDK has no supported way to do so, so this relies on
+   * {@code sun.misc.Unsafe.invokeCleaner} on Java 9 and later, and on the buffer's cleaner on Java 8,
+   * and leaves the buffer mapped if neither is available.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Method invokeCleaner = null;
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (NoSuchMethodException ignore) {
+      }
+
+      if (invokeCleaner != null) {
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      } else {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null)
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (Exception e) {
+      log.debug("Failed to unmap spool segment", e);
+    }
+  }
+
+  private static long segmentId(String fileName) {
+    if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX))
+      return -1;
+    try {
+      return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length()
+        - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  static byte[] encode(String exchange, String routingKey, BasicProperties props, byte[] body)
+    throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (body == null ? 0 : body.length));
+    ValueWriter writer = new ValueWriter(new DataOutputStream(bytes));
+    writer.writeShortstr(exchange);
+    writer.writeShortstr(routingKey);
+
+    int flags = 0;
+    if (props != null) {
+      flags |= props.getContentType() != null ? CONTENT_TYPE : 0;
+      flags |= props.getContentEncoding() != null ? CONTENT_ENCODING : 0;
+      flags |= props.getHeaders() != null ? HEADERS : 0;
+      flags |= props.getDeliveryMode() != null ? DELIVERY_MODE : 0;
+      flags |= props.getPriority() != null ? PRIORITY : 0;
+      flags |= props.getCorrelationId() != null ? CORRELATION_ID : 0;
+      flags |= props.getReplyTo() != null ? REPLY_TO : 0;
+      flags |= props.getExpiration() != null ? EXPIRATION : 0;
+      flags |= props.getMessageId() != null ? MESSAGE_ID : 0;
+      flags |= props.getTimestamp() != null ? TIMESTAMP : 0;
+      flags |= props.getType() != null ? TYPE : 0;
+      flags |= props.getUserId() != null ? USER_ID : 0;
+      flags |= props.getAppId() != null ? APP_ID : 0;
+      flags |= props.getClusterId() != null ? CLUSTER_ID : 0;
+    }
+
+    // A flags value of 1 distinguishes empty properties from null properties
+    writer.writeShort(props == null ? 0 : flags == 0 ? 1 : flags);
+    if ((flags & CONTENT_TYPE) != 0)
+      writer.writeShortstr(props.getContentType());
+    if ((flags & CONTENT_ENCODING) != 0)
+      writer.writeShortstr(props.getContentEncoding());
+    if ((flags & HEADERS) != 0)
+      writer.writeTable(props.getHeaders());
+    if ((flags & DELIVERY_MODE) != 0)
+      writer.writeOctet(props.getDeliveryMode());
+    if ((flags & PRIORITY) != 0)
+      writer.writeOctet(props.getPriority());
+    if ((flags & CORRELATION_ID) != 0)
+      writer.writeShortstr(props.getCorrelationId());
+    if ((flags & REPLY_TO) != 0)
+      writer.writeShortstr(props.getReplyTo());
+    if ((flags & EXPIRATION) != 0)
+      writer.writeShortstr(props.getExpiration());
+    if ((flags & MESSAGE_ID) != 0)
+      writer.writeShortstr(props.getMessageId());
+    if ((flags & TIMESTAMP) != 0)
+      writer.writeTimestamp(props.getTimestamp());
+    if ((flags & TYPE) != 0)
+      writer.writeShortstr(props.getType());
+    if ((flags & USER_ID) != 0)
+      writer.writeShortstr(props.getUserId());
+    if ((flags & APP_ID) != 0)
+      writer.writeShortstr(props.getAppId());
+    if ((flags & CLUSTER_ID) != 0)
+      writer.writeShortstr(props.getClusterId());
+
+    if (body == null)
+      writer.writeLong(-1);
+    else {
+      writer.writeLong(body.length);
+      writer.flush();
+      bytes.write(body);
+    }
+
+    writer.flush();
+    return bytes.toByteArray();
+  }
+
+  private static Record decode(Segment segment, int offset) throws IOException {
+    int length = segment.buffer.getInt(offset);
+    byte[] payload = new byte[length];
+    ByteBuffer buffer = segment.buffer.duplicate();
+    buffer.position(offset + RECORD_HEADER_SIZE);
+    buffer.get(payload);
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    ValueReader reader = new ValueReader(in);
+    String exchange = reader.readShortstr();
+    String routingKey = reader.readShortstr();
+
+    BasicProperties props = null;
+    int flags = reader.readShort();
+    if (flags != 0) {
+      BasicProperties.Builder builder = new BasicProperties.Builder();
+      if ((flags & CONTENT_TYPE) != 0)
+        builder.contentType(reader.readShortstr());
+      if ((flags & CONTENT_ENCODING) != 0)
+        builder.contentEncoding(reader.readShortstr());
+      if ((flags & HEADERS) != 0)
+        builder.headers(reader.readTable());
+      if ((flags & DELIVERY_MODE) != 0)
+        builder.deliveryMode(reader.readOctet());
+      if ((flags & PRIORITY) != 0)
+        builder.priority(reader.readOctet());
+      if ((flags & CORRELATION_ID) != 0)
+        builder.correlationId(reader.readShortstr());
+      if ((flags & REPLY_TO) != 0)
+        builder.replyTo(reader.readShortstr());
+      if ((flags & EXPIRATION) != 0)
+        builder.expiration(reader.readShortstr());
+      if ((flags & MESSAGE_ID) != 0)
+        builder.messageId(reader.readShortstr());
+      if ((flags & TIMESTAMP) != 0)
+        builder.timestamp(reader.readTimestamp());
+      if ((flags & TYPE) != 0)
+        builder.type(reader.readShortstr());
+      if ((flags & USER_ID) != 0)
+        builder.userId(reader.readShortstr());
+      if ((flags & APP_ID) != 0)
+        builder.appId(reader.readShortstr());
+      if ((flags & CLUSTER_ID) != 0)
+        builder.clusterId(reader.readShortstr());
+      props = builder.build();
+    }
+
+    int bodyLength = reader.readLong();
+    byte[] body = null;
+    if (bodyLength >= 0) {
+      body = new byte[bodyLength];
+      in.readFully(body);
+    }
+
+    return new Record(exchange, routingKey, props, body, segment,
+      offset + RECORD_HEADER_SIZE + length);
+  }
+}
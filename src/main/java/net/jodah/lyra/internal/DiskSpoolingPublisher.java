@@ -0,0 +1,244 @@
+package net.jodah.lyra.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.jodah.lyra.SpoolingPublisher;
+import net.jodah.lyra.config.BlockedPublishPolicy;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.PublishBufferPolicy;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.internal.util.Exceptions;
+import net.jodah.lyra.internal.util.Reflection;
+import net.jodah.lyra.internal.util.concurrent.NamedThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * A {@link SpoolingPublisher} that spools to a {@link DiskSpool} while its connection or channel
+ * circuit is open or its connection is blocked, and replays the spool on a dedicated thread in
+ * batches, waiting for each batch to be confirmed before removing it from the spool.
+ *
+ * @author Jonathan Halterman
+ */
+class DiskSpoolingPublisher implements SpoolingPublisher {
+  private static final Logger log = LoggerFactory.getLogger(DiskSpoolingPublisher.class);
+  private static final Method CREATE_CHANNEL;
+  static final int REPLAY_BATCH_SIZE = 256;
+  private static final long CONFIRM_TIMEOUT_MILLIS = 30000;
+  private static final long REPLAY_RETRY_MILLIS = 1000;
+
+  private final ConnectionHandler connectionHandler;
+  final ChannelHandler channelHandler;
+  /** Guarded by itself */
+  private final DiskSpool spool;
+  private final ScheduledExecutorService replayExecutor;
+  private final AtomicBoolean replayPending = new AtomicBoolean();
+  private final Runnable replay = new Runnable() {
+    @Override
+    public void run() {
+      replay();
+    }
+  };
+  private final Runnable scheduleReplay = new Runnable() {
+    @Override
+    public void run() {
+      replayPending.set(false);
+      scheduleReplay(0);
+    }
+  };
+  private volatile boolean closed;
+
+  /**
+   * Config for the publisher's channel. Publishes that cannot be sent are spooled rather than
+   * retried, buffered or held while the connection is blocked.
+   */
+  private static final class SpoolConfig extends Config {
+    SpoolConfig(Config parent) {
+      super(parent);
+      withChannelRetryPolicy(RetryPolicies.retryNever());
+    }
+
+    @Override
+    public BlockedPublishPolicy getBlockedPublishPolicy() {
+      return null;
+    }
+
+    @Override
+    public PublishBufferPolicy getPublishBufferPolicy() {
+      return null;
+    }
+  }
+
+  static {
+    try {
+      CREATE_CHANNEL = Connection.class.getMethod("createChannel");
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @throws IOException if the spool cannot be opened or the publisher's channel cannot be created
+   */
+  DiskSpoolingPublisher(ConnectionHandler connectionHandler, File directory, int segmentSize)
+      throws IOException {
+    this.connectionHandler = connectionHandler;
+    spool = new DiskSpool(directory, segmentSize);
+    try {
+      channelHandler = connectionHandler.createChannel(CREATE_CHANNEL, null, new SpoolConfig(
+          connectionHandler.config));
+    } catch (Throwable t) {
+      spool.close();
+      throw Reflection.rethrow(t, CREATE_CHANNEL);
+    }
+
+    channelHandler.proxy.confirmSelect();
+    replayExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(
+        "lyra-spool-%s", true));
+    if (!spool.isEmpty())
+      scheduleReplay(0);
+  }
+
+  @Override
+  public void publish(String exchange, String routingKey, BasicProperties props, byte[] body)
+      throws IOException {
+    Assert.state(!closed, "Spooling publisher is closed");
+
+    // Publishes directly under the lock so that a failed publish is spooled before later publishes
+    synchronized (spool) {
+      if (spool.isEmpty() && isAvailable()) {
+        try {
+          channelHandler.basicPublish(exchange, routingKey, false, false, props, body);
+          return;
+        } catch (Exception e) {
+          if (Exceptions.extractCause(e, ShutdownSignalException.class) == null) {
+            if (e instanceof IOException)
+              throw (IOException) e;
+            if (e instanceof RuntimeException)
+              throw (RuntimeException) e;
+            throw new IOException(e);
+          }
+        }
+      }
+
+      spool.append(exchange, routingKey, props, body);
+    }
+
+    scheduleReplay(0);
+  }
+
+  @Override
+  public long getSpooledCount() {
+    synchronized (spool) {
+      return spool.size();
+    }
+  }
+
+  @Override
+  public boolean isSpooling() {
+    synchronized (spool) {
+      return !spool.isEmpty();
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    replayExecutor.shutdownNow();
+    try {
+      channelHandler.proxy.close();
+    } catch (Exception ignore) {
+    }
+
+    synchronized (spool) {
+      spool.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("spooling-publisher to %s via %s", spool, channelHandler);
+  }
+
+  private boolean isAvailable() {
+    return connectionHandler.circuit.isClosed() && connectionHandler.blockedCircuit.isClosed()
+        && channelHandler.circuit.isClosed();
+  }
+
+  /**
+   * Schedules a replay to run after the {@code delayMillis}, or once the first of the connection,
+   * the broker's block and the channel that is unavailable becomes available.
+   */
+  private void scheduleReplay(long delayMillis) {
+    if (closed || !replayPending.compareAndSet(false, true))
+      return;
+
+    if (!connectionHandler.circuit.isClosed())
+      connectionHandler.whenRecovered(scheduleReplay);
+    else if (!connectionHandler.blockedCircuit.isClosed())
+      connectionHandler.blockedCircuit.whenClosed(scheduleReplay);
+    else if (!channelHandler.circuit.isClosed())
+      channelHandler.whenRecovered(scheduleReplay);
+    else
+      replayExecutor.schedule(replay, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Publishes spooled messages in batches until the spool is empty, waiting for each batch to be
+   * confirmed. If a batch is not confirmed, its messages are rewound and replayed again later.
+   */
+  private void replay() {
+    replayPending.set(false);
+    if (closed)
+      return;
+    if (!isAvailable()) {
+      scheduleReplay(0);
+      return;
+    }
+
+    int replayed = 0;
+    try {
+      while (!closed) {
+        List<DiskSpool.Record> batch;
+        synchronized (spool) {
+          batch = spool.read(REPLAY_BATCH_SIZE);
+        }
+        if (batch.isEmpty())
+          break;
+
+        for (DiskSpool.Record record : batch)
+          channelHandler.basicPublish(record.exchange, record.routingKey, false, false,
+              record.props, record.body);
+        if (!channelHandler.proxy.waitForConfirms(CONFIRM_TIMEOUT_MILLIS))
+          throw new IOException("Spooled publishes were nacked by the broker");
+
+        synchronized (spool) {
+          spool.confirm(batch);
+        }
+        replayed += batch.size();
+      }
+
+      if (replayed > 0)
+        log.info("Published {} spooled messages via {}", replayed, channelHandler);
+    } catch (Exception e) {
+      log.error("Failed to publish spooled messages via {}", channelHandler, e);
+      synchronized (spool) {
+        spool.rewind();
+      }
+      scheduleReplay(REPLAY_RETRY_MILLIS);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.util.Map;
+
+import net.jodah.lyra.internal.util.Interner;
+
+import com.rabbitmq.client.AMQP.Exchange;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+
+/**
+ * Encapsulates an exchange declaration, made via any of the exchangeDeclare argument lists, as
+ * typed fields with a shared name and arguments.
+ * 
+ * @author Jonathan Halterman
+ */
+class ExchangeDeclaration {
+  final String name;
+  final String type;
+  /** The type the exchange was declared with, else null if it was declared with a type name */
+  private final BuiltinExchangeType builtinType;
+  final boolean durable;
+  final boolean autoDelete;
+  final boolean internal;
+  final Map<String, Object> arguments;
+  /** The number of arguments the exchange was declared with */
+  private final byte arity;
+
+  @SuppressWarnings("unchecked")
+  ExchangeDeclaration(Object[] args) {
+    name = Interner.name((String) args[0]);
+    builtinType = args[1] instanceof BuiltinExchangeType ? (BuiltinExchangeType) args[1] : null;
+    type = builtinType == null ? Interner.name((String) args[1]) : builtinType.getType();
+    durable = args.length > 2 && (Boolean) args[2];
+    autoDelete = args.length > 3 && (Boolean) args[3];
+    internal = args.length > 5 && (Boolean) args[4];
+    arguments = args.length > 4 ? Interner.arguments((Map<String, Object>) args[args.length - 1])
+        : null;
+    arity = (byte) args.length;
+  }
+
+  /**
+   * Declares the exchange via the {@code channel} with the argument list it was declared with.
+   */
+  Exchange.DeclareOk invoke(Channel channel) throws IOException {
+    if (builtinType != null)
+      switch (arity) {
+        case 2:
+          return channel.exchangeDeclare(name, builtinType);
+        case 3:
+          return channel.exchangeDeclare(name, builtinType, durable);
+        case 5:
+          return channel.exchangeDeclare(name, builtinType, durable, autoDelete, arguments);
+        default:
+          return channel.exchangeDeclare(name, builtinType, durable, autoDelete, internal,
+              arguments);
+      }
+
+    switch (arity) {
+      case 2:
+        return channel.exchangeDeclare(name, type);
+      case 3:
+        return channel.exchangeDeclare(name, type, durable);
+      case 5:
+        return channel.exchangeDeclare(name, type, durable, autoDelete, arguments);
+      default:
+        return channel.exchangeDeclare(name, type, durable, autoDelete, internal, arguments);
+    }
+  }
+
+  /**
+   * Declares the exchange via the {@code channel} without waiting for a reply.
+   */
+  void invokeNoWait(Channel channel) throws IOException {
+    channel.exchangeDeclareNoWait(name, type, durable, autoDelete, internal, arguments);
+  }
+
+  @Override
+  public String toString() {
+    return "ExchangeDeclaration [name=" + name + ", type=" + type + "]";
+  }
+}
@@ -0,0 +1,84 @@
+package net.jodah.lyra.internal;
+
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.metrics.ChannelMetrics;
+import net.jodah.lyra.metrics.Metrics;
+import net.jodah.lyra.metrics.RecoveryPhase;
+
+/**
+ * Metrics that record nothing, used when no metrics are configured so that call sites need not
+ * check for null.
+ *
+ * @author Jonathan Halterman
+ */
+final class NoopMetrics implements Metrics, ChannelMetrics {
+  static final NoopMetrics INSTANCE = new NoopMetrics();
+
+  private NoopMetrics() {
+  }
+
+  /**
+   * Returns the metrics configured for the {@code config}, else the no-op metrics.
+   */
+  static Metrics of(Config config) {
+    Metrics metrics = config.getMetrics();
+    return metrics == null ? INSTANCE : metrics;
+  }
+
+  @Override
+  public ChannelMetrics onChannelCreate(String channelName) {
+    return this;
+  }
+
+  @Override
+  public void onClose(String resourceName) {
+  }
+
+  @Override
+  public void onCircuitChange(String resourceName, boolean open) {
+  }
+
+  @Override
+  public void onCircuitWait(String resourceName, long waitNanos) {
+  }
+
+  @Override
+  public void onRecovery(String resourceName, RecoveryPhase phase, long durationNanos) {
+  }
+
+  @Override
+  public void onRetry(String resourceName, int attempts) {
+  }
+
+  @Override
+  public void onPublish() {
+  }
+
+  @Override
+  public void onAck() {
+  }
+
+  @Override
+  public void onNack() {
+  }
+
+  @Override
+  public void onReject() {
+  }
+
+  @Override
+  public void onDelivery() {
+  }
+
+  @Override
+  public void onPublishBuffered(int depth) {
+  }
+
+  @Override
+  public void onPublishDropped() {
+  }
+
+  @Override
+  public void onPublishBufferDrained(int count, int depth, long durationNanos) {
+  }
+}
@@ -0,0 +1,157 @@
+package net.jodah.lyra.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.jodah.lyra.config.AdaptivePrefetchPolicy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adapts a channel's global prefetch according to its {@link AdaptivePrefetchPolicy}. Deliveries
+ * are timed by the channel's {@link ConsumerDelegate}s and acks by the channel, and each interval
+ * the prefetch is moved toward the consumption rate multiplied by the lowest ack latency seen over
+ * the last few intervals plus the policy's buffer time. The lowest rather than the average latency
+ * is used so that time spent waiting behind other prefetched deliveries does not grow the prefetch.
+ * Deliveries that are auto-acked are timed by how long the consumer takes to handle them instead.
+ *
+ * @author Jonathan Halterman
+ */
+final class PrefetchController implements Runnable {
+  private static final Logger log = LoggerFactory.getLogger(PrefetchController.class);
+  /** Number of intervals over which the lowest ack latency is taken */
+  private static final int LATENCY_WINDOW = 8;
+  /** Max number of outstanding deliveries that are timed */
+  private static final int MAX_TRACKED = 1 << 17;
+
+  private final ChannelHandler channelHandler;
+  private final int mask;
+  /** Delivery tags and times by delivery tag, with the tag written last */
+  private final AtomicLongArray deliveryTags;
+  private final AtomicLongArray deliveryTimes;
+  private final AtomicLong deliveries = new AtomicLong();
+  private final AtomicLong handleNanos = new AtomicLong();
+  private final AtomicLong minAckLatency = new AtomicLong(Long.MAX_VALUE);
+  /** Guarded by this */
+  private final long[] latencies = new long[LATENCY_WINDOW];
+  /** Guarded by this */
+  private int latencyIndex;
+  /** Guarded by this */
+  private long lastAdjustTime;
+  private volatile int prefetch;
+  private volatile ScheduledFuture<?> future;
+
+  PrefetchController(ChannelHandler channelHandler, AdaptivePrefetchPolicy policy) {
+    this.channelHandler = channelHandler;
+    int size = Integer.highestOneBit(Math.min(policy.getMaxPrefetch() * 2, MAX_TRACKED) - 1) << 1;
+    mask = size - 1;
+    deliveryTags = new AtomicLongArray(size);
+    deliveryTimes = new AtomicLongArray(size);
+    Arrays.fill(latencies, Long.MAX_VALUE);
+  }
+
+  /**
+   * Sets the initial prefetch and schedules adjustments.
+   *
+   * @throws Exception if the initial prefetch could not be set
+   */
+  synchronized void start(AdaptivePrefetchPolicy policy) throws Exception {
+    channelHandler.setGlobalPrefetch(policy.getInitialPrefetch());
+    prefetch = policy.getInitialPrefetch();
+    lastAdjustTime = System.nanoTime();
+    long interval = policy.getInterval().toNanos();
+    future = SharedExecutors.SCHEDULER.scheduleWithFixedDelay(this, interval, interval,
+      TimeUnit.NANOSECONDS);
+  }
+
+  int getPrefetch() {
+    return prefetch;
+  }
+
+  /**
+   * Records the start of the {@code deliveryTag}'s delivery, returning the start time.
+   */
+  long onDelivery(long deliveryTag) {
+    long now = System.nanoTime();
+    int index = (int) deliveryTag & mask;
+    deliveryTimes.set(index, now);
+    deliveryTags.set(index, deliveryTag);
+    return now;
+  }
+
+  /**
+   * Records that a delivery which started at {@code startTime} has been handled.
+   */
+  void onHandled(long startTime) {
+    handleNanos.addAndGet(System.nanoTime() - startTime);
+    deliveries.incrementAndGet();
+  }
+
+  /**
+   * Records the latency of the {@code deliveryTag}'s acknowledgement, if its delivery is still
+   * tracked.
+   */
+  void onAck(long deliveryTag) {
+    int index = (int) deliveryTag & mask;
+    if (deliveryTags.get(index) != deliveryTag)
+      return;
+    long latency = System.nanoTime() - deliveryTimes.get(index);
+    for (long min = minAckLatency.get(); latency < min; min = minAckLatency.get())
+      if (minAckLatency.compareAndSet(min, latency))
+        break;
+  }
+
+  @Override
+  public synchronized void run() {
+    long now = System.nanoTime();
+    long elapsed = now - lastAdjustTime;
+    lastAdjustTime = now;
+    AdaptivePrefetchPolicy policy = channelHandler.config.getAdaptivePrefetchPolicy();
+    if (channelHandler.closed || policy == null) {
+      future.cancel(false);
+      return;
+    }
+
+    adjust(policy, elapsed);
+  }
+
+  /**
+   * Moves the prefetch toward the target for the deliveries measured over the last
+   * {@code elapsedNanos}.
+   */
+  synchronized void adjust(AdaptivePrefetchPolicy policy, long elapsedNanos) {
+    long count = deliveries.getAndSet(0);
+    long handled = handleNanos.getAndSet(0);
+    long minLatency = minAckLatency.getAndSet(Long.MAX_VALUE);
+
+    // Measurements that span a recovery, or an idle interval, say nothing about the consumers
+    if (count == 0 || !channelHandler.circuit.isClosed())
+      return;
+
+    latencies[latencyIndex++ % LATENCY_WINDOW] = minLatency == Long.MAX_VALUE ? handled / count
+      : minLatency;
+    long latency = Long.MAX_VALUE;
+    for (long l : latencies)
+      latency = Math.min(latency, l);
+
+    double rate = (double) count / Math.max(elapsedNanos, 1);
+    long target = (long) Math.ceil(rate * (latency + policy.getBufferTime().toNanos()));
+    int current = prefetch;
+    long next = target > current ? Math.min(target, 2L * current) : Math.max(target, current / 2);
+    next = Math.max(policy.getMinPrefetch(), Math.min(next, policy.getMaxPrefetch()));
+    if (next == current)
+      return;
+
+    try {
+      channelHandler.setGlobalPrefetch((int) next);
+      prefetch = (int) next;
+      log.debug("Adjusted prefetch from {} to {} for {}", current, next, channelHandler);
+    } catch (Exception e) {
+      log.debug("Failed to adjust prefetch for {}", channelHandler, e);
+    }
+  }
+}
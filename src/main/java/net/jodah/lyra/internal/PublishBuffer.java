@@ -0,0 +1,241 @@
+package net.jodah.lyra.internal;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jodah.lyra.config.PublishBufferPolicy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.AlreadyClosedException;
+
+/**
+ * Buffers a channel's publishes while the channel is being recovered, or while its connection is
+ * blocked by the broker if the channel's {@link net.jodah.lyra.config.BlockedPublishPolicy} buffers
+ * blocked publishes, bounded by the channel's {@link PublishBufferPolicy}. Buffered publishes are
+ * sent in order once the channel is recovered and unblocked. Publishes made while buffered
+ * publishes are pending are buffered too, so that publish order is preserved.
+ *
+ * @author Jonathan Halterman
+ */
+final class PublishBuffer {
+  private static final Logger log = LoggerFactory.getLogger(PublishBuffer.class);
+  /** Bounds publishes that are buffered while blocked when no policy is configured */
+  private static final PublishBufferPolicy DEFAULT_POLICY = new PublishBufferPolicy();
+
+  private final ChannelHandler channelHandler;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+  /** Guarded by lock */
+  private final ArrayDeque<Publish> publishes = new ArrayDeque<Publish>();
+  /** Guarded by lock */
+  private long bytes;
+  /** Guarded by lock */
+  private boolean draining;
+  /** Guarded by lock. Incremented when buffered publishes are discarded. */
+  private int generation;
+  /** Whether publishes are buffered or being drained. Written while holding lock. */
+  private volatile boolean pending;
+
+  static final class Publish {
+    final String exchange;
+    final String routingKey;
+    final boolean mandatory;
+    final boolean immediate;
+    final BasicProperties props;
+    final byte[] body;
+
+    Publish(String exchange, String routingKey, boolean mandatory, boolean immediate,
+      BasicProperties props, byte[] body) {
+      this.exchange = exchange;
+      this.routingKey = routingKey;
+      this.mandatory = mandatory;
+      this.immediate = immediate;
+      this.props = props;
+      this.body = body;
+    }
+
+    int size() {
+      return body == null ? 0 : body.length;
+    }
+  }
+
+  PublishBuffer(ChannelHandler channelHandler) {
+    this.channelHandler = channelHandler;
+  }
+
+  /**
+   * Buffers the publish if buffering is configured and the channel is being recovered or its
+   * connection is blocked, or if earlier publishes are still buffered, returning true if the publish
+   * was buffered else false if it should be sent directly.
+   *
+   * @throws AlreadyClosedException if the buffer is full and the overflow strategy is
+   *           {@link PublishBufferPolicy.OverflowStrategy#FAIL FAIL}, or if the buffered
+   *           publishes are discarded while waiting for room
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  boolean offer(String exchange, String routingKey, boolean mandatory, boolean immediate,
+    BasicProperties props, byte[] body) throws InterruptedException {
+    PublishBufferPolicy policy = channelHandler.config.getPublishBufferPolicy();
+    boolean blocked = channelHandler.isBufferingBlockedPublishes();
+    if (!pending && !blocked && (policy == null || channelHandler.circuit.isClosed()))
+      return false;
+    PublishBufferPolicy bounds = policy == null && blocked ? DEFAULT_POLICY : policy;
+
+    Publish publish = new Publish(exchange, routingKey, mandatory, immediate, props, body);
+    int depth;
+    lock.lock();
+    try {
+      int startGeneration = generation;
+      while (true) {
+        if (!isBuffering(policy))
+          return false;
+        if (bounds == null || !isFull(bounds, publish))
+          break;
+
+        switch (bounds.getOverflowStrategy()) {
+          case DROP_OLDEST:
+            bytes -= publishes.poll().size();
+            channelHandler.channelMetrics.onPublishDropped();
+            break;
+          case FAIL:
+            throw new AlreadyClosedException(channelHandler.delegate.getCloseReason());
+          default:
+            notFull.await();
+            if (generation != startGeneration)
+              throw new AlreadyClosedException(channelHandler.delegate.getCloseReason());
+        }
+      }
+
+      publishes.add(publish);
+      bytes += publish.size();
+      pending = true;
+      depth = publishes.size();
+    } finally {
+      lock.unlock();
+    }
+
+    channelHandler.channelMetrics.onPublishBuffered(depth);
+    return true;
+  }
+
+  /**
+   * Sends buffered publishes in order until the buffer is empty, the channel is closed again, the
+   * connection is blocked or a publish fails, in which case the failed publish is retained at the
+   * head of the buffer.
+   */
+  void drain() {
+    lock.lock();
+    try {
+      if (draining || publishes.isEmpty())
+        return;
+      draining = true;
+    } finally {
+      lock.unlock();
+    }
+
+    long startTime = System.nanoTime();
+    int count = 0;
+    int depth;
+    log.info("Sending {} buffered publishes via {}", size(), channelHandler);
+
+    while (true) {
+      Publish publish;
+      lock.lock();
+      try {
+        publish = channelHandler.canPublish() ? publishes.poll() : null;
+        if (publish == null) {
+          depth = stopDraining();
+          break;
+        }
+        bytes -= publish.size();
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        channelHandler.delegate.basicPublish(publish.exchange, publish.routingKey,
+          publish.mandatory, publish.immediate, publish.props, publish.body);
+        channelHandler.channelMetrics.onPublish();
+        count++;
+      } catch (Exception e) {
+        log.error("Failed to send buffered publish via {}", channelHandler, e);
+        lock.lock();
+        try {
+          publishes.addFirst(publish);
+          bytes += publish.size();
+          depth = stopDraining();
+        } finally {
+          lock.unlock();
+        }
+        break;
+      }
+    }
+
+    channelHandler.channelMetrics.onPublishBufferDrained(count, depth,
+      System.nanoTime() - startTime);
+  }
+
+  /**
+   * Discards any buffered publishes, failing any publishers that are waiting for room.
+   */
+  void discard() {
+    int discarded;
+    lock.lock();
+    try {
+      discarded = publishes.size();
+      publishes.clear();
+      bytes = 0;
+      generation++;
+      pending = draining;
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    if (discarded > 0) {
+      log.warn("Discarded {} buffered publishes for {}", discarded, channelHandler);
+      channelHandler.channelMetrics.onPublishBufferDrained(0, 0, 0);
+    }
+  }
+
+  int size() {
+    lock.lock();
+    try {
+      return publishes.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns whether publishes should currently be buffered. Must be called while holding lock.
+   */
+  private boolean isBuffering(PublishBufferPolicy policy) {
+    if (draining || !publishes.isEmpty() || channelHandler.isBufferingBlockedPublishes())
+      return true;
+    return policy != null && !channelHandler.circuit.isClosed() && channelHandler.canRecover();
+  }
+
+  private boolean isFull(PublishBufferPolicy policy, Publish publish) {
+    if (publishes.isEmpty())
+      return false;
+    long maxBytes = policy.getMaxBytes();
+    return publishes.size() >= policy.getMaxMessages()
+      || (maxBytes != -1 && bytes + publish.size() > maxBytes);
+  }
+
+  /**
+   * Must be called while holding lock.
+   */
+  private int stopDraining() {
+    draining = false;
+    pending = !publishes.isEmpty();
+    notFull.signalAll();
+    return publishes.size();
+  }
+}
@@ -1,18 +1,66 @@
 package net.jodah.lyra.internal;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.util.Map;
+
+import net.jodah.lyra.internal.util.Interner;
+
+import com.rabbitmq.client.AMQP.Queue;
+import com.rabbitmq.client.Channel;
 
 /**
- * Encapsulates a queue declaration.
+ * Encapsulates a queue declaration as typed fields with a shared name and arguments.
  * 
  * @author Jonathan Halterman
  */
-class QueueDeclaration extends ResourceDeclaration {
+class QueueDeclaration {
+  /** The queue's current name */
   String name;
+  /** The name the queue was declared with, else null if it was declared without arguments */
+  final String declaredName;
+  final boolean durable;
+  final boolean exclusive;
+  final boolean autoDelete;
+  final Map<String, Object> arguments;
+
+  @SuppressWarnings("unchecked")
+  QueueDeclaration(String name, Object[] args) {
+    this.name = Interner.name(name);
+    if (args == null) {
+      declaredName = null;
+      durable = false;
+      exclusive = true;
+      autoDelete = true;
+      arguments = null;
+    } else {
+      declaredName = Interner.name((String) args[0]);
+      durable = (Boolean) args[1];
+      exclusive = (Boolean) args[2];
+      autoDelete = (Boolean) args[3];
+      arguments = Interner.arguments((Map<String, Object>) args[4]);
+    }
+  }
+
+  /**
+   * Returns whether the queue's name is generated by the server, and so may change on recovery.
+   */
+  boolean isServerNamed() {
+    return declaredName == null || declaredName.length() == 0;
+  }
+
+  /**
+   * Declares the queue via the {@code channel} with the argument list it was declared with.
+   */
+  Queue.DeclareOk invoke(Channel channel) throws IOException {
+    return declaredName == null ? channel.queueDeclare() : channel.queueDeclare(declaredName,
+        durable, exclusive, autoDelete, arguments);
+  }
 
-  QueueDeclaration(String name, Method method, Object[] args) {
-    super(method, args);
-    this.name = name;
+  /**
+   * Declares the queue via the {@code channel} without waiting for a reply.
+   */
+  void invokeNoWait(Channel channel) throws IOException {
+    channel.queueDeclareNoWait(declaredName, durable, exclusive, autoDelete, arguments);
   }
 
   @Override
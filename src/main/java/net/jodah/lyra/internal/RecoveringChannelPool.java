@@ -0,0 +1,337 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jodah.lyra.ChannelPool;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.internal.util.Assert;
+import net.jodah.lyra.internal.util.Reflection;
+import net.jodah.lyra.util.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+
+/**
+ * A {@link ChannelPool} of recovering channels. Each slot in the pool is claimed and released via
+ * a compare-and-set on its state, starting each lease at a different slot to spread contention.
+ * Slots whose channel circuit is open are skipped while the channel is recovered, and slots whose
+ * channel is closed are skipped while the channel is replaced in the background. Replacement is not
+ * attempted while the connection is closed or recovering, and backs off per slot after failures.
+ * Slots whose channel recovery was deferred are leased, and their channel is recovered when first
+ * used. Leased channels are mapped to their slot so that they can be released in constant time.
+ * Leases that wait for a channel await a condition that is signalled when a channel is released,
+ * replaced or recovered.
+ *
+ * @author Jonathan Halterman
+ */
+class RecoveringChannelPool implements ChannelPool {
+  private static final Logger log = LoggerFactory.getLogger(RecoveringChannelPool.class);
+  private static final Method CREATE_CHANNEL;
+  private static final int FREE = 0;
+  private static final int LEASED = 1;
+  private static final int REPLACING = 2;
+  private static final long MIN_REPLACE_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long MAX_REPLACE_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+  /** Max time that a waiting lease sleeps before checking the pool again */
+  private static final long MAX_AWAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final ConnectionHandler connectionHandler;
+  private final AtomicReferenceArray<ChannelHandler> channels;
+  private final AtomicIntegerArray states;
+  /** Per slot number of consecutive failures to replace a closed channel */
+  private final AtomicIntegerArray replaceFailures;
+  /** Per slot nano time before which a closed channel is not replaced again */
+  private final AtomicLongArray replaceAfter;
+  /** Per slot flag that is set while a lease is awaiting the slot's channel recovery */
+  private final AtomicIntegerArray awaitingRecovery;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final ConcurrentHashMap<ChannelHandler, Integer> slots =
+      new ConcurrentHashMap<ChannelHandler, Integer>();
+  private final AtomicInteger nextSlot = new AtomicInteger();
+  private final AtomicInteger leasedCount = new AtomicInteger();
+  private final AtomicLong leaseCount = new AtomicLong();
+  private final AtomicLong recoverySkipCount = new AtomicLong();
+  private final AtomicLong leaseTimeoutCount = new AtomicLong();
+  private volatile boolean closed;
+
+  static {
+    try {
+      CREATE_CHANNEL = Connection.class.getMethod("createChannel");
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @throws IOException if the pool's channels could not be created
+   */
+  RecoveringChannelPool(ConnectionHandler connectionHandler, int size) throws IOException {
+    this.connectionHandler = connectionHandler;
+    channels = new AtomicReferenceArray<ChannelHandler>(size);
+    states = new AtomicIntegerArray(size);
+    replaceFailures = new AtomicIntegerArray(size);
+    replaceAfter = new AtomicLongArray(size);
+    awaitingRecovery = new AtomicIntegerArray(size);
+
+    try {
+      for (int i = 0; i < size; i++)
+        set(i, createChannel());
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  @Override
+  public ConfigurableChannel tryLease() {
+    Assert.state(!closed, "Channel pool is closed");
+    int size = states.length();
+    int start = (nextSlot.getAndIncrement() & Integer.MAX_VALUE) % size;
+
+    for (int i = 0; i < size; i++) {
+      int slot = start + i < size ? start + i : start + i - size;
+      if (states.get(slot) != FREE)
+        continue;
+
+      ChannelHandler channel = channels.get(slot);
+      if (channel.closed) {
+        if (canReplace(slot) && states.compareAndSet(slot, FREE, REPLACING))
+          replace(slot, channel);
+      } else if (!channel.circuit.isClosed() && !channel.isRecoveryDeferred()) {
+        recoverySkipCount.incrementAndGet();
+        if (waiters.get() > 0)
+          signalWhenRecovered(slot, channel);
+      } else if (states.compareAndSet(slot, FREE, LEASED))
+        return leased(slot);
+    }
+
+    return null;
+  }
+
+  @Override
+  public ConfigurableChannel lease(Duration maxWaitTime) throws InterruptedException,
+      TimeoutException {
+    Assert.notNull(maxWaitTime, "maxWaitTime");
+    ConfigurableChannel channel = tryLease();
+    if (channel != null)
+      return channel;
+
+    long remainingNanos = maxWaitTime.finite ? maxWaitTime.toNanos() : Long.MAX_VALUE;
+    waiters.incrementAndGet();
+    lock.lock();
+    try {
+      while (true) {
+        channel = tryLease();
+        if (channel != null)
+          return channel;
+
+        if (remainingNanos <= 0) {
+          leaseTimeoutCount.incrementAndGet();
+          throw new TimeoutException(String.format("Timed out waiting %s to lease a channel",
+              maxWaitTime));
+        }
+
+        long awaitNanos = Math.min(remainingNanos, MAX_AWAIT_NANOS);
+        long awaitedNanos = awaitNanos - available.awaitNanos(awaitNanos);
+        if (maxWaitTime.finite)
+          remainingNanos -= awaitedNanos;
+      }
+    } catch (InterruptedException e) {
+      // Pass on a signal that may have been meant for this lease
+      available.signal();
+      throw e;
+    } catch (TimeoutException e) {
+      available.signal();
+      throw e;
+    } finally {
+      lock.unlock();
+      waiters.decrementAndGet();
+    }
+  }
+
+  @Override
+  public void release(Channel channel) {
+    ChannelHandler handler = handlerOf(channel);
+    Integer slot = handler == null ? null : slots.get(handler);
+    if (slot == null || channels.get(slot) != handler)
+      throw new IllegalArgumentException(channel + " does not belong to this pool");
+    Assert.state(states.compareAndSet(slot, LEASED, FREE), "%s is not leased", channel);
+    leasedCount.decrementAndGet();
+    signalAvailable(false);
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    signalAvailable(true);
+    for (int slot = 0; slot < channels.length(); slot++) {
+      ChannelHandler channel = channels.get(slot);
+      if (channel != null && !channel.closed)
+        try {
+          channel.proxy.close();
+        } catch (Exception e) {
+          log.warn("Failed to close pooled {}", channel, e);
+        }
+    }
+  }
+
+  @Override
+  public int getSize() {
+    return states.length();
+  }
+
+  @Override
+  public int getLeasedCount() {
+    return leasedCount.get();
+  }
+
+  @Override
+  public double getUtilization() {
+    return (double) leasedCount.get() / states.length();
+  }
+
+  @Override
+  public long getLeaseCount() {
+    return leaseCount.get();
+  }
+
+  @Override
+  public long getRecoverySkipCount() {
+    return recoverySkipCount.get();
+  }
+
+  @Override
+  public long getLeaseTimeoutCount() {
+    return leaseTimeoutCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("channel-pool[%s/%s leased] on %s", leasedCount.get(), states.length(),
+        connectionHandler);
+  }
+
+  private ChannelHandler createChannel() throws IOException {
+    try {
+      return connectionHandler.createChannel(CREATE_CHANNEL, null);
+    } catch (Throwable t) {
+      throw Reflection.rethrow(t, CREATE_CHANNEL);
+    }
+  }
+
+  /**
+   * Returns the handler of the {@code channel}, else null if it is not a Lyra managed channel.
+   */
+  private static ChannelHandler handlerOf(Channel channel) {
+    if (channel instanceof ChannelWrapper)
+      return ((ChannelWrapper) channel).handler;
+    if (channel != null && Proxy.isProxyClass(channel.getClass())
+        && Proxy.getInvocationHandler(channel) instanceof ChannelHandler)
+      return (ChannelHandler) Proxy.getInvocationHandler(channel);
+    return null;
+  }
+
+  private ConfigurableChannel leased(int slot) {
+    leasedCount.incrementAndGet();
+    leaseCount.incrementAndGet();
+    return (ConfigurableChannel) channels.get(slot).proxy;
+  }
+
+  /**
+   * Returns whether the closed channel in the {@code slot} can be replaced now, which it cannot
+   * while the connection is closed or recovering, or while the slot is backing off after a failed
+   * replacement.
+   */
+  private boolean canReplace(int slot) {
+    return !connectionHandler.closed && connectionHandler.circuit.isClosed()
+        && System.nanoTime() - replaceAfter.get(slot) >= 0;
+  }
+
+  /**
+   * Replaces the closed {@code channel} in the claimed {@code slot} via the recovery executors,
+   * freeing the slot once replaced, or if a replacement could not be created so that it is tried
+   * again on a later lease once the slot's backoff elapses.
+   */
+  private void replace(final int slot, final ChannelHandler channel) {
+    ConnectionHandler.RECOVERY_EXECUTORS.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          ChannelHandler replacement = createChannel();
+          slots.remove(channel);
+          set(slot, replacement);
+          replaceFailures.set(slot, 0);
+          if (closed)
+            replacement.proxy.close();
+        } catch (Exception e) {
+          int failures = replaceFailures.incrementAndGet(slot);
+          long backoffNanos = failures > 10 ? MAX_REPLACE_BACKOFF_NANOS : Math.min(
+              MIN_REPLACE_BACKOFF_NANOS << (failures - 1), MAX_REPLACE_BACKOFF_NANOS);
+          replaceAfter.set(slot, System.nanoTime() + backoffNanos);
+          if (failures == 1)
+            log.error("Failed to replace closed channel in {}", RecoveringChannelPool.this, e);
+          else
+            log.debug("Failed to replace closed channel in {} after {} attempts",
+                RecoveringChannelPool.this, failures, e);
+        } finally {
+          states.set(slot, FREE);
+          signalAvailable(false);
+        }
+      }
+    });
+  }
+
+  /**
+   * Signals a waiting lease once the recovering {@code channel} in the {@code slot} is recovered,
+   * unless a signal is already pending for the slot.
+   */
+  private void signalWhenRecovered(final int slot, ChannelHandler channel) {
+    if (awaitingRecovery.compareAndSet(slot, 0, 1))
+      channel.circuit.whenClosed(new Runnable() {
+        @Override
+        public void run() {
+          awaitingRecovery.set(slot, 0);
+          signalAvailable(false);
+        }
+      });
+  }
+
+  /**
+   * Signals one waiting lease, or all of them if {@code all}, that the pool has changed.
+   */
+  private void signalAvailable(boolean all) {
+    if (waiters.get() == 0)
+      return;
+    lock.lock();
+    try {
+      if (all)
+        available.signalAll();
+      else
+        available.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void set(int slot, ChannelHandler channel) {
+    slots.put(channel, slot);
+    channels.set(slot, channel);
+  }
+}
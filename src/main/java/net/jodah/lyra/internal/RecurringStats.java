@@ -42,6 +42,13 @@ public final class RecurringStats {
     }
   }
 
+  /**
+   * Returns the number of attempts that have been made.
+   */
+  public int getAttemptCount() {
+    return attemptCount;
+  }
+
   /**
    * Returns the max amount of time that an external caller should wait before the retry policy is
    * exceeded. The max wait time is calculated each time {@link #incrementAttempts()} or
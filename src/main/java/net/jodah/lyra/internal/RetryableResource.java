@@ -8,12 +8,15 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import net.jodah.lyra.AsyncFuture;
 import net.jodah.lyra.internal.util.Collections;
 import net.jodah.lyra.internal.util.Exceptions;
 import net.jodah.lyra.internal.util.Reflection;
 import net.jodah.lyra.internal.util.concurrent.InterruptableWaiter;
 import net.jodah.lyra.internal.util.concurrent.ReentrantCircuit;
+import net.jodah.lyra.metrics.Metrics;
 import net.jodah.lyra.util.Duration;
 
 import org.slf4j.Logger;
@@ -35,66 +38,150 @@ abstract class RetryableResource {
   final InterruptableWaiter retryWaiter = new InterruptableWaiter();
   final List<ShutdownListener> shutdownListeners = Collections.synchronizedList();
   volatile boolean closed;
+  /** Number of threads that are waiting for the resource to be recovered */
+  final AtomicInteger recoveryWaiters = new AtomicInteger();
 
   void afterClosure() {}
 
+  /**
+   * Called when an invocation is about to wait for the resource to be recovered, after the wait has
+   * been registered.
+   */
+  void awaitingRecovery() {}
+
+  /**
+   * Runs the {@code continuation} once the resource's circuit closes, recovering the resource if its
+   * recovery was deferred.
+   */
+  void whenRecovered(Runnable continuation) {
+    circuit.whenClosed(continuation);
+    awaitingRecovery();
+  }
+
+  /** Returns the metrics that the resource is recorded to. */
+  abstract Metrics metrics();
+
+  /**
+   * Opens the circuit, recording the change if the circuit was closed.
+   */
+  void openCircuit() {
+    boolean wasClosed = circuit.isClosed();
+    circuit.open();
+    if (wasClosed)
+      metrics().onCircuitChange(toString(), true);
+  }
+
+  /**
+   * Closes the circuit, recording the change if the circuit was open.
+   */
+  void closeCircuit() {
+    boolean wasOpen = !circuit.isClosed();
+    circuit.close();
+    if (wasOpen)
+      metrics().onCircuitChange(toString(), false);
+  }
+
   /**
    * Calls the {@code callable} with retries, throwing a failure if retries are exhausted.
    */
   <T> T callWithRetries(Callable<T> callable, RecurringPolicy<?> recurringPolicy,
       RecurringStats retryStats, Set<Class<? extends Exception>> retryableExceptions,
       boolean recoverable, boolean logFailures) throws Exception {
+    try {
+      return callable.call();
+    } catch (Exception e) {
+      return retryFailedCall(e, callable, recurringPolicy, retryStats, retryableExceptions,
+          recoverable, logFailures);
+    }
+  }
+
+  /**
+   * Calls the {@code callable} with retries without blocking, returning a future that is completed
+   * with the result, or failed once retries are exhausted. The initial attempt is performed on the
+   * calling thread, and retries are performed by an {@link AsyncRetry}.
+   */
+  <T> AsyncFuture<T> callAsyncWithRetries(Callable<T> callable, RecurringPolicy<?> recurringPolicy,
+      Set<Class<? extends Exception>> retryableExceptions, boolean recoverable) {
+    AsyncRetry<T> retry =
+        new AsyncRetry<T>(this, callable, recurringPolicy, retryableExceptions, recoverable);
+    retry.run();
+    return retry.future;
+  }
+
+  /**
+   * Handles the {@code failure} of an initial call attempt that was performed outside of the
+   * {@code callable}, retrying the {@code callable} and throwing a failure if retries are exhausted.
+   * This allows callers to perform the initial attempt directly, only allocating a callable when a
+   * failure occurs.
+   */
+  <T> T retryFailedCall(Exception failure, Callable<T> callable,
+      RecurringPolicy<?> recurringPolicy, RecurringStats retryStats,
+      Set<Class<? extends Exception>> retryableExceptions, boolean recoverable, boolean logFailures)
+      throws Exception {
     boolean recovery = retryStats != null;
 
     while (true) {
-      try {
-        return callable.call();
-      } catch (Exception e) {
-        ShutdownSignalException sse = extractCause(e, ShutdownSignalException.class);
-        if (sse == null && logFailures && recurringPolicy != null
-            && recurringPolicy.allowsAttempts())
-          log.error("Invocation of {} failed.", callable, e);
-
-        if (sse != null && (recovery || !recoverable))
-          throw e;
-
-        if (!closed) {
-          try {
-            // Retry on channel recovery failure or retryable exception
-            boolean retryable =
-                recurringPolicy != null && recurringPolicy.allowsAttempts()
-                    && isRetryable(retryableExceptions, e, sse);
-            long startTime = System.nanoTime();
-
-            if (retryable) {
-              if (retryStats == null) 
-                retryStats = new RecurringStats(recurringPolicy);
-                
-              // Wait for pending recovery
-              if (sse != null) {
+      Exception e = failure;
+      ShutdownSignalException sse = extractCause(e, ShutdownSignalException.class);
+      if (sse == null && logFailures && recurringPolicy != null
+          && recurringPolicy.allowsAttempts())
+        log.error("Invocation of {} failed.", callable, e);
+
+      if (sse != null && (recovery || !recoverable))
+        throw e;
+
+      boolean retry = false;
+      if (!closed) {
+        try {
+          // Retry on channel recovery failure or retryable exception
+          boolean retryable =
+              recurringPolicy != null && recurringPolicy.allowsAttempts()
+                  && isRetryable(retryableExceptions, e, sse);
+          long startTime = System.nanoTime();
+
+          if (retryable) {
+            if (retryStats == null)
+              retryStats = new RecurringStats(recurringPolicy);
+
+            // Wait for pending recovery
+            if (sse != null) {
+              recoveryWaiters.incrementAndGet();
+              try {
+                awaitingRecovery();
                 if (recurringPolicy.getMaxDuration() == null)
                   circuit.await();
                 else if (!circuit.await(retryStats.getMaxWaitTime())) {
                   log.debug("Exceeded max wait time while waiting for {} to recover", this);
                   throw e;
                 }
+              } finally {
+                recoveryWaiters.decrementAndGet();
+                metrics().onCircuitWait(toString(), System.nanoTime() - startTime);
               }
+            }
 
-              // Continue retries
-              retryStats.incrementAttempts();
-              if (!retryStats.isPolicyExceeded()) {
-                long remainingWaitTime =
-                    retryStats.getWaitTime().toNanos() - (System.nanoTime() - startTime);
-                if (remainingWaitTime > 0)
-                  retryWaiter.await(Duration.nanos(remainingWaitTime));
-                continue;
-              }
+            // Continue retries
+            retryStats.incrementAttempts();
+            if (!retryStats.isPolicyExceeded()) {
+              metrics().onRetry(toString(), retryStats.getAttemptCount());
+              long remainingWaitTime =
+                  retryStats.getWaitTime().toNanos() - (System.nanoTime() - startTime);
+              if (remainingWaitTime > 0)
+                retryWaiter.await(Duration.nanos(remainingWaitTime));
+              retry = true;
             }
-          } catch (Throwable ignore) {
           }
+        } catch (Throwable ignore) {
         }
+      }
 
+      if (!retry)
         throw e;
+
+      try {
+        return callable.call();
+      } catch (Exception retryFailure) {
+        failure = retryFailure;
       }
     }
   }
@@ -124,18 +211,22 @@ abstract class RetryableResource {
     retryWaiter.interruptWaiters();
   }
 
-  /** Returns the channel to use for recovery. */
-  abstract Channel getRecoveryChannel() throws IOException;
+  /**
+   * Supplies the channel to use for recovery.
+   */
+  interface ChannelSupplier {
+    Channel get() throws IOException;
+  }
 
   /** Whether a failure on recovery should always result in a throw. */
   abstract boolean throwOnRecoveryFailure();
 
   /** Recovers an exchange using the {@code channelSupplier}. */
-  void recoverExchange(String exchangeName, ResourceDeclaration exchangeDeclaration)
-      throws Exception {
+  void recoverExchange(ChannelSupplier channelSupplier, String exchangeName,
+      ExchangeDeclaration exchangeDeclaration) throws Exception {
     try {
       log.info("Recovering exchange {} via {}", exchangeName, this);
-      exchangeDeclaration.invoke(getRecoveryChannel());
+      exchangeDeclaration.invoke(channelSupplier.get());
     } catch (Exception e) {
       log.error("Failed to recover exchange {} via {}", exchangeName, this, e);
       if (throwOnRecoveryFailure() || Exceptions.isCausedByConnectionClosure(e))
@@ -144,29 +235,28 @@ abstract class RetryableResource {
   }
 
   /** Recover exchange bindings using the {@code channelSupplier}. */
-  void recoverExchangeBindings(Iterable<Binding> exchangeBindings) throws Exception {
+  void recoverExchangeBindings(ChannelSupplier channelSupplier, Iterable<Binding> exchangeBindings)
+      throws Exception {
     if (exchangeBindings != null)
-      synchronized (exchangeBindings) {
-        for (Binding binding : exchangeBindings)
-          try {
-            log.info("Recovering exchange binding from {} to {} with {} via {}", binding.source,
-                binding.destination, binding.routingKey, this);
-            getRecoveryChannel().exchangeBind(binding.destination, binding.source,
-                binding.routingKey, binding.arguments);
-          } catch (Exception e) {
-            log.error("Failed to recover exchange binding from {} to {} with {} via {}",
-                binding.source, binding.destination, binding.routingKey, this, e);
-            if (throwOnRecoveryFailure() || Exceptions.isCausedByConnectionClosure(e))
-              throw e;
-          }
-      }
+      for (Binding binding : exchangeBindings)
+        try {
+          log.info("Recovering exchange binding from {} to {} with {} via {}", binding.source,
+              binding.destination, binding.routingKey, this);
+          channelSupplier.get().exchangeBind(binding.destination, binding.source,
+              binding.routingKey, binding.arguments);
+        } catch (Exception e) {
+          log.error("Failed to recover exchange binding from {} to {} with {} via {}",
+              binding.source, binding.destination, binding.routingKey, this, e);
+          if (throwOnRecoveryFailure() || Exceptions.isCausedByConnectionClosure(e))
+            throw e;
+        }
   }
 
   /** Recovers a queue using the {@code channelSupplier}, returning the recovered queue's name. */
-  String recoverQueue(String queueName, QueueDeclaration queueDeclaration) throws Exception {
+  String recoverQueue(ChannelSupplier channelSupplier, String queueName,
+      QueueDeclaration queueDeclaration) throws Exception {
     try {
-      String newQueueName =
-          ((Queue.DeclareOk) queueDeclaration.invoke(getRecoveryChannel())).getQueue();
+      String newQueueName = queueDeclaration.invoke(channelSupplier.get()).getQueue();
       if (queueName.equals(newQueueName))
         log.info("Recovered queue {} via {}", queueName, this);
       else {
@@ -184,21 +274,20 @@ abstract class RetryableResource {
   }
 
   /** Recovers queue bindings using the {@code channelSupplier}. */
-  void recoverQueueBindings(Iterable<Binding> queueBindings) throws Exception {
+  void recoverQueueBindings(ChannelSupplier channelSupplier, Iterable<Binding> queueBindings)
+      throws Exception {
     if (queueBindings != null)
-      synchronized (queueBindings) {
-        for (Binding binding : queueBindings)
-          try {
-            log.info("Recovering queue binding from {} to {} with {} via {}", binding.source,
-                binding.destination, binding.routingKey, this);
-            getRecoveryChannel().queueBind(binding.destination, binding.source, binding.routingKey,
-                binding.arguments);
-          } catch (Exception e) {
-            log.error("Failed to recover queue binding from {} to {} with {} via {}",
-                binding.source, binding.destination, binding.routingKey, this, e);
-            if (throwOnRecoveryFailure() || Exceptions.isCausedByConnectionClosure(e))
-              throw e;
-          }
-      }
+      for (Binding binding : queueBindings)
+        try {
+          log.info("Recovering queue binding from {} to {} with {} via {}", binding.source,
+              binding.destination, binding.routingKey, this);
+          channelSupplier.get().queueBind(binding.destination, binding.source, binding.routingKey,
+              binding.arguments);
+        } catch (Exception e) {
+          log.error("Failed to recover queue binding from {} to {} with {} via {}",
+              binding.source, binding.destination, binding.routingKey, this, e);
+          if (throwOnRecoveryFailure() || Exceptions.isCausedByConnectionClosure(e))
+            throw e;
+        }
   }
 }
@@ -0,0 +1,126 @@
+package net.jodah.lyra.internal;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jodah.lyra.ConnectionGroup;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.ConfigurableConnection;
+import net.jodah.lyra.internal.util.Assert;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ConnectionGroup} that spreads channels across its Lyra managed connections, skipping
+ * connections whose circuit is open while they are recovered.
+ *
+ * @author Jonathan Halterman
+ */
+public class ShardedConnectionGroup implements ConnectionGroup {
+  private static final Logger log = LoggerFactory.getLogger(ShardedConnectionGroup.class);
+
+  private final List<ConfigurableConnection> connections;
+  private final ConnectionHandler[] handlers;
+  private final Strategy strategy;
+  private final AtomicInteger nextShard = new AtomicInteger();
+  private volatile boolean closed;
+
+  /**
+   * @throws IllegalArgumentException if {@code connections} is empty or contains connections that
+   *           were not created by Lyra
+   */
+  public ShardedConnectionGroup(List<ConfigurableConnection> connections, Strategy strategy) {
+    Assert.isTrue(!connections.isEmpty(), "connections must not be empty");
+    this.connections = new ArrayList<ConfigurableConnection>(connections);
+    this.strategy = Assert.notNull(strategy, "strategy");
+    handlers = new ConnectionHandler[connections.size()];
+    for (int i = 0; i < handlers.length; i++)
+      handlers[i] = handlerFor(connections.get(i));
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (ConfigurableConnection connection : connections)
+      try {
+        connection.close();
+      } catch (Exception e) {
+        log.warn("Failed to close {}, aborting", connection, e);
+        connection.abort();
+      }
+  }
+
+  @Override
+  public ConfigurableChannel createChannel() throws IOException {
+    return (ConfigurableChannel) getConnection().createChannel();
+  }
+
+  @Override
+  public ConfigurableConnection getConnection() {
+    Assert.state(!closed, "Connection group is closed");
+    int size = handlers.length;
+    int start = (nextShard.getAndIncrement() & Integer.MAX_VALUE) % size;
+    int selected = -1;
+    int selectedLoad = Integer.MAX_VALUE;
+
+    for (int i = 0; i < size; i++) {
+      int shard = start + i < size ? start + i : start + i - size;
+      ConnectionHandler handler = handlers[shard];
+      if (handler.closed || !handler.circuit.isClosed())
+        continue;
+      if (strategy == Strategy.ROUND_ROBIN)
+        return connections.get(shard);
+
+      int load = handler.getChannelCount();
+      if (load < selectedLoad) {
+        selected = shard;
+        selectedLoad = load;
+      }
+    }
+
+    // Fall back to the starting connection if every connection is recovering
+    return connections.get(selected == -1 ? start : selected);
+  }
+
+  @Override
+  public List<ConfigurableConnection> getConnections() {
+    return Collections.unmodifiableList(connections);
+  }
+
+  @Override
+  public int getSize() {
+    return handlers.length;
+  }
+
+  @Override
+  public Strategy getStrategy() {
+    return strategy;
+  }
+
+  @Override
+  public boolean isOpen() {
+    for (ConfigurableConnection connection : connections)
+      if (!connection.isOpen())
+        return false;
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("connection-group%s", connections);
+  }
+
+  static ConnectionHandler handlerFor(ConfigurableConnection connection) {
+    if (connection instanceof ConnectionWrapper)
+      return ((ConnectionWrapper) connection).handler;
+    Assert.isTrue(Proxy.isProxyClass(connection.getClass())
+        && Proxy.getInvocationHandler(connection) instanceof ConnectionHandler,
+        "The connection %s was not created by Lyra", connection);
+    return (ConnectionHandler) Proxy.getInvocationHandler(connection);
+  }
+}
@@ -0,0 +1,23 @@
+package net.jodah.lyra.internal;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import net.jodah.lyra.internal.util.concurrent.NamedThreadFactory;
+
+/**
+ * Executors that are shared by every connection and channel.
+ *
+ * @author Jonathan Halterman
+ */
+final class SharedExecutors {
+  /**
+   * Runs short, non-blocking tasks such as async retries, timeouts and timed flushes. Tasks that
+   * may block belong on {@link ConnectionHandler#RECOVERY_EXECUTORS}.
+   */
+  static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(Runtime
+      .getRuntime().availableProcessors(), new NamedThreadFactory("lyra-scheduler-%s", true));
+
+  private SharedExecutors() {
+  }
+}
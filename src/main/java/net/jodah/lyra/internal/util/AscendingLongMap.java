@@ -0,0 +1,173 @@
+package net.jodah.lyra.internal.util;
+
+import java.util.List;
+
+/**
+ * A map of primitive long keys to values, where keys are put in ascending order. Entries are
+ * stored in a circular array so that removing the lowest entries, or entries near the lowest, does
+ * not require any copying. Entries removed from the middle of the map are cleared and reclaimed
+ * once all lower entries have been removed. Not thread-safe.
+ *
+ * @author Jonathan Halterman
+ */
+public class AscendingLongMap<V> {
+  private long[] keys;
+  private Object[] values;
+  /** Index of the lowest slot */
+  private int head;
+  /** Number of slots in use, including cleared slots */
+  private int slots;
+  /** Number of entries */
+  private int size;
+
+  public AscendingLongMap() {
+    this(16);
+  }
+
+  public AscendingLongMap(int initialCapacity) {
+    int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1;
+    keys = new long[capacity];
+    values = new Object[capacity];
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value for the {@code key}, else null.
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    int index = indexOf(key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  /**
+   * Puts the {@code key} and {@code value}.
+   *
+   * @throws IllegalArgumentException if {@code key} is not greater than the last key that was put
+   *           or {@code value} is null
+   */
+  public void put(long key, V value) {
+    Assert.notNull(value, "value");
+    if (slots > 0)
+      Assert.isTrue(key > keys[slot(slots - 1)], "Keys must be put in ascending order");
+    if (slots == keys.length)
+      grow();
+    int slot = slot(slots++);
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+  }
+
+  /**
+   * Removes and returns the value for the {@code key}, else null.
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int index = indexOf(key);
+    if (index < 0)
+      return null;
+    V value = (V) values[index];
+    values[index] = null;
+    size--;
+    trimHead();
+    return value;
+  }
+
+  /**
+   * Removes the values for all keys less than or equal to {@code key}, adding them to
+   * {@code removed} in ascending key order.
+   */
+  @SuppressWarnings("unchecked")
+  public void removeUpTo(long key, List<V> removed) {
+    while (slots > 0 && keys[head] <= key) {
+      if (values[head] != null) {
+        removed.add((V) values[head]);
+        values[head] = null;
+        size--;
+      }
+      head = slot(1);
+      slots--;
+    }
+  }
+
+  /**
+   * Removes all values, adding them to {@code removed} in ascending key order.
+   */
+  public void removeAll(List<V> removed) {
+    removeUpTo(Long.MAX_VALUE, removed);
+    head = 0;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < slots; i++) {
+      int slot = slot(i);
+      if (values[slot] != null)
+        sb.append(sb.length() == 1 ? "" : ", ").append(keys[slot]).append('=')
+            .append(values[slot]);
+    }
+    return sb.append('}').toString();
+  }
+
+  /** Returns the array index of the {@code key}, else -1. */
+  private int indexOf(long key) {
+    int low = 0;
+    int high = slots - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midKey = keys[slot(mid)];
+      if (midKey < key)
+        low = mid + 1;
+      else if (midKey > key)
+        high = mid - 1;
+      else
+        return values[slot(mid)] == null ? -1 : slot(mid);
+    }
+    return -1;
+  }
+
+  /** Returns the array index of the slot at the {@code offset} from the head. */
+  private int slot(int offset) {
+    return (head + offset) & (keys.length - 1);
+  }
+
+  /** Reclaims cleared slots at the head. */
+  private void trimHead() {
+    while (slots > 0 && values[head] == null) {
+      head = slot(1);
+      slots--;
+    }
+  }
+
+  /** Grows the map, or compacts it in place if at least half of the slots have been cleared. */
+  private void grow() {
+    int capacity = size > keys.length >>> 1 ? keys.length << 1 : keys.length;
+    long[] newKeys = new long[capacity];
+    Object[] newValues = new Object[capacity];
+    int newSlots = 0;
+    for (int i = 0; i < slots; i++) {
+      int slot = slot(i);
+      if (values[slot] != null) {
+        newKeys[newSlots] = keys[slot];
+        newValues[newSlots++] = values[slot];
+      }
+    }
+    keys = newKeys;
+    values = newValues;
+    head = 0;
+    slots = newSlots;
+  }
+
+  /** Visible for testing. */
+  int capacity() {
+    return keys.length;
+  }
+}
@@ -4,12 +4,22 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Collections {
   public static <K, V> ArrayListMultiMap<K, V> arrayListMultiMap() {
     return new ArrayListMultiMap<K, V>();
   }
 
+  public static <K, V> ConcurrentLinkedMap<K, V> concurrentLinkedMap() {
+    return new ConcurrentLinkedMap<K, V>();
+  }
+
+  public static <T> Set<T> concurrentSet() {
+    return java.util.Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
+  }
+
   public static <T> List<T> synchronizedList() {
     return java.util.Collections.<T>synchronizedList(new ArrayList<T>());
   }
@@ -0,0 +1,230 @@
+package net.jodah.lyra.internal.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe, insertion ordered map. Entries are indexed by a {@link ConcurrentHashMap} and
+ * linked in the order they were put, so that gets are lock-free and puts and removes are constant
+ * time. Putting an existing key replaces its value without changing its position. Writes are
+ * serialized by the map's monitor while iteration is lock-free and weakly consistent: iterators
+ * never throw {@link java.util.ConcurrentModificationException}, skip entries that are removed
+ * before being reached, and may or may not see entries that are put after being created. Null
+ * keys and values are not permitted.
+ *
+ * @author Jonathan Halterman
+ */
+public class ConcurrentLinkedMap<K, V> extends AbstractMap<K, V> {
+  private final ConcurrentHashMap<K, Node<K, V>> nodes;
+  /** Sentinel whose next node is the eldest entry */
+  private final Node<K, V> head = new Node<K, V>(null, null);
+  /** Guarded by this */
+  private Node<K, V> tail = head;
+  private final Set<Map.Entry<K, V>> entrySet = new EntrySet();
+
+  public ConcurrentLinkedMap() {
+    nodes = new ConcurrentHashMap<K, Node<K, V>>();
+  }
+
+  public ConcurrentLinkedMap(int initialCapacity) {
+    nodes = new ConcurrentHashMap<K, Node<K, V>>(initialCapacity);
+  }
+
+  static final class Node<K, V> implements Map.Entry<K, V> {
+    final K key;
+    volatile V value;
+    /** Retained when the node is unlinked so that iterators positioned at the node can continue */
+    volatile Node<K, V> next;
+    /** Guarded by the map */
+    Node<K, V> prev;
+    volatile boolean removed;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      Assert.notNull(value, "value");
+      V oldValue = this.value;
+      this.value = value;
+      return oldValue;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Map.Entry))
+        return false;
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+      return key.equals(other.getKey()) && value.equals(other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    for (Node<K, V> node = head.next; node != null; node = node.next)
+      node.removed = true;
+    nodes.clear();
+    head.next = null;
+    tail = head;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key != null && nodes.containsKey(key);
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return entrySet;
+  }
+
+  @Override
+  public V get(Object key) {
+    Node<K, V> node = key == null ? null : nodes.get(key);
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return nodes.isEmpty();
+  }
+
+  /**
+   * Puts the {@code key} and {@code value}, returning the key's previous value else null.
+   *
+   * @throws NullPointerException if {@code key} or {@code value} are null
+   */
+  @Override
+  public synchronized V put(K key, V value) {
+    Assert.notNull(key, "key");
+    Assert.notNull(value, "value");
+    Node<K, V> node = nodes.get(key);
+    if (node != null)
+      return node.setValue(value);
+
+    node = new Node<K, V>(key, value);
+    node.prev = tail;
+    tail.next = node;
+    tail = node;
+    nodes.put(key, node);
+    return null;
+  }
+
+  @Override
+  public synchronized V remove(Object key) {
+    Node<K, V> node = key == null ? null : nodes.remove(key);
+    if (node == null)
+      return null;
+    unlink(node);
+    return node.value;
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  /** Unlinks the {@code node}, leaving its next reference intact. */
+  private void unlink(Node<K, V> node) {
+    node.removed = true;
+    node.prev.next = node.next;
+    if (node.next == null)
+      tail = node.prev;
+    else
+      node.next.prev = node.prev;
+  }
+
+  private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+    @Override
+    public void clear() {
+      ConcurrentLinkedMap.this.clear();
+    }
+
+    @Override
+    public boolean contains(Object obj) {
+      if (!(obj instanceof Map.Entry))
+        return false;
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+      V value = get(entry.getKey());
+      return value != null && value.equals(entry.getValue());
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return nodes.size();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+    private Node<K, V> next = advance(head);
+    private Node<K, V> last;
+
+    @Override
+    public boolean hasNext() {
+      // Skips the next node if it was removed after being reached
+      if (next != null && next.removed)
+        next = advance(next);
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      last = next;
+      next = advance(next);
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null)
+        throw new IllegalStateException();
+      synchronized (ConcurrentLinkedMap.this) {
+        if (!last.removed && nodes.remove(last.key, last))
+          unlink(last);
+      }
+      last = null;
+    }
+
+    /** Returns the first node after the {@code node} that has not been removed, else null. */
+    private Node<K, V> advance(Node<K, V> node) {
+      Node<K, V> next = node.next;
+      while (next != null && next.removed)
+        next = next.next;
+      return next;
+    }
+  }
+}
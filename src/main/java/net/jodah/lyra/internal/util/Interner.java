@@ -0,0 +1,56 @@
+package net.jodah.lyra.internal.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalizes the names and argument maps of recorded topology so that equal values are stored
+ * once no matter how many declarations and bindings refer to them.
+ *
+ * @author Jonathan Halterman
+ */
+public final class Interner {
+  /**
+   * Guarded by ARGUMENTS. Shared argument maps, weakly referenced so that they are evicted once no
+   * recorded declaration or binding refers to them.
+   */
+  private static final Map<Map<String, Object>, WeakReference<Map<String, Object>>> ARGUMENTS = new WeakHashMap<Map<String, Object>, WeakReference<Map<String, Object>>>();
+
+  private Interner() {
+  }
+
+  /**
+   * Returns an immutable copy of the {@code arguments} that is shared with equal argument maps,
+   * else null if {@code arguments} is null. Shared argument maps are garbage collected once they
+   * are no longer referenced.
+   */
+  public static Map<String, Object> arguments(Map<String, Object> arguments) {
+    if (arguments == null)
+      return null;
+    if (arguments.isEmpty())
+      return Collections.emptyMap();
+
+    synchronized (ARGUMENTS) {
+      WeakReference<Map<String, Object>> ref = ARGUMENTS.get(arguments);
+      Map<String, Object> shared = ref == null ? null : ref.get();
+      if (shared != null)
+        return shared;
+
+      Map<String, Object> copy = Collections.unmodifiableMap(new LinkedHashMap<String, Object>(
+          arguments));
+      ARGUMENTS.put(copy, new WeakReference<Map<String, Object>>(copy));
+      return copy;
+    }
+  }
+
+  /**
+   * Returns the canonical representation of the {@code name}, else null if {@code name} is null.
+   * Names are interned via {@link String#intern()}, whose pool is garbage collected.
+   */
+  public static String name(String name) {
+    return name == null ? null : name.intern();
+  }
+}
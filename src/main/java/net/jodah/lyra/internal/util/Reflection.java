@@ -3,6 +3,7 @@ package net.jodah.lyra.internal.util;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 
 public class Reflection {
   @SuppressWarnings("unchecked")
@@ -14,6 +15,23 @@ public class Reflection {
     }
   }
 
+  /**
+   * Returns or throws {@code t} the same way a {@link java.lang.reflect.Proxy} would when {@code t}
+   * is thrown from an invocation of the {@code method}. Unchecked exceptions and exceptions that
+   * are declared by the {@code method} are thrown as-is. Undeclared checked exceptions are returned
+   * wrapped in an {@link UndeclaredThrowableException} for the caller to throw.
+   */
+  public static RuntimeException rethrow(Throwable t, Method method) {
+    if (t instanceof RuntimeException)
+      return (RuntimeException) t;
+    if (t instanceof Error)
+      throw (Error) t;
+    for (Class<?> exceptionType : method.getExceptionTypes())
+      if (exceptionType.isInstance(t))
+        throw Reflection.<RuntimeException>uncheckedThrow(t);
+    return new UndeclaredThrowableException(t);
+  }
+
   /**
    * Returns a simplified String representation of the {@code member}.
    */
@@ -22,4 +40,9 @@ public class Reflection {
       return member.getDeclaringClass().getSimpleName() + "." + member.getName() + "()";
     return null;
   }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Throwable> T uncheckedThrow(Throwable t) throws T {
+    throw (T) t;
+  }
 }
@@ -0,0 +1,65 @@
+package net.jodah.lyra.internal.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is striped across cache line padded cells so that threads incrementing the counter
+ * concurrently rarely contend on the same cell. Each thread is mapped to a cell by its id, and the
+ * counter's value is the sum of its cells. Reads are not atomic with respect to concurrent writes.
+ *
+ * @author Jonathan Halterman
+ */
+public class StripedCounter {
+  /** Longs per cell, padding each cell to its own 64 byte cache line */
+  private static final int PADDING = 8;
+  private static final int MAX_STRIPES = 16;
+  private static final int DEFAULT_STRIPES = Math.min(MAX_STRIPES,
+      Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+  private final AtomicLongArray cells;
+  private final int mask;
+
+  public StripedCounter() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * Creates a counter with at least {@code stripes} cells, rounded up to a power of 2.
+   */
+  public StripedCounter(int stripes) {
+    Assert.isTrue(stripes > 0, "stripes must be greater than 0");
+    int cellCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    cells = new AtomicLongArray(cellCount * PADDING);
+    mask = cellCount - 1;
+  }
+
+  public void add(long delta) {
+    cells.getAndAdd(cell(), delta);
+  }
+
+  public void increment() {
+    cells.getAndIncrement(cell());
+  }
+
+  /**
+   * Returns the sum of the counter's cells.
+   */
+  public long sum() {
+    long sum = 0;
+    for (int i = 0; i < cells.length(); i += PADDING)
+      sum += cells.get(i);
+    return sum;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(sum());
+  }
+
+  private int cell() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32));
+    hash ^= (hash >>> 16);
+    return (hash & mask) * PADDING;
+  }
+}
@@ -0,0 +1,129 @@
+package net.jodah.lyra.internal.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.event.AsyncCallback;
+import net.jodah.lyra.internal.util.Assert;
+
+/**
+ * An {@link AsyncFuture} that is completed or failed once, calling its callbacks on the completing
+ * thread.
+ *
+ * @param <T> result type
+ * @author Jonathan Halterman
+ */
+public class DefaultAsyncFuture<T> implements AsyncFuture<T> {
+  private final CountDownLatch latch = new CountDownLatch(1);
+  /** Guarded by this. Null once done. */
+  private List<AsyncCallback<? super T>> callbacks = new ArrayList<AsyncCallback<? super T>>(2);
+  private volatile boolean done;
+  private boolean cancelled;
+  private T result;
+  private Throwable failure;
+
+  /**
+   * Completes the future with the {@code result}, returning false if the future is already done.
+   */
+  public boolean complete(T result) {
+    return finish(result, null, false);
+  }
+
+  /**
+   * Fails the future with the {@code failure}, returning false if the future is already done.
+   */
+  public boolean fail(Throwable failure) {
+    return finish(null, failure, false);
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return finish(null, new CancellationException(), true);
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    latch.await();
+    return report();
+  }
+
+  @Override
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+      TimeoutException {
+    if (!latch.await(timeout, unit))
+      throw new TimeoutException();
+    return report();
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return done && cancelled;
+  }
+
+  @Override
+  public boolean isDone() {
+    return done;
+  }
+
+  @Override
+  public AsyncFuture<T> whenComplete(AsyncCallback<? super T> callback) {
+    Assert.notNull(callback, "callback");
+    synchronized (this) {
+      if (!done) {
+        callbacks.add(callback);
+        return this;
+      }
+    }
+
+    call(callback);
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return done ? cancelled ? "cancelled" : failure != null ? "failed" : "completed" : "pending";
+  }
+
+  private boolean finish(T result, Throwable failure, boolean cancelled) {
+    List<AsyncCallback<? super T>> toCall;
+    synchronized (this) {
+      if (done)
+        return false;
+      this.result = result;
+      this.failure = failure;
+      this.cancelled = cancelled;
+      done = true;
+      toCall = callbacks;
+      callbacks = null;
+    }
+
+    latch.countDown();
+    for (AsyncCallback<? super T> callback : toCall)
+      call(callback);
+    return true;
+  }
+
+  private void call(AsyncCallback<? super T> callback) {
+    try {
+      if (failure == null)
+        callback.onSuccess(result);
+      else
+        callback.onFailure(failure);
+    } catch (Exception ignore) {
+    }
+  }
+
+  private T report() throws ExecutionException {
+    if (cancelled)
+      throw (CancellationException) failure;
+    if (failure != null)
+      throw new ExecutionException(failure);
+    return result;
+  }
+}
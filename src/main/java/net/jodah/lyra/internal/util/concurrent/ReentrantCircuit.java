@@ -1,5 +1,7 @@
 package net.jodah.lyra.internal.util.concurrent;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 
 import net.jodah.lyra.util.Duration;
@@ -7,11 +9,13 @@ import net.jodah.lyra.util.Duration;
 /**
  * A circuit that accepts re-entrant {@link #open()}, allows waiting threads to be interrupted, and
  * {@link #close()} calls and ensures fairness when releasing {@link #await() waiting} threads.
+ * Continuations can be registered to run when the circuit is closed, without a waiting thread.
  * 
  * @author Jonathan Halterman
  */
 public class ReentrantCircuit {
   private final Sync sync = new Sync();
+  private final Queue<Runnable> continuations = new ConcurrentLinkedQueue<Runnable>();
 
   /**
    * Synchronization state of 0 = closed, 1 = open.
@@ -72,10 +76,20 @@ public class ReentrantCircuit {
   }
 
   /**
-   * Closes the circuit, releasing any waiting threads.
+   * Closes the circuit, releasing any waiting threads and running any continuations on the calling
+   * thread.
    */
   public void close() {
     sync.releaseShared(1);
+    runContinuations(false);
+  }
+
+  /**
+   * Returns whether any threads are waiting for the circuit to close or any continuations are
+   * pending.
+   */
+  public boolean hasWaiters() {
+    return sync.hasQueuedThreads() || !continuations.isEmpty();
   }
 
   /**
@@ -84,6 +98,7 @@ public class ReentrantCircuit {
   public void interruptWaiters() {
     for (Thread t : sync.getSharedQueuedThreads())
       t.interrupt();
+    runContinuations(true);
   }
 
   /**
@@ -100,6 +115,29 @@ public class ReentrantCircuit {
     sync.open();
   }
 
+  /**
+   * Runs the {@code continuation} once the circuit is closed or its waiters are
+   * {@link #interruptWaiters() interrupted}, running it immediately on the calling thread if the
+   * circuit is already closed. Continuations should not block, and should check whether the circuit
+   * is closed to determine whether they were interrupted.
+   */
+  public void whenClosed(Runnable continuation) {
+    continuations.add(continuation);
+    if (isClosed())
+      runContinuations(false);
+  }
+
+  /**
+   * Runs pending continuations. When interrupted, only continuations that were pending beforehand
+   * are run, so that a continuation which registers itself again waits for the next close.
+   */
+  private void runContinuations(boolean interrupted) {
+    int remaining = interrupted ? continuations.size() : Integer.MAX_VALUE;
+    for (Runnable continuation; remaining-- > 0 && (interrupted || isClosed())
+        && (continuation = continuations.poll()) != null;)
+      continuation.run();
+  }
+
   @Override
   public String toString() {
     return isClosed() ? "closed" : "open";
@@ -0,0 +1,53 @@
+package net.jodah.lyra.metrics;
+
+/**
+ * Records metrics for a channel. Called on the publishing, acknowledging and consuming threads of
+ * the channel, which may be different threads.
+ *
+ * @author Jonathan Halterman
+ * @see Metrics#onChannelCreate(String)
+ */
+public interface ChannelMetrics {
+  /**
+   * Called when a message is published.
+   */
+  void onPublish();
+
+  /**
+   * Called when one or more deliveries are acked.
+   */
+  void onAck();
+
+  /**
+   * Called when one or more deliveries are nacked.
+   */
+  void onNack();
+
+  /**
+   * Called when a delivery is rejected.
+   */
+  void onReject();
+
+  /**
+   * Called when a message is delivered to a consumer.
+   */
+  void onDelivery();
+
+  /**
+   * Called when a publish is buffered while the channel is being recovered, with the resulting
+   * {@code depth} of the buffer.
+   */
+  void onPublishBuffered(int depth);
+
+  /**
+   * Called when a buffered publish is discarded to make room for a newer one.
+   */
+  void onPublishDropped();
+
+  /**
+   * Called when buffered publishes have been sent after the channel is recovered, with the
+   * {@code count} of publishes that were sent, the {@code depth} of the buffer afterwards and the
+   * time taken.
+   */
+  void onPublishBufferDrained(int count, int depth, long durationNanos);
+}
@@ -0,0 +1,357 @@
+package net.jodah.lyra.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jodah.lyra.internal.util.StripedCounter;
+
+/**
+ * {@link Metrics} that are recorded in memory, for polling by a reporter or monitoring system.
+ * Counters are striped so that concurrent publishers, consumers and recoveries do not contend.
+ * Counts for closed channels are retained in the totals.
+ *
+ * @author Jonathan Halterman
+ */
+public class DefaultMetrics implements Metrics {
+  private final ConcurrentMap<String, Counters> channels = new ConcurrentHashMap<String, Counters>();
+  /** Counts for channels that have been closed */
+  private final Counters closedChannels = new Counters();
+  private final Map<RecoveryPhase, DurationHistogram> recoveryDurations =
+      new EnumMap<RecoveryPhase, DurationHistogram>(RecoveryPhase.class);
+  private final DurationHistogram circuitOpenDurations = new DurationHistogram();
+  /** Resource names of open circuits to the time they were opened */
+  private final ConcurrentMap<String, Long> openCircuits = new ConcurrentHashMap<String, Long>();
+  private final StripedCounter retries = new StripedCounter();
+  private final StripedCounter circuitWaits = new StripedCounter();
+  private final StripedCounter circuitWaitNanos = new StripedCounter();
+
+  /**
+   * A channel's counters.
+   */
+  public static final class Counters implements ChannelMetrics {
+    final StripedCounter publishes = new StripedCounter();
+    final StripedCounter acks = new StripedCounter();
+    final StripedCounter nacks = new StripedCounter();
+    final StripedCounter rejects = new StripedCounter();
+    final StripedCounter deliveries = new StripedCounter();
+    final StripedCounter buffered = new StripedCounter();
+    final StripedCounter dropped = new StripedCounter();
+    final StripedCounter drained = new StripedCounter();
+    final StripedCounter drainNanos = new StripedCounter();
+    volatile int bufferDepth;
+
+    Counters() {
+    }
+
+    @Override
+    public void onPublish() {
+      publishes.increment();
+    }
+
+    @Override
+    public void onAck() {
+      acks.increment();
+    }
+
+    @Override
+    public void onNack() {
+      nacks.increment();
+    }
+
+    @Override
+    public void onReject() {
+      rejects.increment();
+    }
+
+    @Override
+    public void onDelivery() {
+      deliveries.increment();
+    }
+
+    @Override
+    public void onPublishBuffered(int depth) {
+      buffered.increment();
+      bufferDepth = depth;
+    }
+
+    @Override
+    public void onPublishDropped() {
+      dropped.increment();
+    }
+
+    @Override
+    public void onPublishBufferDrained(int count, int depth, long durationNanos) {
+      drained.add(count);
+      drainNanos.add(durationNanos);
+      bufferDepth = depth;
+    }
+
+    public long getPublishCount() {
+      return publishes.sum();
+    }
+
+    public long getAckCount() {
+      return acks.sum();
+    }
+
+    public long getNackCount() {
+      return nacks.sum();
+    }
+
+    public long getRejectCount() {
+      return rejects.sum();
+    }
+
+    public long getDeliveryCount() {
+      return deliveries.sum();
+    }
+
+    /**
+     * Returns the number of publishes that were buffered while the channel was being recovered.
+     */
+    public long getBufferedCount() {
+      return buffered.sum();
+    }
+
+    /**
+     * Returns the number of buffered publishes that were discarded to make room for newer ones.
+     */
+    public long getDroppedCount() {
+      return dropped.sum();
+    }
+
+    /**
+     * Returns the number of buffered publishes that were sent after the channel was recovered.
+     */
+    public long getDrainedCount() {
+      return drained.sum();
+    }
+
+    /**
+     * Returns the number of publishes that were buffered as of the last buffered publish or drain.
+     */
+    public int getPublishBufferDepth() {
+      return bufferDepth;
+    }
+
+    /**
+     * Returns the rate at which buffered publishes were sent after recovery, in publishes per
+     * second, else 0 if none have been sent.
+     */
+    public double getDrainRate() {
+      return drainRate(drained.sum(), drainNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+      return String.format("published=%s, acked=%s, nacked=%s, rejected=%s, delivered=%s",
+          publishes, acks, nacks, rejects, deliveries);
+    }
+
+    void add(Counters other) {
+      publishes.add(other.publishes.sum());
+      acks.add(other.acks.sum());
+      nacks.add(other.nacks.sum());
+      rejects.add(other.rejects.sum());
+      deliveries.add(other.deliveries.sum());
+      buffered.add(other.buffered.sum());
+      dropped.add(other.dropped.sum());
+      drained.add(other.drained.sum());
+      drainNanos.add(other.drainNanos.sum());
+    }
+  }
+
+  public DefaultMetrics() {
+    for (RecoveryPhase phase : RecoveryPhase.values())
+      recoveryDurations.put(phase, new DurationHistogram());
+  }
+
+  @Override
+  public ChannelMetrics onChannelCreate(String channelName) {
+    Counters counters = new Counters();
+    Counters replaced = channels.put(channelName, counters);
+    if (replaced != null)
+      closedChannels.add(replaced);
+    return counters;
+  }
+
+  @Override
+  public void onClose(String resourceName) {
+    Counters counters = channels.remove(resourceName);
+    if (counters != null)
+      closedChannels.add(counters);
+    openCircuits.remove(resourceName);
+  }
+
+  @Override
+  public void onCircuitChange(String resourceName, boolean open) {
+    if (open)
+      openCircuits.putIfAbsent(resourceName, Long.valueOf(System.nanoTime()));
+    else {
+      Long openTime = openCircuits.remove(resourceName);
+      if (openTime != null)
+        circuitOpenDurations.record(System.nanoTime() - openTime.longValue());
+    }
+  }
+
+  @Override
+  public void onCircuitWait(String resourceName, long waitNanos) {
+    circuitWaits.increment();
+    circuitWaitNanos.add(waitNanos);
+  }
+
+  @Override
+  public void onRecovery(String resourceName, RecoveryPhase phase, long durationNanos) {
+    recoveryDurations.get(phase).record(durationNanos);
+  }
+
+  @Override
+  public void onRetry(String resourceName, int attempts) {
+    retries.increment();
+  }
+
+  /**
+   * Returns the counters for the open channel with the {@code channelName}, else null if there is
+   * no such channel.
+   */
+  public Counters getChannelCounters(String channelName) {
+    return channels.get(channelName);
+  }
+
+  /**
+   * Returns the names of the resources whose circuits are currently open.
+   */
+  public Set<String> getOpenCircuits() {
+    return Collections.unmodifiableSet(openCircuits.keySet());
+  }
+
+  /**
+   * Returns whether the circuit for the resource with the {@code resourceName} is currently open.
+   */
+  public boolean isCircuitOpen(String resourceName) {
+    return openCircuits.containsKey(resourceName);
+  }
+
+  /**
+   * Returns the durations for which circuits were open before being closed by a recovery.
+   */
+  public DurationHistogram getCircuitOpenDurations() {
+    return circuitOpenDurations;
+  }
+
+  /**
+   * Returns the number of times a thread has waited on an open circuit before retrying.
+   */
+  public long getCircuitWaitCount() {
+    return circuitWaits.sum();
+  }
+
+  /**
+   * Returns the total time that threads have waited on open circuits, in nanoseconds.
+   */
+  public long getCircuitWaitNanos() {
+    return circuitWaitNanos.sum();
+  }
+
+  /**
+   * Returns the durations of the {@code phase} of recovery.
+   */
+  public DurationHistogram getRecoveryDurations(RecoveryPhase phase) {
+    return recoveryDurations.get(phase);
+  }
+
+  /**
+   * Returns the number of retries that have been attempted for invocations and recoveries.
+   */
+  public long getRetryCount() {
+    return retries.sum();
+  }
+
+  public long getPublishCount() {
+    long count = closedChannels.getPublishCount();
+    for (Counters counters : channels.values())
+      count += counters.getPublishCount();
+    return count;
+  }
+
+  public long getAckCount() {
+    long count = closedChannels.getAckCount();
+    for (Counters counters : channels.values())
+      count += counters.getAckCount();
+    return count;
+  }
+
+  public long getNackCount() {
+    long count = closedChannels.getNackCount();
+    for (Counters counters : channels.values())
+      count += counters.getNackCount();
+    return count;
+  }
+
+  public long getRejectCount() {
+    long count = closedChannels.getRejectCount();
+    for (Counters counters : channels.values())
+      count += counters.getRejectCount();
+    return count;
+  }
+
+  public long getDeliveryCount() {
+    long count = closedChannels.getDeliveryCount();
+    for (Counters counters : channels.values())
+      count += counters.getDeliveryCount();
+    return count;
+  }
+
+  public long getBufferedCount() {
+    long count = closedChannels.getBufferedCount();
+    for (Counters counters : channels.values())
+      count += counters.getBufferedCount();
+    return count;
+  }
+
+  public long getDroppedCount() {
+    long count = closedChannels.getDroppedCount();
+    for (Counters counters : channels.values())
+      count += counters.getDroppedCount();
+    return count;
+  }
+
+  public long getDrainedCount() {
+    long count = closedChannels.getDrainedCount();
+    for (Counters counters : channels.values())
+      count += counters.getDrainedCount();
+    return count;
+  }
+
+  /**
+   * Returns the number of publishes currently buffered across open channels.
+   */
+  public long getPublishBufferDepth() {
+    long depth = 0;
+    for (Counters counters : channels.values())
+      depth += counters.getPublishBufferDepth();
+    return depth;
+  }
+
+  /**
+   * Returns the rate at which buffered publishes were sent after recovery across all channels, in
+   * publishes per second, else 0 if none have been sent.
+   */
+  public double getDrainRate() {
+    long count = closedChannels.drained.sum();
+    long nanos = closedChannels.drainNanos.sum();
+    for (Counters counters : channels.values()) {
+      count += counters.drained.sum();
+      nanos += counters.drainNanos.sum();
+    }
+    return drainRate(count, nanos);
+  }
+
+  static double drainRate(long count, long nanos) {
+    return count == 0 ? 0 : count / (Math.max(nanos, 1) / 1000000000.0);
+  }
+}
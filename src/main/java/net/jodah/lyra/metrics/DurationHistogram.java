@@ -0,0 +1,110 @@
+package net.jodah.lyra.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.jodah.lyra.internal.util.Assert;
+
+/**
+ * A histogram of durations with power of 2 millisecond buckets, where bucket 0 counts durations
+ * under 1 ms and bucket {@code i} counts durations of at least 2<sup>i-1</sup> and under
+ * 2<sup>i</sup> ms. Thread-safe.
+ *
+ * @author Jonathan Halterman
+ */
+public class DurationHistogram {
+  static final int BUCKETS = 32;
+  private static final long NANOS_PER_MILLI = 1000000;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  /**
+   * Records the {@code durationNanos}.
+   */
+  public void record(long durationNanos) {
+    long nanos = Math.max(durationNanos, 0);
+    buckets.incrementAndGet(bucketOf(nanos));
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    for (long max = maxNanos.get(); nanos > max; max = maxNanos.get())
+      if (maxNanos.compareAndSet(max, nanos))
+        break;
+  }
+
+  /**
+   * Returns the number of durations recorded in the {@code bucket}.
+   *
+   * @throws IllegalArgumentException if {@code bucket} is not between 0 and 31
+   */
+  public long getBucketCount(int bucket) {
+    Assert.isTrue(bucket >= 0 && bucket < BUCKETS, "bucket must be between 0 and %s", BUCKETS - 1);
+    return buckets.get(bucket);
+  }
+
+  /**
+   * Returns the number of durations that have been recorded.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the longest duration that has been recorded, in nanoseconds.
+   */
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * Returns the mean of the recorded durations, in nanoseconds, else 0 if none have been recorded.
+   */
+  public long getMeanNanos() {
+    long n = count.get();
+    return n == 0 ? 0 : totalNanos.get() / n;
+  }
+
+  /**
+   * Returns the upper bound, in milliseconds, of the bucket containing the {@code percentile} of
+   * recorded durations, else 0 if none have been recorded.
+   *
+   * @throws IllegalArgumentException if {@code percentile} is not between 0 and 1
+   */
+  public long getPercentileMillis(double percentile) {
+    Assert.isTrue(percentile >= 0 && percentile <= 1, "percentile must be between 0 and 1");
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++)
+      total += buckets.get(i);
+    if (total == 0)
+      return 0;
+
+    long threshold = Math.max(1, (long) Math.ceil(total * percentile));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= threshold)
+        return 1L << i;
+    }
+    return 1L << (BUCKETS - 1);
+  }
+
+  /**
+   * Returns the sum of the recorded durations, in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return totalNanos.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%s, mean=%s ms, max=%s ms", count.get(), getMeanNanos()
+        / NANOS_PER_MILLI, maxNanos.get() / NANOS_PER_MILLI);
+  }
+
+  static int bucketOf(long nanos) {
+    long millis = nanos / NANOS_PER_MILLI;
+    return millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+  }
+}
@@ -0,0 +1,51 @@
+package net.jodah.lyra.metrics;
+
+import net.jodah.lyra.config.ConnectionConfig;
+
+/**
+ * Records metrics for Lyra managed connections and channels. Configured via
+ * {@link ConnectionConfig#withMetrics(Metrics)}. Implementations are called from publishing,
+ * consuming and recovery threads and must be thread-safe and non-blocking. Resources are identified
+ * by name, such as {@code cxn-1} or {@code channel-1 on cxn-1}.
+ *
+ * @author Jonathan Halterman
+ * @see DefaultMetrics
+ */
+public interface Metrics {
+  /**
+   * Called when the channel with the {@code channelName} is created, returning the metrics that the
+   * channel's publishes, acknowledgements and deliveries are recorded to. The returned metrics are
+   * retained across recoveries of the channel.
+   */
+  ChannelMetrics onChannelCreate(String channelName);
+
+  /**
+   * Called when the resource with the {@code resourceName} is closed by the application.
+   */
+  void onClose(String resourceName);
+
+  /**
+   * Called when the resource with the {@code resourceName}'s circuit is opened or closed. The
+   * circuit for a resource is open while the resource is unavailable pending recovery, and closed
+   * once the resource has been recovered.
+   */
+  void onCircuitChange(String resourceName, boolean open);
+
+  /**
+   * Called when a thread has waited {@code waitNanos} for the resource with the
+   * {@code resourceName}'s circuit to close before retrying an invocation.
+   */
+  void onCircuitWait(String resourceName, long waitNanos);
+
+  /**
+   * Called when the {@code phase} of recovery of the resource with the {@code resourceName}
+   * succeeds after {@code durationNanos}.
+   */
+  void onRecovery(String resourceName, RecoveryPhase phase, long durationNanos);
+
+  /**
+   * Called when an invocation or recovery against the resource with the {@code resourceName} is
+   * retried, where {@code attempts} is the number of retries that have been attempted so far.
+   */
+  void onRetry(String resourceName, int attempts);
+}
@@ -0,0 +1,17 @@
+package net.jodah.lyra.metrics;
+
+/**
+ * A phase of recovery.
+ *
+ * @author Jonathan Halterman
+ */
+public enum RecoveryPhase {
+  /** Re-establishing a connection. */
+  CONNECTION,
+  /** Recovering a connection's exchanges, queues and bindings. */
+  TOPOLOGY,
+  /** Re-creating a channel and migrating its configuration. */
+  CHANNEL,
+  /** Recovering a channel's consumers. */
+  CONSUMER
+}
@@ -0,0 +1,60 @@
+package net.jodah.lyra.reactive;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * A message delivered to a consumer. The delivery tag is translated for the Lyra managed channel
+ * that the message was delivered on, and should be acknowledged via that channel.
+ *
+ * @author Jonathan Halterman
+ */
+public class Delivery {
+  private final String consumerTag;
+  private final Envelope envelope;
+  private final long deliveryTag;
+  private final BasicProperties properties;
+  private final byte[] body;
+
+  public Delivery(String consumerTag, Envelope envelope, long deliveryTag,
+      BasicProperties properties, byte[] body) {
+    this.consumerTag = consumerTag;
+    this.envelope = envelope;
+    this.deliveryTag = deliveryTag;
+    this.properties = properties;
+    this.body = body;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getConsumerTag() {
+    return consumerTag;
+  }
+
+  /**
+   * Returns the delivery tag to acknowledge the message with.
+   */
+  public long getDeliveryTag() {
+    return deliveryTag;
+  }
+
+  /**
+   * Returns the envelope the message was delivered with. The envelope's delivery tag is not
+   * translated, so {@link #getDeliveryTag()} should be used to acknowledge the message.
+   */
+  public Envelope getEnvelope() {
+    return envelope;
+  }
+
+  public BasicProperties getProperties() {
+    return properties;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Delivery[tag=%s, exchange=%s, routingKey=%s]", deliveryTag,
+        envelope.getExchange(), envelope.getRoutingKey());
+  }
+}
@@ -0,0 +1,62 @@
+package net.jodah.lyra.reactive;
+
+import net.jodah.lyra.internal.util.Assert;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+/**
+ * A message to be published.
+ *
+ * @author Jonathan Halterman
+ */
+public class OutboundMessage {
+  private final String exchange;
+  private final String routingKey;
+  private final boolean mandatory;
+  private final BasicProperties properties;
+  private final byte[] body;
+
+  /**
+   * @throws NullPointerException if {@code exchange} or {@code routingKey} are null
+   */
+  public OutboundMessage(String exchange, String routingKey, BasicProperties properties, byte[] body) {
+    this(exchange, routingKey, false, properties, body);
+  }
+
+  /**
+   * @throws NullPointerException if {@code exchange} or {@code routingKey} are null
+   */
+  public OutboundMessage(String exchange, String routingKey, boolean mandatory,
+      BasicProperties properties, byte[] body) {
+    this.exchange = Assert.notNull(exchange, "exchange");
+    this.routingKey = Assert.notNull(routingKey, "routingKey");
+    this.mandatory = mandatory;
+    this.properties = properties;
+    this.body = body;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getExchange() {
+    return exchange;
+  }
+
+  public BasicProperties getProperties() {
+    return properties;
+  }
+
+  public String getRoutingKey() {
+    return routingKey;
+  }
+
+  public boolean isMandatory() {
+    return mandatory;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("OutboundMessage[exchange=%s, routingKey=%s]", exchange, routingKey);
+  }
+}
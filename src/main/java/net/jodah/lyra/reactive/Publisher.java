@@ -0,0 +1,20 @@
+package net.jodah.lyra.reactive;
+
+/**
+ * A provider of a potentially unbounded number of elements, published according to the demand
+ * received from its {@link Subscriber}s. Mirrors {@code org.reactivestreams.Publisher} so that it
+ * can be adapted to Reactive Streams or {@code java.util.concurrent.Flow} implementations without
+ * Lyra depending on either.
+ *
+ * @param <T> element type
+ * @author Jonathan Halterman
+ */
+public interface Publisher<T> {
+  /**
+   * Requests that the publisher start publishing elements to the {@code subscriber}, which is
+   * signalled via {@link Subscriber#onSubscribe(Subscription)}.
+   *
+   * @throws NullPointerException if {@code subscriber} is null
+   */
+  void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,23 @@
+package net.jodah.lyra.reactive;
+
+import net.jodah.lyra.AsyncFuture;
+
+/**
+ * A {@link Subscriber} that publishes the messages it receives with publisher confirms, requesting
+ * another message from its upstream {@link Publisher} only as earlier publishes are confirmed.
+ *
+ * @author Jonathan Halterman
+ */
+public interface PublishingSubscriber extends Subscriber<OutboundMessage> {
+  /**
+   * Returns a future that is completed once the upstream publisher completes and every received
+   * message has been confirmed, or is failed if the upstream publisher fails, a publish is nacked by
+   * the broker, or a publish can no longer be confirmed.
+   */
+  AsyncFuture<Void> getCompletion();
+
+  /**
+   * Returns the number of received messages that have not yet been confirmed.
+   */
+  int getInFlightCount();
+}
@@ -0,0 +1,32 @@
+package net.jodah.lyra.reactive;
+
+/**
+ * Receives elements from a {@link Publisher} after calling {@link Subscription#request(long)}.
+ * Signals to a subscriber are never performed concurrently. Mirrors
+ * {@code org.reactivestreams.Subscriber}.
+ *
+ * @param <T> element type
+ * @author Jonathan Halterman
+ */
+public interface Subscriber<T> {
+  /**
+   * Called once after {@link Publisher#subscribe(Subscriber)}. No elements are published until
+   * demand is signalled via {@link Subscription#request(long)}.
+   */
+  void onSubscribe(Subscription subscription);
+
+  /**
+   * Called with the next element, in response to demand.
+   */
+  void onNext(T element);
+
+  /**
+   * Called when the publisher fails. No further signals are performed.
+   */
+  void onError(Throwable failure);
+
+  /**
+   * Called when the publisher completes. No further signals are performed.
+   */
+  void onComplete();
+}
@@ -0,0 +1,22 @@
+package net.jodah.lyra.reactive;
+
+/**
+ * A {@link Subscriber}'s subscription to a {@link Publisher}. Mirrors
+ * {@code org.reactivestreams.Subscription}.
+ *
+ * @author Jonathan Halterman
+ */
+public interface Subscription {
+  /**
+   * Adds demand for {@code n} elements. Demand of {@link Long#MAX_VALUE} or more is treated as
+   * unbounded. Signals an {@link IllegalArgumentException} via {@link Subscriber#onError(Throwable)}
+   * if {@code n} is < 1.
+   */
+  void request(long n);
+
+  /**
+   * Requests that the publisher stop publishing elements. Elements may still be published for a
+   * short time after cancellation.
+   */
+  void cancel();
+}
@@ -126,8 +126,8 @@ public abstract class AbstractFunctionalTest {
 
     if (connectionHandler == null) {
       connectionHandler = new ConnectionHandler(options, config, Connection.class.getClassLoader());
-      connectionProxy =
-          (ConfigurableConnection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+      connectionProxy = options.isUsingDirectDispatch() ? new ConnectionWrapper(connectionHandler)
+          : (ConfigurableConnection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
               new Class<?>[] {ConfigurableConnection.class}, connectionHandler);
       connectionHandler.createConnection(connectionProxy);
       channels = new HashMap<Integer, MockChannel>();
@@ -167,7 +167,7 @@ public abstract class AbstractFunctionalTest {
     when(channel.toString()).thenReturn("channel-" + channelNumber);
     when(connection.createChannel()).thenReturn(channel);
     mockChannel.proxy = connectionProxy.createChannel();
-    mockChannel.channelHandler = (ChannelHandler) Proxy.getInvocationHandler(mockChannel.proxy);
+    mockChannel.channelHandler = handlerFor(mockChannel.proxy);
     mockChannel.delegate = mockChannel.channelHandler.delegate;
     return mockChannel;
   }
@@ -183,7 +183,7 @@ public abstract class AbstractFunctionalTest {
         when(channel.getChannelNumber()).thenReturn(channelNumber);
         when(channel.toString()).thenReturn("channel-" + channelNumber);
         mockChannel.proxy = connectionProxy.createChannel(channelNumber);
-        mockChannel.channelHandler = (ChannelHandler) Proxy.getInvocationHandler(mockChannel.proxy);
+        mockChannel.channelHandler = handlerFor(mockChannel.proxy);
         mockChannel.delegate = mockChannel.channelHandler.delegate;
         channels.put(channelNumber, mockChannel);
       }
@@ -256,7 +256,12 @@ public abstract class AbstractFunctionalTest {
   }
 
   Channel delegateFor(Channel channelProxy) {
-    return ((ChannelHandler) Proxy.getInvocationHandler(channelProxy)).delegate;
+    return handlerFor(channelProxy).delegate;
+  }
+
+  static ChannelHandler handlerFor(Channel channelProxy) {
+    return channelProxy instanceof ChannelWrapper ? ((ChannelWrapper) channelProxy).handler
+        : (ChannelHandler) Proxy.getInvocationHandler(channelProxy);
   }
 
   static ArgumentMatcher<Consumer> matcherFor(final Consumer consumer) {
@@ -0,0 +1,154 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import net.jodah.lyra.config.AckCoalescingPolicy;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+
+/**
+ * Tests the coalescing of individual acks into multiple acks.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class AckCoalescingTest extends AbstractFunctionalTest {
+  MockChannel channel;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    channel = mockChannel(1);
+  }
+
+  public void shouldSendAcksDirectlyWithoutPolicy() throws Throwable {
+    channel.proxy.basicAck(1, false);
+    verify(channel.delegate).basicAck(1, false);
+  }
+
+  public void shouldCoalesceContiguousAcks() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxAcks(3).withMaxDelay(
+        Duration.minutes(1)));
+    channel.proxy.basicAck(1, false);
+    channel.proxy.basicAck(2, false);
+    verify(channel.delegate, never()).basicAck(anyLong(), anyBoolean());
+    assertEquals(channel.channelHandler.getPendingAckCount(), 2);
+
+    channel.proxy.basicAck(3, false);
+    verify(channel.delegate).basicAck(3, true);
+    verify(channel.delegate, never()).basicAck(anyLong(), eq(false));
+    assertEquals(channel.channelHandler.getPendingAckCount(), 0);
+  }
+
+  public void shouldSendAcksThatFollowAGapIndividually() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxAcks(10).withMaxDelay(
+        Duration.millis(50)));
+    channel.proxy.basicAck(2, false);
+    channel.proxy.basicAck(3, false);
+    verify(channel.delegate, timeout(1000)).basicAck(2, false);
+    verify(channel.delegate, timeout(1000)).basicAck(3, false);
+
+    // Once the gap is filled, only the delivery that filled it is outstanding
+    channel.proxy.basicAck(1, false);
+    verify(channel.delegate, timeout(1000)).basicAck(1, true);
+    verify(channel.delegate, never()).basicAck(3, true);
+  }
+
+  public void shouldSettleAutoAckedConsumerDeliveries() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxAcks(2).withMaxDelay(
+        Duration.minutes(1)));
+    when(channel.delegate.basicConsume(eq("q"), eq(true), any(Consumer.class))).thenReturn(
+        "test-tag");
+    channel.proxy.basicConsume("q", true, new DefaultConsumer(channel.proxy));
+    ArgumentCaptor<Consumer> consumer = ArgumentCaptor.forClass(Consumer.class);
+    verify(channel.delegate).basicConsume(eq("q"), eq(true), consumer.capture());
+
+    // The auto-acked delivery does not leave a gap before the acked deliveries that follow it
+    consumer.getValue().handleDelivery("test-tag", new Envelope(1, false, "x", "rk"), null, null);
+    channel.proxy.basicAck(2, false);
+    channel.proxy.basicAck(3, false);
+    verify(channel.delegate).basicAck(3, true);
+    verify(channel.delegate, never()).basicAck(anyLong(), eq(false));
+  }
+
+  public void shouldSettleAutoAckedGets() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxAcks(2).withMaxDelay(
+        Duration.minutes(1)));
+    when(channel.delegate.basicGet("q", true)).thenReturn(
+        new GetResponse(new Envelope(1, false, "x", "rk"), null, null, 0));
+    channel.proxy.basicGet("q", true);
+
+    channel.proxy.basicAck(2, false);
+    channel.proxy.basicAck(3, false);
+    verify(channel.delegate).basicAck(3, true);
+    verify(channel.delegate, never()).basicAck(anyLong(), eq(false));
+  }
+
+  public void shouldSendNacksAsTheyAreMade() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxDelay(Duration.minutes(1)));
+    channel.proxy.basicAck(1, false);
+    channel.proxy.basicNack(2, false, true);
+    verify(channel.delegate).basicNack(2, false, true);
+    verify(channel.delegate, never()).basicAck(anyLong(), anyBoolean());
+
+    // Pending acks are sent before a multiple nack that would cover them
+    channel.proxy.basicAck(3, false);
+    channel.proxy.basicNack(4, true, false);
+    InOrder inOrder = inOrder(channel.delegate);
+    inOrder.verify(channel.delegate).basicAck(3, true);
+    inOrder.verify(channel.delegate).basicNack(4, true, false);
+  }
+
+  public void shouldSettlePendingAcksCoveredByMultipleAck() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxDelay(Duration.minutes(1)));
+    channel.proxy.basicAck(1, false);
+    channel.proxy.basicAck(3, false);
+    channel.proxy.basicAck(2, true);
+    verify(channel.delegate).basicAck(2, true);
+    assertEquals(channel.channelHandler.getPendingAckCount(), 1);
+
+    channel.proxy.close();
+    verify(channel.delegate).basicAck(3, true);
+    verify(channel.delegate, never()).basicAck(1, false);
+  }
+
+  public void shouldDiscardPendingAcksOnRecovery() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxDelay(Duration.minutes(1)));
+    channel.proxy.basicAck(1, false);
+    channel.proxy.basicAck(2, false);
+
+    channel.channelHandler.channelShutdown();
+    channel.channelHandler.recoverChannel(false);
+    channel.channelHandler.flushAcks();
+    verify(channel.delegate, never()).basicAck(anyLong(), anyBoolean());
+    assertEquals(channel.channelHandler.getPendingAckCount(), 0);
+  }
+
+  public void shouldFlushPendingAcksOnClose() throws Throwable {
+    config.withAckCoalescing(new AckCoalescingPolicy().withMaxDelay(Duration.minutes(1)));
+    channel.proxy.basicAck(1, false);
+    channel.proxy.basicAck(2, false);
+    channel.proxy.close();
+    verify(channel.delegate).basicAck(2, true);
+  }
+}
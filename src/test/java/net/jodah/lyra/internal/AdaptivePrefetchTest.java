@@ -0,0 +1,130 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.config.AdaptivePrefetchPolicy;
+import net.jodah.lyra.util.Duration;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * Tests the adaptation of a channel's prefetch to the latency of its consumers.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class AdaptivePrefetchTest extends AbstractFunctionalTest {
+  static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+  MockChannel channel;
+  AdaptivePrefetchPolicy policy;
+  long deliveryTag;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    channel = mockChannel(1);
+    when(channel.delegate.basicConsume(eq("test-queue"), any(Consumer.class))).thenReturn(
+        "test-tag");
+    policy = new AdaptivePrefetchPolicy().withInterval(Duration.minutes(1));
+    deliveryTag = 0;
+  }
+
+  public void shouldNotAdaptPrefetchWithoutPolicy() throws Throwable {
+    channel.proxy.basicConsume("test-queue", new DefaultConsumer(channel.proxy));
+    verify(channel.delegate, never()).basicQos(anyInt(), anyBoolean());
+    assertEquals(channel.channelHandler.prefetchController, null);
+  }
+
+  public void shouldSetInitialPrefetchWhenConsuming() throws Throwable {
+    config.withAdaptivePrefetch(policy.withInitialPrefetch(5));
+    channel.proxy.basicConsume("test-queue", new DefaultConsumer(channel.proxy));
+    verify(channel.delegate).basicQos(5, true);
+  }
+
+  public void shouldIncreasePrefetchForCheapDeliveries() throws Throwable {
+    config.withAdaptivePrefetch(policy);
+    channel.proxy.basicConsume("test-queue", new DefaultConsumer(channel.proxy));
+
+    // 1000 deliveries per second with a 100 ms buffer targets a prefetch of about 100
+    deliverAndAck(1000);
+    controller().adjust(policy, ONE_SECOND);
+    verify(channel.delegate).basicQos(20, true);
+    deliverAndAck(1000);
+    controller().adjust(policy, ONE_SECOND);
+    verify(channel.delegate).basicQos(40, true);
+    assertEquals(controller().getPrefetch(), 40);
+  }
+
+  public void shouldDecreasePrefetchForCostlyDeliveries() throws Throwable {
+    config.withAdaptivePrefetch(policy.withInitialPrefetch(100).withBufferTime(Duration.millis(1)));
+    channel.proxy.basicConsume("test-queue", new DefaultConsumer(channel.proxy));
+
+    // 10 deliveries per second with a 1 ms buffer targets a prefetch of 1
+    deliverAndAck(10);
+    controller().adjust(policy, ONE_SECOND);
+    verify(channel.delegate).basicQos(50, true);
+    deliverAndAck(10);
+    controller().adjust(policy, ONE_SECOND);
+    verify(channel.delegate).basicQos(25, true);
+  }
+
+  public void shouldBoundPrefetch() throws Throwable {
+    config.withAdaptivePrefetch(policy.withMaxPrefetch(15));
+    channel.proxy.basicConsume("test-queue", new DefaultConsumer(channel.proxy));
+
+    deliverAndAck(1000);
+    controller().adjust(policy, ONE_SECOND);
+    verify(channel.delegate).basicQos(15, true);
+  }
+
+  public void shouldNotAdjustWhenIdle() throws Throwable {
+    config.withAdaptivePrefetch(policy);
+    channel.proxy.basicConsume("test-queue", new DefaultConsumer(channel.proxy));
+
+    controller().adjust(policy, ONE_SECOND);
+    verify(channel.delegate, times(1)).basicQos(anyInt(), anyBoolean());
+  }
+
+  public void shouldReplayCurrentPrefetchOnRecovery() throws Throwable {
+    config.withAdaptivePrefetch(policy);
+    channel.proxy.basicConsume("test-queue", new DefaultConsumer(channel.proxy));
+    deliverAndAck(1000);
+    controller().adjust(policy, ONE_SECOND);
+
+    channel.channelHandler.channelShutdown();
+    channel.channelHandler.recoverChannel(false);
+    verify(channel.delegate, times(2)).basicQos(20, true);
+    verify(channel.delegate, times(1)).basicQos(10, true);
+  }
+
+  private PrefetchController controller() {
+    return channel.channelHandler.prefetchController;
+  }
+
+  private void deliverAndAck(int count) throws Exception {
+    ResourceDeclaration declaration = channel.channelHandler.consumerDeclarations.get("test-tag");
+    Consumer consumer = (Consumer) declaration.args[declaration.args.length - 1];
+    for (int i = 0; i < count; i++) {
+      consumer.handleDelivery("test-tag", new Envelope(++deliveryTag, false, "x", "rk"), null,
+          null);
+      channel.proxy.basicAck(deliveryTag, false);
+    }
+  }
+}
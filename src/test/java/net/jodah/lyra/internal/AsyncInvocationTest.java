@@ -0,0 +1,165 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.event.AsyncCallback;
+import net.jodah.lyra.util.Duration;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.GetResponse;
+
+/**
+ * Tests asynchronous channel invocations, which are retried on a scheduler rather than on the
+ * calling thread.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class AsyncInvocationTest extends AbstractFunctionalTest {
+  static final byte[] BODY = new byte[0];
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways());
+    mockConnection();
+  }
+
+  public void shouldRetryFailedPublish() throws Throwable {
+    MockChannel channel = mockChannel(1);
+    doThrow(new SocketTimeoutException()).doThrow(new SocketTimeoutException()).doNothing()
+        .when(channel.delegate).basicPublish("x", "rk", false, null, BODY);
+
+    AsyncFuture<Void> future = async(channel).basicPublishAsync("x", "rk", null, BODY);
+    future.get(1, TimeUnit.SECONDS);
+    verify(channel.delegate, times(3)).basicPublish("x", "rk", false, null, BODY);
+  }
+
+  public void shouldResumeAfterChannelRecovery() throws Throwable {
+    MockChannel channel = mockChannel(1);
+    GetResponse response = new GetResponse(null, null, BODY, 0);
+    when(channel.delegate.basicGet("q", true)).thenAnswer(
+        failNTimes(1, retryableChannelShutdownSignal(), response, channel.channelHandler));
+
+    AsyncFuture<GetResponse> future = async(channel).basicGetAsync("q", true);
+    assertSame(future.get(1, TimeUnit.SECONDS), response);
+    verifyChannelCreations(1, 2);
+  }
+
+  public void shouldCancelWaitTimeoutAfterChannelRecovery() throws Throwable {
+    config.withChannelRetryPolicy(RetryPolicies.retryAlways()
+        .withMaxDuration(Duration.minutes(30))
+        .withInterval(Duration.millis(10)));
+    MockChannel channel = mockChannel(1);
+    GetResponse response = new GetResponse(null, null, BODY, 0);
+    when(channel.delegate.basicGet("q", true)).thenAnswer(
+        failNTimes(1, retryableChannelShutdownSignal(), response, channel.channelHandler));
+
+    assertSame(async(channel).basicGetAsync("q", true).get(1, TimeUnit.SECONDS), response);
+    for (Runnable task : ((ScheduledThreadPoolExecutor) SharedExecutors.SCHEDULER).getQueue()) {
+      ScheduledFuture<?> future = (ScheduledFuture<?>) task;
+      assertTrue(future.isCancelled() || future.getDelay(TimeUnit.MINUTES) < 20);
+    }
+  }
+
+  public void shouldFailWhenRetryPolicyIsExceeded() throws Throwable {
+    config.withChannelRetryPolicy(RetryPolicies.retryAlways().withMaxAttempts(2)
+        .withInterval(Duration.millis(10)));
+    MockChannel channel = mockChannel(1);
+    SocketTimeoutException failure = new SocketTimeoutException();
+    doThrow(failure).when(channel.delegate).basicAck(1, false);
+
+    try {
+      async(channel).basicAckAsync(1, false).get(1, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertSame(e.getCause(), failure);
+    }
+    verify(channel.delegate, times(2)).basicAck(1, false);
+  }
+
+  public void shouldCallCallbacksOnCompletion() throws Throwable {
+    MockChannel channel = mockChannel(1);
+    doThrow(new SocketTimeoutException()).doNothing().when(channel.delegate).basicReject(1, true);
+    final Waiter waiter = new Waiter();
+
+    async(channel).basicRejectAsync(1, true).whenComplete(new AsyncCallback<Void>() {
+      @Override
+      public void onSuccess(Void result) {
+        waiter.resume();
+      }
+
+      @Override
+      public void onFailure(Throwable failure) {
+        waiter.fail(failure);
+      }
+    });
+    waiter.await(1000);
+
+    // Callbacks registered after completion are called immediately
+    final AsyncFuture<Void> future = async(channel).basicNackAsync(1, false, true);
+    future.get(1, TimeUnit.SECONDS);
+    future.whenComplete(new AsyncCallback<Void>() {
+      @Override
+      public void onSuccess(Void result) {
+        waiter.resume();
+      }
+
+      @Override
+      public void onFailure(Throwable failure) {
+        waiter.fail(failure);
+      }
+    });
+    waiter.await(1000);
+    assertTrue(future.isDone());
+  }
+
+  @Test(expectedExceptions = AlreadyClosedException.class)
+  public void shouldThrowOnClosedChannel() throws Throwable {
+    MockChannel channel = mockChannel(1);
+    when(channel.delegate.getCloseReason()).thenReturn(channelShutdownSignal());
+    channel.proxy.close();
+    async(channel).basicPublishAsync("x", "rk", null, BODY);
+  }
+
+  public void shouldFailPendingCallsWhenChannelIsClosed() throws Throwable {
+    config.withChannelRecoveryPolicy(RecoveryPolicies.recoverNever());
+    MockChannel channel = mockChannel(1);
+    when(channel.delegate.basicGet("q", true)).thenAnswer(
+        failNTimes(1, retryableChannelShutdownSignal(), null, channel.channelHandler));
+
+    try {
+      async(channel).basicGetAsync("q", true).get(1, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+    }
+  }
+
+  private ConfigurableChannel async(MockChannel channel) {
+    return (ConfigurableChannel) channel.proxy;
+  }
+}
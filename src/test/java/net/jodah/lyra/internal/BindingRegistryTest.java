@@ -0,0 +1,79 @@
+package net.jodah.lyra.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test
+public class BindingRegistryTest {
+  BindingRegistry registry;
+  Binding ab = new Binding("a", "x", "1", null);
+  Binding ac = new Binding("a", "y", "2", null);
+  Binding bx = new Binding("b", "x", "3", null);
+
+  @BeforeMethod
+  protected void createFixtures() {
+    registry = new BindingRegistry();
+    registry.add(ab);
+    registry.add(ac);
+    registry.add(bx);
+  }
+
+  public void shouldIndexByDestinationAndSource() {
+    assertFalse(registry.add(new Binding("a", "x", "1", null)));
+    assertEquals(registry.size(), 3);
+    assertEquals(new ArrayList<Binding>(registry.getByDestination("a")), Arrays.asList(ab, ac));
+    assertEquals(new ArrayList<Binding>(registry.getBySource("x")), Arrays.asList(ab, bx));
+    assertTrue(registry.getByDestination("z").isEmpty());
+    assertEquals(registry.snapshot(), Arrays.asList(ab, ac, bx));
+  }
+
+  public void shouldRemove() {
+    assertTrue(registry.remove(new Binding("a", "x", "1", null)));
+    assertFalse(registry.remove(ab));
+    assertEquals(new ArrayList<Binding>(registry.getByDestination("a")), Arrays.asList(ac));
+    assertEquals(new ArrayList<Binding>(registry.getBySource("x")), Arrays.asList(bx));
+
+    registry.removeBySource("x");
+    assertEquals(registry.snapshot(), Arrays.asList(ac));
+    registry.removeByDestination("a");
+    assertTrue(registry.isEmpty());
+  }
+
+  public void shouldRenameDestination() {
+    registry.renameDestination("a", "c");
+    assertTrue(registry.getByDestination("a").isEmpty());
+    assertEquals(new ArrayList<Binding>(registry.getByDestination("c")),
+        Arrays.asList(ab.withDestination("c"), ac.withDestination("c")));
+    assertEquals(new ArrayList<Binding>(registry.getBySource("x")),
+        Arrays.asList(bx, ab.withDestination("c")));
+  }
+
+  public void shouldCompactRegisteredBindings() {
+    Map<String, Object> arguments = new HashMap<String, Object>();
+    arguments.put("x-match", "all");
+    registry.add(new Binding(new String("c"), new String("x"), new String("4"), arguments));
+    registry.add(new Binding(new String("d"), new String("x"), new String("4"),
+        new HashMap<String, Object>(arguments)));
+    arguments.put("x-match", "any");
+
+    List<Binding> bindings = new ArrayList<Binding>(registry.getBySource("x"));
+    Binding c = bindings.get(2);
+    Binding d = bindings.get(3);
+    assertSame(c.source, d.source);
+    assertSame(c.routingKey, d.routingKey);
+    assertSame(c.arguments, d.arguments);
+    assertEquals(c.arguments.get("x-match"), "all");
+    assertTrue(registry.remove(new Binding("c", "x", "4", d.arguments)));
+  }
+}
@@ -0,0 +1,173 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.AsyncFuture;
+import net.jodah.lyra.ConnectionBlockedException;
+import net.jodah.lyra.config.BlockedPublishPolicy;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.BlockedPublishPolicy.Strategy;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.BlockedListener;
+
+/**
+ * Tests publishes that are made while the broker has blocked a connection.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class BlockedPublishTest extends AbstractFunctionalTest {
+  static final byte[] BODY = new byte[10];
+  MockChannel channel;
+  BlockedListener blockedListener;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    channel = mockChannel(1);
+    ArgumentCaptor<BlockedListener> captor = ArgumentCaptor.forClass(BlockedListener.class);
+    verify(connection).addBlockedListener(captor.capture());
+    blockedListener = captor.getValue();
+  }
+
+  public void shouldPublishWithoutPolicy() throws Throwable {
+    blockedListener.handleBlocked("low memory");
+    channel.proxy.basicPublish("x", "rk", null, BODY);
+    verify(channel.delegate).basicPublish("x", "rk", null, BODY);
+  }
+
+  public void shouldFailPublishesWhileBlocked() throws Throwable {
+    config.withBlockedPublishPolicy(new BlockedPublishPolicy().withStrategy(Strategy.FAIL));
+    blockedListener.handleBlocked("low memory");
+
+    try {
+      channel.proxy.basicPublish("x", "rk", null, BODY);
+      fail();
+    } catch (ConnectionBlockedException expected) {
+      assertEquals(expected.getReason(), "low memory");
+    }
+
+    blockedListener.handleUnblocked();
+    channel.proxy.basicPublish("x", "rk", null, BODY);
+    verify(channel.delegate).basicPublish("x", "rk", null, BODY);
+  }
+
+  public void shouldWaitUntilUnblocked() throws Throwable {
+    final Waiter waiter = new Waiter();
+    config.withBlockedPublishPolicy(new BlockedPublishPolicy());
+    blockedListener.handleBlocked("low memory");
+
+    runInThread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          channel.proxy.basicPublish("x", "rk", null, BODY);
+          waiter.resume();
+        } catch (Exception e) {
+          waiter.fail(e);
+        }
+      }
+    });
+
+    Thread.sleep(100);
+    verify(channel.delegate, never()).basicPublish("x", "rk", null, BODY);
+    blockedListener.handleUnblocked();
+    waiter.await(1000);
+    verify(channel.delegate).basicPublish("x", "rk", null, BODY);
+  }
+
+  public void shouldFailWhenMaxWaitTimeIsExceeded() throws Throwable {
+    config.withBlockedPublishPolicy(new BlockedPublishPolicy().withMaxWaitTime(Duration.millis(50)));
+    blockedListener.handleBlocked("low memory");
+
+    try {
+      channel.proxy.basicPublish("x", "rk", null, BODY);
+      fail();
+    } catch (ConnectionBlockedException expected) {
+    }
+    verify(channel.delegate, never()).basicPublish("x", "rk", null, BODY);
+  }
+
+  public void shouldBufferPublishesUntilUnblocked() throws Throwable {
+    config.withBlockedPublishPolicy(new BlockedPublishPolicy().withStrategy(Strategy.BUFFER));
+    blockedListener.handleBlocked("low memory");
+    channel.proxy.basicPublish("x", "rk1", null, BODY);
+    channel.proxy.basicPublish("x", "rk2", null, BODY);
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, false, null, BODY);
+
+    blockedListener.handleUnblocked();
+    verify(channel.delegate, timeout(1000)).basicPublish("x", "rk2", false, false, null, BODY);
+    InOrder inOrder = inOrder(channel.delegate);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk1", false, false, null, BODY);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk2", false, false, null, BODY);
+  }
+
+  public void shouldFailAsyncPublishesWhileBlocked() throws Throwable {
+    config.withBlockedPublishPolicy(new BlockedPublishPolicy().withStrategy(Strategy.FAIL));
+    blockedListener.handleBlocked("low memory");
+
+    try {
+      async().basicPublishAsync("x", "rk", null, BODY).get(1, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof ConnectionBlockedException);
+    }
+    verify(channel.delegate, never()).basicPublish("x", "rk", false, null, BODY);
+  }
+
+  public void shouldDeferAsyncPublishesUntilUnblocked() throws Throwable {
+    config.withBlockedPublishPolicy(new BlockedPublishPolicy());
+    blockedListener.handleBlocked("low memory");
+    AsyncFuture<Void> first = async().basicPublishAsync("x", "rk1", null, BODY);
+    AsyncFuture<Void> second = async().basicPublishAsync("x", "rk2", null, BODY);
+    Thread.sleep(50);
+    assertFalse(first.isDone());
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, null, BODY);
+
+    blockedListener.handleUnblocked();
+    first.get(1, TimeUnit.SECONDS);
+    second.get(1, TimeUnit.SECONDS);
+    InOrder inOrder = inOrder(channel.delegate);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk1", false, null, BODY);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk2", false, null, BODY);
+  }
+
+  public void shouldFailAsyncPublishesWhenMaxWaitTimeIsExceeded() throws Throwable {
+    config.withBlockedPublishPolicy(new BlockedPublishPolicy().withMaxWaitTime(Duration.millis(50)));
+    blockedListener.handleBlocked("low memory");
+
+    try {
+      async().basicPublishAsync("x", "rk", null, BODY).get(1, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof ConnectionBlockedException);
+    }
+
+    blockedListener.handleUnblocked();
+    Thread.sleep(50);
+    verify(channel.delegate, never()).basicPublish("x", "rk", false, null, BODY);
+  }
+
+  private ConfigurableChannel async() {
+    return (ConfigurableChannel) channel.proxy;
+  }
+}
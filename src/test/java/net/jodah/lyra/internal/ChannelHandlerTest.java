@@ -1,5 +1,10 @@
 package net.jodah.lyra.internal;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+
 import org.testng.annotations.Test;
 
 import com.rabbitmq.client.AlreadyClosedException;
@@ -25,4 +30,40 @@ public class ChannelHandlerTest extends AbstractFunctionalTest {
     mockConnection();
     mockChannel().proxy.addConfirmListener(null);
   }
+
+  public void shouldTranslateAcksAgainstRecoveryEpoch() throws Throwable {
+    mockConnection();
+    MockChannel mockChannel = mockChannel();
+    Channel delegate = mockChannel.delegate;
+    mockChannel.channelHandler.epoch = new ChannelHandler.RecoveryEpoch(delegate, 10);
+
+    mockChannel.proxy.basicAck(5, false);
+    mockChannel.proxy.basicNack(10, true, true);
+    mockChannel.proxy.basicAck(12, true);
+    mockChannel.proxy.basicNack(15, false, true);
+    mockChannel.proxy.basicReject(17, false);
+
+    verify(delegate, times(1)).basicAck(anyLong(), anyBoolean());
+    verify(delegate, times(1)).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    verify(delegate).basicAck(2, true);
+    verify(delegate).basicNack(5, false, true);
+    verify(delegate).basicReject(7, false);
+  }
+
+  public void shouldRemoveBindingsOfDeletedResources() throws Throwable {
+    mockConnection();
+    Channel channel = mockChannel().proxy;
+    channel.exchangeBind("test-exchange-2", "test-exchange", "#");
+    channel.queueBind("test-queue", "test-exchange", "#");
+    channel.queueBind("test-queue", "test-exchange-3", "#");
+    channel.queueBind("test-queue-2", "test-exchange-3", "#");
+
+    channel.exchangeDelete("test-exchange");
+    assertTrue(connectionHandler.exchangeBindings.isEmpty());
+    assertEquals(connectionHandler.queueBindings.size(), 2);
+
+    channel.queueDelete("test-queue");
+    assertEquals(connectionHandler.queueBindings.snapshot(),
+        Arrays.asList(new Binding("test-queue-2", "test-exchange-3", "#", null)));
+  }
 }
@@ -0,0 +1,196 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.TimeoutException;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.ChannelPool;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.ConfigurableConnection;
+import net.jodah.lyra.util.Duration;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * Tests channels leased from a {@link ChannelPool}.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class ChannelPoolTest extends AbstractFunctionalTest {
+  ChannelPool pool;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    Channel c1 = mockDelegate(1);
+    Channel c2 = mockDelegate(2);
+    Channel c3 = mockDelegate(3);
+    when(connection.createChannel()).thenReturn(c1, c2, c3);
+    pool = ((ConfigurableConnection) connectionProxy).channelPool(2);
+  }
+
+  public void shouldLeaseAndRelease() throws Throwable {
+    ConfigurableChannel c1 = pool.tryLease();
+    ConfigurableChannel c2 = pool.tryLease();
+    assertNotNull(c1);
+    assertNotNull(c2);
+    assertNotSame(c1, c2);
+    assertNull(pool.tryLease());
+    assertEquals(pool.getLeasedCount(), 2);
+    assertEquals(pool.getUtilization(), 1.0);
+
+    pool.release(c1);
+    assertSame(pool.tryLease(), c1);
+    pool.release(c1);
+    pool.release(c2);
+    assertEquals(pool.getLeasedCount(), 0);
+    assertEquals(pool.getLeaseCount(), 3);
+    verify(connection, times(2)).createChannel();
+  }
+
+  public void shouldSkipRecoveringChannels() throws Throwable {
+    ConfigurableChannel c1 = pool.tryLease();
+    pool.release(c1);
+    handlerFor(c1).circuit.open();
+
+    ConfigurableChannel c2 = pool.tryLease();
+    assertNotSame(c2, c1);
+    assertNull(pool.tryLease());
+    assertEquals(pool.getRecoverySkipCount(), 1);
+
+    try {
+      pool.lease(Duration.millis(20));
+      fail();
+    } catch (TimeoutException expected) {
+    }
+    assertEquals(pool.getLeaseTimeoutCount(), 1);
+
+    handlerFor(c1).circuit.close();
+    assertSame(pool.lease(Duration.millis(20)), c1);
+  }
+
+  public void shouldLeaseAndRecoverDeferredChannels() throws Throwable {
+    ConfigurableChannel c1 = pool.tryLease();
+    ConfigurableChannel c2 = pool.tryLease();
+    Channel delegate = delegateFor(c1);
+    when(connection.createChannel(delegate.getChannelNumber())).thenReturn(delegate);
+    handlerFor(c1).circuit.open();
+    assertTrue(handlerFor(c1).deferRecovery());
+    pool.release(c1);
+
+    // Deferred channels are leased rather than skipped, and are recovered when first used
+    assertSame(pool.tryLease(), c1);
+    assertEquals(pool.getRecoverySkipCount(), 0);
+    c1.basicQos(10);
+    assertTrue(handlerFor(c1).circuit.isClosed());
+    verify(delegate).basicQos(10);
+    pool.release(c1);
+    pool.release(c2);
+  }
+
+  public void shouldReplaceClosedChannels() throws Throwable {
+    ConfigurableChannel c1 = pool.tryLease();
+    ConfigurableChannel c2 = pool.tryLease();
+    c1.close();
+    pool.release(c1);
+
+    // Closed channels are replaced in the background
+    assertNull(pool.tryLease());
+    ConfigurableChannel c3 = pool.lease(Duration.millis(1000));
+    assertNotSame(c3, c1);
+    assertEquals(c3.getChannelNumber(), 3);
+    pool.release(c3);
+    pool.release(c2);
+    verify(connection, times(3)).createChannel();
+  }
+
+  public void shouldNotReplaceClosedChannelsWhileConnectionIsRecovering() throws Throwable {
+    ConfigurableChannel c1 = pool.tryLease();
+    ConfigurableChannel c2 = pool.tryLease();
+    c1.close();
+    pool.release(c1);
+    connectionHandler.circuit.open();
+
+    for (int i = 0; i < 10; i++)
+      assertNull(pool.tryLease());
+    verify(connection, times(2)).createChannel();
+
+    connectionHandler.circuit.close();
+    ConfigurableChannel c3 = pool.lease(Duration.millis(1000));
+    assertEquals(c3.getChannelNumber(), 3);
+    pool.release(c3);
+    pool.release(c2);
+  }
+
+  public void shouldWakeWaitingLeaseOnRelease() throws Throwable {
+    final ConfigurableChannel c1 = pool.tryLease();
+    ConfigurableChannel c2 = pool.tryLease();
+    final Waiter waiter = new Waiter();
+    runInThread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          waiter.assertTrue(pool.lease(Duration.millis(5000)) == c1);
+          waiter.resume();
+        } catch (Exception e) {
+          waiter.fail(e);
+        }
+      }
+    });
+
+    Thread.sleep(50);
+    pool.release(c1);
+    waiter.await(1000);
+    assertEquals(pool.getLeaseTimeoutCount(), 0);
+    pool.release(c1);
+    pool.release(c2);
+  }
+
+  public void shouldCloseChannels() throws Throwable {
+    Channel delegate = delegateFor(pool.tryLease());
+    pool.close();
+    verify(delegate).close();
+
+    try {
+      pool.tryLease();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldThrowOnReleaseOfForeignChannel() throws Throwable {
+    pool.release(mock(Channel.class));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldThrowOnReleaseOfUnleasedChannel() throws Throwable {
+    ConfigurableChannel channel = pool.tryLease();
+    pool.release(channel);
+    pool.release(channel);
+  }
+
+  private Channel mockDelegate(int channelNumber) {
+    Channel channel = mock(Channel.class);
+    when(channel.getChannelNumber()).thenReturn(channelNumber);
+    when(channel.toString()).thenReturn("channel-" + channelNumber);
+    return channel;
+  }
+}
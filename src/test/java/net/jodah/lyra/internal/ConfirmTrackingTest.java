@@ -0,0 +1,137 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.event.ConfirmCallback;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Tests publishes made via {@link ConfigurableChannel#basicPublishConfirmed}.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class ConfirmTrackingTest extends AbstractFunctionalTest {
+  List<String> events;
+
+  class RecordingCallback implements ConfirmCallback {
+    final String name;
+
+    RecordingCallback(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void onAck() {
+      events.add(name + "-ack");
+    }
+
+    @Override
+    public void onNack() {
+      events.add(name + "-nack");
+    }
+
+    @Override
+    public void onFailure(Throwable failure) {
+      events.add(name + "-failure");
+    }
+  }
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    events = new ArrayList<String>();
+  }
+
+  public void shouldResolveCallbacksOnConfirm() throws Throwable {
+    mockConnection();
+    MockChannel mockChannel = mockChannel(1);
+    when(mockChannel.delegate.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L, 4L);
+    ConfigurableChannel channel = (ConfigurableChannel) mockChannel.proxy;
+
+    for (int i = 1; i <= 4; i++)
+      channel.basicPublishConfirmed("x", "rk", null, new byte[0], new RecordingCallback("m" + i));
+    assertEquals(channel.getUnconfirmedCount(), 4);
+
+    ConfirmListener listener = confirmListenerFor(mockChannel.delegate, 1);
+    listener.handleAck(3, false);
+    listener.handleAck(2, true);
+    listener.handleNack(4, false);
+
+    verify(mockChannel.delegate).confirmSelect();
+    assertEquals(events, Arrays.asList("m3-ack", "m1-ack", "m2-ack", "m4-nack"));
+    assertEquals(channel.getUnconfirmedCount(), 0);
+  }
+
+  public void shouldRepublishUnconfirmedOnRecovery() throws Throwable {
+    mockConnection();
+    MockChannel mockChannel = mockChannel(1);
+    when(mockChannel.delegate.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L, 1L, 2L);
+    ConfigurableChannel channel = (ConfigurableChannel) mockChannel.proxy;
+
+    for (int i = 1; i <= 3; i++)
+      channel.basicPublishConfirmed("x", "rk", null, new byte[0], new RecordingCallback("m" + i));
+    ConfirmListener priorListener = confirmListenerFor(mockChannel.delegate, 1);
+    priorListener.handleAck(1, false);
+
+    callShutdownListener(mockChannel.channelHandler, retryableChannelShutdownSignal());
+    assertTrue(mockChannel.channelHandler.circuit.await(Duration.secs(1)));
+
+    // Confirms from the prior channel are ignored
+    priorListener.handleAck(3, true);
+    assertEquals(events, Arrays.asList("m1-ack"));
+
+    verify(mockChannel.delegate, times(2)).confirmSelect();
+    verify(mockChannel.delegate, times(5)).basicPublish(eq("x"), eq("rk"), anyBoolean(),
+        any(BasicProperties.class), any(byte[].class));
+    ConfirmListener listener = confirmListenerFor(mockChannel.delegate, 2);
+    listener.handleAck(2, true);
+    assertEquals(events, Arrays.asList("m1-ack", "m2-ack", "m3-ack"));
+  }
+
+  public void shouldFailUnconfirmedOnClosure() throws Throwable {
+    mockConnection();
+    MockChannel mockChannel = mockChannel(1);
+    when(mockChannel.delegate.getNextPublishSeqNo()).thenReturn(1L, 2L);
+    ConfigurableChannel channel = (ConfigurableChannel) mockChannel.proxy;
+
+    channel.basicPublishConfirmed("x", "rk", null, new byte[0], new RecordingCallback("m1"));
+    channel.basicPublishConfirmed("x", "rk", null, new byte[0], new RecordingCallback("m2"));
+    channel.close();
+    mockChannel.channelHandler.shutdownListeners.get(0).shutdownCompleted(
+        new ShutdownSignalException(false, true, null, null));
+
+    assertEquals(events, Arrays.asList("m1-failure", "m2-failure"));
+  }
+
+  /**
+   * Returns the last of the {@code count} ConfirmListeners that were added to the {@code channel}.
+   */
+  private ConfirmListener confirmListenerFor(Channel channel, int count) {
+    ArgumentCaptor<ConfirmListener> captor = ArgumentCaptor.forClass(ConfirmListener.class);
+    verify(channel, times(count)).addConfirmListener(captor.capture());
+    return captor.getValue();
+  }
+}
@@ -0,0 +1,152 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jodah.lyra.ConnectionGroup;
+import net.jodah.lyra.ConnectionGroup.Strategy;
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.Connections;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.ConfigurableConnection;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+/**
+ * Tests channels created via a {@link ConnectionGroup}.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class ConnectionGroupTest {
+  Connection[] connections;
+  ConnectionOptions options;
+
+  @BeforeMethod
+  protected void beforeMethod() throws Exception {
+    connections = new Connection[3];
+    for (int i = 0; i < connections.length; i++)
+      connections[i] = mockConnection();
+    ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+    when(connectionFactory.getVirtualHost()).thenReturn("/");
+    when(connectionFactory.newConnection(any(ExecutorService.class), any(Address[].class),
+        anyString())).thenReturn(connections[0], connections[1], connections[2]);
+    options = new ConnectionOptions().withHost("test-host").withConnectionFactory(
+        connectionFactory);
+  }
+
+  public void shouldCreateChannelsRoundRobin() throws Throwable {
+    ConnectionGroup group = createGroup(3, Strategy.ROUND_ROBIN);
+    for (int i = 0; i < 6; i++)
+      group.createChannel();
+
+    for (Connection connection : connections)
+      verify(connection, times(2)).createChannel();
+  }
+
+  public void shouldCreateChannelsOnLeastLoadedConnection() throws Throwable {
+    ConnectionGroup group = createGroup(2, Strategy.LEAST_LOADED);
+    ConfigurableChannel[] channels = new ConfigurableChannel[4];
+    for (int i = 0; i < channels.length; i++)
+      channels[i] = group.createChannel();
+    verify(connections[0], times(2)).createChannel();
+    verify(connections[1], times(2)).createChannel();
+
+    // Close the first connection's channels
+    for (ConfigurableChannel channel : channels)
+      if (channel.getConnection() == connections[0])
+        channel.close();
+    group.createChannel();
+    group.createChannel();
+    verify(connections[0], times(4)).createChannel();
+    verify(connections[1], times(2)).createChannel();
+  }
+
+  public void shouldSkipRecoveringConnections() throws Throwable {
+    ConnectionGroup group = createGroup(2, Strategy.ROUND_ROBIN);
+    ShardedConnectionGroup.handlerFor(group.getConnections().get(0)).circuit.open();
+    for (int i = 0; i < 4; i++)
+      assertSame(group.getConnection(), group.getConnections().get(1));
+
+    ShardedConnectionGroup.handlerFor(group.getConnections().get(1)).circuit.open();
+    group.getConnection();
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldThrowOnInvalidSize() throws Throwable {
+    Connections.createGroup(new ConnectionOptions(), new Config(), 0, Strategy.ROUND_ROBIN);
+  }
+
+  public void shouldCloseConnections() throws Throwable {
+    ConnectionGroup group = createGroup(3, Strategy.ROUND_ROBIN);
+    group.close();
+    for (Connection connection : connections)
+      verify(connection).close();
+
+    try {
+      group.createChannel();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  /**
+   * Creates a group of the first {@code size} mock connections. Connections are created directly
+   * since {@link Connections#createGroup} copies the options, replacing the mock connection factory.
+   */
+  private ConnectionGroup createGroup(int size, Strategy strategy) throws Exception {
+    List<ConfigurableConnection> proxies = new ArrayList<ConfigurableConnection>();
+    for (int i = 0; i < size; i++) {
+      ConnectionHandler handler = new ConnectionHandler(options, new Config(),
+          Connection.class.getClassLoader());
+      ConfigurableConnection proxy = (ConfigurableConnection) Proxy.newProxyInstance(
+          Connection.class.getClassLoader(), new Class<?>[] { ConfigurableConnection.class },
+          handler);
+      handler.createConnection(proxy);
+      proxies.add(proxy);
+    }
+    return new ShardedConnectionGroup(proxies, strategy);
+  }
+
+  private Connection mockConnection() throws IOException {
+    final Connection connection = mock(Connection.class);
+    InetAddress inetAddress = mock(InetAddress.class);
+    when(connection.getAddress()).thenReturn(inetAddress);
+    when(inetAddress.getHostAddress()).thenReturn("test-host");
+    when(connection.getPort()).thenReturn(5672);
+    final AtomicInteger channelNumbers = new AtomicInteger();
+    when(connection.createChannel()).thenAnswer(new Answer<Channel>() {
+      @Override
+      public Channel answer(InvocationOnMock invocation) throws Throwable {
+        Channel channel = mock(Channel.class);
+        when(channel.getChannelNumber()).thenReturn(channelNumbers.incrementAndGet());
+        when(channel.getConnection()).thenReturn(connection);
+        return channel;
+      }
+    });
+    return connection;
+  }
+}
@@ -0,0 +1,77 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+
+import net.jodah.lyra.DeliveryTagOffsetAwareConsumer;
+
+import org.mockito.ArgumentMatcher;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+
+@Test
+public class ConsumerDelegateTest extends AbstractFunctionalTest {
+  public void shouldPassEnvelopeThroughBeforeRecovery() throws Throwable {
+    mockConnection();
+    ChannelHandler channelHandler = mockChannel().channelHandler;
+    Consumer consumer = mock(Consumer.class);
+    Envelope envelope = new Envelope(5, false, "x", "rk");
+
+    new ConsumerDelegate(channelHandler, consumer).handleDelivery("tag", envelope, null, null);
+
+    verify(consumer).handleDelivery(eq("tag"), same(envelope), any(BasicProperties.class),
+        any(byte[].class));
+    assertEquals(channelHandler.maxDeliveryTag.get(), 5);
+  }
+
+  public void shouldTranslateDeliveryTagsAfterRecovery() throws Throwable {
+    mockConnection();
+    MockChannel mockChannel = mockChannel();
+    ChannelHandler channelHandler = mockChannel.channelHandler;
+    channelHandler.epoch = new ChannelHandler.RecoveryEpoch(mockChannel.delegate, 10);
+    Consumer consumer = mock(Consumer.class);
+
+    new ConsumerDelegate(channelHandler, consumer).handleDelivery("tag", new Envelope(5, false,
+        "x", "rk"), null, null);
+
+    verify(consumer).handleDelivery(eq("tag"), argThat(deliveryTag(15)),
+        any(BasicProperties.class), any(byte[].class));
+    assertEquals(channelHandler.maxDeliveryTag.get(), 15);
+  }
+
+  public void shouldPassDeliveryTagOffsetToOffsetAwareConsumers() throws Throwable {
+    mockConnection();
+    MockChannel mockChannel = mockChannel();
+    ChannelHandler channelHandler = mockChannel.channelHandler;
+    channelHandler.epoch = new ChannelHandler.RecoveryEpoch(mockChannel.delegate, 10);
+    DeliveryTagOffsetAwareConsumer consumer = mock(DeliveryTagOffsetAwareConsumer.class);
+    Envelope envelope = new Envelope(5, false, "x", "rk");
+
+    new ConsumerDelegate(channelHandler, consumer).handleDelivery("tag", envelope, null, null);
+
+    verify(consumer).handleDelivery(eq("tag"), same(envelope), eq(10L),
+        any(BasicProperties.class), any(byte[].class));
+    verify(consumer, never()).handleDelivery(anyString(), any(Envelope.class),
+        any(BasicProperties.class), any(byte[].class));
+    assertEquals(channelHandler.maxDeliveryTag.get(), 15);
+  }
+
+  static ArgumentMatcher<Envelope> deliveryTag(final long deliveryTag) {
+    return new ArgumentMatcher<Envelope>() {
+      @Override
+      public boolean matches(Object arg) {
+        return ((Envelope) arg).getDeliveryTag() == deliveryTag;
+      }
+    };
+  }
+}
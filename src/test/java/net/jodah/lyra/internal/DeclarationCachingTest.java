@@ -0,0 +1,147 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.Map;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.event.DefaultConnectionListener;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.Exchange;
+import com.rabbitmq.client.AMQP.Queue;
+import com.rabbitmq.client.Connection;
+
+/**
+ * Tests the caching of exchange, queue and binding declarations.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class DeclarationCachingTest extends AbstractFunctionalTest {
+  MockChannel channel;
+  Queue.DeclareOk queueDeclareOk;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    channel = mockChannel(1);
+    queueDeclareOk = new Queue.DeclareOk.Builder().queue("test-queue").build();
+    when(channel.delegate.exchangeDeclare("test-exchange", "topic")).thenReturn(
+        mock(Exchange.DeclareOk.class));
+    when(channel.delegate.queueDeclare("test-queue", false, false, false, null)).thenReturn(
+        queueDeclareOk);
+    when(channel.delegate.queueBind("test-queue", "test-exchange", "#")).thenReturn(
+        mock(Queue.BindOk.class));
+  }
+
+  public void shouldNotCacheByDefault() throws Throwable {
+    declareAll();
+    declareAll();
+    verify(channel.delegate, times(2)).exchangeDeclare("test-exchange", "topic");
+    verify(channel.delegate, times(2)).queueDeclare("test-queue", false, false, false, null);
+    verify(channel.delegate, times(2)).queueBind("test-queue", "test-exchange", "#");
+  }
+
+  public void shouldReturnCachedDeclarations() throws Throwable {
+    config.withDeclarationCaching(true);
+    declareAll();
+    assertSame(channel.proxy.queueDeclare("test-queue", false, false, false, null), queueDeclareOk);
+    declareAll();
+    verify(channel.delegate).exchangeDeclare("test-exchange", "topic");
+    verify(channel.delegate).queueDeclare("test-queue", false, false, false, null);
+    verify(channel.delegate).queueBind("test-queue", "test-exchange", "#");
+
+    // Different arguments are a different declaration
+    when(channel.delegate.queueDeclare("test-queue", true, false, false, null)).thenReturn(
+        queueDeclareOk);
+    channel.proxy.queueDeclare("test-queue", true, false, false, null);
+    verify(channel.delegate).queueDeclare("test-queue", true, false, false, null);
+  }
+
+  public void shouldNotCacheServerNamedQueues() throws Throwable {
+    config.withDeclarationCaching(true);
+    when(channel.delegate.queueDeclare()).thenReturn(queueDeclareOk);
+    channel.proxy.queueDeclare();
+    channel.proxy.queueDeclare();
+    verify(channel.delegate, times(2)).queueDeclare();
+  }
+
+  public void shouldNotCacheDeclarationsTheBrokerMayRemove() throws Throwable {
+    config.withDeclarationCaching(true);
+    Map<String, Object> expires = Collections.<String, Object>singletonMap("x-expires", 60000);
+    when(channel.delegate.queueDeclare("test-queue", false, false, true, null)).thenReturn(
+        queueDeclareOk);
+    when(channel.delegate.queueDeclare("test-queue", false, false, false, expires)).thenReturn(
+        queueDeclareOk);
+    for (int i = 0; i < 2; i++) {
+      channel.proxy.exchangeDeclare("test-exchange", "topic", false, true, null);
+      channel.proxy.queueDeclare("test-queue", false, false, true, null);
+      channel.proxy.queueDeclare("test-queue", false, false, false, expires);
+      channel.proxy.queueBind("test-queue", "test-exchange", "#");
+    }
+
+    verify(channel.delegate, times(2)).exchangeDeclare("test-exchange", "topic", false, true, null);
+    verify(channel.delegate, times(2)).queueDeclare("test-queue", false, false, true, null);
+    verify(channel.delegate, times(2)).queueDeclare("test-queue", false, false, false, expires);
+    verify(channel.delegate, times(2)).queueBind("test-queue", "test-exchange", "#");
+    assertEquals(connectionHandler.declarationCache.size(), 0);
+  }
+
+  public void shouldInvalidateOnDeleteAndUnbind() throws Throwable {
+    config.withDeclarationCaching(true);
+    declareAll();
+
+    channel.proxy.queueUnbind("test-queue", "test-exchange", "#");
+    declareAll();
+    verify(channel.delegate).queueDeclare("test-queue", false, false, false, null);
+    verify(channel.delegate, times(2)).queueBind("test-queue", "test-exchange", "#");
+
+    channel.proxy.queueDelete("test-queue");
+    declareAll();
+    verify(channel.delegate, times(2)).queueDeclare("test-queue", false, false, false, null);
+    verify(channel.delegate, times(3)).queueBind("test-queue", "test-exchange", "#");
+
+    channel.proxy.exchangeDelete("test-exchange");
+    declareAll();
+    verify(channel.delegate, times(2)).exchangeDeclare("test-exchange", "topic");
+    verify(channel.delegate, times(2)).queueDeclare("test-queue", false, false, false, null);
+    verify(channel.delegate, times(4)).queueBind("test-queue", "test-exchange", "#");
+  }
+
+  public void shouldClearOnConnectionRecovery() throws Throwable {
+    config.withDeclarationCaching(true);
+    declareAll();
+    assertEquals(connectionHandler.declarationCache.size(), 3);
+
+    final Waiter waiter = new Waiter();
+    config.withConnectionListeners(new DefaultConnectionListener() {
+      @Override
+      public void onRecoveryCompleted(Connection connection) {
+        waiter.resume();
+      }
+    });
+    callShutdownListener(connectionHandler, retryableConnectionShutdownSignal());
+    waiter.await(1000);
+
+    assertEquals(connectionHandler.declarationCache.size(), 0);
+    declareAll();
+    verify(channel.delegate, times(2)).exchangeDeclare("test-exchange", "topic");
+  }
+
+  private void declareAll() throws Exception {
+    channel.proxy.exchangeDeclare("test-exchange", "topic");
+    channel.proxy.queueDeclare("test-queue", false, false, false, null);
+    channel.proxy.queueBind("test-queue", "test-exchange", "#");
+  }
+}
@@ -0,0 +1,186 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.jodah.lyra.config.AdaptivePrefetchPolicy;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.reactive.Delivery;
+import net.jodah.lyra.reactive.Publisher;
+import net.jodah.lyra.reactive.Subscriber;
+import net.jodah.lyra.reactive.Subscription;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * Tests publishing deliveries to subscribers.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class DeliveryPublisherTest extends AbstractFunctionalTest {
+  MockChannel channel;
+  Publisher<Delivery> publisher;
+  TestSubscriber subscriber;
+
+  static class TestSubscriber implements Subscriber<Delivery> {
+    final List<Delivery> deliveries = new CopyOnWriteArrayList<Delivery>();
+    volatile Subscription subscription;
+    volatile Throwable failure;
+    volatile boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Delivery delivery) {
+      deliveries.add(delivery);
+    }
+
+    @Override
+    public void onError(Throwable failure) {
+      this.failure = failure;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    channel = mockChannel(1);
+    when(channel.delegate.basicConsume(eq("test-queue"), eq(false), any(Consumer.class))).thenReturn(
+        "test-tag");
+    publisher = ((ConfigurableChannel) channel.proxy).deliveryPublisher("test-queue", 10);
+    subscriber = new TestSubscriber();
+    publisher.subscribe(subscriber);
+  }
+
+  public void shouldPublishDeliveriesOnDemand() throws Throwable {
+    verify(channel.delegate, never()).basicConsume(eq("test-queue"), eq(false),
+        any(Consumer.class));
+
+    subscriber.subscription.request(2);
+    verify(channel.delegate, timeout(1000)).basicQos(2, true);
+    Consumer consumer = consumer();
+    for (int i = 1; i <= 3; i++)
+      consumer.handleDelivery("test-tag", new Envelope(i, false, "x", "rk"), null, null);
+    assertEquals(subscriber.deliveries.size(), 2);
+
+    subscriber.subscription.request(1);
+    verify(channel.delegate, timeout(1000)).basicQos(1, true);
+    assertEquals(subscriber.deliveries.size(), 3);
+    assertEquals(subscriber.deliveries.get(2).getDeliveryTag(), 3);
+  }
+
+  public void shouldBoundPrefetchByMaxPrefetch() throws Throwable {
+    subscriber.subscription.request(Long.MAX_VALUE);
+    verify(channel.delegate, timeout(1000)).basicQos(10, true);
+  }
+
+  public void shouldSetPrefetchOffOfTheRequestingThread() throws Throwable {
+    final AtomicReference<Thread> qosThread = new AtomicReference<Thread>();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        qosThread.set(Thread.currentThread());
+        return null;
+      }
+    }).when(channel.delegate).basicQos(1, true);
+
+    subscriber.subscription.request(1);
+    verify(channel.delegate, timeout(1000)).basicQos(1, true);
+    assertTrue(qosThread.get() != Thread.currentThread());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldRejectAdaptivePrefetch() throws Throwable {
+    config.withAdaptivePrefetch(new AdaptivePrefetchPolicy());
+    ((ConfigurableChannel) channel.proxy).deliveryPublisher("test-queue", 10);
+  }
+
+  public void shouldRecoverWithoutSignallingSubscriber() throws Throwable {
+    subscriber.subscription.request(1);
+    Consumer consumer = consumer();
+    consumer.handleDelivery("test-tag", new Envelope(1, false, "x", "rk"), null, null);
+    consumer.handleDelivery("test-tag", new Envelope(2, false, "x", "rk"), null, null);
+
+    channel.channelHandler.channelShutdown();
+    consumer.handleShutdownSignal("test-tag", retryableChannelShutdownSignal());
+    channel.channelHandler.recoverChannel(false);
+    verify(channel.delegate, times(2)).basicQos(1, true);
+    verify(channel.delegate, times(2)).basicConsume(eq("test-queue"), eq(false),
+        any(Consumer.class));
+
+    // Delivery 2 is redelivered by the broker on the recovered channel rather than published
+    subscriber.subscription.request(1);
+    assertEquals(subscriber.deliveries.size(), 1);
+    consumer.handleDelivery("test-tag", new Envelope(1, true, "x", "rk"), null, null);
+    assertEquals(subscriber.deliveries.size(), 2);
+    assertEquals(subscriber.deliveries.get(1).getDeliveryTag(), 3);
+    assertEquals(subscriber.failure, null);
+    assertTrue(!subscriber.completed);
+  }
+
+  public void shouldCompleteWhenCancelledByBroker() throws Throwable {
+    subscriber.subscription.request(1);
+    consumer().handleCancel("test-tag");
+    assertTrue(subscriber.completed);
+  }
+
+  public void shouldRequeueUnpublishedDeliveriesWhenCancelled() throws Throwable {
+    subscriber.subscription.request(1);
+    Consumer consumer = consumer();
+    consumer.handleDelivery("test-tag", new Envelope(1, false, "x", "rk"), null, null);
+    consumer.handleDelivery("test-tag", new Envelope(2, false, "x", "rk"), null, null);
+
+    subscriber.subscription.cancel();
+    verify(channel.delegate).basicCancel("test-tag");
+    verify(channel.delegate).basicNack(2, false, true);
+    verify(channel.delegate, never()).basicNack(1, false, true);
+  }
+
+  public void shouldFailInvalidRequests() throws Throwable {
+    subscriber.subscription.request(0);
+    assertTrue(subscriber.failure instanceof IllegalArgumentException);
+  }
+
+  public void shouldRejectAdditionalSubscribers() throws Throwable {
+    TestSubscriber other = new TestSubscriber();
+    publisher.subscribe(other);
+    assertTrue(other.failure instanceof IllegalStateException);
+  }
+
+  private Consumer consumer() throws IOException {
+    verify(channel.delegate, timeout(1000)).basicConsume(eq("test-queue"), eq(false),
+        any(Consumer.class));
+    ResourceDeclaration declaration = channel.channelHandler.consumerDeclarations.get("test-tag");
+    return (Consumer) declaration.args[declaration.args.length - 1];
+  }
+}
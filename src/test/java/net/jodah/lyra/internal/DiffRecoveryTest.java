@@ -0,0 +1,164 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.event.DefaultConnectionListener;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.Queue;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+
+/**
+ * Tests connection recovery with {@link Config#withDiffRecovery(boolean) diff recovery} enabled.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class DiffRecoveryTest extends AbstractFunctionalTest {
+  Channel recoveryChannel;
+  MockChannel channel;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways())
+        .withDiffRecovery(true);
+    mockConnection();
+    recoveryChannel = mockRecoveryChannel();
+    Queue.DeclareOk recoveredDeclareOk = declareOk("amq.gen-2");
+    when(recoveryChannel.queueDeclare()).thenReturn(recoveredDeclareOk);
+    when(recoveryChannel.queueDeclare(anyString(), anyBoolean(), anyBoolean(), anyBoolean(),
+        anyMap())).thenAnswer(new DeclareOkAnswer());
+    createResources();
+  }
+
+  public void shouldOnlyRedeclareServerNamedQueuesWhenNothingIsMissing() throws Throwable {
+    performRecovery();
+
+    verify(recoveryChannel).exchangeDeclarePassive("x1");
+    verify(recoveryChannel).exchangeDeclarePassive("x2");
+    verify(recoveryChannel).queueDeclarePassive("q1");
+    verify(recoveryChannel, never()).exchangeDeclare(anyString(), anyString());
+    verify(recoveryChannel, never()).exchangeDeclare(anyString(), any(BuiltinExchangeType.class),
+        anyBoolean(), anyBoolean(), anyMap());
+    verify(recoveryChannel, never()).queueDeclare(anyString(), anyBoolean(), anyBoolean(),
+        anyBoolean(), anyMap());
+    verify(recoveryChannel, never()).exchangeBind(anyString(), anyString(), anyString(), anyMap());
+
+    // Server named queues never outlive a connection
+    verify(recoveryChannel, never()).queueDeclarePassive("amq.gen-1");
+    verify(recoveryChannel).queueDeclare();
+    verify(recoveryChannel).queueBind("amq.gen-2", "x2", "#", null);
+    verify(recoveryChannel, never()).queueBind("q1", "x1", "#", null);
+  }
+
+  public void shouldRedeclareMissingResourcesAndRebindTheirBindings() throws Throwable {
+    when(recoveryChannel.exchangeDeclarePassive("x1")).thenThrow(
+        new IOException(nonRetryableChannelShutdownSignal()));
+    performRecovery();
+
+    verify(recoveryChannel).exchangeDeclare("x1", "topic");
+    verify(recoveryChannel, never()).exchangeDeclare("x2", BuiltinExchangeType.DIRECT, false, true,
+        null);
+    verify(recoveryChannel, never()).queueDeclare("q1", false, false, true, null);
+    verify(recoveryChannel).exchangeBind("x2", "x1", "#", null);
+    verify(recoveryChannel).queueBind("q1", "x1", "#", null);
+    verify(recoveryChannel).queueBind("amq.gen-2", "x2", "#", null);
+  }
+
+  public void shouldStopCheckingOnceMostResourcesAreMissing() throws Throwable {
+    for (int i = 2; i <= 10; i++)
+      channel.proxy.queueDeclare("q" + i, false, false, true, null);
+    when(recoveryChannel.queueDeclarePassive(anyString())).thenThrow(
+        new IOException(nonRetryableChannelShutdownSignal()));
+    performRecovery();
+
+    verify(recoveryChannel, times(8)).queueDeclarePassive(anyString());
+    for (int i = 1; i <= 10; i++)
+      verify(recoveryChannel).queueDeclare("q" + i, false, false, true, null);
+    verify(recoveryChannel).queueBind("q1", "x1", "#", null);
+  }
+
+  public void shouldResumeCheckingOnceSampledResourcesExist() throws Throwable {
+    for (int i = 2; i <= 40; i++)
+      channel.proxy.queueDeclare("q" + i, false, false, true, null);
+    for (int i = 1; i <= 8; i++)
+      when(recoveryChannel.queueDeclarePassive("q" + i)).thenThrow(
+          new IOException(nonRetryableChannelShutdownSignal()));
+    performRecovery();
+
+    // q9 - q15 are assumed missing until q16 is sampled and found
+    for (int i = 1; i <= 15; i++)
+      verify(recoveryChannel).queueDeclare("q" + i, false, false, true, null);
+    for (int i = 16; i <= 40; i++) {
+      verify(recoveryChannel).queueDeclarePassive("q" + i);
+      verify(recoveryChannel, never()).queueDeclare("q" + i, false, false, true, null);
+    }
+  }
+
+  private void createResources() throws IOException {
+    channel = mockChannel(1);
+    when(channel.delegate.queueDeclare(anyString(), anyBoolean(), anyBoolean(), anyBoolean(),
+        anyMap())).thenAnswer(new DeclareOkAnswer());
+    Queue.DeclareOk serverNamedDeclareOk = declareOk("amq.gen-1");
+    when(channel.delegate.queueDeclare()).thenReturn(serverNamedDeclareOk);
+
+    channel.proxy.exchangeDeclare("x1", "topic");
+    channel.proxy.exchangeDeclare("x2", BuiltinExchangeType.DIRECT, false, true, null);
+    channel.proxy.exchangeBind("x2", "x1", "#", null);
+    channel.proxy.queueDeclare("q1", false, false, true, null);
+    channel.proxy.queueBind("q1", "x1", "#", null);
+    channel.proxy.queueDeclare();
+    channel.proxy.queueBind("amq.gen-1", "x2", "#", null);
+  }
+
+  private void performRecovery() throws Throwable {
+    final Waiter waiter = new Waiter();
+    config.withConnectionListeners(new DefaultConnectionListener() {
+      @Override
+      public void onRecoveryCompleted(Connection connection) {
+        waiter.resume();
+      }
+    });
+    callShutdownListener(connectionHandler, retryableConnectionShutdownSignal());
+    waiter.await(1000);
+  }
+
+  private static Queue.DeclareOk declareOk(String queueName) {
+    Queue.DeclareOk declareOk = mock(Queue.DeclareOk.class);
+    when(declareOk.getQueue()).thenReturn(queueName);
+    return declareOk;
+  }
+
+  /** Answers a named queue declaration with the declared name. */
+  static class DeclareOkAnswer implements Answer<Queue.DeclareOk> {
+    @Override
+    public Queue.DeclareOk answer(InvocationOnMock invocation) throws Throwable {
+      return declareOk((String) invocation.getArguments()[0]);
+    }
+  }
+}
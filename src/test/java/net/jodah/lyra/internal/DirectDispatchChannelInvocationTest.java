@@ -0,0 +1,81 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.config.Config;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+
+/**
+ * Performs the channel invocation tests against channels that dispatch invocations directly rather
+ * than through a dynamic proxy.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class DirectDispatchChannelInvocationTest extends ChannelInvocationTest {
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    options = new ConnectionOptions().withHost("test-host").withDirectDispatch();
+  }
+
+  /**
+   * Asserts that connections and channels are created as direct dispatching wrappers.
+   */
+  public void shouldCreateWrappers() throws Throwable {
+    mockConnection();
+    assertTrue(connectionProxy instanceof ConnectionWrapper);
+    assertTrue(mockChannel(1).proxy instanceof ChannelWrapper);
+  }
+
+  /**
+   * Asserts that a retryable channel shutdown on a directly dispatched publish results in the
+   * channel being recovered and the publish being retried.
+   */
+  public void shouldRetryPublishOnRetryableChannelClosure() throws Throwable {
+    mockConnection();
+    mockConsumer(1, 1);
+    Channel delegate = mockChannel(1).delegate;
+    doAnswer(failNTimes(2, retryableChannelShutdownSignal(), null, mockChannel(1).channelHandler))
+        .when(delegate)
+        .basicPublish(eq("x"), eq("rk"), eq(false), eq(false), any(BasicProperties.class),
+            any(byte[].class));
+
+    mockChannel(1).proxy.basicPublish("x", "rk", null, new byte[0]);
+
+    verifyChannelCreations(1, 3);
+    verifyConsumerCreations(1, 1, 3);
+    verify(delegate, times(3)).basicPublish(eq("x"), eq("rk"), eq(false), eq(false),
+        any(BasicProperties.class), any(byte[].class));
+  }
+
+  /**
+   * Asserts that failures on a directly dispatched publish are thrown as their original checked
+   * type.
+   */
+  @Test(expectedExceptions = IOException.class)
+  public void shouldThrowCheckedFailuresFromPublish() throws Throwable {
+    config = new Config();
+    mockConnection();
+    Channel delegate = mockChannel(1).delegate;
+    doAnswer(failNTimes(1, new IOException("test"), null, mockChannel(1).channelHandler)).when(
+        delegate).basicPublish(eq("x"), eq("rk"), eq(false), eq(false),
+        any(BasicProperties.class), any(byte[].class));
+
+    mockChannel(1).proxy.basicPublish("x", "rk", null, new byte[0]);
+  }
+}
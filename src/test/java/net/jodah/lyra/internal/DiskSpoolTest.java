@@ -0,0 +1,138 @@
+package net.jodah.lyra.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+@Test
+public class DiskSpoolTest {
+  File directory;
+
+  @BeforeMethod
+  protected void beforeMethod() throws IOException {
+    directory = File.createTempFile("lyra-spool", "");
+    directory.delete();
+  }
+
+  @AfterMethod
+  protected void afterMethod() {
+    File[] files = directory.listFiles();
+    if (files != null)
+      for (File file : files)
+        file.delete();
+    directory.delete();
+  }
+
+  public void shouldReadAppendedRecords() throws Throwable {
+    DiskSpool spool = new DiskSpool(directory, 1024);
+    Map<String, Object> headers = Collections.<String, Object>singletonMap("key", "value");
+    BasicProperties props = new BasicProperties.Builder().contentType("text/plain")
+        .headers(headers).deliveryMode(2).priority(5).messageId("id").timestamp(new Date(1000))
+        .build();
+    spool.append("x", "rk1", props, "body1".getBytes());
+    spool.append("x", "rk2", null, null);
+    spool.append("x", "rk3", new BasicProperties(), new byte[0]);
+    assertEquals(spool.size(), 3);
+
+    List<DiskSpool.Record> records = spool.read(10);
+    assertEquals(records.size(), 3);
+    DiskSpool.Record record = records.get(0);
+    assertEquals(record.exchange, "x");
+    assertEquals(record.routingKey, "rk1");
+    assertEquals(new String(record.body), "body1");
+    assertEquals(record.props.getContentType(), "text/plain");
+    assertEquals(record.props.getHeaders().get("key").toString(), "value");
+    assertEquals(record.props.getDeliveryMode(), Integer.valueOf(2));
+    assertEquals(record.props.getPriority(), Integer.valueOf(5));
+    assertEquals(record.props.getMessageId(), "id");
+    assertEquals(record.props.getTimestamp(), new Date(1000));
+    assertNull(records.get(1).props);
+    assertNull(records.get(1).body);
+    assertNull(records.get(2).props.getContentType());
+    assertEquals(records.get(2).body.length, 0);
+    assertTrue(spool.read(10).isEmpty());
+
+    spool.confirm(records);
+    assertTrue(spool.isEmpty());
+    assertEquals(spool.getSegmentCount(), 0);
+  }
+
+  public void shouldRollAndDeleteSegments() throws Throwable {
+    DiskSpool spool = new DiskSpool(directory, 1024);
+    for (int i = 0; i < 100; i++)
+      spool.append("x", "rk" + i, null, new byte[50]);
+    int segments = spool.getSegmentCount();
+    assertTrue(segments > 1);
+
+    List<DiskSpool.Record> records = spool.read(30);
+    assertEquals(records.get(29).routingKey, "rk29");
+    spool.confirm(records);
+    assertTrue(spool.getSegmentCount() < segments);
+    assertEquals(spool.size(), 70);
+
+    // Unconfirmed records are read again after a rewind
+    assertEquals(spool.read(10).get(0).routingKey, "rk30");
+    spool.rewind();
+    records = spool.read(100);
+    assertEquals(records.size(), 70);
+    assertEquals(records.get(0).routingKey, "rk30");
+    assertEquals(records.get(69).routingKey, "rk99");
+    spool.confirm(records);
+    assertEquals(directory.listFiles().length, 0);
+  }
+
+  public void shouldRecoverUnconfirmedRecordsWhenReopened() throws Throwable {
+    DiskSpool spool = new DiskSpool(directory, 1024);
+    for (int i = 0; i < 40; i++)
+      spool.append("x", "rk" + i, null, new byte[50]);
+    spool.confirm(spool.read(25));
+    spool.close();
+
+    spool = new DiskSpool(directory, 1024);
+    assertEquals(spool.size(), 15);
+    List<DiskSpool.Record> records = spool.read(100);
+    assertEquals(records.size(), 15);
+    assertEquals(records.get(0).routingKey, "rk25");
+
+    // Appends continue after the recovered records
+    spool.append("x", "rk40", null, new byte[50]);
+    assertEquals(spool.read(100).get(0).routingKey, "rk40");
+  }
+
+  public void shouldIgnoreCorruptRecordsWhenReopened() throws Throwable {
+    DiskSpool spool = new DiskSpool(directory, 1024);
+    spool.append("x", "rk1", null, new byte[10]);
+    spool.append("x", "rk2", null, new byte[10]);
+    spool.close();
+
+    // Corrupt the body of the second record
+    File segment = directory.listFiles()[0];
+    int recordSize = DiskSpool.RECORD_HEADER_SIZE
+        + DiskSpool.encode("x", "rk1", null, new byte[10]).length;
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try {
+      file.seek(DiskSpool.SEGMENT_HEADER_SIZE + recordSize + recordSize - 1);
+      file.write(1);
+    } finally {
+      file.close();
+    }
+
+    spool = new DiskSpool(directory, 1024);
+    assertEquals(spool.size(), 1);
+    assertEquals(spool.read(10).get(0).routingKey, "rk1");
+  }
+}
@@ -0,0 +1,136 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.ConnectionOptions;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.config.PublishBufferPolicy;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.event.DefaultConnectionListener;
+import net.jodah.lyra.util.Duration;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.Connection;
+
+/**
+ * Tests connection recovery with {@link Config#withLazyChannelRecovery(boolean) lazy channel
+ * recovery} enabled.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class LazyChannelRecoveryTest extends AbstractFunctionalTest {
+  static final byte[] BODY = new byte[0];
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways())
+        .withLazyChannelRecovery(true);
+  }
+
+  public void shouldRecoverIdleChannelsWhenNextUsed() throws Throwable {
+    mockConnection();
+    MockChannel idleChannel = mockChannel(1);
+    mockConsumer(2, 1);
+    performRecovery();
+
+    // Channels with consumers are recovered along with the connection
+    verifyChannelCreations(1, 1);
+    verifyChannelCreations(2, 2);
+    verifyConsumerCreations(2, 1, 2);
+
+    idleChannel.proxy.basicQos(10);
+    verifyChannelCreations(1, 2);
+    verify(idleChannel.delegate).basicQos(10);
+  }
+
+  public void shouldRecoverIdleChannelsWhenNextUsedViaDirectDispatch() throws Throwable {
+    options = new ConnectionOptions().withHost("test-host").withDirectDispatch();
+    mockConnection();
+    MockChannel idleChannel = mockChannel(1);
+    performRecovery();
+    verifyChannelCreations(1, 1);
+
+    idleChannel.proxy.basicPublish("x", "rk", null, BODY);
+    verifyChannelCreations(1, 2);
+    verify(idleChannel.delegate).basicPublish("x", "rk", false, false, null, BODY);
+
+    performRecovery();
+    idleChannel.proxy.basicAck(1, false);
+    verifyChannelCreations(1, 3);
+  }
+
+  public void shouldRecoverIdleChannelsWhenPublishingToABuffer() throws Throwable {
+    options = new ConnectionOptions().withHost("test-host").withDirectDispatch();
+    config.withPublishBuffer(new PublishBufferPolicy().withMaxMessages(1));
+    mockConnection();
+    MockChannel idleChannel = mockChannel(1);
+    performRecovery();
+
+    // Publishes would otherwise be buffered until a recovery that never comes
+    idleChannel.proxy.basicPublish("x", "rk1", null, BODY);
+    idleChannel.proxy.basicPublish("x", "rk2", null, BODY);
+    verifyChannelCreations(1, 2);
+    verify(idleChannel.delegate).basicPublish("x", "rk1", false, false, null, BODY);
+    verify(idleChannel.delegate).basicPublish("x", "rk2", false, false, null, BODY);
+  }
+
+  public void shouldRecoverIdleChannelsWhenNextUsedAsynchronously() throws Throwable {
+    mockConnection();
+    MockChannel idleChannel = mockChannel(1);
+    performRecovery();
+
+    ((ConfigurableChannel) idleChannel.proxy).basicPublishAsync("x", "rk", null, BODY).get(1,
+        TimeUnit.SECONDS);
+    verify(connection, timeout(1000).times(2)).createChannel(1);
+  }
+
+  public void shouldCloseIdleChannelsWithoutRecoveringThem() throws Throwable {
+    mockConnection();
+    MockChannel idleChannel = mockChannel(1);
+    performRecovery();
+
+    idleChannel.proxy.close();
+    verifyChannelCreations(1, 1);
+    verify(idleChannel.delegate, never()).close();
+    assertTrue(idleChannel.channelHandler.closed);
+  }
+
+  public void shouldRecoverIdleChannelsAfterRepeatedConnectionRecoveries() throws Throwable {
+    mockConnection();
+    MockChannel idleChannel = mockChannel(1);
+    performRecovery();
+    performRecovery();
+    verifyChannelCreations(1, 1);
+
+    idleChannel.proxy.basicQos(10);
+    verifyChannelCreations(1, 2);
+    assertTrue(idleChannel.channelHandler.circuit.isClosed());
+  }
+
+  private void performRecovery() throws Throwable {
+    final Waiter waiter = new Waiter();
+    config.withConnectionListeners(new DefaultConnectionListener() {
+      @Override
+      public void onRecoveryCompleted(Connection connection) {
+        waiter.resume();
+      }
+    });
+    callShutdownListener(connectionHandler, retryableConnectionShutdownSignal());
+    waiter.await(1000);
+  }
+}
@@ -0,0 +1,126 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.net.SocketTimeoutException;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.event.DefaultConnectionListener;
+import net.jodah.lyra.metrics.DefaultMetrics;
+import net.jodah.lyra.metrics.RecoveryPhase;
+import net.jodah.lyra.util.Duration;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * Tests that connections and channels record to their configured {@link DefaultMetrics}.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class MetricsTest extends AbstractFunctionalTest {
+  static final byte[] BODY = new byte[0];
+  DefaultMetrics metrics;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    metrics = new DefaultMetrics();
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways())
+        .withMetrics(metrics);
+    mockConnection();
+  }
+
+  public void shouldRecordChannelCounters() throws Throwable {
+    MockChannel channel = mockChannel(1);
+    channel.proxy.basicPublish("x", "rk", null, BODY);
+    channel.proxy.basicPublish("x", "rk", true, null, BODY);
+    channel.proxy.basicAck(1, false);
+    channel.proxy.basicNack(2, false, true);
+    channel.proxy.basicReject(3, false);
+    new ConsumerDelegate(channel.channelHandler, mock(Consumer.class)).handleDelivery("tag",
+        new Envelope(4, false, "x", "rk"), new BasicProperties(), BODY);
+
+    DefaultMetrics.Counters counters =
+        metrics.getChannelCounters(channel.channelHandler.toString());
+    assertEquals(counters.getPublishCount(), 2);
+    assertEquals(counters.getAckCount(), 1);
+    assertEquals(counters.getNackCount(), 1);
+    assertEquals(counters.getRejectCount(), 1);
+    assertEquals(counters.getDeliveryCount(), 1);
+
+    // Counts are retained after the channel is closed
+    channel.proxy.close();
+    assertNull(metrics.getChannelCounters(channel.channelHandler.toString()));
+    assertEquals(metrics.getPublishCount(), 2);
+    assertEquals(metrics.getDeliveryCount(), 1);
+  }
+
+  public void shouldRecordRetries() throws Throwable {
+    MockChannel channel = mockChannel(1);
+    doThrow(new SocketTimeoutException()).doNothing().when(channel.delegate)
+        .basicPublish("x", "rk", null, BODY);
+    channel.proxy.basicPublish("x", "rk", null, BODY);
+
+    assertEquals(metrics.getRetryCount(), 1);
+    assertEquals(metrics.getPublishCount(), 1);
+    assertEquals(metrics.getCircuitWaitCount(), 0);
+  }
+
+  public void shouldRecordCircuitWaitsAndChannelRecovery() throws Throwable {
+    MockChannel channel = mockChannel(1);
+    when(channel.delegate.exchangeDeclare("x", "topic")).thenAnswer(
+        failNTimes(1, retryableChannelShutdownSignal(), null, channel.channelHandler));
+    channel.proxy.exchangeDeclare("x", "topic");
+
+    assertEquals(metrics.getRetryCount(), 1);
+    assertEquals(metrics.getCircuitWaitCount(), 1);
+    assertTrue(metrics.getCircuitWaitNanos() > 0);
+    assertEquals(metrics.getRecoveryDurations(RecoveryPhase.CHANNEL).getCount(), 1);
+    assertEquals(metrics.getCircuitOpenDurations().getCount(), 1);
+    assertTrue(metrics.getOpenCircuits().isEmpty());
+  }
+
+  public void shouldRecordConnectionRecoveryPhases() throws Throwable {
+    mockConsumer(1, 1);
+    final Waiter waiter = new Waiter();
+    config.withConnectionListeners(new DefaultConnectionListener() {
+      @Override
+      public void onRecoveryStarted(Connection connection) {
+        waiter.assertTrue(metrics.isCircuitOpen(connectionHandler.toString()));
+      }
+
+      @Override
+      public void onRecoveryCompleted(Connection connection) {
+        waiter.resume();
+      }
+    });
+    callShutdownListener(connectionHandler, retryableConnectionShutdownSignal());
+    waiter.await(1000);
+
+    for (RecoveryPhase phase : RecoveryPhase.values())
+      assertEquals(metrics.getRecoveryDurations(phase).getCount(), 1, phase.toString());
+    Thread.sleep(50);
+    assertFalse(metrics.isCircuitOpen(connectionHandler.toString()));
+    assertTrue(metrics.getOpenCircuits().isEmpty());
+    assertEquals(metrics.getCircuitOpenDurations().getCount(), 2);
+  }
+}
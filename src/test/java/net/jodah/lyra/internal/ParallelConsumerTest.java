@@ -0,0 +1,179 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.ParallelConsumer;
+import net.jodah.lyra.ParallelConsumer.DeliveryHandler;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * Tests the parallel handling of deliveries via a {@link ParallelConsumer}.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class ParallelConsumerTest extends AbstractFunctionalTest {
+  MockChannel channel;
+  ExecutorService executor;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    channel = mockChannel(1);
+    when(channel.delegate.basicConsume(eq("test-queue"), eq(false), any(Consumer.class))).thenReturn(
+        "test-tag");
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterMethod
+  protected void afterMethod() {
+    executor.shutdownNow();
+  }
+
+  public void shouldOnlyAckContiguousCompletedDeliveries() throws Throwable {
+    final CountDownLatch firstLatch = new CountDownLatch(1);
+    final CountDownLatch othersHandled = new CountDownLatch(2);
+    ParallelConsumer consumer = consume(new DeliveryHandler() {
+      @Override
+      public void handleDelivery(String consumerTag, Envelope envelope,
+          BasicProperties properties, byte[] body) throws Exception {
+        if (envelope.getDeliveryTag() == 1)
+          firstLatch.await();
+        else
+          othersHandled.countDown();
+      }
+    });
+
+    deliver(1, "a");
+    deliver(2, "b");
+    deliver(3, "c");
+    othersHandled.await(1, TimeUnit.SECONDS);
+    Thread.sleep(50);
+    verify(channel.delegate, never()).basicAck(anyLong(), anyBoolean());
+    assertEquals(consumer.getPendingCount(), 3);
+
+    firstLatch.countDown();
+    awaitHandled(consumer);
+    verify(channel.delegate).basicAck(3, true);
+  }
+
+  public void shouldPreserveOrderPerKey() throws Throwable {
+    final Map<String, List<Long>> handled = new ConcurrentHashMap<String, List<Long>>();
+    for (String key : new String[] { "a", "b", "c", "d", "e" })
+      handled.put(key, new CopyOnWriteArrayList<Long>());
+    ParallelConsumer consumer = consume(new DeliveryHandler() {
+      @Override
+      public void handleDelivery(String consumerTag, Envelope envelope,
+          BasicProperties properties, byte[] body) throws Exception {
+        Thread.sleep((envelope.getDeliveryTag() * 7) % 3);
+        handled.get(envelope.getRoutingKey()).add(envelope.getDeliveryTag());
+      }
+    });
+
+    String[] keys = handled.keySet().toArray(new String[0]);
+    for (int i = 1; i <= 100; i++)
+      deliver(i, keys[i % keys.length]);
+
+    awaitHandled(consumer);
+    verify(channel.delegate).basicAck(100, true);
+    for (List<Long> tags : handled.values()) {
+      assertEquals(tags.size(), 20);
+      List<Long> sorted = new CopyOnWriteArrayList<Long>(tags);
+      Collections.sort(sorted);
+      assertEquals(tags, sorted);
+    }
+  }
+
+  public void shouldNackFailedDeliveries() throws Throwable {
+    ParallelConsumer consumer = consume(new DeliveryHandler() {
+      @Override
+      public void handleDelivery(String consumerTag, Envelope envelope,
+          BasicProperties properties, byte[] body) throws Exception {
+        if (envelope.getDeliveryTag() == 2)
+          throw new IllegalStateException();
+      }
+    });
+
+    deliver(1, "a");
+    deliver(2, "a");
+    deliver(3, "a");
+    awaitHandled(consumer);
+    verify(channel.delegate).basicNack(2, false, false);
+    verify(channel.delegate).basicAck(3, true);
+  }
+
+  public void shouldBeRecoveredWithChannel() throws Throwable {
+    final CountDownLatch latch = new CountDownLatch(1);
+    ParallelConsumer consumer = consume(new DeliveryHandler() {
+      @Override
+      public void handleDelivery(String consumerTag, Envelope envelope,
+          BasicProperties properties, byte[] body) throws Exception {
+        latch.await();
+      }
+    });
+    deliver(1, "a");
+    deliver(2, "a");
+
+    // Undelivered deliveries are discarded since they are redelivered after recovery
+    channel.channelHandler.channelShutdown();
+    consumer().handleShutdownSignal("test-tag", retryableChannelShutdownSignal());
+    channel.channelHandler.recoverChannel(false);
+    verify(channel.delegate, times(2)).basicConsume(eq("test-queue"), eq(false),
+        any(Consumer.class));
+    assertEquals(consumer.getPendingCount(), 0);
+
+    latch.countDown();
+    deliver(1, "a");
+    awaitHandled(consumer);
+    verify(channel.delegate).basicAck(1, true);
+  }
+
+  private ParallelConsumer consume(DeliveryHandler handler) throws Exception {
+    ParallelConsumer consumer = new ParallelConsumer(channel.proxy, executor, 4, handler);
+    channel.proxy.basicConsume("test-queue", false, consumer);
+    return consumer;
+  }
+
+  private void awaitHandled(ParallelConsumer consumer) throws InterruptedException {
+    for (int i = 0; i < 500 && consumer.getPendingCount() > 0; i++)
+      Thread.sleep(10);
+    assertEquals(consumer.getPendingCount(), 0);
+  }
+
+  private Consumer consumer() {
+    ResourceDeclaration declaration = channel.channelHandler.consumerDeclarations.get("test-tag");
+    return (Consumer) declaration.args[declaration.args.length - 1];
+  }
+
+  private void deliver(long deliveryTag, String routingKey) throws Exception {
+    consumer().handleDelivery("test-tag", new Envelope(deliveryTag, false, "x", routingKey), null,
+        null);
+  }
+}
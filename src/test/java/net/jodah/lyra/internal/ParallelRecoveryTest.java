@@ -0,0 +1,133 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.event.DefaultConnectionListener;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.Queue;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+
+/**
+ * Tests connection recovery with a {@link Config#withRecoveryParallelism(int) recovery parallelism}
+ * greater than 1.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class ParallelRecoveryTest extends AbstractFunctionalTest {
+  static final int WORKERS = 3;
+  List<String> recoveries;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    recoveries = Collections.synchronizedList(new ArrayList<String>());
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways())
+        .withRecoveryParallelism(WORKERS);
+    mockConnection();
+  }
+
+  public void shouldRecoverTopologyThenChannelsInParallel() throws Throwable {
+    for (int i = 0; i < WORKERS; i++)
+      mockWorkerChannel(ConnectionHandler.RECOVERY_CHANNEL_NUM + i);
+
+    MockChannel channel = mockChannel(1);
+    when(channel.delegate.queueDeclare(anyString(), anyBoolean(), anyBoolean(), anyBoolean(),
+        anyMap())).thenAnswer(declareOk());
+    for (int i = 0; i < 10; i++) {
+      channel.proxy.exchangeDeclare("x" + i, "topic");
+      channel.proxy.queueDeclare("q" + i, false, false, true, null);
+      channel.proxy.queueBind("q" + i, "x" + i, "#", null);
+    }
+    for (int i = 2; i <= 6; i++)
+      mockConsumer(i, 1);
+
+    final Waiter waiter = new Waiter();
+    config.withConnectionListeners(new DefaultConnectionListener() {
+      @Override
+      public void onRecoveryCompleted(Connection connection) {
+        waiter.resume();
+      }
+    });
+    callShutdownListener(connectionHandler, retryableConnectionShutdownSignal());
+    waiter.await(2000);
+
+    // Each resource is recovered once, with bindings recovered after declarations
+    assertEquals(recoveries.size(), 30);
+    assertEquals(new HashSet<String>(recoveries).size(), 30);
+    for (int i = 20; i < 30; i++)
+      assertTrue(recoveries.get(i).startsWith("binding"));
+
+    // Each worker recovers via its own channel
+    for (int i = 0; i < WORKERS; i++)
+      verifyChannelCreations(ConnectionHandler.RECOVERY_CHANNEL_NUM + i, 1);
+    for (int i = 1; i <= 6; i++)
+      verifyChannelCreations(i, 2);
+    for (int i = 2; i <= 6; i++)
+      verifyConsumerCreations(i, 1, 2);
+  }
+
+  private void mockWorkerChannel(int channelNumber) throws IOException {
+    Channel channel = mock(Channel.class);
+    when(channel.getChannelNumber()).thenReturn(channelNumber);
+    when(channel.isOpen()).thenReturn(true);
+    when(connection.createChannel(eq(channelNumber))).thenReturn(channel);
+    when(channel.exchangeDeclare(anyString(), anyString())).thenAnswer(record("exchange", null));
+    when(channel.queueDeclare(anyString(), anyBoolean(), anyBoolean(), anyBoolean(), anyMap()))
+        .thenAnswer(record("queue", declareOk()));
+    when(channel.queueBind(anyString(), anyString(), anyString(), anyMap())).thenAnswer(
+        record("binding", null));
+  }
+
+  /**
+   * Records a recovery, taking long enough for recovery to be spread across workers.
+   */
+  private Answer<Object> record(final String type, final Answer<?> answer) {
+    return new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        Thread.sleep(5);
+        recoveries.add(type + "-" + invocation.getArguments()[0]);
+        return answer == null ? null : answer.answer(invocation);
+      }
+    };
+  }
+
+  private Answer<Queue.DeclareOk> declareOk() {
+    return new Answer<Queue.DeclareOk>() {
+      @Override
+      public Queue.DeclareOk answer(InvocationOnMock invocation) throws Throwable {
+        Queue.DeclareOk declareOk = mock(Queue.DeclareOk.class);
+        when(declareOk.getQueue()).thenReturn((String) invocation.getArguments()[0]);
+        return declareOk;
+      }
+    };
+  }
+}
@@ -0,0 +1,137 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.event.DefaultConnectionListener;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.Queue;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+
+/**
+ * Tests connection recovery with {@link Config#withPipelinedRecovery(boolean) pipelined recovery}
+ * enabled.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class PipelinedRecoveryTest extends AbstractFunctionalTest {
+  Channel recoveryChannel;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways())
+        .withPipelinedRecovery(true);
+    mockConnection();
+    recoveryChannel = mockRecoveryChannel();
+    Queue.DeclareOk recoveredDeclareOk = declareOk("amq.gen-2");
+    when(recoveryChannel.queueDeclare()).thenReturn(recoveredDeclareOk);
+    createResources();
+  }
+
+  public void shouldPipelineNamedResources() throws Throwable {
+    performRecovery();
+
+    verify(recoveryChannel).exchangeDeclareNoWait("x1", "topic", false, false, false, null);
+    verify(recoveryChannel).exchangeDeclareNoWait("x2", "direct", false, true, false, null);
+    verify(recoveryChannel).queueDeclareNoWait("q1", false, false, true, null);
+    verify(recoveryChannel).queueBindNoWait("q1", "x1", "#", null);
+    verify(recoveryChannel).exchangeBindNoWait("x2", "x1", "#", null);
+    verify(recoveryChannel, times(2)).basicQos(0);
+
+    // Server named queues are declared synchronously, with bindings that use the new name
+    verify(recoveryChannel).queueDeclare();
+    verify(recoveryChannel).queueBindNoWait("amq.gen-2", "x2", "#", null);
+    verify(recoveryChannel, never()).exchangeDeclare(anyString(), anyString());
+    verify(recoveryChannel, never()).queueBind(anyString(), anyString(), anyString(), anyMap());
+  }
+
+  public void shouldRecoverIndividuallyWhenBarrierFails() throws Throwable {
+    doThrow(new IOException(nonRetryableChannelShutdownSignal())).doNothing()
+        .when(recoveryChannel).basicQos(0);
+    performRecovery();
+
+    verify(recoveryChannel).exchangeDeclareNoWait("x1", "topic", false, false, false, null);
+    verify(recoveryChannel).exchangeDeclare("x1", "topic");
+    verify(recoveryChannel).exchangeDeclare("x2", BuiltinExchangeType.DIRECT, false, true, null);
+    verify(recoveryChannel).queueDeclare("q1", false, false, true, null);
+    verify(recoveryChannel, never()).queueBind(anyString(), anyString(), anyString(), anyMap());
+  }
+
+  public void shouldRecoverViaAnyChannelNumberWhenRecoveryChannelNumberIsTaken() throws Throwable {
+    when(connection.createChannel(eq(ConnectionHandler.RECOVERY_CHANNEL_NUM))).thenReturn(null);
+    when(connection.createChannel()).thenAnswer(new Answer<Channel>() {
+      @Override
+      public Channel answer(InvocationOnMock invocation) throws Throwable {
+        when(recoveryChannel.isOpen()).thenReturn(true);
+        return recoveryChannel;
+      }
+    });
+    performRecovery();
+
+    verify(connection).createChannel();
+    verify(recoveryChannel).exchangeDeclareNoWait("x1", "topic", false, false, false, null);
+    verify(recoveryChannel).queueBindNoWait("q1", "x1", "#", null);
+  }
+
+  private void createResources() throws IOException {
+    MockChannel channel = mockChannel(1);
+    Queue.DeclareOk namedDeclareOk = declareOk("q1");
+    Queue.DeclareOk serverNamedDeclareOk = declareOk("amq.gen-1");
+    when(channel.delegate.queueDeclare(anyString(), anyBoolean(), anyBoolean(), anyBoolean(),
+        anyMap())).thenReturn(namedDeclareOk);
+    when(channel.delegate.queueDeclare()).thenReturn(serverNamedDeclareOk);
+
+    channel.proxy.exchangeDeclare("x1", "topic");
+    channel.proxy.exchangeDeclare("x2", BuiltinExchangeType.DIRECT, false, true, null);
+    channel.proxy.exchangeBind("x2", "x1", "#", null);
+    channel.proxy.queueDeclare("q1", false, false, true, null);
+    channel.proxy.queueBind("q1", "x1", "#", null);
+    channel.proxy.queueDeclare();
+    channel.proxy.queueBind("amq.gen-1", "x2", "#", null);
+  }
+
+  private void performRecovery() throws Throwable {
+    final Waiter waiter = new Waiter();
+    config.withConnectionListeners(new DefaultConnectionListener() {
+      @Override
+      public void onRecoveryCompleted(Connection connection) {
+        waiter.resume();
+      }
+    });
+    callShutdownListener(connectionHandler, retryableConnectionShutdownSignal());
+    waiter.await(1000);
+  }
+
+  private Queue.DeclareOk declareOk(String queueName) {
+    Queue.DeclareOk declareOk = mock(Queue.DeclareOk.class);
+    when(declareOk.getQueue()).thenReturn(queueName);
+    return declareOk;
+  }
+}
@@ -0,0 +1,147 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import net.jodah.concurrentunit.Waiter;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.PublishBufferPolicy;
+import net.jodah.lyra.config.PublishBufferPolicy.OverflowStrategy;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.metrics.DefaultMetrics;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AlreadyClosedException;
+
+/**
+ * Tests publishes that are buffered while a channel is being recovered.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class PublishBufferTest extends AbstractFunctionalTest {
+  static final byte[] BODY = new byte[10];
+  DefaultMetrics metrics;
+  MockChannel channel;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    metrics = new DefaultMetrics();
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways())
+        .withMetrics(metrics)
+        .withPublishBuffer(new PublishBufferPolicy().withMaxMessages(2));
+    mockConnection();
+    channel = mockChannel(1);
+    when(channel.delegate.getCloseReason()).thenReturn(retryableChannelShutdownSignal());
+  }
+
+  public void shouldBufferPublishesUntilRecovered() throws Throwable {
+    channel.channelHandler.channelShutdown();
+    channel.proxy.basicPublish("x", "rk1", null, BODY);
+    channel.proxy.basicPublish("x", "rk2", true, null, BODY);
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, false, null, BODY);
+    assertEquals(counters().getPublishBufferDepth(), 2);
+
+    channel.channelHandler.recoverChannel(false);
+    InOrder inOrder = inOrder(channel.delegate);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk1", false, false, null, BODY);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk2", true, false, null, BODY);
+    assertEquals(counters().getDrainedCount(), 2);
+    assertEquals(counters().getPublishBufferDepth(), 0);
+    assertTrue(counters().getDrainRate() > 0);
+
+    // Publishes are sent directly once recovered
+    channel.proxy.basicPublish("x", "rk3", null, BODY);
+    verify(channel.delegate).basicPublish("x", "rk3", null, BODY);
+    assertEquals(metrics.getPublishCount(), 3);
+  }
+
+  public void shouldDropOldestPublishesWhenFull() throws Throwable {
+    config.getPublishBufferPolicy().withOverflowStrategy(OverflowStrategy.DROP_OLDEST);
+    channel.channelHandler.channelShutdown();
+    for (int i = 1; i <= 3; i++)
+      channel.proxy.basicPublish("x", "rk" + i, null, BODY);
+
+    channel.channelHandler.recoverChannel(false);
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, false, null, BODY);
+    verify(channel.delegate).basicPublish("x", "rk2", false, false, null, BODY);
+    verify(channel.delegate).basicPublish("x", "rk3", false, false, null, BODY);
+    assertEquals(counters().getDroppedCount(), 1);
+  }
+
+  public void shouldFailPublishesWhenFull() throws Throwable {
+    config.getPublishBufferPolicy().withOverflowStrategy(OverflowStrategy.FAIL).withMaxBytes(15);
+    channel.channelHandler.channelShutdown();
+    channel.proxy.basicPublish("x", "rk1", null, BODY);
+
+    try {
+      channel.proxy.basicPublish("x", "rk2", null, BODY);
+      fail();
+    } catch (AlreadyClosedException expected) {
+    }
+    assertEquals(counters().getBufferedCount(), 1);
+  }
+
+  public void shouldBlockPublishesWhenFull() throws Throwable {
+    final Waiter waiter = new Waiter();
+    channel.channelHandler.channelShutdown();
+    channel.proxy.basicPublish("x", "rk1", null, BODY);
+    channel.proxy.basicPublish("x", "rk2", null, BODY);
+
+    runInThread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          channel.proxy.basicPublish("x", "rk3", null, BODY);
+          waiter.assertEquals(channel.channelHandler.circuit.isClosed(), true);
+          waiter.resume();
+        } catch (Exception e) {
+          waiter.fail(e);
+        }
+      }
+    });
+
+    Thread.sleep(100);
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, false, null, BODY);
+    channel.channelHandler.recoverChannel(false);
+    waiter.await(1000);
+
+    InOrder inOrder = inOrder(channel.delegate);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk1", false, false, null, BODY);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk2", false, false, null, BODY);
+  }
+
+  public void shouldDiscardPublishesOnClose() throws Throwable {
+    channel.channelHandler.channelShutdown();
+    channel.proxy.basicPublish("x", "rk1", null, BODY);
+    channel.proxy.close();
+
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, false, null, BODY);
+    assertEquals(metrics.getPublishBufferDepth(), 0);
+  }
+
+  public void shouldNotBufferWithoutPolicy() throws Throwable {
+    config.withPublishBuffer(null);
+    channel.channelHandler.channelShutdown();
+    channel.proxy.basicPublish("x", "rk1", null, BODY);
+    verify(channel.delegate).basicPublish("x", "rk1", null, BODY);
+  }
+
+  private DefaultMetrics.Counters counters() {
+    return metrics.getChannelCounters(channel.channelHandler.toString());
+  }
+}
@@ -0,0 +1,135 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jodah.lyra.config.ConfigurableChannel;
+import net.jodah.lyra.reactive.OutboundMessage;
+import net.jodah.lyra.reactive.PublishingSubscriber;
+import net.jodah.lyra.reactive.Subscription;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.ConfirmListener;
+
+/**
+ * Tests publishing via a {@link PublishingSubscriber}.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class PublishingSubscriberTest extends AbstractFunctionalTest {
+  static final OutboundMessage MESSAGE = new OutboundMessage("x", "rk", null, new byte[10]);
+  MockChannel channel;
+  PublishingSubscriber subscriber;
+  TestSubscription subscription;
+
+  static class TestSubscription implements Subscription {
+    final AtomicLong requested = new AtomicLong();
+    volatile boolean cancelled;
+
+    @Override
+    public void request(long n) {
+      requested.addAndGet(n);
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    mockConnection();
+    channel = mockChannel(1);
+    when(channel.delegate.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L, 4L);
+    subscriber = ((ConfigurableChannel) channel.proxy).publishingSubscriber(2);
+    subscription = new TestSubscription();
+    subscriber.onSubscribe(subscription);
+  }
+
+  public void shouldRequestMessagesAsPublishesAreConfirmed() throws Throwable {
+    assertEquals(subscription.requested.get(), 2);
+    subscriber.onNext(MESSAGE);
+    subscriber.onNext(MESSAGE);
+    verifyPublishes(2);
+    assertEquals(subscriber.getInFlightCount(), 2);
+
+    ConfirmListener listener = confirmListener();
+    listener.handleAck(1, false);
+    awaitRequested(3);
+    subscriber.onNext(MESSAGE);
+    subscriber.onComplete();
+    assertTrue(!subscriber.getCompletion().isDone());
+
+    listener.handleAck(3, true);
+    subscriber.getCompletion().get(1, TimeUnit.SECONDS);
+    assertEquals(subscriber.getInFlightCount(), 0);
+  }
+
+  public void shouldHoldMessagesWhileChannelIsRecovered() throws Throwable {
+    channel.channelHandler.circuit.open();
+    subscriber.onNext(MESSAGE);
+    verifyPublishes(0);
+    assertEquals(subscriber.getInFlightCount(), 1);
+
+    channel.channelHandler.circuit.close();
+    verify(channel.delegate, timeout(1000)).basicPublish(anyString(), anyString(), anyBoolean(),
+        any(BasicProperties.class), any(byte[].class));
+  }
+
+  public void shouldFailWhenPublishIsNacked() throws Throwable {
+    subscriber.onNext(MESSAGE);
+    confirmListener().handleNack(1, false);
+
+    assertTrue(subscription.cancelled);
+    try {
+      subscriber.getCompletion().get(1, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+    }
+  }
+
+  public void shouldCancelAdditionalSubscriptions() {
+    TestSubscription other = new TestSubscription();
+    subscriber.onSubscribe(other);
+    assertTrue(other.cancelled);
+    assertEquals(other.requested.get(), 0);
+  }
+
+  private ConfirmListener confirmListener() {
+    ArgumentCaptor<ConfirmListener> captor = ArgumentCaptor.forClass(ConfirmListener.class);
+    verify(channel.delegate).addConfirmListener(captor.capture());
+    return captor.getValue();
+  }
+
+  private void verifyPublishes(int count) throws Exception {
+    verify(channel.delegate, count == 0 ? never() : times(count)).basicPublish(anyString(),
+        anyString(), anyBoolean(), any(BasicProperties.class), any(byte[].class));
+  }
+
+  private void awaitRequested(long expected) throws InterruptedException {
+    for (int i = 0; i < 100 && subscription.requested.get() < expected; i++)
+      Thread.sleep(10);
+    assertEquals(subscription.requested.get(), expected);
+  }
+}
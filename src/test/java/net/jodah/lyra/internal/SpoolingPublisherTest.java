@@ -0,0 +1,177 @@
+package net.jodah.lyra.internal;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.jodah.lyra.SpoolingPublisher;
+import net.jodah.lyra.config.BlockedPublishPolicy;
+import net.jodah.lyra.config.Config;
+import net.jodah.lyra.config.PublishBufferPolicy;
+import net.jodah.lyra.config.RecoveryPolicies;
+import net.jodah.lyra.config.RetryPolicies;
+import net.jodah.lyra.util.Duration;
+
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests publishes that are spooled to disk while a connection is unavailable.
+ *
+ * @author Jonathan Halterman
+ */
+@Test(groups = "functional")
+public class SpoolingPublisherTest extends AbstractFunctionalTest {
+  static final byte[] BODY = new byte[10];
+  File directory;
+  MockChannel channel;
+  SpoolingPublisher publisher;
+
+  @BeforeMethod
+  @Override
+  protected void beforeMethod() throws Exception {
+    super.beforeMethod();
+    config = new Config().withRetryPolicy(
+        RetryPolicies.retryAlways().withInterval(Duration.millis(10)))
+        .withRecoveryPolicy(RecoveryPolicies.recoverAlways());
+    mockConnection();
+    channel = mockChannel();
+    when(channel.delegate.waitForConfirms(anyLong())).thenReturn(true);
+    directory = File.createTempFile("lyra-spool", "");
+    directory.delete();
+    publisher = spoolingPublisher();
+  }
+
+  @AfterMethod
+  protected void afterMethod() {
+    publisher.close();
+    File[] files = directory.listFiles();
+    if (files != null)
+      for (File file : files)
+        file.delete();
+    directory.delete();
+  }
+
+  public void shouldPublishDirectlyWhenAvailable() throws Throwable {
+    publisher.publish("x", "rk", null, BODY);
+    verify(channel.delegate).basicPublish("x", "rk", false, false, null, BODY);
+    assertFalse(publisher.isSpooling());
+  }
+
+  public void shouldSpoolWhileConnectionIsRecovered() throws Throwable {
+    connectionHandler.circuit.open();
+    publisher.publish("x", "rk1", null, BODY);
+    publisher.publish("x", "rk2", null, BODY);
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, false, null, BODY);
+    assertEquals(publisher.getSpooledCount(), 2);
+
+    connectionHandler.circuit.close();
+    awaitSpoolDrained();
+    InOrder inOrder = inOrder(channel.delegate);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk1", false, false, null, BODY);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk2", false, false, null, BODY);
+    inOrder.verify(channel.delegate).waitForConfirms(anyLong());
+    assertEquals(directory.listFiles().length, 0);
+  }
+
+  public void shouldSpoolWhileConnectionIsBlocked() throws Throwable {
+    connectionHandler.blockedCircuit.open();
+    publisher.publish("x", "rk1", null, BODY);
+    verify(channel.delegate, never()).basicPublish("x", "rk1", false, false, null, BODY);
+
+    connectionHandler.blockedCircuit.close();
+    verify(channel.delegate, timeout(1000)).basicPublish("x", "rk1", false, false, null, BODY);
+    awaitSpoolDrained();
+  }
+
+  public void shouldSpoolFailedPublishes() throws Throwable {
+    doThrow(new IOException(retryableChannelShutdownSignal())).doNothing()
+        .when(channel.delegate).basicPublish("x", "rk1", false, false, null, BODY);
+    publisher.publish("x", "rk1", null, BODY);
+
+    verify(channel.delegate, timeout(1000).times(2)).basicPublish("x", "rk1", false, false, null,
+        BODY);
+    awaitSpoolDrained();
+  }
+
+  public void shouldSpoolFailedPublishesBeforeLaterPublishes() throws Throwable {
+    final CountDownLatch publishing = new CountDownLatch(1);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        publishing.countDown();
+        Thread.sleep(100);
+        throw new IOException(retryableChannelShutdownSignal());
+      }
+    }).doNothing().when(channel.delegate).basicPublish("x", "rk1", false, false, null, BODY);
+
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          publisher.publish("x", "rk1", null, BODY);
+        } catch (IOException ignore) {
+        }
+      }
+    });
+    thread.start();
+    assertTrue(publishing.await(1, TimeUnit.SECONDS));
+    publisher.publish("x", "rk2", null, BODY);
+    thread.join(1000);
+    awaitSpoolDrained();
+
+    InOrder inOrder = inOrder(channel.delegate);
+    inOrder.verify(channel.delegate, times(2)).basicPublish("x", "rk1", false, false, null, BODY);
+    inOrder.verify(channel.delegate).basicPublish("x", "rk2", false, false, null, BODY);
+  }
+
+  public void shouldNotBufferOrHoldPublishes() throws Throwable {
+    config.withPublishBuffer(new PublishBufferPolicy()).withBlockedPublishPolicy(
+        new BlockedPublishPolicy());
+    Config channelConfig = ((DiskSpoolingPublisher) publisher).channelHandler.config;
+    assertNull(channelConfig.getPublishBufferPolicy());
+    assertNull(channelConfig.getBlockedPublishPolicy());
+  }
+
+  public void shouldReplayUnconfirmedPublishesAfterRestart() throws Throwable {
+    when(channel.delegate.waitForConfirms(anyLong())).thenReturn(false);
+    connectionHandler.circuit.open();
+    publisher.publish("x", "rk1", null, BODY);
+    publisher.close();
+    connectionHandler.circuit.close();
+
+    when(channel.delegate.waitForConfirms(anyLong())).thenReturn(true);
+    publisher = spoolingPublisher();
+    verify(channel.delegate, timeout(1000)).basicPublish("x", "rk1", false, false, null, BODY);
+    awaitSpoolDrained();
+  }
+
+  private SpoolingPublisher spoolingPublisher() throws IOException {
+    return connectionHandler.spoolingPublisher(directory, 1024);
+  }
+
+  private void awaitSpoolDrained() throws InterruptedException {
+    for (int i = 0; i < 100 && publisher.isSpooling(); i++)
+      Thread.sleep(10);
+    assertTrue(!publisher.isSpooling());
+  }
+}
@@ -0,0 +1,89 @@
+package net.jodah.lyra.internal.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test
+public class AscendingLongMapTest {
+  AscendingLongMap<String> map;
+
+  @BeforeMethod
+  protected void createFixtures() {
+    map = new AscendingLongMap<String>(4);
+    for (long i = 1; i <= 6; i++)
+      map.put(i, "v" + i);
+  }
+
+  public void testGet() {
+    assertEquals(map.get(1), "v1");
+    assertEquals(map.get(6), "v6");
+    assertNull(map.get(7));
+    assertEquals(map.size(), 6);
+  }
+
+  public void testRemove() {
+    assertEquals(map.remove(3), "v3");
+    assertNull(map.remove(3));
+    assertNull(map.get(3));
+    assertEquals(map.remove(1), "v1");
+    assertEquals(map.size(), 4);
+    assertEquals(map.toString(), "{2=v2, 4=v4, 5=v5, 6=v6}");
+  }
+
+  public void testRemoveUpTo() {
+    map.remove(2);
+    List<String> removed = new ArrayList<String>();
+    map.removeUpTo(4, removed);
+    assertEquals(removed, Arrays.asList("v1", "v3", "v4"));
+    assertEquals(map.size(), 2);
+    assertEquals(map.get(5), "v5");
+  }
+
+  public void testRemoveAll() {
+    List<String> removed = new ArrayList<String>();
+    map.removeAll(removed);
+    assertEquals(removed, Arrays.asList("v1", "v2", "v3", "v4", "v5", "v6"));
+    assertTrue(map.isEmpty());
+
+    // Keys may start over once empty
+    map.put(1, "v1");
+    assertEquals(map.get(1), "v1");
+  }
+
+  public void testWrapAround() {
+    List<String> removed = new ArrayList<String>();
+    map.removeUpTo(5, removed);
+    for (long i = 7; i <= 10; i++)
+      map.put(i, "v" + i);
+    assertEquals(map.capacity(), 8);
+    assertEquals(map.toString(), "{6=v6, 7=v7, 8=v8, 9=v9, 10=v10}");
+    assertEquals(map.remove(9), "v9");
+    assertEquals(map.get(10), "v10");
+    removed.clear();
+    map.removeUpTo(10, removed);
+    assertEquals(removed, Arrays.asList("v6", "v7", "v8", "v10"));
+  }
+
+  public void testCompactsInsteadOfGrowing() {
+    for (long i = 7; i <= 8; i++)
+      map.put(i, "v" + i);
+    for (long i = 2; i <= 7; i++)
+      map.remove(i);
+    map.put(9, "v9");
+    assertEquals(map.capacity(), 8);
+    assertEquals(map.toString(), "{1=v1, 8=v8, 9=v9}");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldThrowOnDescendingPut() {
+    map.put(6, "v");
+  }
+}
@@ -0,0 +1,78 @@
+package net.jodah.lyra.internal.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test
+public class ConcurrentLinkedMapTest {
+  ConcurrentLinkedMap<String, Integer> map;
+
+  @BeforeMethod
+  protected void createFixtures() {
+    map = new ConcurrentLinkedMap<String, Integer>();
+    map.put("a", 1);
+    map.put("b", 2);
+    map.put("c", 3);
+  }
+
+  public void shouldPreserveInsertionOrder() {
+    map.put("a", 4);
+    map.put("d", 5);
+    assertEquals(new ArrayList<String>(map.keySet()), Arrays.asList("a", "b", "c", "d"));
+    assertEquals(new ArrayList<Integer>(map.values()), Arrays.asList(4, 2, 3, 5));
+  }
+
+  public void shouldRemove() {
+    assertEquals(map.remove("b"), Integer.valueOf(2));
+    assertNull(map.remove("b"));
+    assertFalse(map.containsKey("b"));
+    assertEquals(map.size(), 2);
+    map.put("b", 6);
+    assertEquals(new ArrayList<String>(map.keySet()), Arrays.asList("a", "c", "b"));
+  }
+
+  public void shouldRemoveTail() {
+    map.remove("c");
+    map.put("d", 4);
+    assertEquals(new ArrayList<String>(map.keySet()), Arrays.asList("a", "b", "d"));
+  }
+
+  public void shouldContinueIteratingAfterConcurrentRemoval() {
+    Iterator<Map.Entry<String, Integer>> it = map.entrySet().iterator();
+    assertEquals(it.next().getKey(), "a");
+    map.remove("a");
+    map.remove("b");
+    map.put("d", 4);
+    List<String> keys = new ArrayList<String>();
+    while (it.hasNext())
+      keys.add(it.next().getKey());
+    assertEquals(keys, Arrays.asList("c", "d"));
+  }
+
+  public void shouldRemoveViaIterator() {
+    for (Iterator<String> it = map.keySet().iterator(); it.hasNext();)
+      if (it.next().equals("b"))
+        it.remove();
+    assertEquals(new ArrayList<String>(map.keySet()), Arrays.asList("a", "c"));
+  }
+
+  public void shouldClear() {
+    Iterator<String> it = map.keySet().iterator();
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertFalse(it.hasNext());
+    map.put("d", 4);
+    assertEquals(new ArrayList<String>(map.keySet()), Arrays.asList("d"));
+  }
+}
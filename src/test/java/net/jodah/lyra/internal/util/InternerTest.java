@@ -0,0 +1,38 @@
+package net.jodah.lyra.internal.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+@Test
+public class InternerTest {
+  public void shouldShareEqualArguments() {
+    Map<String, Object> arguments = new HashMap<String, Object>();
+    arguments.put("x-match", "all");
+    Map<String, Object> shared = Interner.arguments(arguments);
+    assertSame(Interner.arguments(new HashMap<String, Object>(arguments)), shared);
+
+    arguments.put("x-match", "any");
+    assertEquals(shared.get("x-match"), "all");
+  }
+
+  public void shouldEvictUnreferencedArguments() throws Throwable {
+    Map<String, Object> arguments = new HashMap<String, Object>();
+    arguments.put("x-evicted", "true");
+    WeakReference<Map<String, Object>> ref = new WeakReference<Map<String, Object>>(
+        Interner.arguments(arguments));
+
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(ref.get());
+  }
+}
@@ -0,0 +1,40 @@
+package net.jodah.lyra.internal.util;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.Test;
+
+@Test
+public class StripedCounterTest {
+  public void shouldSumAcrossThreads() throws Throwable {
+    final StripedCounter counter = new StripedCounter(4);
+    final CountDownLatch latch = new CountDownLatch(8);
+    for (int i = 0; i < 8; i++)
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 10000; j++)
+            counter.increment();
+          counter.add(5);
+          latch.countDown();
+        }
+      }).start();
+
+    latch.await();
+    assertEquals(counter.sum(), 8 * 10005);
+  }
+
+  public void shouldSupportSingleStripe() {
+    StripedCounter counter = new StripedCounter(1);
+    counter.increment();
+    counter.add(-3);
+    assertEquals(counter.sum(), -2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldThrowOnInvalidStripes() {
+    new StripedCounter(0);
+  }
+}
@@ -1,7 +1,11 @@
 package net.jodah.lyra.internal.util.concurrent;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
 import net.jodah.concurrentunit.Waiter;
 import net.jodah.lyra.util.Duration;
 
@@ -143,4 +147,42 @@ public class ReentrantCircuitTest {
     circuit.close();
     waiter.await(500);
   }
+
+  public void shouldRunContinuationsWhenClosed() {
+    final AtomicInteger runs = new AtomicInteger();
+    Runnable continuation = new Runnable() {
+      @Override
+      public void run() {
+        runs.incrementAndGet();
+      }
+    };
+
+    circuit.whenClosed(continuation);
+    assertEquals(runs.get(), 1);
+
+    circuit.open();
+    circuit.whenClosed(continuation);
+    circuit.whenClosed(continuation);
+    assertEquals(runs.get(), 1);
+    circuit.close();
+    assertEquals(runs.get(), 3);
+    circuit.open();
+    circuit.close();
+    assertEquals(runs.get(), 3);
+  }
+
+  public void shouldRunContinuationsWhenInterrupted() throws Throwable {
+    final Waiter waiter = new Waiter();
+    circuit.open();
+    circuit.whenClosed(new Runnable() {
+      @Override
+      public void run() {
+        waiter.assertFalse(circuit.isClosed());
+        waiter.resume();
+      }
+    });
+
+    circuit.interruptWaiters();
+    waiter.await(100);
+  }
 }